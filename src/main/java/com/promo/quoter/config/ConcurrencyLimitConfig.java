@@ -0,0 +1,69 @@
+package com.promo.quoter.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.promo.quoter.implementations.AdaptiveConcurrencyLimiter;
+import com.promo.quoter.implementations.ConcurrencyLimitInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Separate adaptive concurrency limits for quoting and for placing orders, so that a slow database sheds
+ * confirmations early instead of queueing them on the connection pool. Holds share the confirm limit.
+ */
+@Configuration
+@ConditionalOnProperty(name = "cart.concurrency.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig implements WebMvcConfigurer {
+
+    private final AdaptiveConcurrencyLimiter quoteLimiter;
+    private final AdaptiveConcurrencyLimiter confirmLimiter;
+    private final ObjectMapper objectMapper;
+
+    @Value("${cart.concurrency.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    public ConcurrencyLimitConfig(@Qualifier("quoteConcurrencyLimiter") AdaptiveConcurrencyLimiter quoteLimiter,
+                                  @Qualifier("confirmConcurrencyLimiter") AdaptiveConcurrencyLimiter confirmLimiter,
+                                  ObjectMapper objectMapper) {
+        this.quoteLimiter = quoteLimiter;
+        this.confirmLimiter = confirmLimiter;
+        this.objectMapper = objectMapper;
+    }
+
+    @Bean
+    public static AdaptiveConcurrencyLimiter quoteConcurrencyLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${cart.concurrency.quote.initial-limit:50}") int initialLimit,
+            @Value("${cart.concurrency.quote.min-limit:5}") int minLimit,
+            @Value("${cart.concurrency.quote.max-limit:400}") int maxLimit,
+            @Value("${cart.concurrency.quote.latency-threshold-ms:250}") long latencyThresholdMs,
+            @Value("${cart.concurrency.backoff-ratio:0.9}") double backoffRatio) {
+        return new AdaptiveConcurrencyLimiter("quote", initialLimit, minLimit, maxLimit, latencyThresholdMs,
+                backoffRatio, meterRegistry, System::nanoTime);
+    }
+
+    @Bean
+    public static AdaptiveConcurrencyLimiter confirmConcurrencyLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${cart.concurrency.confirm.initial-limit:20}") int initialLimit,
+            @Value("${cart.concurrency.confirm.min-limit:2}") int minLimit,
+            @Value("${cart.concurrency.confirm.max-limit:150}") int maxLimit,
+            @Value("${cart.concurrency.confirm.latency-threshold-ms:500}") long latencyThresholdMs,
+            @Value("${cart.concurrency.backoff-ratio:0.9}") double backoffRatio) {
+        return new AdaptiveConcurrencyLimiter("confirm", initialLimit, minLimit, maxLimit, latencyThresholdMs,
+                backoffRatio, meterRegistry, System::nanoTime);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ConcurrencyLimitInterceptor(quoteLimiter, retryAfterSeconds, objectMapper))
+                .addPathPatterns("/cart/quote");
+        registry.addInterceptor(new ConcurrencyLimitInterceptor(confirmLimiter, retryAfterSeconds, objectMapper))
+                .addPathPatterns("/cart/confirm", "/cart/hold");
+    }
+}
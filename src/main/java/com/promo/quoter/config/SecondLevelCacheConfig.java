@@ -0,0 +1,92 @@
+package com.promo.quoter.config;
+
+import com.promo.quoter.entities.CatalogProduct;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.entities.Promotion;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache for promotions and the catalog fields of products, held in bounded on-heap
+ * Ehcache regions with a time-to-live. The {@link Product} entity itself is left out: its stock changes with every
+ * reservation, an instance's cache would not see the reservations made on others, and each JPQL stock update would
+ * evict the whole region. Quotes read name, category and price through {@link CatalogProduct}, which never changes
+ * once created, and stock in one query.
+ * <p>
+ * Each instance caches on its own heap. A promotion created, changed or removed through another instance is only
+ * seen here once the cached entry and the cached promotion list expire, so promotions can be served stale for up to
+ * the larger of {@code catalog.cache.promotions.ttl-seconds} and {@code catalog.cache.queries.ttl-seconds}.
+ * Changes made through this instance are seen at once. Hit and miss counts per region are under
+ * {@code /actuator/metrics/hibernate.second.level.cache.*}.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "catalog.cache.enabled", havingValue = "true", matchIfMissing = true)
+    public CacheManager hibernateCacheManager(
+            @Value("${catalog.cache.products.max-entries:10000}") long productEntries,
+            @Value("${catalog.cache.products.ttl-seconds:3600}") long productTtlSeconds,
+            @Value("${catalog.cache.promotions.max-entries:1000}") long promotionEntries,
+            @Value("${catalog.cache.promotions.ttl-seconds:30}") long promotionTtlSeconds,
+            @Value("${catalog.cache.queries.max-entries:1000}") long queryEntries,
+            @Value("${catalog.cache.queries.ttl-seconds:30}") long queryTtlSeconds) {
+        org.ehcache.config.Configuration configuration = ConfigurationBuilder.newConfigurationBuilder()
+                .withCache(CatalogProduct.CACHE_REGION, region(productEntries, productTtlSeconds))
+                .withCache(Promotion.CACHE_REGION, region(promotionEntries, promotionTtlSeconds))
+                .withCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(queryEntries, queryTtlSeconds))
+                // Last write time per table; an expired entry would let a stale query result through
+                .withCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                        CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                                ResourcePoolsBuilder.heap(10_000)))
+                .build();
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName());
+        // A manager of our own rather than the provider's default one, which every application context would share
+        return provider.getCacheManager(URI.create("urn:promo-quoter:hibernate:" + UUID.randomUUID()), configuration);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(ObjectProvider<CacheManager> hibernateCacheManager) {
+        return properties -> {
+            CacheManager cacheManager = hibernateCacheManager.getIfAvailable();
+            if (cacheManager == null) {
+                // hibernate-jcache on the classpath would otherwise be picked up with unbounded default regions
+                properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+                properties.put(AvailableSettings.USE_QUERY_CACHE, false);
+                return;
+            }
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+            // Every cached entity needs a configured, bounded region
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static CacheConfigurationBuilder<Object, Object> region(long maxEntries, long ttlSeconds) {
+        // Once full, Ehcache evicts a sampled least recently used entry per insert
+        return CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                        ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ttlSeconds)));
+    }
+}
@@ -2,6 +2,7 @@ package com.promo.quoter.config;
 
 import com.promo.quoter.jwt.JwtAuthEntryPoint;
 import com.promo.quoter.jwt.JwtAuthTokenFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -30,6 +31,8 @@ public class SecurityConfig {
 //                .cors(Customizer.withDefaults())
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(authz -> authz
+                        // Long polls finish on an async dispatch; the request was authorized when it arrived
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(
                                 "/swagger-resources/**",
                                 "/swagger-ui.html",
@@ -3,7 +3,11 @@ package com.promo.quoter.controllers;
 import com.promo.quoter.dtos.CartQuoteRequest;
 import com.promo.quoter.dtos.CartQuoteResponse;
 import com.promo.quoter.dtos.CartConfirmResponse;
+import com.promo.quoter.dtos.ConfirmTicket;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.services.AsyncConfirmService;
 import com.promo.quoter.services.CartService;
+import com.promo.quoter.services.StockHoldService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -15,9 +19,14 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.net.URI;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/cart")
@@ -27,6 +36,12 @@ import org.springframework.web.bind.annotation.*;
 public class CartController {
 
     private final CartService cartService;
+    private final StockHoldService stockHoldService;
+    // Only present with cart.confirm.async.enabled
+    private final Optional<AsyncConfirmService> asyncConfirmService;
+
+    @Value("${cart.confirm.async.max-wait-ms:30000}")
+    private long maxWaitMs;
 
     @PostMapping("/quote")
     @Operation(
@@ -200,4 +215,112 @@ public class CartController {
 
         return ResponseEntity.status(HttpStatus.CREATED).body(confirmation);
     }
-}
\ No newline at end of file
+
+    @PostMapping("/confirm/async")
+    @Operation(
+            summary = "Queue a cart confirmation",
+            description = "Accepts the cart into a waiting room and returns a ticket at once; the order is placed when " +
+                    "the ticket reaches the front of its SKU queue. Poll the ticket for the outcome"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Cart queued, see the Location header for the ticket",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ConfirmTicket.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request data"),
+            @ApiResponse(responseCode = "429", description = "The waiting room is full"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<ConfirmTicket> confirmCartAsync(
+            @Valid @RequestBody CartQuoteRequest request,
+            @Parameter(description = "Optional idempotency key; repeated requests return the same ticket while it is kept")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+
+        ConfirmTicket ticket = asyncConfirmService().submit(request, idempotencyKey);
+
+        return ResponseEntity.accepted()
+                .location(URI.create("/cart/confirm/tickets/" + ticket.getTicketId()))
+                .body(ticket);
+    }
+
+    @GetMapping("/confirm/tickets/{ticketId}")
+    @Operation(
+            summary = "Get a queued confirmation",
+            description = "Returns the ticket, with the order once CONFIRMED or the error once REJECTED. With waitMs the " +
+                    "request is held until the ticket is decided or the wait runs out (long poll)"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Current state of the ticket"),
+            @ApiResponse(responseCode = "404", description = "Ticket not found or expired"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public DeferredResult<ConfirmTicket> getConfirmTicket(
+            @PathVariable String ticketId,
+            @Parameter(description = "How long to wait for the outcome, in milliseconds; capped by the server")
+            @RequestParam(defaultValue = "0") long waitMs) {
+
+        ConfirmTicket ticket = asyncConfirmService().find(ticketId);
+        long wait = Math.min(Math.max(waitMs, 0), maxWaitMs);
+        DeferredResult<ConfirmTicket> result = new DeferredResult<>(Math.max(wait, 1),
+                () -> asyncConfirmService().find(ticketId));
+        if (ticket.getStatus() != ConfirmTicket.TicketStatus.QUEUED || wait == 0) {
+            result.setResult(ticket);
+        } else {
+            asyncConfirmService().completion(ticketId).thenAccept(result::setResult);
+        }
+        return result;
+    }
+
+    @PostMapping("/hold")
+    @Operation(
+            summary = "Hold stock for a cart",
+            description = "Reserves stock and creates a PENDING order that must be committed before the hold expires; " +
+                    "expired or released holds cancel the order and return the stock"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Stock held, order is PENDING until holdExpiresAt",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CartConfirmResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request data"),
+            @ApiResponse(responseCode = "404", description = "Product not found"),
+            @ApiResponse(responseCode = "409", description = "Insufficient stock"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<CartConfirmResponse> holdCart(
+            @Valid @RequestBody CartQuoteRequest request,
+            @Parameter(description = "Optional idempotency key; repeated requests return the same hold")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+
+        CartConfirmResponse hold = cartService.holdCart(request, idempotencyKey);
+
+        log.info("Stock held: orderId={}, expiresAt={}", hold.getOrderId(), hold.getHoldExpiresAt());
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(hold);
+    }
+
+    @PostMapping("/holds/{orderId}/commit")
+    @Operation(summary = "Commit a stock hold", description = "Turns a PENDING hold into a CONFIRMED order")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Order confirmed"),
+            @ApiResponse(responseCode = "404", description = "Order not found"),
+            @ApiResponse(responseCode = "409", description = "Hold expired or was released")
+    })
+    public ResponseEntity<CartConfirmResponse> commitHold(@PathVariable String orderId) {
+        return ResponseEntity.ok(stockHoldService.commit(orderId));
+    }
+
+    @PostMapping("/holds/{orderId}/release")
+    @Operation(summary = "Release a stock hold", description = "Cancels a PENDING order and returns its stock")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Order cancelled"),
+            @ApiResponse(responseCode = "404", description = "Order not found"),
+            @ApiResponse(responseCode = "409", description = "Order is already confirmed")
+    })
+    public ResponseEntity<CartConfirmResponse> releaseHold(@PathVariable String orderId) {
+        return ResponseEntity.ok(stockHoldService.release(orderId));
+    }
+
+    private AsyncConfirmService asyncConfirmService() {
+        return asyncConfirmService.orElseThrow(() -> new CustomException(
+                "Asynchronous confirmation is not enabled", HttpStatus.NOT_FOUND));
+    }
+}
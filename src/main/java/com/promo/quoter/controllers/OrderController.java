@@ -0,0 +1,118 @@
+package com.promo.quoter.controllers;
+
+import com.promo.quoter.dtos.CartConfirmResponse;
+import com.promo.quoter.dtos.OrderCancelDto;
+import com.promo.quoter.dtos.OrderHistoryDto;
+import com.promo.quoter.entities.Order;
+import com.promo.quoter.enums.CustomerSegment;
+import com.promo.quoter.services.OrderHistoryService;
+import com.promo.quoter.services.OrderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/orders")
+@RequiredArgsConstructor
+@Tag(name = "Orders", description = "Order history and cancellation operations")
+public class OrderController {
+
+    private final OrderService orderService;
+    private final OrderHistoryService orderHistoryService;
+
+    @GetMapping("/{orderId}")
+    @Operation(summary = "Look up an order",
+            description = "Returns the order totals and status; lines and applied promotions only with include=ITEMS,PROMOTIONS")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Order found"),
+            @ApiResponse(responseCode = "404", description = "Order not found"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<OrderHistoryDto.OrderSummary> getOrder(
+            @PathVariable String orderId,
+            @RequestParam(required = false) Set<OrderHistoryDto.Include> include) {
+        return ResponseEntity.ok(orderHistoryService.getOrder(orderId, include));
+    }
+
+    @GetMapping
+    @Operation(summary = "List orders",
+            description = "Lists orders newest first, optionally by status, segment and creation time (from inclusive, " +
+                    "to exclusive). Pass nextCursor back as cursor for the following page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "A page of orders"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, limit or date range"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<OrderHistoryDto.Page> listOrders(
+            @RequestParam(required = false) Order.OrderStatus status,
+            @RequestParam(required = false) CustomerSegment segment,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) Set<OrderHistoryDto.Include> include) {
+        OrderHistoryDto.Filter filter = OrderHistoryDto.Filter.builder()
+                .status(status)
+                .segment(segment)
+                .from(from)
+                .to(to)
+                .build();
+        return ResponseEntity.ok(orderHistoryService.listOrders(filter, cursor, limit, include));
+    }
+
+    @PostMapping("/{orderId}/cancel")
+    @Operation(summary = "Cancel an order",
+            description = "Cancels a CONFIRMED or PENDING order and returns its stock; cancelling again returns the cancelled order")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Order cancelled"),
+            @ApiResponse(responseCode = "404", description = "Order not found"),
+            @ApiResponse(responseCode = "409", description = "Order cannot be cancelled from its status"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<CartConfirmResponse> cancel(@PathVariable String orderId) {
+        return ResponseEntity.ok(orderService.cancel(orderId));
+    }
+
+    @PostMapping("/cancel")
+    @Operation(
+            summary = "Cancel orders in bulk",
+            description = "Cancels up to 10000 orders in one transaction and restores their stock with one update per SKU. " +
+                    "Orders already cancelled, unknown or not cancellable are reported and left alone",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    required = true,
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = OrderCancelDto.BulkCancelRequest.class),
+                            examples = @ExampleObject(value = """
+                                    {
+                                        "orderIds": ["ORD-2025-001234", "ORD-2025-001235"]
+                                    }
+                                    """)
+                    )
+            )
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Orders processed",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = OrderCancelDto.BulkCancelResponse.class))),
+            @ApiResponse(responseCode = "400", description = "No order ids, or more than 10000"),
+            @ApiResponse(responseCode = "409", description = "Orders or products are busy, please retry"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<OrderCancelDto.BulkCancelResponse> cancelAll(
+            @Valid @RequestBody OrderCancelDto.BulkCancelRequest request) {
+        return ResponseEntity.ok(orderService.cancelAll(request.getOrderIds()));
+    }
+}
@@ -2,6 +2,9 @@ package com.promo.quoter.controllers;
 
 import com.promo.quoter.dtos.ProductDto;
 import com.promo.quoter.entities.Product;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.services.ProductCatalogService;
+import com.promo.quoter.services.ProductImportService;
 import com.promo.quoter.services.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,10 +15,16 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("products")
@@ -24,6 +33,8 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductCatalogService productCatalogService;
+    private final ProductImportService productImportService;
 
     @PostMapping
     @Operation(
@@ -68,8 +79,71 @@ public class ProductController {
     public ResponseEntity<?> create(@Valid @org.springframework.web.bind.annotation.RequestBody ProductDto.CreateProductDto createProductDto) {
         return productService.create(createProductDto);
     }
-   @GetMapping
-    public List<Product> create() {
-        return productService.findAll();
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(
+            summary = "Import products in bulk",
+            description = "Streams a catalog as CSV with a name,category,price[,stock] header, or as one JSON product " +
+                    "per line. Rows are validated like single creates; invalid rows are reported by line and skipped"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "File processed; see the report for rows that failed"),
+            @ApiResponse(responseCode = "400", description = "CSV header is missing required columns")
+    })
+    public ResponseEntity<ProductDto.ImportReport> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        ProductDto.ImportFormat format = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType))
+                ? ProductDto.ImportFormat.NDJSON
+                : ProductDto.ImportFormat.CSV;
+        return ResponseEntity.ok(productImportService.importProducts(body, format));
+    }
+
+    @GetMapping
+    @Operation(
+            summary = "List products",
+            description = "Lists products in id order, a page at a time, optionally in one category and limited to " +
+                    "some of NAME, CATEGORY, PRICE and STOCK. Pass nextCursor back as cursor for the following page"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "A page of products"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit")
+    })
+    public ResponseEntity<ProductDto.CatalogPage> list(
+            @RequestParam(required = false) ProductCategory category,
+            @RequestParam(required = false) Set<ProductDto.Field> fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(productCatalogService.listProducts(category, fields, cursor, limit));
+    }
+
+    @GetMapping("/stream")
+    @Operation(
+            summary = "Stream the catalog",
+            description = "Writes every product, optionally in one category and limited to some fields, as one " +
+                    "JSON array while it is read from the database"
+    )
+    public ResponseEntity<StreamingResponseBody> stream(
+            @RequestParam(required = false) ProductCategory category,
+            @RequestParam(required = false) Set<ProductDto.Field> fields) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> productCatalogService.streamProducts(category, fields, out));
+    }
+
+    @PostMapping("/{id}/striping")
+    @Operation(
+            summary = "Stripe a product's stock",
+            description = "Splits the stock of a hot product across several bucket rows so that concurrent " +
+                    "confirmations do not queue on one row; the product keeps showing its total stock"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stock striped"),
+            @ApiResponse(responseCode = "400", description = "Invalid bucket count"),
+            @ApiResponse(responseCode = "404", description = "Product not found"),
+            @ApiResponse(responseCode = "409", description = "Product already striped, or striping unsupported")
+    })
+    public ResponseEntity<Product> enableStriping(@PathVariable UUID id,
+                                                  @Valid @org.springframework.web.bind.annotation.RequestBody ProductDto.StripingDto stripingDto) {
+        return ResponseEntity.ok(productService.enableStriping(id, stripingDto.getBuckets()));
     }
 }
@@ -1,6 +1,7 @@
 // CartConfirmResponse.java
 package com.promo.quoter.dtos;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -21,6 +22,9 @@ public class CartConfirmResponse {
     private List<ReservedItem> reservedItems;
     private List<AppliedPromotion> appliedPromotions;
     private LocalDateTime createdAt;
+    // Only set while the order is a PENDING hold
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDateTime holdExpiresAt;
 
     @Data
     @NoArgsConstructor
@@ -48,7 +52,8 @@ public class CartConfirmResponse {
     public enum OrderStatus {
         CONFIRMED,
         PENDING,
-        FAILED
+        FAILED,
+        CANCELLED
     }
 }
 
@@ -4,6 +4,7 @@ import com.promo.quoter.enums.CustomerSegment;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -32,6 +33,7 @@ public class CartQuoteRequest {
         private String productId;
         
         @NotNull(message = "Quantity is required")
+        @Positive(message = "Quantity must be greater than 0")
         private Integer qty;
     }
 }
\ No newline at end of file
@@ -31,6 +31,8 @@ public class CartQuoteResponse {
         private BigDecimal lineTotal;
         private BigDecimal discountAmount;
         private BigDecimal finalLineTotal;
+        // Stock left after confirmed orders and live holds
+        private Integer availableStock;
     }
 
     @Data
@@ -0,0 +1,155 @@
+package com.promo.quoter.dtos;
+
+import com.promo.quoter.enums.CustomerSegment;
+import com.promo.quoter.exception.InvalidCartException;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Validated cart in primitive form: one line per distinct product, in first-seen order.
+ * Product ids are kept as two {@code long} halves and quantities as {@code int}, indexed by line.
+ * It is built from the bound {@link CartQuoteRequest}, so it is a second, folded copy of the cart rather
+ * than a replacement for the request objects; what it buys is validation and duplicate folding in one pass
+ * before any database work, and by-index access for pricing and reservation.
+ */
+public final class CompactCart {
+
+    private final long[] mostSigBits;
+    private final long[] leastSigBits;
+    private final int[] quantities;
+    private final int size;
+    @Getter
+    private final CustomerSegment customerSegment;
+
+    private CompactCart(Builder builder) {
+        this.mostSigBits = Arrays.copyOf(builder.mostSigBits, builder.size);
+        this.leastSigBits = Arrays.copyOf(builder.leastSigBits, builder.size);
+        this.quantities = Arrays.copyOf(builder.quantities, builder.size);
+        this.size = builder.size;
+        this.customerSegment = builder.customerSegment;
+    }
+
+    public static Builder builder(int expectedLines) {
+        return new Builder(expectedLines);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public UUID productId(int index) {
+        return new UUID(mostSigBits[index], leastSigBits[index]);
+    }
+
+    public int quantity(int index) {
+        return quantities[index];
+    }
+
+    public List<UUID> productIds() {
+        List<UUID> productIds = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            productIds.add(productId(i));
+        }
+        return productIds;
+    }
+
+    public static final class Builder {
+        private long[] mostSigBits;
+        private long[] leastSigBits;
+        private int[] quantities;
+        private int size;
+        // Open-addressing index over the lines: slot holds line index + 1, 0 marks a free slot
+        private int[] slots;
+        private CustomerSegment customerSegment;
+
+        private Builder(int expectedLines) {
+            int capacity = Math.max(expectedLines, 4);
+            this.mostSigBits = new long[capacity];
+            this.leastSigBits = new long[capacity];
+            this.quantities = new int[capacity];
+            this.slots = new int[tableSize(capacity)];
+        }
+
+        public Builder customerSegment(CustomerSegment customerSegment) {
+            this.customerSegment = customerSegment;
+            return this;
+        }
+
+        /**
+         * Adds a line, folding it into the existing line when the product was already seen.
+         */
+        public Builder add(UUID productId, int quantity) {
+            if (quantity <= 0) {
+                throw new InvalidCartException("Quantity must be greater than 0 for product " + productId);
+            }
+            long msb = productId.getMostSignificantBits();
+            long lsb = productId.getLeastSignificantBits();
+
+            int mask = slots.length - 1;
+            int slot = hash(msb, lsb) & mask;
+            while (slots[slot] != 0) {
+                int index = slots[slot] - 1;
+                if (mostSigBits[index] == msb && leastSigBits[index] == lsb) {
+                    try {
+                        quantities[index] = Math.addExact(quantities[index], quantity);
+                    } catch (ArithmeticException e) {
+                        throw new InvalidCartException("Quantity is too large for product " + productId);
+                    }
+                    return this;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            if (size == quantities.length) {
+                grow();
+                return add(productId, quantity);
+            }
+            mostSigBits[size] = msb;
+            leastSigBits[size] = lsb;
+            quantities[size] = quantity;
+            slots[slot] = ++size;
+            return this;
+        }
+
+        public CompactCart build() {
+            return new CompactCart(this);
+        }
+
+        private void grow() {
+            int capacity = quantities.length * 2;
+            mostSigBits = Arrays.copyOf(mostSigBits, capacity);
+            leastSigBits = Arrays.copyOf(leastSigBits, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            slots = new int[tableSize(capacity)];
+            int mask = slots.length - 1;
+            for (int index = 0; index < size; index++) {
+                int slot = hash(mostSigBits[index], leastSigBits[index]) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = index + 1;
+            }
+        }
+
+        private static int tableSize(int capacity) {
+            // Keep the load factor at or below 0.5
+            return Integer.highestOneBit(capacity * 2 - 1) << 1;
+        }
+
+        private static int hash(long msb, long lsb) {
+            long h = msb ^ lsb;
+            h ^= (h >>> 33);
+            h *= 0xff51afd7ed558ccdL;
+            h ^= (h >>> 33);
+            return (int) h;
+        }
+    }
+}
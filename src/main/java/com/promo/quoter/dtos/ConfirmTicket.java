@@ -0,0 +1,28 @@
+package com.promo.quoter.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ConfirmTicket {
+    private String ticketId;
+    private TicketStatus status;
+    // Set once CONFIRMED
+    private CartConfirmResponse response;
+    // HTTP status and message the synchronous confirm would have failed with; set once REJECTED
+    private Integer errorCode;
+    private String errorMessage;
+
+    public enum TicketStatus {
+        QUEUED,
+        CONFIRMED,
+        REJECTED
+    }
+}
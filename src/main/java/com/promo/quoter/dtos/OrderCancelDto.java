@@ -0,0 +1,39 @@
+package com.promo.quoter.dtos;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+public class OrderCancelDto {
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BulkCancelRequest {
+        @NotEmpty(message = "Order ids cannot be empty")
+        @Size(max = 10000, message = "At most 10000 orders can be cancelled at once")
+        private List<String> orderIds;
+    }
+
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BulkCancelResponse {
+        // Orders cancelled by this request; repeating it cancels nothing more
+        private int cancelled;
+        private int alreadyCancelled;
+        private List<String> notFound;
+        // Orders whose status does not allow cancelling, such as FAILED
+        private List<String> notCancellable;
+        // Acknowledged orders still waiting in the order journal; retry them shortly
+        private List<String> stillRecording;
+    }
+}
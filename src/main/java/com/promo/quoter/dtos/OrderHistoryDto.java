@@ -0,0 +1,96 @@
+package com.promo.quoter.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.promo.quoter.entities.Order;
+import com.promo.quoter.enums.CustomerSegment;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+@Builder
+public class OrderHistoryDto {
+
+    /**
+     * Optional parts of an order, read only when asked for.
+     */
+    public enum Include {
+        ITEMS,
+        PROMOTIONS
+    }
+
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Filter {
+        private Order.OrderStatus status;
+        private CustomerSegment segment;
+        // Inclusive
+        private LocalDateTime from;
+        // Exclusive
+        private LocalDateTime to;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class OrderSummary {
+        @JsonIgnore
+        private UUID id;
+        private String orderId;
+        private Order.OrderStatus status;
+        private CustomerSegment customerSegment;
+        private BigDecimal subtotal;
+        private BigDecimal totalDiscount;
+        private BigDecimal finalTotal;
+        private LocalDateTime createdAt;
+        private LocalDateTime updatedAt;
+        // Null unless requested with include
+        private List<Line> items;
+        private List<AppliedPromotion> appliedPromotions;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Line {
+        private String productId;
+        private Integer quantity;
+        private BigDecimal unitPrice;
+        private BigDecimal lineTotal;
+        private BigDecimal discountAmount;
+        private BigDecimal finalLineTotal;
+        private LocalDateTime reservedAt;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class AppliedPromotion {
+        private String promotionId;
+        private String promotionType;
+        private String description;
+        private BigDecimal discountAmount;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Page {
+        private List<OrderSummary> orders;
+        // Pass back as cursor for the next page; null on the last page
+        private String nextCursor;
+    }
+}
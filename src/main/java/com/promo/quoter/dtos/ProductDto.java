@@ -2,9 +2,11 @@ package com.promo.quoter.dtos;
 
 import com.promo.quoter.enums.ProductCategory;
 import jakarta.validation.constraints.*;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 @Getter
@@ -14,6 +16,8 @@ public class ProductDto {
     @Getter
     @Setter
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class CreateProductDto {
         @NotBlank(message = "Product name must not be blank")
         @Size(max = 100, message = "Product name must be at most 100 characters")
@@ -35,4 +39,79 @@ public class ProductDto {
         private String status;
         private String description;
     }
+
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StripingDto {
+        @Min(value = 2, message = "Striping needs at least 2 buckets")
+        @Max(value = 256, message = "Striping supports at most 256 buckets")
+        private int buckets;
+    }
+
+    /**
+     * Catalog columns a listing can be limited to; the id is always returned.
+     */
+    public enum Field {
+        NAME,
+        CATEGORY,
+        PRICE,
+        STOCK
+    }
+
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class CatalogItem {
+        private UUID id;
+        private String name;
+        private ProductCategory category;
+        private BigDecimal price;
+        // Bucket total for striped products
+        private Integer stock;
+    }
+
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CatalogPage {
+        private List<CatalogItem> products;
+        // Pass back as cursor for the next page; null on the last page
+        private String nextCursor;
+    }
+
+    public enum ImportFormat {
+        CSV,
+        NDJSON
+    }
+
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ImportReport {
+        private long imported;
+        private long failed;
+        // The first rows that failed, up to catalog.import.max-reported-errors
+        private List<RowError> errors;
+    }
+
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        // Line in the uploaded file, counting from 1
+        private long line;
+        private String message;
+    }
 }
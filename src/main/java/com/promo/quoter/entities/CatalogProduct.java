@@ -0,0 +1,36 @@
+package com.promo.quoter.entities;
+
+import com.promo.quoter.enums.ProductCategory;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Read-only view of the fields of {@link Product} that never change once it is created, cached in the
+ * second-level cache. Stock and striping change with every reservation, on every instance, so they are left out
+ * and always read from the database.
+ */
+@Entity
+@Table(name = "product")
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = CatalogProduct.CACHE_REGION)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Builder
+public class CatalogProduct {
+    public static final String CACHE_REGION = "catalog-products";
+
+    @Id
+    private UUID id;
+    private String name;
+    @Enumerated(EnumType.STRING)
+    private ProductCategory category;
+    private BigDecimal price;
+}
@@ -0,0 +1,28 @@
+package com.promo.quoter.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Inserted first in the transaction that places an order for an idempotency key. A concurrent transaction
+ * with the same key, on any instance, blocks on the primary key until the first one ends: it then fails with a
+ * duplicate key if the order was committed, or goes ahead if it was rolled back.
+ */
+@Entity
+@Table(name = "idempotency_claims")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyClaim {
+    @Id
+    private String idempotencyKey;
+    private LocalDateTime claimedAt;
+}
@@ -0,0 +1,29 @@
+package com.promo.quoter.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Written in the same transaction as a batch of ledger stock updates, so that recovery can tell
+ * which journaled batches already reached the {@code product} table.
+ */
+@Entity
+@Table(name = "inventory_ledger_flushes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryLedgerFlush {
+    @Id
+    private UUID batchId;
+    private int reservations;
+    private LocalDateTime flushedAt;
+}
@@ -0,0 +1,28 @@
+package com.promo.quoter.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Inserted in the transaction that reserves the stock of a journaled order and deleted when the order is applied.
+ * A journal record replayed after a crash is applied only if its marker is there, that is, only if its
+ * reservation was committed.
+ */
+@Entity
+@Table(name = "journaled_order_markers")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JournaledOrderMarker {
+    @Id
+    private String orderId;
+    private LocalDateTime journaledAt;
+}
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -18,7 +19,7 @@ import java.util.UUID;
 @Builder
 public class OrderItem {
     @Id
-    @GeneratedValue
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     private UUID id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -38,6 +39,8 @@ public class OrderItem {
 
     @PrePersist
     protected void onCreate() {
-        reservedAt = LocalDateTime.now();
+        if (reservedAt == null) {
+            reservedAt = LocalDateTime.now();
+        }
     }
 }
\ No newline at end of file
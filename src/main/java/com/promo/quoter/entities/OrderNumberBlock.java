@@ -0,0 +1,25 @@
+package com.promo.quoter.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Database-backed sequence of order number blocks: each replica reserves the next block with one short
+ * transaction and then issues the numbers in it from memory.
+ */
+@Entity
+@Table(name = "order_number_blocks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderNumberBlock {
+    @Id
+    private String name;
+    private long nextBlock;
+}
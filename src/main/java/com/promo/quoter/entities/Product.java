@@ -5,10 +5,13 @@ import jakarta.persistence.Entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.math.BigDecimal;
 import java.util.UUID;
 
+// Not in the second-level cache: stock changes with every reservation, on every instance
 @Entity
 @Data
 @NoArgsConstructor
@@ -16,11 +19,20 @@ import java.util.UUID;
 @Builder
 public class Product {
     @Id
-    @GeneratedValue
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     private UUID id;
     private String name;
     @Enumerated(EnumType.STRING)
     private ProductCategory category;
     private BigDecimal price;
     private int stock;
+    // Striped products keep their stock in product_stock_buckets
+    @Column(nullable = false)
+    @ColumnDefault("false")
+    private boolean striped;
+    // Bumped by every stock write, including the bulk updates in ProductRepository
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
 }
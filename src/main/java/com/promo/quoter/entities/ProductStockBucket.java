@@ -0,0 +1,34 @@
+package com.promo.quoter.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * One stripe of a striped product's stock. The stock of a striped product is the sum of its buckets,
+ * numbered {@code 0..n-1}, and {@link Product#getStock()} stays at zero.
+ */
+@Entity
+@Table(name = "product_stock_buckets",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"product_id", "bucket_index"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductStockBucket {
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(name = "product_id", nullable = false)
+    private UUID productId;
+
+    @Column(name = "bucket_index", nullable = false)
+    private int bucketIndex;
+
+    private int stock;
+}
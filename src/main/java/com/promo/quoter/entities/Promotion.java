@@ -6,6 +6,8 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.util.UUID;
@@ -13,11 +15,16 @@ import java.util.UUID;
 @Entity
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "promo_type")
+// One region for the whole hierarchy; the subclasses are cached with their root
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Promotion.CACHE_REGION)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @SuperBuilder
 public abstract class Promotion {
+    public static final String CACHE_REGION = "promotions";
+
     @Id
     @GeneratedValue
     private UUID id;
@@ -0,0 +1,27 @@
+package com.promo.quoter.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Single row written to the primary on a fixed interval and read back from the read replica; the age of the
+ * replicated value is the replica's lag. Only mapped so the table is created and replicated with the schema.
+ */
+@Entity
+@Table(name = "replica_heartbeat")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReplicaHeartbeat {
+    @Id
+    private int id;
+    @Column(nullable = false)
+    private long beatMillis;
+}
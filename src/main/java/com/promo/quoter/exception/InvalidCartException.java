@@ -0,0 +1,7 @@
+package com.promo.quoter.exception;
+
+public class InvalidCartException extends IllegalArgumentException {
+    public InvalidCartException(String message) {
+        super(message);
+    }
+}
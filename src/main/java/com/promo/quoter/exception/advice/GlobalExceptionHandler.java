@@ -3,6 +3,7 @@ package com.promo.quoter.exception.advice;
 import com.fasterxml.jackson.databind.exc.MismatchedInputException;
 import com.promo.quoter.exception.CustomException;
 import com.promo.quoter.exception.ErrorResponse;
+import com.promo.quoter.exception.InvalidCartException;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.MessageSource;
@@ -125,6 +126,13 @@ public class GlobalExceptionHandler extends MessageSourceAdviceCtrl {
                 .body(new ErrorResponse(e.getStatus().toString(), e.getMessage()));
     }
 
+    @ExceptionHandler(InvalidCartException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCartException(InvalidCartException e) {
+        log.error("Invalid cart... {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse(HttpStatus.BAD_REQUEST.toString(), e.getMessage()));
+    }
+
     // Add a general exception handler as fallback
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGeneralException(Exception e) {
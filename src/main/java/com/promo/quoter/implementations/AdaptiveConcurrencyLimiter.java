@@ -0,0 +1,106 @@
+package com.promo.quoter.implementations;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrency limit that adapts to observed latency (additive increase, multiplicative decrease).
+ * <p>
+ * A request that finishes within the latency threshold while at least half the limit is in use raises the limit
+ * by {@code 1 / limit}, so about one per limit's worth of requests. A request that is slower than the threshold,
+ * or fails, multiplies the limit by the backoff ratio, at most once per threshold so that a burst of slow
+ * responses counts as a single signal. Requests over the limit are refused at once instead of queueing.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    @FunctionalInterface
+    public interface Permit {
+        /**
+         * @param failed whether the request failed in a way that points to overload, such as a 5xx
+         */
+        void release(boolean failed);
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+    // Guarded by this for updates
+    private volatile double limit;
+    private long lastBackoffNanos;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      long latencyThresholdMs, double backoffRatio,
+                                      MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Concurrency limits of " + name + " must satisfy 1 <= min <= max");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio of " + name + " must be between 0 and 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.backoffRatio = backoffRatio;
+        this.nanoClock = nanoClock;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.lastBackoffNanos = nanoClock.getAsLong() - latencyThresholdNanos;
+        Gauge.builder("http.concurrency.limit", this, AdaptiveConcurrencyLimiter::limit)
+                .tag("endpoint", name)
+                .register(meterRegistry);
+        Gauge.builder("http.concurrency.in_flight", inFlight, AtomicInteger::get)
+                .tag("endpoint", name)
+                .register(meterRegistry);
+        this.rejected = meterRegistry.counter("http.concurrency.rejected", "endpoint", name);
+    }
+
+    /**
+     * @return a permit to release when the request completes, or empty when the limit is reached
+     */
+    public Optional<Permit> tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit()) {
+                rejected.increment();
+                return Optional.empty();
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                long started = nanoClock.getAsLong();
+                return Optional.of(failed -> onRelease(nanoClock.getAsLong() - started, current + 1, failed));
+            }
+        }
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private void onRelease(long latencyNanos, int inFlightAtStart, boolean failed) {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            if (failed || latencyNanos > latencyThresholdNanos) {
+                long now = nanoClock.getAsLong();
+                if (now - lastBackoffNanos >= latencyThresholdNanos) {
+                    lastBackoffNanos = now;
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                }
+            } else if (inFlightAtStart * 2 >= limit) {
+                // An unused limit says nothing about capacity, so only a busy one grows
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.promo.quoter.implementations;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only file of length- and CRC-framed records.
+ * <p>
+ * {@link #append} only writes to the page cache and returns the logical end position of the record;
+ * {@link #sync} makes everything up to that position durable. Concurrent callers of {@code sync} share
+ * a single {@code fsync} (group commit). A torn or corrupt tail left by a crash is dropped on open.
+ */
+public class AppendOnlyJournal implements Closeable {
+
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final Object syncLock = new Object();
+    // Physical end of the file; guarded by this
+    private long writePosition;
+    // Bytes dropped by truncation, so logical positions keep increasing; guarded by this
+    private long truncatedBytes;
+    private volatile long syncedPosition;
+
+    public AppendOnlyJournal(Path path) {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.writePosition = scan(channel.size(), null);
+            channel.truncate(writePosition);
+            this.syncedPosition = writePosition;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open journal " + path, e);
+        }
+    }
+
+    public synchronized long append(ByteBuffer payload) {
+        int length = payload.remaining();
+        if (length == 0 || length > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("Journal record size out of range: " + length);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + length);
+        record.putInt(length).putInt((int) crc.getValue()).put(payload).flip();
+        try {
+            while (record.hasRemaining()) {
+                writePosition += channel.write(record, writePosition);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to journal", e);
+        }
+        return truncatedBytes + writePosition;
+    }
+
+    public void sync(long position) {
+        if (syncedPosition >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            // Another caller may have forced our record while we waited
+            if (syncedPosition >= position) {
+                return;
+            }
+            long target;
+            synchronized (this) {
+                target = truncatedBytes + writePosition;
+            }
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot sync journal", e);
+            }
+            syncedPosition = target;
+        }
+    }
+
+    public synchronized List<ByteBuffer> readAll() {
+        List<ByteBuffer> records = new ArrayList<>();
+        try {
+            scan(writePosition, records);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read journal", e);
+        }
+        return records;
+    }
+
+    public synchronized long size() {
+        return writePosition;
+    }
+
+    public synchronized void truncate() {
+        try {
+            channel.truncate(0);
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot truncate journal", e);
+        }
+        truncatedBytes += writePosition;
+        writePosition = 0;
+    }
+
+    /**
+     * Truncates the journal if {@code condition} holds; appends cannot interleave with the check.
+     */
+    public synchronized boolean truncateIf(BooleanSupplier condition) {
+        if (!condition.getAsBoolean()) {
+            return false;
+        }
+        truncate();
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close journal", e);
+        }
+    }
+
+    // Returns the length of the valid prefix, collecting record payloads if a list is given
+    private long scan(long limit, List<ByteBuffer> records) throws IOException {
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (position + HEADER_BYTES <= limit) {
+            header.clear();
+            readFully(header, position);
+            int length = header.getInt(0);
+            int checksum = header.getInt(Integer.BYTES);
+            if (length <= 0 || length > MAX_RECORD_BYTES || position + HEADER_BYTES + length > limit) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, position + HEADER_BYTES);
+            CRC32C crc = new CRC32C();
+            crc.update(payload.flip().duplicate());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            if (records != null) {
+                records.add(payload);
+            }
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of journal");
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.services.OrderNumberGenerator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Year;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Issues order numbers from blocks of {@code orders.number.block-size} reserved in the database, so replicas
+ * never overlap and only one in every block of orders waits for a round trip, if any. Numbers grow over time on
+ * each replica but interleave by block across replicas.
+ * <p>
+ * The next block is reserved on a dedicated thread once half of the current one is used, and the first one at
+ * startup. Orders are numbered inside their transaction, holding a connection and product locks, so they never
+ * reserve a block themselves: that would take a second pooled connection per exhausted block and, with the pool
+ * drained by waiting orders, stall until the pool timeout.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "orders.number.generator", havingValue = "block", matchIfMissing = true)
+public class BlockOrderNumberGenerator implements OrderNumberGenerator, SmartInitializingSingleton {
+
+    private final OrderNumberBlockAllocator allocator;
+    private final int blockSize;
+    private final ExecutorService prefetcher = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("order-number-prefetch").daemon().factory());
+    // Starts exhausted so the first order takes the block reserved at startup
+    private volatile Block block = new Block(0, 0, 0);
+    // Guarded by this
+    private CompletableFuture<Block> nextBlock;
+
+    public BlockOrderNumberGenerator(OrderNumberBlockAllocator allocator,
+                                     @Value("${orders.number.block-size:1000}") int blockSize) {
+        this.allocator = allocator;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        prefetch();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        prefetcher.shutdownNow();
+    }
+
+    @Override
+    public String next() {
+        String digits = Long.toString(nextNumber());
+        // Same six-digit minimum width as String.format("%06d"), without parsing a format on every order
+        return "ORD-" + Year.now().getValue() + "-" + "000000".substring(Math.min(6, digits.length())) + digits;
+    }
+
+    private long nextNumber() {
+        while (true) {
+            Block current = block;
+            long number = current.next.getAndIncrement();
+            if (number < current.end) {
+                // Exactly one order passes the halfway mark of each block
+                if (number == current.prefetchAt) {
+                    prefetch();
+                }
+                return number;
+            }
+            synchronized (this) {
+                // Only the first thread to find the block exhausted moves on to the next one
+                if (block == current) {
+                    CompletableFuture<Block> reserved = prefetch();
+                    nextBlock = null;
+                    block = join(reserved);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the block being reserved, starting a reservation unless one is under way or already done
+     */
+    private synchronized CompletableFuture<Block> prefetch() {
+        if (nextBlock == null || nextBlock.isCompletedExceptionally()) {
+            nextBlock = CompletableFuture.supplyAsync(this::reserve, prefetcher);
+        }
+        return nextBlock;
+    }
+
+    private Block reserve() {
+        long start = allocator.allocate() * blockSize + 1;
+        log.debug("Reserved order numbers {} to {}", start, start + blockSize - 1);
+        return new Block(start, start + blockSize, start + blockSize / 2);
+    }
+
+    private static Block join(CompletableFuture<Block> reserved) {
+        try {
+            return reserved.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Block {
+        final AtomicLong next;
+        final long end;
+        final long prefetchAt;
+
+        Block(long start, long end, long prefetchAt) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+            this.prefetchAt = prefetchAt;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.dtos.CartQuoteRequest;
+import com.promo.quoter.dtos.CompactCart;
+import com.promo.quoter.exception.InvalidCartException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * First stage of quote and confirm: validates every cart line and folds duplicate products into a
+ * single {@link CompactCart} line, so nothing downstream touches the database for a bad cart.
+ */
+@Component
+public class CartIngestor {
+
+    private static final int UUID_LENGTH = 36;
+
+    public CompactCart ingest(CartQuoteRequest request) {
+        List<CartQuoteRequest.CartItem> items = request.getItems() == null ? List.of() : request.getItems();
+        CompactCart.Builder builder = CompactCart.builder(items.size())
+                .customerSegment(request.getCustomerSegment());
+
+        for (int i = 0; i < items.size(); i++) {
+            CartQuoteRequest.CartItem item = items.get(i);
+            if (item == null || item.getProductId() == null) {
+                throw new InvalidCartException("Product ID is required for item " + i);
+            }
+            if (item.getQty() == null) {
+                throw new InvalidCartException("Quantity is required for product " + item.getProductId());
+            }
+            builder.add(parseProductId(item.getProductId()), item.getQty());
+        }
+        return builder.build();
+    }
+
+    private UUID parseProductId(String productId) {
+        // UUID.fromString also accepts short forms such as "1-2-3-4-5", so insist on the canonical length
+        if (productId.length() != UUID_LENGTH) {
+            throw new InvalidCartException("Invalid product ID: " + productId);
+        }
+        try {
+            return UUID.fromString(productId);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCartException("Invalid product ID: " + productId);
+        }
+    }
+}
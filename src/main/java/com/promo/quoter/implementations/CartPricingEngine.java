@@ -0,0 +1,264 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.dtos.CartQuoteResponse;
+import com.promo.quoter.dtos.CompactCart;
+import com.promo.quoter.entities.BuyXGetYPromotion;
+import com.promo.quoter.entities.PercentOffCategoryPromotion;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.entities.Promotion;
+import com.promo.quoter.enums.ProductCategory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Prices a cart against already loaded products and promotions.
+ * <p>
+ * Carts with at least {@code cart.pricing.parallel-threshold} lines are priced on a dedicated
+ * {@link ForkJoinPool}: line totals are computed in parallel partitions and percent-off promotions
+ * are applied per category in parallel. Every parallel step uses ordered streams and exact
+ * {@link BigDecimal} arithmetic, so the result is identical to the sequential path.
+ */
+@Component
+@Slf4j
+public class CartPricingEngine {
+
+    private final int parallelThreshold;
+    private final ForkJoinPool pricingPool;
+
+    public CartPricingEngine(@Value("${cart.pricing.parallel-threshold:1000}") int parallelThreshold,
+                             @Value("${cart.pricing.parallelism:0}") int parallelism) {
+        this.parallelThreshold = parallelThreshold;
+        this.pricingPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pricingPool.shutdown();
+    }
+
+    public boolean isParallel(int lineCount) {
+        return lineCount >= parallelThreshold;
+    }
+
+    public CartQuoteResponse price(CompactCart cart,
+                                   Map<UUID, Product> productMap,
+                                   List<Promotion> activePromotions) {
+        return price(cart, productMap, activePromotions, Map.of());
+    }
+
+    /**
+     * @param stripedStock total stock of striped products, whose own stock column stays at zero
+     */
+    public CartQuoteResponse price(CompactCart cart,
+                                   Map<UUID, Product> productMap,
+                                   List<Promotion> activePromotions,
+                                   Map<UUID, Integer> stripedStock) {
+        boolean parallel = isParallel(cart.size());
+        if (parallel) {
+            log.debug("Pricing {} cart lines in parallel on {} workers", cart.size(), pricingPool.getParallelism());
+        }
+
+        List<CartQuoteResponse.LineItem> lineItems = run(parallel, () -> buildLineItems(cart, productMap, stripedStock, parallel));
+
+        BigDecimal subtotal = stream(lineItems, parallel)
+                .map(CartQuoteResponse.LineItem::getLineTotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        // Apply promotions
+        List<CartQuoteResponse.AppliedPromotion> appliedPromotions = new ArrayList<>(
+                run(parallel, () -> applyPercentOffPromotions(activePromotions, lineItems, productMap, parallel)));
+
+        //Apply BuyXGetYPromotion after percentage discounts
+        for (Promotion promotion : activePromotions) {
+            if (promotion instanceof BuyXGetYPromotion buyXGetYPromo) {
+                CartQuoteResponse.AppliedPromotion appliedPromo = applyBuyXGetYPromotion(
+                        buyXGetYPromo, lineItems, productMap);
+                if (appliedPromo != null) {
+                    appliedPromotions.add(appliedPromo);
+                }
+            }
+        }
+
+        //Calculate totals
+        BigDecimal totalDiscount = appliedPromotions.stream()
+                .map(CartQuoteResponse.AppliedPromotion::getDiscountAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        BigDecimal finalTotal = subtotal.subtract(totalDiscount);
+
+        return CartQuoteResponse.builder()
+                .lineItems(lineItems)
+                .appliedPromotions(appliedPromotions)
+                .subtotal(subtotal)
+                .totalDiscount(totalDiscount)
+                .finalTotal(finalTotal)
+                .build();
+    }
+
+    private List<CartQuoteResponse.LineItem> buildLineItems(CompactCart cart,
+                                                            Map<UUID, Product> productMap,
+                                                            Map<UUID, Integer> stripedStock,
+                                                            boolean parallel) {
+        IntStream indexes = IntStream.range(0, cart.size());
+        return (parallel ? indexes.parallel() : indexes)
+                .mapToObj(i -> {
+                    UUID productId = cart.productId(i);
+                    int quantity = cart.quantity(i);
+                    Product product = productMap.get(productId);
+                    BigDecimal lineTotal = product.getPrice().multiply(BigDecimal.valueOf(quantity));
+
+                    return CartQuoteResponse.LineItem.builder()
+                            .productId(productId.toString())
+                            .productName(product.getName())
+                            .quantity(quantity)
+                            .unitPrice(product.getPrice())
+                            .lineTotal(lineTotal)
+                            .discountAmount(BigDecimal.ZERO)
+                            .finalLineTotal(lineTotal)
+                            .availableStock(stripedStock.getOrDefault(productId, product.getStock()))
+                            .build();
+                })
+                .toList();
+    }
+
+    private List<CartQuoteResponse.AppliedPromotion> applyPercentOffPromotions(
+            List<Promotion> activePromotions,
+            List<CartQuoteResponse.LineItem> lineItems,
+            Map<UUID, Product> productMap,
+            boolean parallel) {
+
+        List<PercentOffCategoryPromotion> percentPromotions = activePromotions.stream()
+                .filter(PercentOffCategoryPromotion.class::isInstance)
+                .map(PercentOffCategoryPromotion.class::cast)
+                .toList();
+        if (percentPromotions.isEmpty()) {
+            return List.of();
+        }
+
+        // Partition lines by category so that each category can be discounted independently
+        Map<ProductCategory, List<CartQuoteResponse.LineItem>> linesByCategory = new EnumMap<>(ProductCategory.class);
+        for (CartQuoteResponse.LineItem lineItem : lineItems) {
+            Product product = productMap.get(UUID.fromString(lineItem.getProductId()));
+            if (product != null && product.getCategory() != null) {
+                linesByCategory.computeIfAbsent(product.getCategory(), c -> new ArrayList<>()).add(lineItem);
+            }
+        }
+
+        // Promotions on the same category stack on the same lines, so they run in order inside their partition
+        Map<ProductCategory, List<Integer>> promotionsByCategory = new EnumMap<>(ProductCategory.class);
+        for (int i = 0; i < percentPromotions.size(); i++) {
+            promotionsByCategory.computeIfAbsent(percentPromotions.get(i).getCategory(), c -> new ArrayList<>()).add(i);
+        }
+
+        CartQuoteResponse.AppliedPromotion[] results = new CartQuoteResponse.AppliedPromotion[percentPromotions.size()];
+        stream(new ArrayList<>(promotionsByCategory.entrySet()), parallel).forEach(entry -> {
+            List<CartQuoteResponse.LineItem> categoryLines = linesByCategory.getOrDefault(entry.getKey(), List.of());
+            for (int index : entry.getValue()) {
+                results[index] = applyPercentOffCategoryPromotion(percentPromotions.get(index), categoryLines, parallel);
+            }
+        });
+
+        return Arrays.stream(results).filter(Objects::nonNull).toList();
+    }
+
+    private CartQuoteResponse.AppliedPromotion applyPercentOffCategoryPromotion(
+            PercentOffCategoryPromotion promotion,
+            List<CartQuoteResponse.LineItem> categoryLines,
+            boolean parallel) {
+
+        // Calculate discount on current line total (after any previous discounts)
+        List<BigDecimal> discounts = stream(categoryLines, parallel)
+                .map(lineItem -> {
+                    BigDecimal discountAmount = lineItem.getFinalLineTotal()
+                            .multiply(promotion.getPercentOff())
+                            .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+
+                    // Update line item
+                    lineItem.setDiscountAmount(lineItem.getDiscountAmount().add(discountAmount));
+                    lineItem.setFinalLineTotal(lineItem.getFinalLineTotal().subtract(discountAmount));
+                    return discountAmount;
+                })
+                .toList();
+
+        BigDecimal totalDiscount = discounts.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        if (totalDiscount.compareTo(BigDecimal.ZERO) > 0) {
+            return CartQuoteResponse.AppliedPromotion.builder()
+                    .promotionId(promotion.getId().toString())
+                    .promotionType("PERCENT_OFF_CATEGORY")
+                    .description(promotion.getDescription())
+                    .discountAmount(totalDiscount)
+                    .affectedProductIds(categoryLines.stream().map(CartQuoteResponse.LineItem::getProductId).toList())
+                    .build();
+        }
+
+        return null;
+    }
+
+    private CartQuoteResponse.AppliedPromotion applyBuyXGetYPromotion(
+            BuyXGetYPromotion promotion,
+            List<CartQuoteResponse.LineItem> lineItems,
+            Map<UUID, Product> productMap) {
+
+        // Find the line item for the promotion product
+        CartQuoteResponse.LineItem targetLineItem = null;
+        for (CartQuoteResponse.LineItem lineItem : lineItems) {
+            if (promotion.getProductId().toString().equals(lineItem.getProductId())) {
+                targetLineItem = lineItem;
+                break;
+            }
+        }
+
+        if (targetLineItem == null) {
+            return null; // Product not in cart
+        }
+
+        // Calculate how many free items customer gets
+        int qualifyingSets = targetLineItem.getQuantity() / promotion.getBuyX();
+        int freeItems = qualifyingSets * promotion.getGetY();
+
+        if (freeItems <= 0) {
+            return null; // Not enough quantity to qualify
+        }
+
+        // Calculate discount (price of free items)
+        Product product = productMap.get(promotion.getProductId());
+        if (product == null) {
+            return null;
+        }
+
+        BigDecimal discountAmount = product.getPrice().multiply(BigDecimal.valueOf(freeItems));
+
+        // Update line item
+        targetLineItem.setDiscountAmount(targetLineItem.getDiscountAmount().add(discountAmount));
+        targetLineItem.setFinalLineTotal(targetLineItem.getFinalLineTotal().subtract(discountAmount));
+
+        return CartQuoteResponse.AppliedPromotion.builder()
+                .promotionId(promotion.getId().toString())
+                .promotionType("BUY_X_GET_Y")
+                .description(String.format("%s (Buy %d Get %d Free - %d free items)",
+                        promotion.getDescription(), promotion.getBuyX(), promotion.getGetY(), freeItems))
+                .discountAmount(discountAmount)
+                .affectedProductIds(List.of(targetLineItem.getProductId()))
+                .build();
+    }
+
+    private <T> Stream<T> stream(List<T> list, boolean parallel) {
+        return parallel ? list.parallelStream() : list.stream();
+    }
+
+    private <T> T run(boolean parallel, Supplier<T> task) {
+        // Parallel streams started from inside the pool run on the pool's workers instead of the common pool
+        return parallel ? pricingPool.submit(task::get).join() : task.get();
+    }
+}
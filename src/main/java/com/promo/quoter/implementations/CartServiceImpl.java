@@ -3,25 +3,37 @@ package com.promo.quoter.implementations;
 import com.promo.quoter.dtos.CartConfirmResponse;
 import com.promo.quoter.dtos.CartQuoteRequest;
 import com.promo.quoter.dtos.CartQuoteResponse;
+import com.promo.quoter.dtos.CompactCart;
 import com.promo.quoter.entities.*;
 import com.promo.quoter.exception.CustomException;
 import com.promo.quoter.exception.InsufficientStockException;
+import com.promo.quoter.repos.CatalogProductRepository;
+import com.promo.quoter.repos.IdempotencyClaimRepository;
 import com.promo.quoter.repos.OrderRepository;
 import com.promo.quoter.repos.ProductRepository;
 import com.promo.quoter.repos.PromotionRepository;
 import com.promo.quoter.services.CartService;
-import jakarta.persistence.LockModeType;
+import com.promo.quoter.services.OrderNumberGenerator;
+import com.promo.quoter.services.StockReservationStrategy;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 // CHANGE: Use Spring's @Transactional instead of Jakarta's
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,384 +42,419 @@ import java.util.stream.Collectors;
 public class CartServiceImpl implements CartService {
 
     private final ProductRepository productRepository;
+    private final CatalogProductRepository catalogProductRepository;
     private final PromotionRepository promotionRepository;
     private final OrderRepository orderRepository;
+    private final CartIngestor cartIngestor;
+    private final CartPricingEngine cartPricingEngine;
+    private final StockReservationStrategy stockReservationStrategy;
+    private final LockRetryPolicy lockRetryPolicy;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderResponseMapper orderResponseMapper;
+    private final StockHoldRegistry stockHoldRegistry;
+    private final StripedStockAllocator stripedStock;
+    private final IdempotencyClaimRepository idempotencyClaimRepository;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final ConfirmResponseSnapshots responseSnapshots;
+
+    // Confirmations and holds currently being placed on this instance, by idempotency key
+    private final SingleFlight<String, CartConfirmResponse> inFlightOrders = new SingleFlight<>();
+
+    @Value("${cart.confirm.group-commit.enabled:false}")
+    private boolean groupCommitEnabled;
+
+    @Value("${cart.confirm.group-commit.window-micros:2000}")
+    private long groupCommitWindowMicros;
+
+    @Value("${cart.confirm.group-commit.max-batch:64}")
+    private int groupCommitMaxBatch;
+
+    private GroupCommitQueue<PendingOrder> groupCommitQueue;
+
+    // Only present with cart.confirm.journal.enabled; confirmations are then acknowledged once journaled
+    @Autowired(required = false)
+    private OrderJournal orderJournal;
+
+    // Only present with inventory.reservation.lanes.enabled
+    @Autowired(required = false)
+    private SkuLanes skuLanes;
+
+    private record PendingOrder(CompactCart cart,
+                                String idempotencyKey,
+                                Order.OrderStatus status,
+                                CompletableFuture<CartConfirmResponse> result) {
+    }
+
+    @PostConstruct
+    void startGroupCommit() {
+        if (groupCommitEnabled) {
+            groupCommitQueue = new GroupCommitQueue<>("cart-group-commit", groupCommitWindowMicros,
+                    groupCommitMaxBatch, groupCommitMaxBatch * 64, this::placeOrders);
+        }
+    }
+
+    @PreDestroy
+    void stopGroupCommit() throws InterruptedException {
+        if (groupCommitQueue != null) {
+            groupCommitQueue.close();
+        }
+    }
 
     @Override
     @Transactional(readOnly = true) // Quotes should be read-only
     public CartQuoteResponse calculateQuote(CartQuoteRequest request) {
+        CompactCart cart = cartIngestor.ingest(request);
+        return priceCart(cart, loadProducts(cart));
+    }
+
+    /**
+     * @return detached products combining the cached catalog fields with stock read in one query
+     */
+    private Map<UUID, Product> loadProducts(CompactCart cart) {
+        Map<UUID, Product> productMap = new HashMap<>();
+        if (cart.size() == 0) {
+            return productMap;
+        }
+        Map<UUID, ProductRepository.StockLevel> stockLevels = new HashMap<>();
+        for (ProductRepository.StockLevel level : productRepository.findStockLevels(cart.productIds())) {
+            stockLevels.put(level.getId(), level);
+        }
         //Validate and fetch products
-        List<CartQuoteResponse.LineItem> lineItems = new ArrayList<>();
-        BigDecimal subtotal = BigDecimal.ZERO;
-
-        for (CartQuoteRequest.CartItem item : request.getItems()) {
-            UUID productId = UUID.fromString(item.getProductId());
-            // CHANGE: Use regular findById for quotes, not locking
-            Product product = productRepository.findById(productId)
-                    .orElseThrow(() -> new RuntimeException("Product not found: " + productId));
-
-            BigDecimal lineTotal = product.getPrice().multiply(BigDecimal.valueOf(item.getQty()));
-            subtotal = subtotal.add(lineTotal);
-
-            CartQuoteResponse.LineItem lineItem = CartQuoteResponse.LineItem.builder()
-                    .productId(item.getProductId())
-                    .productName(product.getName())
-                    .quantity(item.getQty())
-                    .unitPrice(product.getPrice())
-                    .lineTotal(lineTotal)
-                    .discountAmount(BigDecimal.ZERO)
-                    .finalLineTotal(lineTotal)
-                    .build();
-
-            lineItems.add(lineItem);
+        for (int i = 0; i < cart.size(); i++) {
+            UUID productId = cart.productId(i);
+            ProductRepository.StockLevel level = stockLevels.get(productId);
+            CatalogProduct catalog = level == null ? null : catalogProductRepository.findById(productId).orElse(null);
+            if (catalog == null) {
+                throw new RuntimeException("Product not found: " + productId);
+            }
+            productMap.put(productId, Product.builder()
+                    .id(productId)
+                    .name(catalog.getName())
+                    .category(catalog.getCategory())
+                    .price(catalog.getPrice())
+                    .stock(level.getStock())
+                    .striped(level.isStriped())
+                    .build());
         }
+        return productMap;
+    }
 
-        // Apply promotions
-        List<CartQuoteResponse.AppliedPromotion> appliedPromotions = applyPromotions(lineItems, request);
+    private CartQuoteResponse priceCart(CompactCart cart, Map<UUID, Product> productMap) {
+        //Get all active promotions
+        return priceCart(cart, productMap, promotionRepository.findAll());
+    }
 
-        //Calculate totals
-        BigDecimal totalDiscount = appliedPromotions.stream()
-                .map(CartQuoteResponse.AppliedPromotion::getDiscountAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private CartQuoteResponse priceCart(CompactCart cart, Map<UUID, Product> productMap, List<Promotion> activePromotions) {
+        return cartPricingEngine.price(cart, productMap, activePromotions, stripedStock.totals(productMap.values()));
+    }
 
-        BigDecimal finalTotal = subtotal.subtract(totalDiscount);
+    @Override
+    public CartConfirmResponse confirmCart(CartQuoteRequest request, String idempotencyKey) {
+        return submitOrder(request, idempotencyKey, Order.OrderStatus.CONFIRMED);
+    }
 
-        return CartQuoteResponse.builder()
-                .lineItems(lineItems)
-                .appliedPromotions(appliedPromotions)
-                .subtotal(subtotal)
-                .totalDiscount(totalDiscount)
-                .finalTotal(finalTotal)
-                .build();
+    @Override
+    public CartConfirmResponse holdCart(CartQuoteRequest request, String idempotencyKey) {
+        return submitOrder(request, idempotencyKey, Order.OrderStatus.PENDING);
     }
 
-    private List<CartQuoteResponse.AppliedPromotion> applyPromotions(
-            List<CartQuoteResponse.LineItem> lineItems,
-            CartQuoteRequest request) {
+    private CartConfirmResponse submitOrder(CartQuoteRequest request, String idempotencyKey, Order.OrderStatus status) {
+        // Reject malformed carts before touching the database
+        CompactCart cart = cartIngestor.ingest(request);
+        if (idempotencyKey == null) {
+            return submitOrder(cart, null, status);
+        }
+        // A duplicate arriving while the first request is still running waits for its outcome instead of redoing it
+        return inFlightOrders.execute(idempotencyKey, () -> submitOrder(cart, idempotencyKey, status));
+    }
 
-        List<CartQuoteResponse.AppliedPromotion> appliedPromotions = new ArrayList<>();
+    private CartConfirmResponse submitOrder(CompactCart cart, String idempotencyKey, Order.OrderStatus status) {
+        try {
+            if (orderJournal != null && status == Order.OrderStatus.CONFIRMED) {
+                return placeOrderJournaled(cart, idempotencyKey);
+            }
+            if (groupCommitQueue != null) {
+                return placeOrderInGroup(cart, idempotencyKey, status);
+            }
+            return placeOrderAlone(cart, idempotencyKey, status);
 
-        //Get all active promotions
-        List<Promotion> activePromotions = promotionRepository.findAll();
+        } catch (InsufficientStockException e) {
+            log.error("Insufficient stock for cart confirmation: {}", e.getMessage());
+            throw new CustomException("Insufficient stock: " + e.getMessage(), HttpStatus.CONFLICT);
+        } catch (CustomException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error confirming cart: {}", e.getMessage(), e);
+            throw new CustomException("Failed to confirm cart", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 
-        // Create a map of productId to Product for quick lookup
-        Map<UUID, Product> productMap = new HashMap<>();
-        for (CartQuoteResponse.LineItem lineItem : lineItems) {
-            UUID productId = UUID.fromString(lineItem.getProductId());
-            Product product = productRepository.findById(productId).orElse(null);
-            if (product != null) {
-                productMap.put(productId, product);
+    private CartConfirmResponse placeOrderAlone(CompactCart cart, String idempotencyKey, Order.OrderStatus status) {
+        try {
+            // Each attempt runs in its own transaction so that a lock timeout can be retried from scratch
+            Supplier<CartConfirmResponse> place = () -> lockRetryPolicy.execute(() ->
+                    transactionTemplate.execute(tx -> placeOrder(cart, idempotencyKey, status)));
+            // Queue behind other carts for the same SKUs before taking a connection
+            return skuLanes != null ? skuLanes.execute(cart, place) : place.get();
+        } catch (DataIntegrityViolationException e) {
+            // Lost the idempotency claim to a request that committed first, possibly on another instance
+            Optional<CartConfirmResponse> existing = idempotencyKey == null ? Optional.empty() :
+                    findPlacedResponseOnPrimary(idempotencyKey);
+            if (existing.isEmpty()) {
+                throw e;
             }
+            log.info("Idempotency key {} was placed concurrently, returning order {}",
+                    idempotencyKey, existing.get().getOrderId());
+            return existing.get();
         }
+    }
 
-        //Apply PercentOffCategoryPromotion first
-        for (Promotion promotion : activePromotions) {
-            if (promotion instanceof PercentOffCategoryPromotion percentPromo) {
-                CartQuoteResponse.AppliedPromotion appliedPromo = applyPercentOffCategoryPromotion(
-                        percentPromo, lineItems, productMap);
-                if (appliedPromo != null) {
-                    appliedPromotions.add(appliedPromo);
-                }
+    private CartConfirmResponse placeOrderInGroup(CompactCart cart, String idempotencyKey, Order.OrderStatus status) {
+        PendingOrder pending = new PendingOrder(cart, idempotencyKey, status, new CompletableFuture<>());
+        if (!groupCommitQueue.offer(pending)) {
+            return placeOrderAlone(cart, idempotencyKey, status);
+        }
+        try {
+            return pending.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
             }
+            throw e;
         }
+    }
 
-        //Apply BuyXGetYPromotion after percentage discounts
-        for (Promotion promotion : activePromotions) {
-            if (promotion instanceof BuyXGetYPromotion buyXGetYPromo) {
-                CartQuoteResponse.AppliedPromotion appliedPromo = applyBuyXGetYPromotion(
-                        buyXGetYPromo, lineItems, productMap);
-                if (appliedPromo != null) {
-                    appliedPromotions.add(appliedPromo);
+    /**
+     * Places a batch of orders in one transaction. Stock is checked per order against the rows locked for
+     * the whole batch, so an order that cannot be covered is rejected on its own without touching stock; its
+     * idempotency claim is dropped again, so a retry with the same key is not mistaken for a placed order.
+     * Any other failure rolls the batch back and every order in it is retried in its own transaction.
+     */
+    private void placeOrders(List<PendingOrder> batch) {
+        Map<PendingOrder, CartConfirmResponse> placed = new LinkedHashMap<>();
+        Map<PendingOrder, RuntimeException> rejected = new LinkedHashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                Set<UUID> productIds = new HashSet<>();
+                batch.forEach(pending -> productIds.addAll(pending.cart().productIds()));
+                stockReservationStrategy.prepareBatch(productIds);
+
+                for (PendingOrder pending : batch) {
+                    try {
+                        placed.put(pending, placeOrder(pending.cart(), pending.idempotencyKey(), pending.status()));
+                    } catch (InsufficientStockException | CustomException e) {
+                        if (pending.idempotencyKey() != null) {
+                            idempotencyClaimRepository.deleteById(pending.idempotencyKey());
+                        }
+                        rejected.put(pending, e);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} orders failed, placing them one by one: {}", batch.size(), e.getMessage());
+            for (PendingOrder pending : batch) {
+                try {
+                    pending.result().complete(placeOrderAlone(pending.cart(), pending.idempotencyKey(), pending.status()));
+                } catch (RuntimeException alone) {
+                    pending.result().completeExceptionally(alone);
                 }
             }
+            return;
         }
 
-        return appliedPromotions;
+        log.debug("Group commit placed {} orders, rejected {}", placed.size(), rejected.size());
+        placed.forEach((pending, response) -> pending.result().complete(response));
+        rejected.forEach((pending, e) -> pending.result().completeExceptionally(e));
     }
 
-    private CartQuoteResponse.AppliedPromotion applyPercentOffCategoryPromotion(
-            PercentOffCategoryPromotion promotion,
-            List<CartQuoteResponse.LineItem> lineItems,
-            Map<UUID, Product> productMap) {
-
-        BigDecimal totalDiscount = BigDecimal.ZERO;
-        List<String> affectedProductIds = new ArrayList<>();
-
-        for (CartQuoteResponse.LineItem lineItem : lineItems) {
-            UUID productId = UUID.fromString(lineItem.getProductId());
-            Product product = productMap.get(productId);
-
-            if (product != null && product.getCategory() == promotion.getCategory()) {
-                // Calculate discount on current line total (after any previous discounts)
-                BigDecimal discountAmount = lineItem.getFinalLineTotal()
-                        .multiply(promotion.getPercentOff())
-                        .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-
-                // Update line item
-                lineItem.setDiscountAmount(lineItem.getDiscountAmount().add(discountAmount));
-                lineItem.setFinalLineTotal(lineItem.getFinalLineTotal().subtract(discountAmount));
-
-                totalDiscount = totalDiscount.add(discountAmount);
-                affectedProductIds.add(lineItem.getProductId());
+    private CartConfirmResponse placeOrder(CompactCart cart, String idempotencyKey, Order.OrderStatus status) {
+        // 1. Check for duplicate request using idempotency key
+        if (idempotencyKey != null) {
+            Optional<CartConfirmResponse> existing = findPlacedResponse(idempotencyKey);
+            if (existing.isPresent()) {
+                log.info("Duplicate request detected for idempotency key: {}", idempotencyKey);
+                return existing.get();
             }
+            // Claim the key before reserving anything; a concurrent claim waits here until this transaction ends
+            idempotencyClaimRepository.claim(idempotencyKey, LocalDateTime.now());
         }
 
-        if (totalDiscount.compareTo(BigDecimal.ZERO) > 0) {
-            return CartQuoteResponse.AppliedPromotion.builder()
-                    .promotionId(promotion.getId().toString())
-                    .promotionType("PERCENT_OFF_CATEGORY")
-                    .description(promotion.getDescription())
-                    .discountAmount(totalDiscount)
-                    .affectedProductIds(affectedProductIds)
-                    .build();
-        }
-
-        return null;
-    }
-
-    private CartQuoteResponse.AppliedPromotion applyBuyXGetYPromotion(
-            BuyXGetYPromotion promotion,
-            List<CartQuoteResponse.LineItem> lineItems,
-            Map<UUID, Product> productMap) {
-
-        // Find the line item for the promotion product
-        CartQuoteResponse.LineItem targetLineItem = null;
-        for (CartQuoteResponse.LineItem lineItem : lineItems) {
-            if (promotion.getProductId().toString().equals(lineItem.getProductId())) {
-                targetLineItem = lineItem;
-                break;
-            }
+        // 2. Reserve stock, price the cart and build the order
+        Order order = reserveOrder(cart, idempotencyKey, status);
+        String orderId = order.getOrderId();
+        CartConfirmResponse response = orderResponseMapper.toConfirmResponse(order);
+        if (status == Order.OrderStatus.PENDING) {
+            // Stock stays taken until the hold is committed, released or expires
+            response.setHoldExpiresAt(stockHoldRegistry.hold(orderId));
         }
 
-        if (targetLineItem == null) {
-            return null; // Product not in cart
+        // 3. Save order, with the response it is answered with for later replays
+        if (idempotencyKey != null) {
+            order.setResponseSnapshot(responseSnapshots.encode(response));
         }
+        order = orderRepository.save(order);
 
-        // Calculate how many free items customer gets
-        int qualifyingSets = targetLineItem.getQuantity() / promotion.getBuyX();
-        int freeItems = qualifyingSets * promotion.getGetY();
+        log.info("Order created successfully: orderId={}, status={}, finalTotal={}",
+                orderId, status, order.getFinalTotal());
 
-        if (freeItems <= 0) {
-            return null; // Not enough quantity to qualify
+        if (idempotencyKey != null) {
+            responseSnapshots.remember(idempotencyKey, response);
         }
+        return response;
+    }
 
-        // Calculate discount (price of free items)
-        Product product = productMap.get(promotion.getProductId());
-        if (product == null) {
-            return null;
+    /**
+     * Commits only the idempotency claim and the stock reservation, journaling the order in the same transaction,
+     * and acknowledges it. The order rows are written later by the {@link OrderJournal} applier.
+     */
+    private CartConfirmResponse placeOrderJournaled(CompactCart cart, String idempotencyKey) {
+        if (idempotencyKey != null) {
+            Optional<CartConfirmResponse> existing = findPlacedResponseOnPrimary(idempotencyKey);
+            if (existing.isPresent()) {
+                log.info("Duplicate request detected for idempotency key: {}", idempotencyKey);
+                return existing.get();
+            }
         }
 
-        BigDecimal discountAmount = product.getPrice().multiply(BigDecimal.valueOf(freeItems));
-
-        // Update line item
-        targetLineItem.setDiscountAmount(targetLineItem.getDiscountAmount().add(discountAmount));
-        targetLineItem.setFinalLineTotal(targetLineItem.getFinalLineTotal().subtract(discountAmount));
-
-        return CartQuoteResponse.AppliedPromotion.builder()
-                .promotionId(promotion.getId().toString())
-                .promotionType("BUY_X_GET_Y")
-                .description(String.format("%s (Buy %d Get %d Free - %d free items)",
-                        promotion.getDescription(), promotion.getBuyX(), promotion.getGetY(), freeItems))
-                .discountAmount(discountAmount)
-                .affectedProductIds(List.of(targetLineItem.getProductId()))
-                .build();
-    }
-
-    // CHANGE: Use Spring's @Transactional with explicit readOnly = false
-    @Override
-    @Transactional(readOnly = false, timeout = 30)
-    public CartConfirmResponse confirmCart(CartQuoteRequest request, String idempotencyKey) {
+        Order order;
         try {
-            // 1. Check for duplicate request using idempotency key
-            if (idempotencyKey != null) {
-                Optional<Order> existingOrder = orderRepository.findByIdempotencyKey(idempotencyKey);
-                if (existingOrder.isPresent()) {
-                    log.info("Duplicate request detected for idempotency key: {}", idempotencyKey);
-                    return mapOrderToConfirmResponse(existingOrder.get());
+            // The record goes to disk before the reservation commits, and is applied only if it does
+            Supplier<Order> reserve = () -> lockRetryPolicy.execute(() -> transactionTemplate.execute(tx -> {
+                if (idempotencyKey != null) {
+                    idempotencyClaimRepository.claim(idempotencyKey, LocalDateTime.now());
                 }
+                Order reserved = reserveOrder(cart, idempotencyKey, Order.OrderStatus.CONFIRMED);
+                orderJournal.append(reserved);
+                return reserved;
+            }));
+            order = skuLanes != null ? skuLanes.execute(cart, reserve) : reserve.get();
+        } catch (DataIntegrityViolationException e) {
+            if (idempotencyKey == null) {
+                throw e;
             }
+            // Claimed concurrently; on another instance the order may still be waiting in its journal
+            return findPlacedResponseOnPrimary(idempotencyKey).orElseThrow(() -> new CustomException(
+                    "An order with this idempotency key is still being recorded, please retry", HttpStatus.CONFLICT));
+        }
 
-            // 2. Validate stock availability first (read-only check)
-            List<Product> products = validateStockAvailability(request);
-
-            // 3. Calculate quote to get pricing (this will use a separate read-only transaction)
-            CartQuoteResponse quote = calculateQuoteForConfirm(request);
-
-            // 4. Reserve stock atomically (with database locking)
-            List<OrderItem> reservedItems = reserveStock(request, products, quote.getLineItems());
-
-            // 5. Generate unique order ID
-            String orderId = generateOrderId();
-
-            // 6. Create and save order
-            Order order = createOrder(orderId, idempotencyKey, request, quote, reservedItems);
-            order = orderRepository.save(order);
-
-            log.info("Order created successfully: orderId={}, finalTotal={}",
-                    orderId, order.getFinalTotal());
-
-            return mapOrderToConfirmResponse(order);
-
-        } catch (InsufficientStockException e) {
-            log.error("Insufficient stock for cart confirmation: {}", e.getMessage());
-            throw new CustomException("Insufficient stock: " + e.getMessage(), HttpStatus.CONFLICT);
-        } catch (Exception e) {
-            log.error("Error confirming cart: {}", e.getMessage(), e);
-            throw new CustomException("Failed to confirm cart", HttpStatus.INTERNAL_SERVER_ERROR);
+        log.info("Order journaled: orderId={}, finalTotal={}", order.getOrderId(), order.getFinalTotal());
+        CartConfirmResponse response = orderResponseMapper.toConfirmResponse(order);
+        if (idempotencyKey != null) {
+            responseSnapshots.remember(idempotencyKey, response);
         }
+        return response;
     }
 
-    // CHANGE: Separate method for quote calculation during confirm (without separate transaction)
-    private CartQuoteResponse calculateQuoteForConfirm(CartQuoteRequest request) {
-        //Validate and fetch products
-        List<CartQuoteResponse.LineItem> lineItems = new ArrayList<>();
-        BigDecimal subtotal = BigDecimal.ZERO;
-
-        for (CartQuoteRequest.CartItem item : request.getItems()) {
-            UUID productId = UUID.fromString(item.getProductId());
-            Product product = productRepository.findById(productId)
-                    .orElseThrow(() -> new RuntimeException("Product not found: " + productId));
-
-            BigDecimal lineTotal = product.getPrice().multiply(BigDecimal.valueOf(item.getQty()));
-            subtotal = subtotal.add(lineTotal);
-
-            CartQuoteResponse.LineItem lineItem = CartQuoteResponse.LineItem.builder()
-                    .productId(item.getProductId())
-                    .productName(product.getName())
-                    .quantity(item.getQty())
-                    .unitPrice(product.getPrice())
-                    .lineTotal(lineTotal)
-                    .discountAmount(BigDecimal.ZERO)
-                    .finalLineTotal(lineTotal)
-                    .build();
-
-            lineItems.add(lineItem);
+    /**
+     * Finds the response an earlier request with the same idempotency key was answered with: from memory for
+     * recent keys, otherwise with one keyed read of the stored snapshot.
+     */
+    private Optional<CartConfirmResponse> findPlacedResponse(String idempotencyKey) {
+        Optional<CartConfirmResponse> cached = responseSnapshots.cached(idempotencyKey);
+        if (cached.isPresent()) {
+            return cached;
         }
-
-        // Apply promotions
-        List<CartQuoteResponse.AppliedPromotion> appliedPromotions = applyPromotions(lineItems, request);
-
-        //Calculate totals
-        BigDecimal totalDiscount = appliedPromotions.stream()
-                .map(CartQuoteResponse.AppliedPromotion::getDiscountAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal finalTotal = subtotal.subtract(totalDiscount);
-
-        return CartQuoteResponse.builder()
-                .lineItems(lineItems)
-                .appliedPromotions(appliedPromotions)
-                .subtotal(subtotal)
-                .totalDiscount(totalDiscount)
-                .finalTotal(finalTotal)
-                .build();
+        if (orderJournal != null) {
+            // Journal first: an order leaves it only after it is committed to the database
+            Optional<CartConfirmResponse> journaled = orderJournal.findUnapplied(idempotencyKey);
+            if (journaled.isPresent()) {
+                return journaled;
+            }
+        }
+        Optional<OrderRepository.ResponseSnapshot> snapshot =
+                orderRepository.findResponseSnapshotByIdempotencyKey(idempotencyKey);
+        if (snapshot.isEmpty()) {
+            return Optional.empty();
+        }
+        if (snapshot.get().getResponseSnapshot() != null) {
+            CartConfirmResponse response = responseSnapshots.decode(snapshot.get().getResponseSnapshot());
+            responseSnapshots.remember(idempotencyKey, response);
+            return Optional.of(response);
+        }
+        // Placed before snapshots were stored
+        return transactionTemplate.execute(tx -> orderRepository.findByIdempotencyKey(idempotencyKey)
+                .map(orderResponseMapper::toConfirmResponse));
     }
 
-    private List<Product> validateStockAvailability(CartQuoteRequest request) {
-        List<Product> products = new ArrayList<>();
-        List<String> outOfStockItems = new ArrayList<>();
+    /**
+     * For callers outside a transaction: a read-write one keeps the lookup off a read replica that may not have
+     * seen the order yet.
+     */
+    private Optional<CartConfirmResponse> findPlacedResponseOnPrimary(String idempotencyKey) {
+        return transactionTemplate.execute(tx -> findPlacedResponse(idempotencyKey));
+    }
 
-        for (CartQuoteRequest.CartItem item : request.getItems()) {
-            UUID productId = UUID.fromString(item.getProductId());
-            Product product = productRepository.findById(productId)
-                    .orElseThrow(() -> new CustomException("Product not found: " + item.getProductId(),
-                            HttpStatus.NOT_FOUND));
+    /**
+     * Reserves the cart's stock and builds the priced order, without saving it.
+     */
+    private Order reserveOrder(CompactCart cart, String idempotencyKey, Order.OrderStatus status) {
+        // Reserve stock atomically (locks every product in canonical order, then checks and decrements)
+        Map<UUID, Product> products = stockReservationStrategy.reserve(cart);
 
-            if (product.getStock() < item.getQty()) {
-                outOfStockItems.add(String.format("%s (requested: %d, available: %d)",
-                        product.getName(), item.getQty(), product.getStock()));
-            }
+        // Calculate quote to get pricing; the loaded promotions are reused as the order's references
+        List<Promotion> activePromotions = promotionRepository.findAll();
+        CartQuoteResponse quote = priceCart(cart, products, activePromotions);
+        List<OrderItem> reservedItems = buildOrderItems(cart, products, quote.getLineItems());
 
-            products.add(product);
-        }
+        // Generate unique order ID
+        String orderId = orderNumberGenerator.next();
 
-        if (!outOfStockItems.isEmpty()) {
-            throw new InsufficientStockException("Insufficient stock for items: " +
-                    String.join(", ", outOfStockItems));
-        }
-        return products;
+        return createOrder(orderId, idempotencyKey, status, cart, quote, reservedItems, activePromotions);
     }
 
-    private List<OrderItem> reserveStock(CartQuoteRequest request,
-                                         List<Product> products,
-                                         List<CartQuoteResponse.LineItem> lineItems) {
-        List<OrderItem> orderItems = new ArrayList<>();
-        Map<String, CartQuoteResponse.LineItem> lineItemMap = lineItems.stream()
-                .collect(Collectors.toMap(
-                        CartQuoteResponse.LineItem::getProductId,
-                        item -> item
-                ));
-
-        for (int i = 0; i < request.getItems().size(); i++) {
-            CartQuoteRequest.CartItem requestItem = request.getItems().get(i);
-            Product product = products.get(i);
-            CartQuoteResponse.LineItem lineItem = lineItemMap.get(requestItem.getProductId());
-
-            // Use pessimistic locking to prevent concurrent stock updates
-            Product lockedProduct = productRepository.findByIdWithLock(product.getId())
-                    .orElseThrow(() -> new CustomException(
-                            "Product not found during reservation: " + product.getId(),
-                            HttpStatus.NOT_FOUND));
-
-            // Double-check stock after locking
-            if (lockedProduct.getStock() < requestItem.getQty()) {
-                throw new InsufficientStockException(
-                        String.format("Insufficient stock for %s during reservation",
-                                lockedProduct.getName()));
-            }
-
-            // Reserve stock (decrement)
-            lockedProduct.setStock(lockedProduct.getStock() - requestItem.getQty());
-            productRepository.save(lockedProduct);
-
-            // Create order item
-            OrderItem orderItem = OrderItem.builder()
-                    .product(lockedProduct)
-                    .quantity(requestItem.getQty())
+    private List<OrderItem> buildOrderItems(CompactCart cart,
+                                            Map<UUID, Product> products,
+                                            List<CartQuoteResponse.LineItem> lineItems) {
+        List<OrderItem> orderItems = new ArrayList<>(cart.size());
+
+        // Line items are built in cart order, one per distinct product
+        for (int i = 0; i < cart.size(); i++) {
+            CartQuoteResponse.LineItem lineItem = lineItems.get(i);
+            orderItems.add(OrderItem.builder()
+                    .product(products.get(cart.productId(i)))
+                    .quantity(cart.quantity(i))
                     .unitPrice(lineItem.getUnitPrice())
                     .lineTotal(lineItem.getLineTotal())
                     .discountAmount(lineItem.getDiscountAmount())
                     .finalLineTotal(lineItem.getFinalLineTotal())
-                    .build();
-
-            orderItems.add(orderItem);
-
-            log.info("Reserved {} units of product {}, remaining stock: {}",
-                    requestItem.getQty(), lockedProduct.getName(), lockedProduct.getStock());
+                    .build());
         }
 
         return orderItems;
     }
 
-    private String generateOrderId() {
-        return "ORD-" + LocalDate.now().getYear() + "-" +
-                String.format("%06d", System.nanoTime() % 1000000);
-    }
-
     private Order createOrder(String orderId,
                               String idempotencyKey,
-                              CartQuoteRequest request,
+                              Order.OrderStatus status,
+                              CompactCart cart,
                               CartQuoteResponse quote,
-                              List<OrderItem> orderItems) {
+                              List<OrderItem> orderItems,
+                              List<Promotion> activePromotions) {
         Order order = Order.builder()
                 .orderId(orderId)
                 .idempotencyKey(idempotencyKey)
-                .customerSegment(request.getCustomerSegment())
+                .customerSegment(cart.getCustomerSegment())
                 .subtotal(quote.getSubtotal())
                 .totalDiscount(quote.getTotalDiscount())
                 .finalTotal(quote.getFinalTotal())
-                .status(Order.OrderStatus.CONFIRMED)
+                .status(status)
+                // At the precision of the timestamp columns, so responses built before and after the insert agree
+                .createdAt(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS))
                 .build();
 
         // Set order reference in order items
-        orderItems.forEach(item -> item.setOrder(order));
+        orderItems.forEach(item -> {
+            item.setOrder(order);
+            item.setReservedAt(order.getCreatedAt());
+        });
         order.setOrderItems(orderItems);
 
-        // Create order promotions
+        // Create order promotions; applied promotions always come from the list the cart was priced with
+        Map<UUID, Promotion> promotionsById = new HashMap<>();
+        activePromotions.forEach(promotion -> promotionsById.put(promotion.getId(), promotion));
         List<OrderPromotion> orderPromotions = quote.getAppliedPromotions().stream()
                 .map(promo -> {
-                    Promotion promotion = promotionRepository.findById(UUID.fromString(promo.getPromotionId()))
-                            .orElse(null);
+                    Promotion promotion = promotionsById.get(UUID.fromString(promo.getPromotionId()));
 
                     return OrderPromotion.builder()
                             .order(order)
@@ -423,35 +470,4 @@ public class CartServiceImpl implements CartService {
 
         return order;
     }
-
-    private CartConfirmResponse mapOrderToConfirmResponse(Order order) {
-        List<CartConfirmResponse.ReservedItem> reservedItems = order.getOrderItems().stream()
-                .map(item -> CartConfirmResponse.ReservedItem.builder()
-                        .productId(item.getProduct().getId().toString())
-                        .productName(item.getProduct().getName())
-                        .quantity(item.getQuantity())
-                        .unitPrice(item.getUnitPrice())
-                        .reservedAt(item.getReservedAt())
-                        .build())
-                .collect(Collectors.toList());
-
-        List<CartConfirmResponse.AppliedPromotion> appliedPromotions = order.getAppliedPromotions().stream()
-                .map(promo -> CartConfirmResponse.AppliedPromotion.builder()
-                        .promotionId(promo.getPromotion() != null ?
-                                promo.getPromotion().getId().toString() : null)
-                        .promotionType(promo.getPromotionType())
-                        .description(promo.getDescription())
-                        .discountAmount(promo.getDiscountAmount())
-                        .build())
-                .collect(Collectors.toList());
-
-        return CartConfirmResponse.builder()
-                .orderId(order.getOrderId())
-                .finalTotal(order.getFinalTotal())
-                .status(CartConfirmResponse.OrderStatus.valueOf(order.getStatus().name()))
-                .reservedItems(reservedItems)
-                .appliedPromotions(appliedPromotions)
-                .createdAt(order.getCreatedAt())
-                .build();
-    }
-}
\ No newline at end of file
+}
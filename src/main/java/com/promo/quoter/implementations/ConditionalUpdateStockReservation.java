@@ -0,0 +1,98 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.dtos.CompactCart;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.exception.InsufficientStockException;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.services.StockReservationStrategy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Reserves stock with one conditional {@code UPDATE ... WHERE stock >= ?} per SKU instead of reading, checking
+ * and writing back a locked entity. The row lock is taken by the update itself, so no entity is loaded under
+ * lock and nothing is left for the flush. Updates run in canonical order to stay deadlock-free; when a line
+ * cannot be covered the decrements already applied are given back. Striped products are taken from their
+ * stock buckets instead.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "inventory.reservation.strategy", havingValue = "conditional-update")
+public class ConditionalUpdateStockReservation implements StockReservationStrategy {
+
+    private final ProductRepository productRepository;
+    private final StripedStockAllocator stripedStock;
+
+    @Override
+    public Map<UUID, Product> reserve(CompactCart cart) {
+        Map<UUID, Integer> quantities = new TreeMap<>(CANONICAL_ORDER);
+        for (int i = 0; i < cart.size(); i++) {
+            quantities.put(cart.productId(i), cart.quantity(i));
+        }
+
+        List<UUID> decremented = new ArrayList<>(quantities.size());
+        try {
+            for (Map.Entry<UUID, Integer> line : quantities.entrySet()) {
+                reserveLine(line.getKey(), line.getValue());
+                decremented.add(line.getKey());
+            }
+        } catch (RuntimeException e) {
+            // Undo the lines already taken so the transaction stays usable for other carts
+            decremented.forEach(id -> giveBack(id, quantities.get(id)));
+            throw e;
+        }
+
+        // Loaded after the updates so the entities carry the reserved stock levels
+        Map<UUID, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(quantities.keySet())) {
+            products.put(product.getId(), product);
+        }
+        log.debug("Reserved {} products with conditional updates", products.size());
+        return products;
+    }
+
+    @Override
+    public void release(Map<UUID, Integer> lines) {
+        // Plain increments cannot fail, but they still take row locks, so keep the reservation order
+        Map<UUID, Integer> ordered = new TreeMap<>(CANONICAL_ORDER);
+        ordered.putAll(lines);
+        ordered.forEach(this::giveBack);
+    }
+
+    private void reserveLine(UUID productId, int quantity) {
+        if (stripedStock.isStriped(productId)) {
+            stripedStock.reserve(productId, quantity);
+            return;
+        }
+        if (productRepository.decrementStockIfAvailable(productId, quantity) == 0) {
+            // No rows updated: the product does not exist, its stock is short, or it was striped elsewhere
+            Optional<Product> product = productRepository.findById(productId);
+            if (product.isEmpty()) {
+                throw new CustomException("Product not found: " + productId, HttpStatus.NOT_FOUND);
+            }
+            if (product.get().isStriped()) {
+                stripedStock.reserve(productId, quantity);
+                return;
+            }
+            throw insufficientStock(product.get(), quantity);
+        }
+    }
+
+    private void giveBack(UUID productId, int quantity) {
+        if (stripedStock.isStriped(productId) || productRepository.incrementStock(productId, quantity) == 0) {
+            stripedStock.release(productId, quantity);
+        }
+    }
+
+    private InsufficientStockException insufficientStock(Product product, int quantity) {
+        return new InsufficientStockException(String.format("Insufficient stock for items: %s (requested: %d, available: %d)",
+                product.getName(), quantity, product.getStock()));
+    }
+}
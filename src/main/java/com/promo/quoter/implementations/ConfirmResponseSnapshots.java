@@ -0,0 +1,187 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.dtos.CartConfirmResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Confirm responses as they were first sent, for replaying requests that repeat an idempotency key.
+ * <p>
+ * Responses are stored with their order in a compact binary form, so a replay is one keyed read of
+ * {@code orders.response_snapshot} instead of loading the order's items, promotions and products. The most
+ * recent {@code cart.confirm.replay-cache-size} responses are also kept in memory.
+ */
+@Component
+public class ConfirmResponseSnapshots {
+
+    private static final byte FORMAT = 1;
+
+    private final Map<String, CartConfirmResponse> recent;
+
+    public ConfirmResponseSnapshots(@Value("${cart.confirm.replay-cache-size:10000}") int capacity) {
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CartConfirmResponse> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public Optional<CartConfirmResponse> cached(String idempotencyKey) {
+        synchronized (recent) {
+            return Optional.ofNullable(recent.get(idempotencyKey));
+        }
+    }
+
+    /**
+     * Caches the response once the surrounding transaction commits, or at once outside a transaction.
+     */
+    public void remember(String idempotencyKey, CartConfirmResponse response) {
+        Runnable put = () -> {
+            synchronized (recent) {
+                recent.put(idempotencyKey, response);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put.run();
+            }
+        });
+    }
+
+    public byte[] encode(CartConfirmResponse response) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128 + response.getReservedItems().size() * 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeUTF(response.getOrderId());
+            writeDecimal(out, response.getFinalTotal());
+            writeString(out, response.getStatus() != null ? response.getStatus().name() : null);
+            writeTime(out, response.getCreatedAt());
+            writeTime(out, response.getHoldExpiresAt());
+            out.writeInt(response.getReservedItems().size());
+            for (CartConfirmResponse.ReservedItem item : response.getReservedItems()) {
+                UUID productId = UUID.fromString(item.getProductId());
+                out.writeLong(productId.getMostSignificantBits());
+                out.writeLong(productId.getLeastSignificantBits());
+                writeString(out, item.getProductName());
+                out.writeInt(item.getQuantity());
+                writeDecimal(out, item.getUnitPrice());
+                writeTime(out, item.getReservedAt());
+            }
+            out.writeInt(response.getAppliedPromotions().size());
+            for (CartConfirmResponse.AppliedPromotion promotion : response.getAppliedPromotions()) {
+                writeString(out, promotion.getPromotionId());
+                writeString(out, promotion.getPromotionType());
+                writeString(out, promotion.getDescription());
+                writeDecimal(out, promotion.getDiscountAmount());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public CartConfirmResponse decode(byte[] snapshot) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot))) {
+            byte format = in.readByte();
+            if (format != FORMAT) {
+                throw new IllegalArgumentException("Unknown response snapshot format " + format);
+            }
+            String orderId = in.readUTF();
+            BigDecimal finalTotal = readDecimal(in);
+            String status = readString(in);
+            LocalDateTime createdAt = readTime(in);
+            LocalDateTime holdExpiresAt = readTime(in);
+            List<CartConfirmResponse.ReservedItem> items = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                items.add(CartConfirmResponse.ReservedItem.builder()
+                        .productId(new UUID(in.readLong(), in.readLong()).toString())
+                        .productName(readString(in))
+                        .quantity(in.readInt())
+                        .unitPrice(readDecimal(in))
+                        .reservedAt(readTime(in))
+                        .build());
+            }
+            List<CartConfirmResponse.AppliedPromotion> promotions = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                promotions.add(CartConfirmResponse.AppliedPromotion.builder()
+                        .promotionId(readString(in))
+                        .promotionType(readString(in))
+                        .description(readString(in))
+                        .discountAmount(readDecimal(in))
+                        .build());
+            }
+            return CartConfirmResponse.builder()
+                    .orderId(orderId)
+                    .finalTotal(finalTotal)
+                    .status(status != null ? CartConfirmResponse.OrderStatus.valueOf(status) : null)
+                    .reservedItems(items)
+                    .appliedPromotions(promotions)
+                    .createdAt(createdAt)
+                    .holdExpiresAt(holdExpiresAt)
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt response snapshot", e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // Scale and unscaled bytes; a negative length marks null
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        if (value == null) {
+            out.writeByte(-1);
+            return;
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.writeByte(unscaled.length);
+        out.write(unscaled);
+        out.writeInt(value.scale());
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        int length = in.readByte();
+        if (length < 0) {
+            return null;
+        }
+        byte[] unscaled = new byte[length];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), in.readInt());
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        writeString(out, value != null ? value.toString() : null);
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        String value = readString(in);
+        return value != null ? LocalDateTime.parse(value) : null;
+    }
+}
@@ -0,0 +1,261 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.dtos.CartConfirmResponse;
+import com.promo.quoter.dtos.CartQuoteRequest;
+import com.promo.quoter.dtos.CompactCart;
+import com.promo.quoter.dtos.ConfirmTicket;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.services.AsyncConfirmService;
+import com.promo.quoter.services.CartService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Waiting room for asynchronous confirmations, enabled by {@code cart.confirm.async.enabled}. A submitted cart
+ * gets a ticket at once and lines up in the queue of the partition of each of its SKUs, so that carts sharing a
+ * hot SKU wait behind each other instead of contending for its row. One worker per partition takes its queue in
+ * order; a cart spanning several partitions is passed on from the lowest to the highest, each worker holding its
+ * partition until the cart is decided, and the last one runs the regular confirm path. Partitions are always
+ * entered in ascending order, so carts never wait on each other in a cycle, and the database sees at most one
+ * confirmation per partition at a time. Finished tickets are kept for {@code ticket-ttl-seconds}.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "cart.confirm.async.enabled", havingValue = "true")
+public class ConfirmWaitingRoom implements AsyncConfirmService {
+
+    /**
+     * @param route the partitions of the cart's SKUs in ascending order
+     * @param hop   index into {@code route} of the partition the job is queued in
+     */
+    private record Job(Ticket ticket, CartQuoteRequest request, int[] route, int hop) {
+
+        boolean last() {
+            return hop == route.length - 1;
+        }
+
+        Job next() {
+            return new Job(ticket, request, route, hop + 1);
+        }
+    }
+
+    private static final class Ticket {
+        private final String id;
+        private final String idempotencyKey;
+        private final CompletableFuture<CartConfirmResponse> result = new CompletableFuture<>();
+        private volatile long completedAtMs;
+
+        private Ticket(String id, String idempotencyKey) {
+            this.id = id;
+            this.idempotencyKey = idempotencyKey;
+        }
+    }
+
+    private final CartService cartService;
+    private final CartIngestor cartIngestor;
+    private final long ticketTtlMs;
+    private final List<BlockingQueue<Job>> partitions;
+    private final List<Thread> workers = new ArrayList<>();
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final Map<String, Ticket> ticketsByKey = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private volatile boolean running;
+
+    public ConfirmWaitingRoom(CartService cartService,
+                              CartIngestor cartIngestor,
+                              MeterRegistry meterRegistry,
+                              @Value("${cart.confirm.async.partitions:8}") int partitions,
+                              @Value("${cart.confirm.async.queue-capacity:10000}") int queueCapacity,
+                              @Value("${cart.confirm.async.ticket-ttl-seconds:300}") long ticketTtlSeconds) {
+        this.cartService = cartService;
+        this.cartIngestor = cartIngestor;
+        this.ticketTtlMs = TimeUnit.SECONDS.toMillis(ticketTtlSeconds);
+        this.partitions = new ArrayList<>(partitions);
+        for (int i = 0; i < Math.max(1, partitions); i++) {
+            this.partitions.add(new LinkedBlockingQueue<>(queueCapacity));
+        }
+        meterRegistry.gauge("cart.confirm.async.queued", queued);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        for (int i = 0; i < partitions.size(); i++) {
+            BlockingQueue<Job> queue = partitions.get(i);
+            Thread worker = new Thread(() -> drain(queue), "confirm-waiting-room-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        // Not started, so the client may safely submit again elsewhere
+        int abandoned = 0;
+        for (BlockingQueue<Job> queue : partitions) {
+            for (Job job : queue) {
+                complete(job.ticket(), null, shuttingDown());
+                abandoned++;
+            }
+            queue.clear();
+        }
+        if (abandoned > 0) {
+            log.warn("Rejected {} queued confirmations on shutdown", abandoned);
+        }
+    }
+
+    @Override
+    public ConfirmTicket submit(CartQuoteRequest request, String idempotencyKey) {
+        // Malformed carts are rejected right away rather than through the ticket
+        CompactCart cart = cartIngestor.ingest(request);
+        Ticket ticket = new Ticket(UUID.randomUUID().toString(), idempotencyKey);
+        if (idempotencyKey != null) {
+            Ticket existing = ticketsByKey.putIfAbsent(idempotencyKey, ticket);
+            if (existing != null) {
+                return view(existing);
+            }
+        }
+        tickets.put(ticket.id, ticket);
+        int[] route = route(cart);
+        if (!partitions.get(route[0]).offer(new Job(ticket, request, route, 0))) {
+            forget(ticket);
+            throw new CustomException("The confirmation queue is full, please retry", HttpStatus.TOO_MANY_REQUESTS);
+        }
+        queued.incrementAndGet();
+        return view(ticket);
+    }
+
+    @Override
+    public ConfirmTicket find(String ticketId) {
+        return view(ticket(ticketId));
+    }
+
+    @Override
+    public CompletableFuture<ConfirmTicket> completion(String ticketId) {
+        Ticket ticket = ticket(ticketId);
+        return ticket.result.handle((response, e) -> view(ticket));
+    }
+
+    @Scheduled(fixedDelayString = "${cart.confirm.async.cleanup-interval-ms:60000}")
+    public void expireTickets() {
+        long cutoff = System.currentTimeMillis() - ticketTtlMs;
+        tickets.values().stream()
+                .filter(ticket -> ticket.result.isDone() && ticket.completedAtMs < cutoff)
+                .toList()
+                .forEach(this::forget);
+    }
+
+    private void drain(BlockingQueue<Job> queue) {
+        while (running) {
+            Job job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (!job.last()) {
+                try {
+                    pass(job);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                continue;
+            }
+            queued.decrementAndGet();
+            try {
+                complete(job.ticket(), cartService.confirmCart(job.request(), job.ticket().idempotencyKey), null);
+            } catch (RuntimeException e) {
+                complete(job.ticket(), null, e);
+            }
+        }
+    }
+
+    /**
+     * Queues the cart in its next partition and holds this one until the cart is decided.
+     */
+    private void pass(Job job) throws InterruptedException {
+        try {
+            // Waits for room rather than failing a cart already in line; the next partition never waits on this one
+            partitions.get(job.route()[job.hop() + 1]).put(job.next());
+        } catch (InterruptedException e) {
+            complete(job.ticket(), null, shuttingDown());
+            throw e;
+        }
+        try {
+            job.ticket().result.get();
+        } catch (ExecutionException e) {
+            // Decided either way
+        }
+    }
+
+    private void complete(Ticket ticket, CartConfirmResponse response, RuntimeException failure) {
+        ticket.completedAtMs = System.currentTimeMillis();
+        if (failure != null) {
+            ticket.result.completeExceptionally(failure);
+        } else {
+            ticket.result.complete(response);
+        }
+    }
+
+    private int[] route(CompactCart cart) {
+        int[] route = cart.productIds().stream()
+                .mapToInt(productId -> Math.floorMod(productId.hashCode(), partitions.size()))
+                .distinct()
+                .sorted()
+                .toArray();
+        // An empty cart is rejected by the confirm path like any other
+        return route.length == 0 ? new int[]{0} : route;
+    }
+
+    private static CustomException shuttingDown() {
+        return new CustomException("Server is shutting down, please retry", HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    private Ticket ticket(String ticketId) {
+        Ticket ticket = tickets.get(ticketId);
+        if (ticket == null) {
+            throw new CustomException("Ticket not found: " + ticketId, HttpStatus.NOT_FOUND);
+        }
+        return ticket;
+    }
+
+    private void forget(Ticket ticket) {
+        tickets.remove(ticket.id, ticket);
+        if (ticket.idempotencyKey != null) {
+            ticketsByKey.remove(ticket.idempotencyKey, ticket);
+        }
+    }
+
+    private static ConfirmTicket view(Ticket ticket) {
+        ConfirmTicket.ConfirmTicketBuilder view = ConfirmTicket.builder().ticketId(ticket.id);
+        if (!ticket.result.isDone()) {
+            return view.status(ConfirmTicket.TicketStatus.QUEUED).build();
+        }
+        try {
+            return view.status(ConfirmTicket.TicketStatus.CONFIRMED).response(ticket.result.join()).build();
+        } catch (CompletionException e) {
+            view.status(ConfirmTicket.TicketStatus.REJECTED);
+            if (e.getCause() instanceof CustomException rejected) {
+                return view.errorCode(rejected.getStatus().value()).errorMessage(rejected.getMessage()).build();
+            }
+            return view.errorCode(HttpStatus.INTERNAL_SERVER_ERROR.value()).errorMessage("Failed to confirm cart").build();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.promo.quoter.implementations;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Collects items submitted from many threads and hands them to a processor in batches: a batch closes when it
+ * reaches {@code maxBatch} items or when {@code window} has passed since its first item arrived. One worker
+ * thread processes batches one at a time; the processor is responsible for reporting back to each submitter.
+ */
+@Slf4j
+public class GroupCommitQueue<T> implements AutoCloseable {
+
+    private final BlockingQueue<T> queue;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final Consumer<List<T>> processor;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public GroupCommitQueue(String name, long windowMicros, int maxBatch, int capacity, Consumer<List<T>> processor) {
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatch = maxBatch;
+        this.processor = processor;
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * @return false if the queue is full or closed; the caller should process the item itself
+     */
+    public boolean offer(T item) {
+        return running && queue.offer(item);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void run() {
+        List<T> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                T first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    T next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                processor.accept(List.copyOf(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Group commit batch of {} failed: {}", batch.size(), e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.promo.quoter.implementations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: each level has {@code 2^bits} slots and every level covers {@code 2^bits} times the
+ * span of the one below. A timeout is filed on the lowest level whose range still contains its deadline and moves
+ * down one level each time that slot comes around, so scheduling and cancelling are O(1) and a tick only touches
+ * the slots it passes, however many timeouts are pending. Deadlines beyond the top level park in the top level
+ * and are re-filed when their slot is reached.
+ * <p>
+ * Not thread-safe on its own; callers synchronize.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    public static final class Timeout<T> {
+        private final T item;
+        private final long deadlineTick;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+        private boolean linked;
+
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T item() {
+            return item;
+        }
+    }
+
+    private final long tickMs;
+    private final long startMs;
+    private final int bits;
+    private final int mask;
+    // Sentinel of a circular list per slot, indexed [level][slot]
+    private final Timeout<T>[][] slots;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMs, int bits, int levels, long startMs) {
+        this.tickMs = tickMs;
+        this.startMs = startMs;
+        this.bits = bits;
+        this.mask = (1 << bits) - 1;
+        this.slots = new Timeout[levels][1 << bits];
+        for (Timeout<T>[] level : slots) {
+            for (int i = 0; i < level.length; i++) {
+                Timeout<T> sentinel = new Timeout<>(null, 0);
+                sentinel.previous = sentinel;
+                sentinel.next = sentinel;
+                level[i] = sentinel;
+            }
+        }
+    }
+
+    public Timeout<T> schedule(T item, long deadlineMs) {
+        // Round up so nothing fires early; anything already due fires on the next tick
+        long deadlineTick = Math.max(ceilDiv(deadlineMs - startMs, tickMs), currentTick + 1);
+        Timeout<T> timeout = new Timeout<>(item, deadlineTick);
+        file(timeout);
+        size++;
+        return timeout;
+    }
+
+    public boolean cancel(Timeout<T> timeout) {
+        if (!timeout.linked) {
+            return false;
+        }
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Advances the wheel to {@code nowMs}, returning the items whose deadline has passed.
+     */
+    public List<T> advance(long nowMs) {
+        List<T> expired = new ArrayList<>();
+        long targetTick = Math.floorDiv(nowMs - startMs, tickMs);
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Higher levels first, so their timeouts can still land in the lower slots about to be processed
+            int wrapped = 0;
+            while (wrapped + 1 < slots.length && (currentTick & ((1L << (bits * (wrapped + 1))) - 1)) == 0) {
+                wrapped++;
+            }
+            for (int level = wrapped; level >= 1; level--) {
+                for (Timeout<T> timeout : drain(slots[level][digit(currentTick, level)])) {
+                    file(timeout);
+                }
+            }
+            for (Timeout<T> timeout : drain(slots[0][digit(currentTick, 0)])) {
+                if (timeout.deadlineTick <= currentTick) {
+                    expired.add(timeout.item);
+                    size--;
+                } else {
+                    file(timeout);
+                }
+            }
+        }
+        return expired;
+    }
+
+    private void file(Timeout<T> timeout) {
+        int top = slots.length - 1;
+        int level = 0;
+        // Lowest level at which deadline and current tick share all higher digits
+        while (level < top && (timeout.deadlineTick >>> (bits * (level + 1))) != (currentTick >>> (bits * (level + 1)))) {
+            level++;
+        }
+        Timeout<T> sentinel = slots[level][digit(timeout.deadlineTick, level)];
+        timeout.previous = sentinel.previous;
+        timeout.next = sentinel;
+        sentinel.previous.next = timeout;
+        sentinel.previous = timeout;
+        timeout.linked = true;
+    }
+
+    private List<Timeout<T>> drain(Timeout<T> sentinel) {
+        List<Timeout<T>> drained = new ArrayList<>();
+        for (Timeout<T> timeout = sentinel.next; timeout != sentinel; ) {
+            Timeout<T> next = timeout.next;
+            unlink(timeout);
+            drained.add(timeout);
+            timeout = next;
+        }
+        return drained;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        timeout.previous.next = timeout.next;
+        timeout.next.previous = timeout.previous;
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.linked = false;
+    }
+
+    private int digit(long tick, int level) {
+        return (int) ((tick >>> (bits * level)) & mask);
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+}
@@ -0,0 +1,411 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.entities.InventoryLedgerFlush;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.exception.InsufficientStockException;
+import com.promo.quoter.repos.InventoryLedgerFlushRepository;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.services.StockReservationStrategy;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Authoritative in-memory stock counts for the {@code ledger} reservation strategy.
+ * <p>
+ * Counts are sharded by SKU; each shard is owned by one thread and only ever mutated by commands queued to it,
+ * so reservations need no locks and never touch the database. A reservation is journaled before its order
+ * transaction commits and written through to the {@code product} table later, coalesced per SKU in canonical
+ * order. Every write-through batch records its id in {@code inventory_ledger_flushes} in the same transaction;
+ * on startup, journaled reservations that are neither voided nor covered by a recorded batch are applied
+ * before stock is loaded. A crash between journaling and the order commit counts the reservation as sold,
+ * which can under-sell but never over-sell.
+ * <p>
+ * The counts are local to this instance: the ledger assumes it is the only writer of product stock. A product's
+ * count is read once, at startup or on its first reservation, and afterwards only follows reservations and
+ * releases made here. Stock changed by another instance or directly in the database is not seen until restart,
+ * and the write-through applies deltas on top of it. {@link StripedStockAllocator} refuses to stripe under this
+ * strategy for the same reason.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "inventory.reservation.strategy", havingValue = "ledger")
+public class InventoryLedger implements SmartInitializingSingleton {
+
+    private static final byte RESERVE = 1;
+    private static final byte VOID = 2;
+    private static final byte FLUSH = 3;
+
+    public record Reservation(long sequence, Map<UUID, Integer> lines) {
+    }
+
+    private static final class Shard {
+        private final ThreadPoolExecutor executor;
+        // Only touched from the shard's own thread
+        private final Map<UUID, int[]> stock = new HashMap<>();
+
+        private Shard(int index, int queueCapacity) {
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> new Thread(runnable, "inventory-shard-" + index));
+            // Releases are queued directly, so the worker has to exist before the first command
+            this.executor.prestartCoreThread();
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final InventoryLedgerFlushRepository flushRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AppendOnlyJournal journal;
+    private final boolean fsync;
+    private final long flushIntervalMs;
+    private final long compactBytes;
+    private final Shard[] shards;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "inventory-flusher"));
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Set<UUID> knownProducts = ConcurrentHashMap.newKeySet();
+    // Journaled reservations not yet voided or written through
+    private final Set<Long> outstanding = ConcurrentHashMap.newKeySet();
+    // Committed reservations waiting for the next write-through
+    private final Queue<Reservation> committed = new ConcurrentLinkedQueue<>();
+    private volatile boolean ready;
+
+    public InventoryLedger(ProductRepository productRepository,
+                           InventoryLedgerFlushRepository flushRepository,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${inventory.ledger.shards:0}") int shardCount,
+                           @Value("${inventory.ledger.shard-queue-capacity:10000}") int queueCapacity,
+                           @Value("${inventory.ledger.flush-interval-ms:200}") long flushIntervalMs,
+                           @Value("${inventory.ledger.journal-path:data/inventory-ledger.journal}") String journalPath,
+                           @Value("${inventory.ledger.fsync:true}") boolean fsync,
+                           @Value("${inventory.ledger.journal-compact-bytes:67108864}") long compactBytes) {
+        this.productRepository = productRepository;
+        this.flushRepository = flushRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.flushIntervalMs = flushIntervalMs;
+        this.fsync = fsync;
+        this.compactBytes = compactBytes;
+        this.journal = new AppendOnlyJournal(Path.of(journalPath));
+        this.shards = new Shard[shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i, queueCapacity);
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        recover();
+        loadStock();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        ready = true;
+        log.info("Inventory ledger ready: {} products on {} shards", knownProducts.size(), shards.length);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        ready = false;
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+        for (Shard shard : shards) {
+            shard.executor.shutdown();
+        }
+        journal.close();
+    }
+
+    /**
+     * Reserves every line from memory, all or nothing.
+     *
+     * @param lines    quantities keyed by product id
+     * @param products the same products as read from the database; used to seed SKUs the ledger has not seen
+     */
+    public Reservation reserve(Map<UUID, Integer> lines, Map<UUID, Product> products) {
+        if (!ready) {
+            throw new CustomException("Inventory ledger is not available", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        seedUnknown(products.values());
+
+        Map<Shard, Map<UUID, Integer>> linesByShard = new LinkedHashMap<>();
+        lines.forEach((id, quantity) -> linesByShard.computeIfAbsent(shardOf(id), s -> new HashMap<>()).put(id, quantity));
+
+        // Each shard reserves its part atomically; parts that succeeded are handed back if another part fails
+        List<Map<UUID, Integer>> parts = new ArrayList<>();
+        List<CompletableFuture<Map<UUID, Integer>>> attempts = new ArrayList<>();
+        RuntimeException failure = null;
+        for (Map.Entry<Shard, Map<UUID, Integer>> part : linesByShard.entrySet()) {
+            try {
+                attempts.add(submit(part.getKey(), () -> tryReserve(part.getKey(), part.getValue())));
+                parts.add(part.getValue());
+            } catch (CustomException e) {
+                failure = e;
+                break;
+            }
+        }
+
+        Map<UUID, Integer> shortages = new TreeMap<>(StockReservationStrategy.CANONICAL_ORDER);
+        List<Map<UUID, Integer>> reserved = new ArrayList<>();
+        for (int i = 0; i < attempts.size(); i++) {
+            Map<UUID, Integer> shortage = attempts.get(i).join();
+            if (shortage.isEmpty()) {
+                reserved.add(parts.get(i));
+            } else {
+                shortages.putAll(shortage);
+            }
+        }
+
+        if (failure != null || !shortages.isEmpty()) {
+            reserved.forEach(this::releaseLines);
+            if (failure != null) {
+                throw failure;
+            }
+            List<String> outOfStockItems = new ArrayList<>();
+            shortages.forEach((id, available) -> outOfStockItems.add(String.format("%s (requested: %d, available: %d)",
+                    products.get(id).getName(), lines.get(id), available)));
+            throw new InsufficientStockException("Insufficient stock for items: " + String.join(", ", outOfStockItems));
+        }
+        return new Reservation(sequence.incrementAndGet(), lines);
+    }
+
+    /**
+     * Makes the reservation durable; called right before the order transaction commits.
+     */
+    public void journal(Reservation reservation) {
+        outstanding.add(reservation.sequence());
+        ByteBuffer record = ByteBuffer.allocate(1 + Long.BYTES + Integer.BYTES + reservation.lines().size() * 20);
+        record.put(RESERVE).putLong(reservation.sequence()).putInt(reservation.lines().size());
+        reservation.lines().forEach((id, quantity) ->
+                record.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).putInt(quantity));
+        long position = journal.append(record.flip());
+        if (fsync) {
+            journal.sync(position);
+        }
+    }
+
+    public void commit(Reservation reservation) {
+        committed.add(reservation);
+    }
+
+    public void release(Reservation reservation) {
+        releaseLines(reservation.lines());
+        discard(reservation);
+    }
+
+    /**
+     * Prepares handing back stock of a committed reservation; nothing changes until {@link #restock} is called.
+     * The returned entry carries negative quantities, so it is journaled and written through like a reservation.
+     */
+    public Reservation prepareRestock(Map<UUID, Integer> lines) {
+        Map<UUID, Integer> negated = new HashMap<>();
+        lines.forEach((id, quantity) -> negated.put(id, -quantity));
+        return new Reservation(sequence.incrementAndGet(), negated);
+    }
+
+    public void restock(Reservation restock) {
+        Map<UUID, Integer> lines = new HashMap<>();
+        restock.lines().forEach((id, quantity) -> lines.put(id, -quantity));
+        releaseLines(lines);
+        committed.add(restock);
+    }
+
+    /**
+     * Drops a journaled entry whose transaction rolled back.
+     */
+    public void discard(Reservation reservation) {
+        if (outstanding.remove(reservation.sequence())) {
+            // Not synced: losing a void only makes recovery count the reservation as sold
+            journal.append(ByteBuffer.allocate(1 + Long.BYTES).put(VOID).putLong(reservation.sequence()).flip());
+        }
+    }
+
+    public int available(UUID productId) {
+        int[] stock = submit(shardOf(productId), () -> shardOf(productId).stock.get(productId)).join();
+        return stock == null ? 0 : stock[0];
+    }
+
+    /**
+     * Writes committed reservations through to the {@code product} table in one transaction.
+     */
+    public synchronized void flush() {
+        List<Reservation> batch = new ArrayList<>();
+        for (Reservation reservation; (reservation = committed.poll()) != null; ) {
+            batch.add(reservation);
+        }
+        if (batch.isEmpty()) {
+            if (journal.size() > compactBytes) {
+                journal.truncateIf(() -> outstanding.isEmpty() && committed.isEmpty());
+            }
+            return;
+        }
+
+        List<Long> sequences = batch.stream().map(Reservation::sequence).toList();
+        try {
+            writeThrough(sequences, aggregate(batch.stream().map(Reservation::lines).toList()));
+            sequences.forEach(outstanding::remove);
+            log.debug("Flushed {} reservations to the product table", batch.size());
+        } catch (RuntimeException e) {
+            log.error("Inventory flush failed, retrying on the next cycle: {}", e.getMessage(), e);
+            committed.addAll(batch);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Inventory flush failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void writeThrough(List<Long> sequences, Map<UUID, Integer> deltas) {
+        UUID batchId = UUID.randomUUID();
+
+        // The batch must be on disk before its transaction can commit, or recovery would apply it twice
+        ByteBuffer record = ByteBuffer.allocate(1 + 2 * Long.BYTES + Integer.BYTES + sequences.size() * Long.BYTES);
+        record.put(FLUSH).putLong(batchId.getMostSignificantBits()).putLong(batchId.getLeastSignificantBits())
+                .putInt(sequences.size());
+        sequences.forEach(record::putLong);
+        journal.sync(journal.append(record.flip()));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            deltas.forEach(productRepository::decrementStock);
+            flushRepository.save(InventoryLedgerFlush.builder()
+                    .batchId(batchId)
+                    .reservations(sequences.size())
+                    .flushedAt(LocalDateTime.now())
+                    .build());
+        });
+    }
+
+    private void recover() {
+        Map<Long, Map<UUID, Integer>> reserved = new LinkedHashMap<>();
+        Map<UUID, List<Long>> batches = new HashMap<>();
+        for (ByteBuffer record : journal.readAll()) {
+            byte type = record.get();
+            if (type == RESERVE) {
+                long reservationSequence = record.getLong();
+                int size = record.getInt();
+                Map<UUID, Integer> lines = new HashMap<>(size * 2);
+                for (int i = 0; i < size; i++) {
+                    lines.put(new UUID(record.getLong(), record.getLong()), record.getInt());
+                }
+                reserved.put(reservationSequence, lines);
+            } else if (type == VOID) {
+                reserved.remove(record.getLong());
+            } else if (type == FLUSH) {
+                UUID batchId = new UUID(record.getLong(), record.getLong());
+                int size = record.getInt();
+                List<Long> sequences = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    sequences.add(record.getLong());
+                }
+                batches.put(batchId, sequences);
+            }
+        }
+
+        List<InventoryLedgerFlush> flushes = transactionTemplate.execute(tx -> flushRepository.findAllById(batches.keySet()));
+        for (InventoryLedgerFlush flushed : flushes) {
+            batches.get(flushed.getBatchId()).forEach(reserved::remove);
+        }
+        if (!reserved.isEmpty()) {
+            writeThrough(new ArrayList<>(reserved.keySet()), aggregate(reserved.values()));
+            log.warn("Recovered {} unflushed reservations from the inventory journal", reserved.size());
+        }
+        journal.truncate();
+    }
+
+    private void loadStock() {
+        List<CompletableFuture<Void>> loads = new ArrayList<>();
+        // A read-write transaction keeps the counts off a lagging read replica
+        for (Product product : transactionTemplate.execute(tx -> productRepository.findAll())) {
+            loads.add(seed(product));
+        }
+        loads.forEach(CompletableFuture::join);
+    }
+
+    private void seedUnknown(Collection<Product> products) {
+        for (Product product : products) {
+            if (!knownProducts.contains(product.getId())) {
+                // Queued ahead of the reservation on the same shard, so it is applied first
+                seed(product);
+            }
+        }
+    }
+
+    private CompletableFuture<Void> seed(Product product) {
+        Shard shard = shardOf(product.getId());
+        CompletableFuture<Void> seeded = submit(shard, () -> {
+            shard.stock.putIfAbsent(product.getId(), new int[]{product.getStock()});
+            return null;
+        });
+        knownProducts.add(product.getId());
+        return seeded;
+    }
+
+    // Runs on the shard thread: checks every line before taking anything
+    private Map<UUID, Integer> tryReserve(Shard shard, Map<UUID, Integer> lines) {
+        Map<UUID, Integer> shortages = new HashMap<>();
+        lines.forEach((id, quantity) -> {
+            int[] stock = shard.stock.get(id);
+            int available = stock == null ? 0 : stock[0];
+            if (available < quantity) {
+                shortages.put(id, available);
+            }
+        });
+        if (shortages.isEmpty()) {
+            lines.forEach((id, quantity) -> shard.stock.get(id)[0] -= quantity);
+        }
+        return shortages;
+    }
+
+    private void releaseLines(Map<UUID, Integer> lines) {
+        Map<Shard, Map<UUID, Integer>> linesByShard = new HashMap<>();
+        lines.forEach((id, quantity) -> linesByShard.computeIfAbsent(shardOf(id), s -> new HashMap<>()).put(id, quantity));
+        linesByShard.forEach((shard, part) -> {
+            // Releases must not be dropped when the queue is full
+            CompletableFuture.runAsync(() -> part.forEach((id, quantity) -> shard.stock.get(id)[0] += quantity),
+                    command -> {
+                        try {
+                            shard.executor.getQueue().put(command);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new IllegalStateException("Interrupted while releasing stock", e);
+                        }
+                    });
+        });
+    }
+
+    private Map<UUID, Integer> aggregate(Collection<Map<UUID, Integer>> reservations) {
+        Map<UUID, Integer> deltas = new TreeMap<>(StockReservationStrategy.CANONICAL_ORDER);
+        reservations.forEach(lines -> lines.forEach((id, quantity) -> deltas.merge(id, quantity, Integer::sum)));
+        deltas.values().removeIf(quantity -> quantity == 0);
+        return deltas;
+    }
+
+    private <T> CompletableFuture<T> submit(Shard shard, Supplier<T> command) {
+        try {
+            return CompletableFuture.supplyAsync(command, shard.executor);
+        } catch (RejectedExecutionException e) {
+            throw new CustomException("Inventory ledger is overloaded, please retry", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    private Shard shardOf(UUID productId) {
+        return shards[Math.floorMod(productId.hashCode(), shards.length)];
+    }
+}
@@ -0,0 +1,93 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.dtos.CompactCart;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.services.StockReservationStrategy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * Reserves stock from the {@link InventoryLedger} instead of the {@code product} rows. The reservation is tied to
+ * the order transaction: it is journaled just before commit, queued for write-through after commit and handed
+ * back to the ledger if the transaction rolls back.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "inventory.reservation.strategy", havingValue = "ledger")
+public class LedgerStockReservation implements StockReservationStrategy {
+
+    private final InventoryLedger inventoryLedger;
+    private final ProductRepository productRepository;
+
+    @Override
+    public Map<UUID, Product> reserve(CompactCart cart) {
+        requireTransaction();
+
+        // Plain read for pricing and order lines; stock on these rows lags the ledger and is never written back
+        Map<UUID, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(cart.productIds())) {
+            products.put(product.getId(), product);
+        }
+        Map<UUID, Integer> lines = new HashMap<>();
+        for (int i = 0; i < cart.size(); i++) {
+            UUID productId = cart.productId(i);
+            if (!products.containsKey(productId)) {
+                throw new CustomException("Product not found: " + productId, HttpStatus.NOT_FOUND);
+            }
+            lines.put(productId, cart.quantity(i));
+        }
+
+        InventoryLedger.Reservation reservation = inventoryLedger.reserve(lines, products);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                inventoryLedger.journal(reservation);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    inventoryLedger.commit(reservation);
+                } else {
+                    inventoryLedger.release(reservation);
+                }
+            }
+        });
+        return products;
+    }
+
+    @Override
+    public void release(Map<UUID, Integer> lines) {
+        requireTransaction();
+        InventoryLedger.Reservation restock = inventoryLedger.prepareRestock(lines);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                inventoryLedger.journal(restock);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    inventoryLedger.restock(restock);
+                } else {
+                    inventoryLedger.discard(restock);
+                }
+            }
+        });
+    }
+
+    private void requireTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Ledger reservations must run inside a transaction");
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.exception.CustomException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a whole transaction when it fails to acquire row locks in time (lock wait timeout, {@code NOWAIT}
+ * or a deadlock victim) or loses an optimistic version check. The work must start its own transaction so every
+ * attempt begins from a clean state.
+ */
+@Component
+@Slf4j
+public class LockRetryPolicy {
+
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final Counter lockRetries;
+    private final Counter versionRetries;
+
+    public LockRetryPolicy(@Value("${inventory.reservation.lock-attempts:3}") int maxAttempts,
+                           @Value("${inventory.reservation.lock-retry-backoff-ms:25}") long backoffMs,
+                           MeterRegistry meterRegistry) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMs = backoffMs;
+        this.lockRetries = meterRegistry.counter("inventory.reservation.retries", "cause", "lock");
+        this.versionRetries = meterRegistry.counter("inventory.reservation.retries", "cause", "version");
+    }
+
+    public <T> T execute(Supplier<T> transaction) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("Giving up after {} lock attempts: {}", attempt, e.getMessage());
+                    throw new CustomException("Products are busy, please retry", HttpStatus.CONFLICT);
+                }
+                log.debug("Lock attempt {} failed, retrying: {}", attempt, e.getMessage());
+                (e instanceof OptimisticLockingFailureException ? versionRetries : lockRetries).increment();
+                sleep(attempt);
+            }
+        }
+    }
+
+    private void sleep(int attempt) {
+        if (backoffMs <= 0) {
+            return;
+        }
+        // Exponential backoff with full jitter so retrying transactions do not collide again
+        long ceiling = backoffMs << Math.min(attempt - 1, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMs, ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomException("Interrupted while waiting for product locks", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+}
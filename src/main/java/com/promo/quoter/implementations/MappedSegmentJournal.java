@@ -0,0 +1,216 @@
+package com.promo.quoter.implementations;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal kept in fixed-size, memory-mapped segment files, with the same length and CRC framing as
+ * {@link AppendOnlyJournal}.
+ * <p>
+ * Positions are logical: {@code segment * segmentBytes + offset}, so they keep increasing across segments.
+ * {@link #append} copies the record into the mapped segment and returns its end position; {@link #sync} forces
+ * the segment to disk, shared between concurrent callers. A segment is forced when it fills up, so forcing the
+ * current one covers every earlier position. A torn tail left by a crash is zeroed on open.
+ */
+public class MappedSegmentJournal implements Closeable {
+
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    private static final String SUFFIX = ".segment";
+
+    public record Record(ByteBuffer payload, long position) {
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final Object syncLock = new Object();
+    // Current segment and write offset in it; guarded by this
+    private long segment;
+    private MappedByteBuffer buffer;
+    private int writeOffset;
+    private volatile long syncedPosition;
+
+    public MappedSegmentJournal(Path directory, int segmentBytes) {
+        if (segmentBytes <= HEADER_BYTES) {
+            throw new IllegalArgumentException("Journal segments must be larger than " + HEADER_BYTES + " bytes");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        try {
+            Files.createDirectories(directory);
+            List<Long> segments = segments();
+            segment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+            buffer = map(segment);
+            writeOffset = scan(buffer, null, segment);
+            // Clear whatever a crash left behind the last complete record
+            byte[] zeros = new byte[4096];
+            for (int i = writeOffset; i < segmentBytes; i += zeros.length) {
+                buffer.put(i, zeros, 0, Math.min(zeros.length, segmentBytes - i));
+            }
+            buffer.force();
+            syncedPosition = position(segment, writeOffset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open journal " + directory, e);
+        }
+    }
+
+    /**
+     * @return the position just past the record
+     */
+    public synchronized long append(ByteBuffer payload) {
+        int length = payload.remaining();
+        if (length == 0 || HEADER_BYTES + length > segmentBytes) {
+            throw new IllegalArgumentException("Journal record size out of range: " + length);
+        }
+        if (writeOffset + HEADER_BYTES + length > segmentBytes) {
+            roll();
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        buffer.putInt(writeOffset, length);
+        buffer.putInt(writeOffset + Integer.BYTES, (int) crc.getValue());
+        buffer.put(writeOffset + HEADER_BYTES, payload, payload.position(), length);
+        writeOffset += HEADER_BYTES + length;
+        return position(segment, writeOffset);
+    }
+
+    public void sync(long position) {
+        if (syncedPosition >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedPosition >= position) {
+                return;
+            }
+            MappedByteBuffer current;
+            long target;
+            synchronized (this) {
+                current = buffer;
+                target = position(segment, writeOffset);
+            }
+            current.force();
+            syncedPosition = target;
+        }
+    }
+
+    public long syncedPosition() {
+        return syncedPosition;
+    }
+
+    /**
+     * Reads every complete record at or after {@code position}, oldest first.
+     */
+    public synchronized List<Record> readFrom(long position) {
+        List<Record> records = new ArrayList<>();
+        try {
+            for (long index : segments()) {
+                if (index < position / segmentBytes) {
+                    continue;
+                }
+                MappedByteBuffer mapped = index == segment ? buffer : map(index);
+                List<Record> inSegment = new ArrayList<>();
+                scan(mapped, inSegment, index);
+                inSegment.stream().filter(record -> record.position() > position).forEach(records::add);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read journal " + directory, e);
+        }
+        return records;
+    }
+
+    /**
+     * Deletes the segments that end before {@code position}; the current segment is always kept.
+     */
+    public synchronized int deleteBefore(long position) {
+        int deleted = 0;
+        try {
+            for (long index : segments()) {
+                if (index >= Math.min(segment, position / segmentBytes)) {
+                    break;
+                }
+                Files.deleteIfExists(path(index));
+                deleted++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete journal segments in " + directory, e);
+        }
+        return deleted;
+    }
+
+    @Override
+    public synchronized void close() {
+        buffer.force();
+    }
+
+    private void roll() {
+        // Forced before moving on, so that syncing the new segment also covers this one
+        buffer.force();
+        try {
+            buffer = map(segment + 1);
+            segment++;
+            writeOffset = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal segment " + path(segment + 1), e);
+        }
+    }
+
+    // Returns the end offset of the valid records, collecting them if a list is given
+    private int scan(ByteBuffer mapped, List<Record> records, long index) {
+        int offset = 0;
+        while (offset + HEADER_BYTES <= segmentBytes) {
+            int length = mapped.getInt(offset);
+            int checksum = mapped.getInt(offset + Integer.BYTES);
+            if (length <= 0 || offset + HEADER_BYTES + length > segmentBytes) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            payload.put(0, mapped, offset + HEADER_BYTES, length);
+            CRC32C crc = new CRC32C();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            offset += HEADER_BYTES + length;
+            if (records != null) {
+                records.add(new Record(payload, position(index, offset)));
+            }
+        }
+        return offset;
+    }
+
+    private MappedByteBuffer map(long index) throws IOException {
+        try (FileChannel channel = FileChannel.open(path(index), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    private List<Long> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path path(long index) {
+        return directory.resolve(String.format("%020d%s", index, SUFFIX));
+    }
+
+    private long position(long index, int offset) {
+        return index * segmentBytes + offset;
+    }
+}
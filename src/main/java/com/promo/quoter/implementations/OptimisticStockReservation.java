@@ -0,0 +1,138 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.dtos.CompactCart;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.exception.InsufficientStockException;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.services.StockReservationStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Reserves stock without holding a row lock while it is checked: each SKU's stock and version are read, then
+ * written back with a compare-and-set on the version. A lost race throws
+ * {@link ObjectOptimisticLockingFailureException} and {@link LockRetryPolicy} re-runs the transaction after a
+ * jittered backoff. SKUs that keep conflicting are locked pessimistically for a while instead, as decided by
+ * {@link ReservationContentionMonitor}.
+ * <p>
+ * Lines are processed in canonical order in both modes, since the compare-and-set also holds its row lock until commit.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "inventory.reservation.strategy", havingValue = "optimistic")
+public class OptimisticStockReservation implements StockReservationStrategy {
+
+    private final ProductRepository productRepository;
+    private final StripedStockAllocator stripedStock;
+    private final ReservationContentionMonitor contentionMonitor;
+    private final int lockTimeoutMs;
+
+    public OptimisticStockReservation(ProductRepository productRepository,
+                                      StripedStockAllocator stripedStock,
+                                      ReservationContentionMonitor contentionMonitor,
+                                      @Value("${inventory.reservation.lock-timeout-ms:3000}") int lockTimeoutMs) {
+        this.productRepository = productRepository;
+        this.stripedStock = stripedStock;
+        this.contentionMonitor = contentionMonitor;
+        this.lockTimeoutMs = lockTimeoutMs;
+    }
+
+    @Override
+    public Map<UUID, Product> reserve(CompactCart cart) {
+        Map<UUID, Integer> quantities = new TreeMap<>(CANONICAL_ORDER);
+        for (int i = 0; i < cart.size(); i++) {
+            quantities.put(cart.productId(i), cart.quantity(i));
+        }
+
+        // Locked products are decremented once every line has passed; the others are written as they go
+        Map<UUID, Product> locked = new HashMap<>();
+        Map<UUID, Integer> written = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<UUID, Integer> line : quantities.entrySet()) {
+                UUID productId = line.getKey();
+                int quantity = line.getValue();
+                if (stripedStock.isStriped(productId)) {
+                    stripedStock.reserve(productId, quantity);
+                    written.put(productId, quantity);
+                } else if (contentionMonitor.isPessimistic(productId)) {
+                    lockAndCheck(productId, quantity, locked, written);
+                    contentionMonitor.recordLocked(productId);
+                } else {
+                    reserveOptimistically(productId, quantity, locked, written);
+                }
+            }
+        } catch (RuntimeException e) {
+            written.forEach(this::giveBack);
+            throw e;
+        }
+
+        // Written as statements too: each stock update clears the persistence context, detaching the locked rows
+        locked.keySet().forEach(productId -> productRepository.decrementStock(productId, quantities.get(productId)));
+
+        Map<UUID, Product> products = new HashMap<>();
+        // Loaded after the updates so the entities carry the reserved stock levels
+        for (Product product : productRepository.findAllById(quantities.keySet())) {
+            products.put(product.getId(), product);
+        }
+        return products;
+    }
+
+    @Override
+    public void release(Map<UUID, Integer> lines) {
+        Map<UUID, Integer> ordered = new TreeMap<>(CANONICAL_ORDER);
+        ordered.putAll(lines);
+        ordered.forEach(this::giveBack);
+    }
+
+    private void reserveOptimistically(UUID productId, int quantity,
+                                       Map<UUID, Product> locked, Map<UUID, Integer> written) {
+        ProductRepository.StockSnapshot snapshot = productRepository.findStockSnapshot(productId)
+                .orElseThrow(() -> new CustomException("Product not found: " + productId, HttpStatus.NOT_FOUND));
+        if (snapshot.isStriped()) {
+            stripedStock.reserve(productId, quantity);
+            written.put(productId, quantity);
+            return;
+        }
+        if (snapshot.getStock() < quantity) {
+            // The snapshot may be stale, so only the locked row may declare the line short
+            lockAndCheck(productId, quantity, locked, written);
+            return;
+        }
+        if (productRepository.decrementStockIfVersion(productId, snapshot.getVersion(), quantity) == 0) {
+            contentionMonitor.recordConflict(productId);
+            throw new ObjectOptimisticLockingFailureException(Product.class, productId);
+        }
+        contentionMonitor.recordSuccess(productId);
+        written.put(productId, quantity);
+    }
+
+    private void lockAndCheck(UUID productId, int quantity,
+                              Map<UUID, Product> locked, Map<UUID, Integer> written) {
+        Product product = productRepository.lockAllInCanonicalOrder(List.of(productId), lockTimeoutMs).stream()
+                .findFirst()
+                .orElseThrow(() -> new CustomException("Product not found: " + productId, HttpStatus.NOT_FOUND));
+        if (product.isStriped()) {
+            stripedStock.reserve(productId, quantity);
+            written.put(productId, quantity);
+            return;
+        }
+        if (product.getStock() < quantity) {
+            throw new InsufficientStockException(String.format("Insufficient stock for items: %s (requested: %d, available: %d)",
+                    product.getName(), quantity, product.getStock()));
+        }
+        locked.put(productId, product);
+    }
+
+    private void giveBack(UUID productId, int quantity) {
+        if (stripedStock.isStriped(productId) || productRepository.incrementStock(productId, quantity) == 0) {
+            stripedStock.release(productId, quantity);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.dtos.OrderHistoryDto;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.repos.OrderRepository;
+import com.promo.quoter.services.OrderHistoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Order lookups for support and customers. Orders are read as projections, and their lines and promotions are
+ * only queried, one statement per page, when asked for.
+ * <p>
+ * Listing pages by keyset: the cursor names the last order returned, by creation time and id, and the next page
+ * starts right after it on the {@code (created_at, id)} index. Unlike an offset, that does not get slower the
+ * further a client pages, and orders confirmed in the meantime do not shift the pages.
+ * <p>
+ * With the order journal enabled, an acknowledged order that is still waiting in this instance's journal is
+ * looked up from there; listings only show it once it is applied.
+ * <p>
+ * A single order is looked up on the read replica first and, if it is not there, on the primary: a client
+ * fetching the order it was just confirmed must not get a 404 because the replica has not caught up. Listings
+ * stay on the replica.
+ */
+@Service
+public class OrderHistoryServiceImpl implements OrderHistoryService {
+
+    static final int MAX_PAGE_SIZE = 200;
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate transactionTemplate;
+
+    // Only present with cart.confirm.journal.enabled
+    @Autowired(required = false)
+    private OrderJournal orderJournal;
+
+    public OrderHistoryServiceImpl(OrderRepository orderRepository, TransactionTemplate transactionTemplate) {
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager(), transactionTemplate);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public OrderHistoryDto.OrderSummary getOrder(String orderId, Set<OrderHistoryDto.Include> include) {
+        if (orderJournal != null) {
+            Optional<OrderJournal.JournaledOrder> journaled = orderJournal.findUnappliedOrder(orderId);
+            if (journaled.isPresent()) {
+                return toSummary(journaled.get(), include);
+            }
+        }
+        Optional<OrderHistoryDto.OrderSummary> order = readOnlyTransaction.execute(tx -> findOrder(orderId, include));
+        if (order.isEmpty()) {
+            // A read-write transaction runs on the primary
+            order = transactionTemplate.execute(tx -> findOrder(orderId, include));
+        }
+        return order.orElseThrow(() -> new CustomException("Order not found: " + orderId, HttpStatus.NOT_FOUND));
+    }
+
+    private Optional<OrderHistoryDto.OrderSummary> findOrder(String orderId, Set<OrderHistoryDto.Include> include) {
+        Optional<OrderHistoryDto.OrderSummary> order = orderRepository.findSummary(orderId);
+        order.ifPresent(summary -> addIncluded(List.of(summary), include));
+        return order;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderHistoryDto.Page listOrders(OrderHistoryDto.Filter filter, String cursor, int limit,
+                                           Set<OrderHistoryDto.Include> include) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new CustomException("Limit must be between 1 and " + MAX_PAGE_SIZE, HttpStatus.BAD_REQUEST);
+        }
+        if (filter.getFrom() != null && filter.getTo() != null && !filter.getFrom().isBefore(filter.getTo())) {
+            throw new CustomException("from must be before to", HttpStatus.BAD_REQUEST);
+        }
+        Position after = cursor == null || cursor.isBlank() ? new Position(null, null) : decode(cursor);
+
+        // One extra row tells whether there is a next page
+        List<OrderHistoryDto.OrderSummary> orders =
+                orderRepository.findSummaries(filter, after.createdAt(), after.id(), limit + 1);
+        String nextCursor = null;
+        if (orders.size() > limit) {
+            orders = orders.subList(0, limit);
+            nextCursor = encode(orders.get(limit - 1));
+        }
+        addIncluded(orders, include);
+        return OrderHistoryDto.Page.builder()
+                .orders(orders)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private void addIncluded(List<OrderHistoryDto.OrderSummary> orders, Set<OrderHistoryDto.Include> include) {
+        if (orders.isEmpty() || include == null || include.isEmpty()) {
+            return;
+        }
+        List<UUID> ids = orders.stream().map(OrderHistoryDto.OrderSummary::getId).toList();
+        if (include.contains(OrderHistoryDto.Include.ITEMS)) {
+            var lines = orderRepository.findLines(ids);
+            orders.forEach(order -> order.setItems(lines.getOrDefault(order.getId(), List.of())));
+        }
+        if (include.contains(OrderHistoryDto.Include.PROMOTIONS)) {
+            var promotions = orderRepository.findPromotions(ids);
+            orders.forEach(order -> order.setAppliedPromotions(promotions.getOrDefault(order.getId(), List.of())));
+        }
+    }
+
+    private static OrderHistoryDto.OrderSummary toSummary(OrderJournal.JournaledOrder journaled,
+                                                          Set<OrderHistoryDto.Include> include) {
+        OrderHistoryDto.OrderSummary order = OrderHistoryDto.OrderSummary.builder()
+                .orderId(journaled.orderId())
+                .status(journaled.status())
+                .customerSegment(journaled.customerSegment())
+                .subtotal(journaled.subtotal())
+                .totalDiscount(journaled.totalDiscount())
+                .finalTotal(journaled.finalTotal())
+                .createdAt(journaled.createdAt())
+                .build();
+        if (include != null && include.contains(OrderHistoryDto.Include.ITEMS)) {
+            order.setItems(journaled.lines().stream()
+                    .map(line -> OrderHistoryDto.Line.builder()
+                            .productId(line.productId().toString())
+                            .quantity(line.quantity())
+                            .unitPrice(line.unitPrice())
+                            .lineTotal(line.lineTotal())
+                            .discountAmount(line.discountAmount())
+                            .finalLineTotal(line.finalLineTotal())
+                            .reservedAt(journaled.createdAt())
+                            .build())
+                    .toList());
+        }
+        if (include != null && include.contains(OrderHistoryDto.Include.PROMOTIONS)) {
+            order.setAppliedPromotions(journaled.promotions().stream()
+                    .map(promo -> OrderHistoryDto.AppliedPromotion.builder()
+                            .promotionId(promo.promotionId() != null ? promo.promotionId().toString() : null)
+                            .promotionType(promo.promotionType())
+                            .description(promo.description())
+                            .discountAmount(promo.discountAmount())
+                            .build())
+                    .toList());
+        }
+        return order;
+    }
+
+    private static String encode(OrderHistoryDto.OrderSummary last) {
+        String position = last.getCreatedAt() + "," + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Position decode(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",");
+            if (position.length == 2) {
+                return new Position(LocalDateTime.parse(position[0]), UUID.fromString(position[1]));
+            }
+        } catch (RuntimeException e) {
+            // Reported below
+        }
+        throw new CustomException("Invalid cursor", HttpStatus.BAD_REQUEST);
+    }
+
+    private record Position(LocalDateTime createdAt, UUID id) {
+    }
+}
@@ -0,0 +1,662 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.dtos.CartConfirmResponse;
+import com.promo.quoter.entities.Order;
+import com.promo.quoter.entities.OrderItem;
+import com.promo.quoter.entities.OrderPromotion;
+import com.promo.quoter.enums.CustomerSegment;
+import com.promo.quoter.repos.JournaledOrderMarkerRepository;
+import com.promo.quoter.repos.OrderRepository;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.repos.PromotionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-ahead journal for confirmed orders, enabled by {@code cart.confirm.journal.enabled}.
+ * <p>
+ * An order is appended to a {@link MappedSegmentJournal} inside the transaction that claims its idempotency key
+ * and reserves its stock, together with a row in {@code journaled_order_markers}, and acknowledged once that
+ * transaction commits. A background applier then inserts the journaled orders into {@code orders},
+ * {@code order_items} and {@code order_promotions} in batches and deletes their markers. With
+ * {@code sync-interval-ms} at 0 the record is forced to disk before the transaction commits, in an fsync shared
+ * with concurrent confirmations, so a crash at any point leaves either the committed reservation with its record
+ * or neither of them. Above 0 the journal is forced on that interval instead, and a crash can lose the records of
+ * the last interval while their stock and idempotency keys stay taken. The applier only ever applies records that
+ * are on disk.
+ * <p>
+ * The position up to which every record is applied or discarded is checkpointed next to the segments, and
+ * segments behind it are deleted. On startup the records after the checkpoint are replayed: those whose marker
+ * is missing belong to transactions that never committed and are dropped, and orders that already exist are
+ * skipped, so a crash between an insert and its checkpoint applies nothing twice.
+ * <p>
+ * An order the database rejects is retried with backoff while the orders behind it go on. One it rejects with a
+ * constraint violation {@code max-apply-attempts} times, for example because its product was deleted, is copied
+ * to {@code dead-letter/} in the journal directory, in the journal's record format, and dropped from the journal;
+ * its stock stays taken until an operator applies or refunds it. {@code orders.journal.retrying} and
+ * {@code orders.journal.dead.lettered} are the meters to alert on. Until an order is applied it is only known to
+ * this instance: a retry with the same idempotency key, a lookup or a cancel of the order are answered from the
+ * journal here, and with 409 or 404 on other instances.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "cart.confirm.journal.enabled", havingValue = "true")
+public class OrderJournal implements SmartInitializingSingleton {
+
+    private static final byte ORDER = 1;
+    // Written by earlier versions when a record could not be synced; still honoured on replay
+    private static final byte VOID = 2;
+    private static final String CHECKPOINT = "applied.checkpoint";
+    private static final String DEAD_LETTER = "dead-letter";
+
+    public record JournaledOrder(String orderId,
+                                 String idempotencyKey,
+                                 Order.OrderStatus status,
+                                 CustomerSegment customerSegment,
+                                 BigDecimal subtotal,
+                                 BigDecimal totalDiscount,
+                                 BigDecimal finalTotal,
+                                 LocalDateTime createdAt,
+                                 List<Line> lines,
+                                 List<AppliedPromotion> promotions) {
+    }
+
+    public record Line(UUID productId,
+                       String productName,
+                       int quantity,
+                       BigDecimal unitPrice,
+                       BigDecimal lineTotal,
+                       BigDecimal discountAmount,
+                       BigDecimal finalLineTotal) {
+    }
+
+    public record AppliedPromotion(UUID promotionId, String promotionType, String description, BigDecimal discountAmount) {
+    }
+
+    private static final class Entry {
+        private final JournaledOrder order;
+        private final long position;
+        // Known to be committed; replayed entries and those with an unknown commit outcome check their marker.
+        // Set before the entry is queued for the applier
+        private boolean committed;
+        // Applied, dropped or dead-lettered; the checkpoint may pass it
+        private volatile boolean finished;
+        // Applier thread only
+        private boolean neverCommitted;
+        private int failures;
+        private int rejections;
+        private long retryAt;
+
+        private Entry(JournaledOrder order, long position, boolean committed) {
+            this.order = order;
+            this.position = position;
+            this.committed = committed;
+        }
+    }
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final PromotionRepository promotionRepository;
+    private final JournaledOrderMarkerRepository markerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ConfirmResponseSnapshots responseSnapshots;
+    private final Path directory;
+    private final MappedSegmentJournal journal;
+    private final long syncIntervalMs;
+    private final int applyBatch;
+    private final int maxApplyAttempts;
+    private final Counter deadLettered;
+
+    // Every entry after the checkpoint by position, from its append until it is finished; guarded by this
+    private final NavigableMap<Long, Entry> open = new TreeMap<>();
+    // Committed orders waiting for the applier
+    private final BlockingQueue<Entry> unapplied = new LinkedBlockingQueue<>();
+    // Orders the database rejected, waiting for their next attempt
+    private final Queue<Entry> retrying = new ConcurrentLinkedQueue<>();
+    private final Map<String, Entry> unappliedByKey = new ConcurrentHashMap<>();
+    private final Map<String, Entry> unappliedByOrderId = new ConcurrentHashMap<>();
+    // Journaled and not yet applied, including the batch being applied
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final Thread applier = new Thread(this::applyLoop, "order-journal-applier");
+    private final ScheduledExecutorService syncer = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "order-journal-sync"));
+    private volatile boolean running;
+    private volatile long appliedPosition;
+
+    public OrderJournal(OrderRepository orderRepository,
+                        ProductRepository productRepository,
+                        PromotionRepository promotionRepository,
+                        JournaledOrderMarkerRepository markerRepository,
+                        TransactionTemplate transactionTemplate,
+                        ConfirmResponseSnapshots responseSnapshots,
+                        MeterRegistry meterRegistry,
+                        @Value("${cart.confirm.journal.directory:data/order-journal}") String directory,
+                        @Value("${cart.confirm.journal.segment-bytes:67108864}") int segmentBytes,
+                        @Value("${cart.confirm.journal.sync-interval-ms:0}") long syncIntervalMs,
+                        @Value("${cart.confirm.journal.apply-batch:100}") int applyBatch,
+                        @Value("${cart.confirm.journal.max-apply-attempts:10}") int maxApplyAttempts) {
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.promotionRepository = promotionRepository;
+        this.markerRepository = markerRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.responseSnapshots = responseSnapshots;
+        this.directory = Path.of(directory);
+        this.journal = new MappedSegmentJournal(this.directory, segmentBytes);
+        this.syncIntervalMs = syncIntervalMs;
+        this.applyBatch = Math.max(1, applyBatch);
+        this.maxApplyAttempts = Math.max(1, maxApplyAttempts);
+        meterRegistry.gauge("orders.journal.unapplied", outstanding);
+        meterRegistry.gauge("orders.journal.retrying", retrying, Collection::size);
+        this.deadLettered = meterRegistry.counter("orders.journal.dead.lettered");
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        recover();
+        running = true;
+        applier.setDaemon(true);
+        applier.start();
+        if (syncIntervalMs > 0) {
+            syncer.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Whatever is not applied yet stays in the journal for the next start
+        running = false;
+        applier.join(TimeUnit.SECONDS.toMillis(15));
+        syncer.shutdown();
+        journal.close();
+    }
+
+    /**
+     * Journals an order inside the transaction that reserves its stock. The order is applied if and only if that
+     * transaction commits, even across a restart; if this throws, the transaction has to roll back.
+     */
+    public void append(Order order) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Orders are journaled inside the transaction that reserves their stock");
+        }
+        JournaledOrder journaled = toJournaled(order);
+        markerRepository.mark(journaled.orderId(), LocalDateTime.now());
+        ByteBuffer record = encode(journaled);
+        Entry entry;
+        synchronized (this) {
+            entry = new Entry(journaled, journal.append(record), true);
+            open.put(entry.position, entry);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    enqueue(entry);
+                } else if (status == STATUS_ROLLED_BACK) {
+                    // Its marker is gone with the transaction, so a replay would drop the record as well
+                    entry.finished = true;
+                } else {
+                    // The applier applies it only if it finds the marker
+                    entry.committed = false;
+                    enqueue(entry);
+                }
+            }
+        });
+        if (syncIntervalMs == 0) {
+            journal.sync(entry.position);
+        }
+    }
+
+    /**
+     * @return the response for a journaled order that is not in the database yet
+     */
+    public Optional<CartConfirmResponse> findUnapplied(String idempotencyKey) {
+        Entry entry = unappliedByKey.get(idempotencyKey);
+        return entry == null ? Optional.empty() : Optional.of(toResponse(entry.order));
+    }
+
+    /**
+     * @return a journaled order that is not in the database yet; an order leaves the journal only after it is
+     * committed, so look here before the database
+     */
+    public Optional<JournaledOrder> findUnappliedOrder(String orderId) {
+        Entry entry = unappliedByOrderId.get(orderId);
+        return entry == null ? Optional.empty() : Optional.of(entry.order);
+    }
+
+    public int unappliedCount() {
+        return outstanding.get();
+    }
+
+    public long appliedPosition() {
+        return appliedPosition;
+    }
+
+    private void enqueue(Entry entry) {
+        outstanding.incrementAndGet();
+        unappliedByOrderId.put(entry.order.orderId(), entry);
+        if (entry.order.idempotencyKey() != null) {
+            unappliedByKey.put(entry.order.idempotencyKey(), entry);
+        }
+        unapplied.add(entry);
+    }
+
+    private void applyLoop() {
+        List<Entry> batch = new ArrayList<>(applyBatch);
+        long backoffMs = 100;
+        while (running) {
+            try {
+                try {
+                    long now = System.currentTimeMillis();
+                    for (Iterator<Entry> due = retrying.iterator(); due.hasNext() && batch.size() < applyBatch; ) {
+                        Entry entry = due.next();
+                        if (entry.retryAt <= now) {
+                            due.remove();
+                            batch.add(entry);
+                        }
+                    }
+                    if (batch.isEmpty()) {
+                        Entry first = unapplied.poll(100, TimeUnit.MILLISECONDS);
+                        if (first == null) {
+                            continue;
+                        }
+                        batch.add(first);
+                    }
+                    unapplied.drainTo(batch, applyBatch - batch.size());
+                    apply(batch);
+                    backoffMs = 100;
+                    continue;
+                } catch (RuntimeException e) {
+                    // Most likely the disk is unavailable; the batch is tried again as it is
+                    log.error("Order journal applier failed: {}", e.getMessage(), e);
+                }
+                Thread.sleep(backoffMs);
+                backoffMs = Math.min(backoffMs * 2, 10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Applies the batch and empties it. Orders the database rejects are put back for a later attempt, or
+     * dead-lettered once a constraint violation has rejected them {@code max-apply-attempts} times.
+     */
+    private void apply(List<Entry> batch) {
+        journal.sync(batch.stream().mapToLong(entry -> entry.position).max().orElseThrow());
+        List<Entry> done = new ArrayList<>(batch.size());
+        try {
+            transactionTemplate.executeWithoutResult(tx -> insert(batch));
+            done.addAll(batch);
+        } catch (RuntimeException e) {
+            log.warn("Applying {} journaled orders failed, applying them one by one: {}", batch.size(), e.getMessage());
+            for (Entry entry : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(tx -> insert(List.of(entry)));
+                    done.add(entry);
+                } catch (RuntimeException single) {
+                    if (rejectedFor(entry, single)) {
+                        done.add(entry);
+                    }
+                }
+            }
+        }
+        for (Entry entry : done) {
+            if (entry.neverCommitted) {
+                log.info("Dropped journaled order {}: its reservation was never committed", entry.order.orderId());
+            }
+            forget(entry);
+            outstanding.decrementAndGet();
+            entry.finished = true;
+        }
+        batch.clear();
+        advanceCheckpoint();
+    }
+
+    /**
+     * @return true if the order was dead-lettered, false if it waits for another attempt
+     */
+    private boolean rejectedFor(Entry entry, RuntimeException failure) {
+        // Only a constraint violation counts; anything else more likely means the database is unavailable
+        if (failure instanceof DataIntegrityViolationException && ++entry.rejections >= maxApplyAttempts
+                && deadLetter(entry, failure)) {
+            return true;
+        }
+        long backoffMs = Math.min(100L << Math.min(entry.failures++, 7), 10_000);
+        entry.retryAt = System.currentTimeMillis() + backoffMs;
+        retrying.add(entry);
+        log.error("Cannot apply journaled order {}, retrying in {} ms: {}", entry.order.orderId(), backoffMs,
+                failure.getMessage());
+        return false;
+    }
+
+    /**
+     * Copies an order the database keeps rejecting out of the journal, so that it no longer holds the checkpoint.
+     *
+     * @return false if the copy could not be written, in which case the order stays in the journal
+     */
+    private boolean deadLetter(Entry entry, RuntimeException failure) {
+        Path file = directory.resolve(DEAD_LETTER).resolve(entry.order.orderId() + ".record");
+        try {
+            Files.createDirectories(file.getParent());
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(encode(entry.order));
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            log.error("Cannot dead-letter journaled order {}: {}", entry.order.orderId(), e.getMessage());
+            return false;
+        }
+        deadLettered.increment();
+        log.error("Journaled order {} was rejected {} times and moved to {}; its stock stays reserved: {}",
+                entry.order.orderId(), entry.rejections, file, failure.getMessage());
+        return true;
+    }
+
+    private void insert(List<Entry> entries) {
+        List<String> orderIds = entries.stream().map(entry -> entry.order.orderId()).toList();
+        // Replayed records may already have been applied before a crash
+        Set<String> existing = new HashSet<>(orderRepository.findExistingOrderIds(orderIds));
+        List<String> unconfirmed = entries.stream()
+                .filter(entry -> !entry.committed && !existing.contains(entry.order.orderId()))
+                .map(entry -> entry.order.orderId())
+                .toList();
+        Set<String> marked = unconfirmed.isEmpty() ? Set.of()
+                : new HashSet<>(markerRepository.findExistingOrderIds(unconfirmed));
+        List<Order> orders = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            String orderId = entry.order.orderId();
+            entry.neverCommitted = unconfirmed.contains(orderId) && !marked.contains(orderId);
+            if (!existing.contains(orderId) && !entry.neverCommitted) {
+                orders.add(toEntity(entry.order));
+            }
+        }
+        orderRepository.saveAll(orders);
+        markerRepository.deleteAllByIdInBatch(orderIds);
+    }
+
+    private void forget(Entry entry) {
+        unappliedByOrderId.remove(entry.order.orderId(), entry);
+        String key = entry.order.idempotencyKey();
+        if (key != null) {
+            unappliedByKey.remove(key, entry);
+        }
+    }
+
+    /**
+     * Moves the checkpoint up to the last record before the first one that is not finished yet.
+     */
+    private void advanceCheckpoint() {
+        long position = -1;
+        synchronized (this) {
+            Map.Entry<Long, Entry> first;
+            while ((first = open.firstEntry()) != null && first.getValue().finished) {
+                open.pollFirstEntry();
+                position = first.getKey();
+            }
+        }
+        if (position >= 0) {
+            checkpoint(position);
+        }
+    }
+
+    private void checkpoint(long position) {
+        appliedPosition = position;
+        try {
+            Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+            Files.write(temporary, ByteBuffer.allocate(Long.BYTES).putLong(position).array());
+            Files.move(temporary, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Only costs a longer replay, which skips orders that exist already
+            log.warn("Cannot write order journal checkpoint: {}", e.getMessage());
+            return;
+        }
+        journal.deleteBefore(position);
+    }
+
+    private void recover() {
+        long checkpoint = 0;
+        try {
+            Path file = directory.resolve(CHECKPOINT);
+            if (Files.exists(file)) {
+                checkpoint = ByteBuffer.wrap(Files.readAllBytes(file)).getLong();
+            }
+        } catch (IOException e) {
+            log.warn("Cannot read order journal checkpoint, replaying the whole journal: {}", e.getMessage());
+        }
+        appliedPosition = checkpoint;
+
+        List<MappedSegmentJournal.Record> records = journal.readFrom(checkpoint);
+        Set<String> voided = new HashSet<>();
+        List<Entry> entries = new ArrayList<>();
+        for (MappedSegmentJournal.Record record : records) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record.payload().array()))) {
+                byte type = in.readByte();
+                if (type == ORDER) {
+                    entries.add(new Entry(decode(in), record.position(), false));
+                } else if (type == VOID) {
+                    voided.add(in.readUTF());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Corrupt order journal record at " + record.position(), e);
+            }
+        }
+        int recovered = 0;
+        for (Entry entry : entries) {
+            entry.finished = voided.contains(entry.order.orderId());
+            synchronized (this) {
+                open.put(entry.position, entry);
+            }
+            if (!entry.finished) {
+                // Whether its transaction committed is only known from its marker, which the applier checks
+                enqueue(entry);
+                recovered++;
+            }
+        }
+        if (recovered > 0) {
+            log.warn("Recovered {} unapplied orders from the order journal", recovered);
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            journal.sync(Long.MAX_VALUE);
+        } catch (RuntimeException e) {
+            log.error("Cannot sync order journal: {}", e.getMessage());
+        }
+    }
+
+    private JournaledOrder toJournaled(Order order) {
+        List<Line> lines = order.getOrderItems().stream()
+                .map(item -> new Line(item.getProduct().getId(), item.getProduct().getName(), item.getQuantity(),
+                        item.getUnitPrice(), item.getLineTotal(), item.getDiscountAmount(), item.getFinalLineTotal()))
+                .toList();
+        List<AppliedPromotion> promotions = order.getAppliedPromotions().stream()
+                .map(promo -> new AppliedPromotion(promo.getPromotion() != null ? promo.getPromotion().getId() : null,
+                        promo.getPromotionType(), promo.getDescription(), promo.getDiscountAmount()))
+                .toList();
+        return new JournaledOrder(order.getOrderId(), order.getIdempotencyKey(), order.getStatus(),
+                order.getCustomerSegment(), order.getSubtotal(), order.getTotalDiscount(), order.getFinalTotal(),
+                order.getCreatedAt(), lines, promotions);
+    }
+
+    private Order toEntity(JournaledOrder journaled) {
+        Order order = Order.builder()
+                .orderId(journaled.orderId())
+                .idempotencyKey(journaled.idempotencyKey())
+                .customerSegment(journaled.customerSegment())
+                .subtotal(journaled.subtotal())
+                .totalDiscount(journaled.totalDiscount())
+                .finalTotal(journaled.finalTotal())
+                .status(journaled.status())
+                .createdAt(journaled.createdAt())
+                .responseSnapshot(journaled.idempotencyKey() != null
+                        ? responseSnapshots.encode(toResponse(journaled)) : null)
+                .build();
+        order.setOrderItems(journaled.lines().stream()
+                .map(line -> OrderItem.builder()
+                        .order(order)
+                        .product(productRepository.getReferenceById(line.productId()))
+                        .quantity(line.quantity())
+                        .unitPrice(line.unitPrice())
+                        .lineTotal(line.lineTotal())
+                        .discountAmount(line.discountAmount())
+                        .finalLineTotal(line.finalLineTotal())
+                        .reservedAt(journaled.createdAt())
+                        .build())
+                .toList());
+        order.setAppliedPromotions(journaled.promotions().stream()
+                .map(promo -> OrderPromotion.builder()
+                        .order(order)
+                        .promotion(promo.promotionId() != null ? promotionRepository.getReferenceById(promo.promotionId()) : null)
+                        .promotionType(promo.promotionType())
+                        .description(promo.description())
+                        .discountAmount(promo.discountAmount())
+                        .build())
+                .toList());
+        return order;
+    }
+
+    private CartConfirmResponse toResponse(JournaledOrder journaled) {
+        return CartConfirmResponse.builder()
+                .orderId(journaled.orderId())
+                .finalTotal(journaled.finalTotal())
+                .status(CartConfirmResponse.OrderStatus.valueOf(journaled.status().name()))
+                .reservedItems(journaled.lines().stream()
+                        .map(line -> CartConfirmResponse.ReservedItem.builder()
+                                .productId(line.productId().toString())
+                                .productName(line.productName())
+                                .quantity(line.quantity())
+                                .unitPrice(line.unitPrice())
+                                .reservedAt(journaled.createdAt())
+                                .build())
+                        .toList())
+                .appliedPromotions(journaled.promotions().stream()
+                        .map(promo -> CartConfirmResponse.AppliedPromotion.builder()
+                                .promotionId(promo.promotionId() != null ? promo.promotionId().toString() : null)
+                                .promotionType(promo.promotionType())
+                                .description(promo.description())
+                                .discountAmount(promo.discountAmount())
+                                .build())
+                        .toList())
+                .createdAt(journaled.createdAt())
+                .build();
+    }
+
+    private static ByteBuffer encode(JournaledOrder order) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + order.lines().size() * 96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(ORDER);
+            out.writeUTF(order.orderId());
+            writeNullable(out, order.idempotencyKey());
+            out.writeUTF(order.status().name());
+            writeNullable(out, order.customerSegment() != null ? order.customerSegment().name() : null);
+            writeDecimal(out, order.subtotal());
+            writeDecimal(out, order.totalDiscount());
+            writeDecimal(out, order.finalTotal());
+            out.writeUTF(order.createdAt().toString());
+            out.writeInt(order.lines().size());
+            for (Line line : order.lines()) {
+                writeUuid(out, line.productId());
+                writeNullable(out, line.productName());
+                out.writeInt(line.quantity());
+                writeDecimal(out, line.unitPrice());
+                writeDecimal(out, line.lineTotal());
+                writeDecimal(out, line.discountAmount());
+                writeDecimal(out, line.finalLineTotal());
+            }
+            out.writeInt(order.promotions().size());
+            for (AppliedPromotion promo : order.promotions()) {
+                out.writeBoolean(promo.promotionId() != null);
+                if (promo.promotionId() != null) {
+                    writeUuid(out, promo.promotionId());
+                }
+                writeNullable(out, promo.promotionType());
+                writeNullable(out, promo.description());
+                writeDecimal(out, promo.discountAmount());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    private static JournaledOrder decode(DataInputStream in) throws IOException {
+        String orderId = in.readUTF();
+        String idempotencyKey = readNullable(in);
+        Order.OrderStatus status = Order.OrderStatus.valueOf(in.readUTF());
+        String segment = readNullable(in);
+        BigDecimal subtotal = readDecimal(in);
+        BigDecimal totalDiscount = readDecimal(in);
+        BigDecimal finalTotal = readDecimal(in);
+        LocalDateTime createdAt = LocalDateTime.parse(in.readUTF());
+        List<Line> lines = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            lines.add(new Line(readUuid(in), readNullable(in), in.readInt(),
+                    readDecimal(in), readDecimal(in), readDecimal(in), readDecimal(in)));
+        }
+        List<AppliedPromotion> promotions = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            UUID promotionId = in.readBoolean() ? readUuid(in) : null;
+            promotions.add(new AppliedPromotion(promotionId, readNullable(in), readNullable(in), readDecimal(in)));
+        }
+        return new JournaledOrder(orderId, idempotencyKey, status,
+                segment != null ? CustomerSegment.valueOf(segment) : null,
+                subtotal, totalDiscount, finalTotal, createdAt, lines, promotions);
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        writeNullable(out, value != null ? value.toString() : null);
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        String value = readNullable(in);
+        return value != null ? new BigDecimal(value) : null;
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+}
@@ -0,0 +1,56 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.entities.OrderNumberBlock;
+import com.promo.quoter.repos.OrderNumberBlockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Hands out consecutive block numbers from {@code order_number_blocks}. Each allocation commits on its own,
+ * independently of the order being placed, so a rolled back order only leaves a gap and never reuses a block.
+ * Callers should not hold a transaction of their own, as that would keep two pooled connections busy;
+ * {@link BlockOrderNumberGenerator} only calls it from its prefetch thread.
+ */
+@Component
+@Slf4j
+public class OrderNumberBlockAllocator {
+
+    private static final String SEQUENCE = "orders";
+
+    private final OrderNumberBlockRepository blockRepository;
+    private final TransactionTemplate newTransaction;
+
+    public OrderNumberBlockAllocator(OrderNumberBlockRepository blockRepository,
+                                     PlatformTransactionManager transactionManager) {
+        this.blockRepository = blockRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public long allocate() {
+        Long block = newTransaction.execute(tx -> blockRepository.findByNameWithLock(SEQUENCE)
+                .map(this::take)
+                .orElse(null));
+        if (block != null) {
+            return block;
+        }
+
+        // First allocation ever: create the row, tolerating a replica that races us to it
+        try {
+            newTransaction.executeWithoutResult(tx -> blockRepository.create(SEQUENCE));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Order number sequence was created concurrently");
+        }
+        return newTransaction.execute(tx -> take(blockRepository.findByNameWithLock(SEQUENCE).orElseThrow()));
+    }
+
+    private long take(OrderNumberBlock sequence) {
+        long block = sequence.getNextBlock();
+        sequence.setNextBlock(block + 1);
+        return block;
+    }
+}
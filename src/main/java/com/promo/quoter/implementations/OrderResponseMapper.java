@@ -0,0 +1,43 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.dtos.CartConfirmResponse;
+import com.promo.quoter.entities.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Component
+public class OrderResponseMapper {
+
+    public CartConfirmResponse toConfirmResponse(Order order) {
+        List<CartConfirmResponse.ReservedItem> reservedItems = order.getOrderItems().stream()
+                .map(item -> CartConfirmResponse.ReservedItem.builder()
+                        .productId(item.getProduct().getId().toString())
+                        .productName(item.getProduct().getName())
+                        .quantity(item.getQuantity())
+                        .unitPrice(item.getUnitPrice())
+                        .reservedAt(item.getReservedAt())
+                        .build())
+                .collect(Collectors.toList());
+
+        List<CartConfirmResponse.AppliedPromotion> appliedPromotions = order.getAppliedPromotions().stream()
+                .map(promo -> CartConfirmResponse.AppliedPromotion.builder()
+                        .promotionId(promo.getPromotion() != null ?
+                                promo.getPromotion().getId().toString() : null)
+                        .promotionType(promo.getPromotionType())
+                        .description(promo.getDescription())
+                        .discountAmount(promo.getDiscountAmount())
+                        .build())
+                .collect(Collectors.toList());
+
+        return CartConfirmResponse.builder()
+                .orderId(order.getOrderId())
+                .finalTotal(order.getFinalTotal())
+                .status(CartConfirmResponse.OrderStatus.valueOf(order.getStatus().name()))
+                .reservedItems(reservedItems)
+                .appliedPromotions(appliedPromotions)
+                .createdAt(order.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,155 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.dtos.CartConfirmResponse;
+import com.promo.quoter.dtos.OrderCancelDto;
+import com.promo.quoter.entities.Order;
+import com.promo.quoter.entities.OrderItem;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.repos.OrderRepository;
+import com.promo.quoter.services.OrderService;
+import com.promo.quoter.services.StockReservationStrategy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Cancels confirmed orders and pending holds, giving their stock back. Cancelling is idempotent: an order that
+ * is already cancelled is returned or counted as it is.
+ * <p>
+ * A bulk cancel runs in one transaction. Its orders are locked in order id order, their quantities are summed
+ * per SKU in the database and stock is restored with one update per SKU in canonical order, so its cost follows
+ * the number of distinct SKUs rather than the number of order lines.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderServiceImpl implements OrderService {
+
+    // Keeps the IN lists well below driver and optimizer limits
+    private static final int CHUNK_SIZE = 1000;
+
+    private final OrderRepository orderRepository;
+    private final StockHoldRegistry stockHoldRegistry;
+    private final StockReservationStrategy stockReservationStrategy;
+    private final OrderResponseMapper orderResponseMapper;
+    private final LockRetryPolicy lockRetryPolicy;
+    private final TransactionTemplate transactionTemplate;
+
+    // Only present with cart.confirm.journal.enabled
+    @Autowired(required = false)
+    private OrderJournal orderJournal;
+
+    @Override
+    public CartConfirmResponse cancel(String orderId) {
+        // Acknowledged but not in the database yet; the journal is checked first because it lets go of an order
+        // only after the order is committed
+        if (orderJournal != null && orderJournal.findUnappliedOrder(orderId).isPresent()) {
+            throw new CustomException("Order " + orderId + " is still being recorded, please retry", HttpStatus.CONFLICT);
+        }
+        return lockRetryPolicy.execute(() -> transactionTemplate.execute(tx -> {
+            Order order = orderRepository.findByOrderIdWithLock(orderId)
+                    .orElseThrow(() -> new CustomException("Order not found: " + orderId, HttpStatus.NOT_FOUND));
+            switch (order.getStatus()) {
+                case CANCELLED:
+                    return orderResponseMapper.toConfirmResponse(order);
+                case CONFIRMED:
+                case PENDING:
+                    Map<UUID, Integer> lines = new HashMap<>();
+                    for (OrderItem item : order.getOrderItems()) {
+                        lines.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+                    }
+                    if (order.getStatus() == Order.OrderStatus.PENDING) {
+                        stockHoldRegistry.find(orderId).ifPresent(stockHoldRegistry::remove);
+                    }
+                    order.setStatus(Order.OrderStatus.CANCELLED);
+                    CartConfirmResponse response = orderResponseMapper.toConfirmResponse(order);
+                    // Last, as the stock updates flush and then detach the order
+                    stockReservationStrategy.release(lines);
+                    log.info("Order cancelled: orderId={}", orderId);
+                    return response;
+                default:
+                    throw new CustomException("Order " + orderId + " cannot be cancelled from status " + order.getStatus(),
+                            HttpStatus.CONFLICT);
+            }
+        }));
+    }
+
+    @Override
+    public OrderCancelDto.BulkCancelResponse cancelAll(List<String> orderIds) {
+        // Sorted so that overlapping bulk cancels lock their orders in the same order
+        List<String> requested = new ArrayList<>(new TreeSet<>(orderIds));
+        List<String> stillRecording = orderJournal == null ? List.of() : requested.stream()
+                .filter(orderId -> orderJournal.findUnappliedOrder(orderId).isPresent())
+                .toList();
+        requested.removeAll(stillRecording);
+        OrderCancelDto.BulkCancelResponse response =
+                lockRetryPolicy.execute(() -> transactionTemplate.execute(tx -> cancelLocked(requested)));
+        response.setStillRecording(stillRecording);
+        return response;
+    }
+
+    private OrderCancelDto.BulkCancelResponse cancelLocked(List<String> orderIds) {
+        List<UUID> cancelling = new ArrayList<>();
+        List<String> held = new ArrayList<>();
+        List<String> notCancellable = new ArrayList<>();
+        Set<String> found = new HashSet<>();
+        int alreadyCancelled = 0;
+        for (List<String> chunk : chunks(orderIds)) {
+            for (OrderRepository.OrderStatusRow order : orderRepository.lockStatuses(chunk)) {
+                found.add(order.getOrderId());
+                switch (order.getStatus()) {
+                    case CANCELLED:
+                        alreadyCancelled++;
+                        break;
+                    case PENDING:
+                        held.add(order.getOrderId());
+                        cancelling.add(order.getId());
+                        break;
+                    case CONFIRMED:
+                        cancelling.add(order.getId());
+                        break;
+                    default:
+                        notCancellable.add(order.getOrderId());
+                }
+            }
+        }
+
+        Map<UUID, Integer> lines = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (List<UUID> chunk : chunks(cancelling)) {
+            for (Object[] row : orderRepository.sumQuantitiesByProduct(chunk)) {
+                lines.merge((UUID) row[0], ((Number) row[1]).intValue(), Integer::sum);
+            }
+            orderRepository.updateStatus(chunk, Order.OrderStatus.CANCELLED, now);
+        }
+        stockReservationStrategy.release(lines);
+        stockHoldRegistry.removeAll(held);
+
+        List<String> notFound = orderIds.stream().filter(orderId -> !found.contains(orderId)).toList();
+        log.info("Bulk cancel: cancelled={}, alreadyCancelled={}, notFound={}, notCancellable={}, skus restocked={}",
+                cancelling.size(), alreadyCancelled, notFound.size(), notCancellable.size(), lines.size());
+        return OrderCancelDto.BulkCancelResponse.builder()
+                .cancelled(cancelling.size())
+                .alreadyCancelled(alreadyCancelled)
+                .notFound(notFound)
+                .notCancellable(notCancellable)
+                .build();
+    }
+
+    /**
+     * Splits ids into lists of at most {@code CHUNK_SIZE}, for one IN list each.
+     */
+    static <T> List<List<T>> chunks(List<T> items) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += CHUNK_SIZE) {
+            chunks.add(items.subList(from, Math.min(from + CHUNK_SIZE, items.size())));
+        }
+        return chunks;
+    }
+}
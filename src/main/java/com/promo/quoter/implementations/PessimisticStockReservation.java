@@ -0,0 +1,138 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.dtos.CompactCart;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.exception.InsufficientStockException;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.services.StockReservationStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Default reservation strategy: locks every cart product with one {@code SELECT ... FOR UPDATE} in canonical
+ * order, checks all lines against the locked rows and decrements them. Because every transaction acquires
+ * its row locks in the same order, two carts sharing SKUs can block each other but never deadlock.
+ * <p>
+ * Striped products are not locked; their lines are taken from stock buckets after every product row lock is held.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "inventory.reservation.strategy", havingValue = "pessimistic", matchIfMissing = true)
+public class PessimisticStockReservation implements StockReservationStrategy {
+
+    // Keeps the IN list well below driver and optimizer limits for very large carts
+    private static final int LOCK_BATCH_SIZE = 1000;
+
+    private final ProductRepository productRepository;
+    private final StripedStockAllocator stripedStock;
+    private final int lockTimeoutMs;
+
+    public PessimisticStockReservation(ProductRepository productRepository,
+                                       StripedStockAllocator stripedStock,
+                                       @Value("${inventory.reservation.lock-timeout-ms:3000}") int lockTimeoutMs) {
+        this.productRepository = productRepository;
+        this.stripedStock = stripedStock;
+        this.lockTimeoutMs = lockTimeoutMs;
+    }
+
+    @Override
+    public Map<UUID, Product> reserve(CompactCart cart) {
+        Map<UUID, Product> products = lockProducts(cart);
+
+        // Check every line against the locked rows before changing anything
+        List<String> outOfStockItems = new ArrayList<>();
+        Map<UUID, Integer> stripedLines = new TreeMap<>(CANONICAL_ORDER);
+        for (int i = 0; i < cart.size(); i++) {
+            UUID productId = cart.productId(i);
+            Product product = products.get(productId);
+            if (product == null) {
+                throw new CustomException("Product not found: " + productId, HttpStatus.NOT_FOUND);
+            }
+            if (product.isStriped()) {
+                stripedLines.put(productId, cart.quantity(i));
+            } else if (product.getStock() < cart.quantity(i)) {
+                outOfStockItems.add(String.format("%s (requested: %d, available: %d)",
+                        product.getName(), cart.quantity(i), product.getStock()));
+            }
+        }
+        if (!outOfStockItems.isEmpty()) {
+            throw new InsufficientStockException("Insufficient stock for items: " +
+                    String.join(", ", outOfStockItems));
+        }
+
+        reserveStriped(stripedLines);
+
+        // Reserve stock (decrement); the locked rows are flushed on commit
+        for (int i = 0; i < cart.size(); i++) {
+            Product product = products.get(cart.productId(i));
+            if (product.isStriped()) {
+                continue;
+            }
+            product.setStock(product.getStock() - cart.quantity(i));
+            log.info("Reserved {} units of product {}, remaining stock: {}",
+                    cart.quantity(i), product.getName(), product.getStock());
+        }
+        return products;
+    }
+
+    @Override
+    public void release(Map<UUID, Integer> lines) {
+        // Same canonical order as reservations, so releases and reservations cannot deadlock either
+        Map<UUID, Integer> ordered = new TreeMap<>(CANONICAL_ORDER);
+        ordered.putAll(lines);
+        ordered.forEach((productId, quantity) -> {
+            if (stripedStock.isStriped(productId) || productRepository.incrementStock(productId, quantity) == 0) {
+                stripedStock.release(productId, quantity);
+            }
+        });
+    }
+
+    @Override
+    public void prepareBatch(Collection<UUID> productIds) {
+        // Take every row lock of the batch up front and in order; the per-cart locks that follow are already held
+        lockProducts(new ArrayList<>(productIds));
+    }
+
+    private void reserveStriped(Map<UUID, Integer> lines) {
+        Map<UUID, Integer> reserved = new LinkedHashMap<>();
+        try {
+            lines.forEach((productId, quantity) -> {
+                stripedStock.reserve(productId, quantity);
+                reserved.put(productId, quantity);
+            });
+        } catch (RuntimeException e) {
+            reserved.forEach(stripedStock::release);
+            throw e;
+        }
+    }
+
+    private Map<UUID, Product> lockProducts(CompactCart cart) {
+        return lockProducts(cart.productIds());
+    }
+
+    private Map<UUID, Product> lockProducts(List<UUID> productIds) {
+        Map<UUID, Product> products = new HashMap<>();
+
+        // Hot striped products are read without a lock; only their buckets get locked
+        List<UUID> stripedIds = productIds.stream().filter(stripedStock::isStriped).toList();
+        if (!stripedIds.isEmpty()) {
+            productIds.removeAll(stripedIds);
+            productRepository.findAllById(stripedIds).forEach(product -> products.put(product.getId(), product));
+        }
+
+        productIds.sort(CANONICAL_ORDER);
+        for (int from = 0; from < productIds.size(); from += LOCK_BATCH_SIZE) {
+            List<UUID> batch = productIds.subList(from, Math.min(from + LOCK_BATCH_SIZE, productIds.size()));
+            for (Product product : productRepository.lockAllInCanonicalOrder(batch, lockTimeoutMs)) {
+                products.put(product.getId(), product);
+            }
+        }
+        return products;
+    }
+}
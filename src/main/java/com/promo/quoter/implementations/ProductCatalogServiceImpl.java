@@ -0,0 +1,100 @@
+package com.promo.quoter.implementations;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.promo.quoter.dtos.ProductDto;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.services.ProductCatalogService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Catalog listing for large catalogs. Pages are keyed on the product id, so each one is an index range scan from
+ * the cursor however far in it starts; with a category the scan runs on the {@code (category, id)} index.
+ * <p>
+ * The streaming listing writes one JSON array over a forward-only result set, a fetch size worth of rows at a
+ * time, so its memory use does not grow with the catalog.
+ */
+@Service
+public class ProductCatalogServiceImpl implements ProductCatalogService {
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public ProductCatalogServiceImpl(ProductRepository productRepository,
+                                     ObjectMapper objectMapper,
+                                     @Value("${catalog.stream.fetch-size:1000}") int fetchSize) {
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductDto.CatalogPage listProducts(ProductCategory category, Set<ProductDto.Field> fields,
+                                               String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new CustomException("Limit must be between 1 and " + MAX_PAGE_SIZE, HttpStatus.BAD_REQUEST);
+        }
+        UUID afterId = cursor == null || cursor.isBlank() ? null : decode(cursor);
+
+        // One extra row tells whether there is a next page
+        List<ProductDto.CatalogItem> products =
+                productRepository.findCatalogPage(category, orAll(fields), afterId, limit + 1);
+        String nextCursor = null;
+        if (products.size() > limit) {
+            products = products.subList(0, limit);
+            nextCursor = encode(products.get(limit - 1).getId());
+        }
+        return ProductDto.CatalogPage.builder()
+                .products(products)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamProducts(ProductCategory category, Set<ProductDto.Field> fields, OutputStream out)
+            throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+        try (Stream<ProductDto.CatalogItem> products =
+                     productRepository.streamCatalog(category, orAll(fields), fetchSize)) {
+            json.writeStartArray();
+            Iterator<ProductDto.CatalogItem> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                json.writeObject(iterator.next());
+            }
+            json.writeEndArray();
+        }
+        json.flush();
+    }
+
+    private static Set<ProductDto.Field> orAll(Set<ProductDto.Field> fields) {
+        return fields == null || fields.isEmpty() ? EnumSet.allOf(ProductDto.Field.class) : fields;
+    }
+
+    private static String encode(UUID id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static UUID decode(String cursor) {
+        try {
+            return UUID.fromString(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new CustomException("Invalid cursor", HttpStatus.BAD_REQUEST);
+        }
+    }
+}
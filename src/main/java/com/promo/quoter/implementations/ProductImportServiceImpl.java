@@ -0,0 +1,266 @@
+package com.promo.quoter.implementations;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.promo.quoter.dtos.ProductDto;
+import com.promo.quoter.entities.UuidV7Generator;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.services.ProductImportService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Imports a supplier catalog streamed as CSV or NDJSON. Each row is checked against the same constraints as
+ * {@code POST /products}, and valid rows are inserted as JDBC batches, one transaction per chunk. Only the
+ * current chunk is held in memory, however long the file is.
+ * <p>
+ * Rows that do not parse or validate are reported by line and skipped. If the database rejects a chunk, its rows
+ * are retried one at a time so that only the offending ones are reported.
+ */
+@Service
+@Slf4j
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final String INSERT = "INSERT INTO product (id, name, category, price, stock, striped, version) " +
+            "VALUES (?, ?, ?, ?, ?, false, 0)";
+    private static final List<String> CSV_COLUMNS = List.of("name", "category", "price", "stock");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    public ProductImportServiceImpl(JdbcTemplate jdbcTemplate,
+                                    TransactionTemplate transactionTemplate,
+                                    ObjectMapper objectMapper,
+                                    Validator validator,
+                                    @Value("${catalog.import.chunk-size:1000}") int chunkSize,
+                                    @Value("${catalog.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    @Override
+    public ProductDto.ImportReport importProducts(InputStream in, ProductDto.ImportFormat format) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Report report = new Report();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        int[] columns = null;
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == ProductDto.ImportFormat.CSV && columns == null) {
+                columns = csvColumns(line);
+                continue;
+            }
+            try {
+                ProductDto.CreateProductDto product = format == ProductDto.ImportFormat.CSV
+                        ? fromCsv(line, columns)
+                        : fromJson(line);
+                String violations = violations(product);
+                if (violations != null) {
+                    report.fail(lineNumber, violations);
+                    continue;
+                }
+                chunk.add(new Row(lineNumber, product));
+            } catch (IllegalArgumentException e) {
+                report.fail(lineNumber, e.getMessage());
+            }
+            if (chunk.size() == chunkSize) {
+                insert(chunk, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insert(chunk, report);
+        }
+        log.info("Product import finished: format={}, imported={}, failed={}", format, report.imported, report.failed);
+        return ProductDto.ImportReport.builder()
+                .imported(report.imported)
+                .failed(report.failed)
+                .errors(report.errors)
+                .build();
+    }
+
+    private void insert(List<Row> chunk, Report report) {
+        try {
+            transactionTemplate.executeWithoutResult(tx ->
+                    jdbcTemplate.batchUpdate(INSERT, chunk.stream().map(ProductImportServiceImpl::parameters).toList()));
+            report.imported += chunk.size();
+        } catch (DataAccessException e) {
+            log.warn("Product import chunk rejected, retrying its {} rows one by one: {}", chunk.size(),
+                    NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            for (Row row : chunk) {
+                try {
+                    transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.update(INSERT, parameters(row)));
+                    report.imported++;
+                } catch (DataAccessException rowFailure) {
+                    report.fail(row.line(), "Rejected by the database: "
+                            + NestedExceptionUtils.getMostSpecificCause(rowFailure).getMessage());
+                }
+            }
+        }
+    }
+
+    private static Object[] parameters(Row row) {
+        ProductDto.CreateProductDto product = row.product();
+        return new Object[]{toBytes(UuidV7Generator.next()), product.getName(), product.getCategory().name(),
+                product.getPrice(), product.getStock()};
+    }
+
+    // binary(16) on MySQL; H2 converts the bytes to its uuid type
+    private static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    private String violations(ProductDto.CreateProductDto product) {
+        Set<ConstraintViolation<ProductDto.CreateProductDto>> violations = validator.validate(product);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .reduce((first, second) -> first + "; " + second)
+                .orElseThrow();
+    }
+
+    private ProductDto.CreateProductDto fromJson(String line) {
+        try {
+            return objectMapper.readValue(line, ProductDto.CreateProductDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * @return for each of name, category, price and stock, its position in the header, or -1 if absent
+     */
+    private static int[] csvColumns(String header) {
+        List<String> names = splitCsv(header).stream()
+                .map(name -> name.trim().toLowerCase(Locale.ROOT))
+                .toList();
+        int[] columns = new int[CSV_COLUMNS.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = names.indexOf(CSV_COLUMNS.get(i));
+        }
+        // Stock, the last one, may be left out and defaults to 0
+        for (int i = 0; i < columns.length - 1; i++) {
+            if (columns[i] < 0) {
+                throw new CustomException("CSV header must name the columns " + String.join(", ", CSV_COLUMNS),
+                        HttpStatus.BAD_REQUEST);
+            }
+        }
+        return columns;
+    }
+
+    private static ProductDto.CreateProductDto fromCsv(String line, int[] columns) {
+        List<String> values = splitCsv(line);
+        String category = value(values, columns[1]);
+        String price = value(values, columns[2]);
+        String stock = value(values, columns[3]);
+        ProductDto.CreateProductDto product = new ProductDto.CreateProductDto();
+        product.setName(value(values, columns[0]));
+        try {
+            product.setCategory(category == null ? null : ProductCategory.valueOf(category.toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown category: " + category);
+        }
+        try {
+            product.setPrice(price == null ? null : new BigDecimal(price));
+            product.setStock(stock == null ? 0 : Integer.parseInt(stock));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Price and stock must be numbers");
+        }
+        return product;
+    }
+
+    private static String value(List<String> values, int column) {
+        if (column < 0 || column >= values.size()) {
+            return null;
+        }
+        String value = values.get(column).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Splits one CSV record; fields may be quoted, with {@code ""} for a quote inside them.
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private record Row(long line, ProductDto.CreateProductDto product) {
+    }
+
+    private final class Report {
+        private long imported;
+        private long failed;
+        private final List<ProductDto.RowError> errors = new ArrayList<>();
+
+        private void fail(long line, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ProductDto.RowError(line, message));
+            }
+        }
+    }
+}
@@ -12,13 +12,14 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.RequestBody;
 
-import java.util.List;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService {
     private final ProductRepository productRepository;
     private final ModelMapper modelMapper;
+    private final StripedStockAllocator stripedStock;
 
     @Override
     public ResponseEntity<?> create(ProductDto.CreateProductDto createProductDto) {
@@ -29,7 +30,7 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
-    public List<Product> findAll() {
-        return productRepository.findAll();
+    public Product enableStriping(UUID productId, int buckets) {
+        return stripedStock.enable(productId, buckets);
     }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.promo.quoter.implementations;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides whether read-only transactions may use the read replica. On every check a heartbeat is written to
+ * the primary and the last replicated heartbeat is read from the replica; the replica is used while that
+ * heartbeat is at most {@code maxLagMs} old. A failed check, or no check for three intervals, sends reads back
+ * to the primary. Heartbeats are stamped with the application clock, so instances need synchronized clocks.
+ */
+@Slf4j
+public class ReplicaLagGuard {
+
+    private static final int HEARTBEAT_ID = 1;
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMs;
+    private final long checkIntervalMs;
+    private final LongSupplier clock;
+    private volatile long lagMs = Long.MAX_VALUE;
+    private volatile long checkedAtMs;
+    private volatile boolean usable;
+
+    public ReplicaLagGuard(DataSource primary, DataSource replica, long maxLagMs, long checkIntervalMs,
+                           MeterRegistry meterRegistry, LongSupplier clock) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMs = maxLagMs;
+        this.checkIntervalMs = checkIntervalMs;
+        this.clock = clock;
+        Gauge.builder("datasource.replica.lag", this, guard -> guard.lagMs == Long.MAX_VALUE ? Double.NaN : guard.lagMs)
+                .description("Age of the last heartbeat replicated to the read replica")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("datasource.replica.usable", this, guard -> guard.isReplicaUsable() ? 1 : 0)
+                .description("1 while read-only transactions are routed to the read replica")
+                .register(meterRegistry);
+    }
+
+    public boolean isReplicaUsable() {
+        return usable && clock.getAsLong() - checkedAtMs <= checkIntervalMs * 3;
+    }
+
+    public long lagMs() {
+        return lagMs;
+    }
+
+    @Scheduled(fixedDelayString = "${spring.datasource.replica.lag-guard.check-interval-ms:500}")
+    public void check() {
+        long now = clock.getAsLong();
+        try {
+            beat(now);
+            List<Long> replicated = replica.queryForList(
+                    "SELECT beat_millis FROM replica_heartbeat WHERE id = ?", Long.class, HEARTBEAT_ID);
+            lagMs = replicated.isEmpty() ? Long.MAX_VALUE : Math.max(0, now - replicated.get(0));
+        } catch (DataAccessException e) {
+            log.debug("Replica lag check failed: {}", e.getMessage());
+            lagMs = Long.MAX_VALUE;
+        }
+        checkedAtMs = now;
+        boolean wasUsable = usable;
+        usable = lagMs <= maxLagMs;
+        if (wasUsable && !usable) {
+            log.warn("Read replica is {} behind the primary, sending read-only transactions to the primary",
+                    lagMs == Long.MAX_VALUE ? "unreachable or" : lagMs + " ms");
+        } else if (!wasUsable && usable) {
+            log.info("Read replica caught up ({} ms behind), routing read-only transactions to it", lagMs);
+        }
+    }
+
+    private void beat(long now) {
+        if (primary.update("UPDATE replica_heartbeat SET beat_millis = ? WHERE id = ?", now, HEARTBEAT_ID) == 0) {
+            try {
+                primary.update("INSERT INTO replica_heartbeat (id, beat_millis) VALUES (?, ?)", HEARTBEAT_ID, now);
+            } catch (DuplicateKeyException e) {
+                // Another instance inserted the row first; its beat is just as good
+            }
+        }
+    }
+}
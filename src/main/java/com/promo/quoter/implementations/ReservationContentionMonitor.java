@@ -0,0 +1,180 @@
+package com.promo.quoter.implementations;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks how often optimistic reservations of each SKU lose their version check, and switches a SKU to
+ * pessimistic locking for a while once its recent conflict rate crosses the threshold.
+ * <p>
+ * Counts over all SKUs are published as {@code inventory.reservation.optimistic.*} meters. Only SKUs that have
+ * switched get their own {@code inventory.reservation.optimistic.sku.*} meters tagged with the product id, so the
+ * number of series follows the contended SKUs rather than the catalog. A SKU that has seen no reservation for
+ * {@code idle-eviction-ms} is forgotten together with its meters.
+ */
+@Component
+@Slf4j
+public class ReservationContentionMonitor {
+
+    // Weight of the newest sample in the conflict rate, roughly the last ten attempts
+    private static final double RATE_WEIGHT = 0.1;
+
+    private final double conflictThreshold;
+    private final int minSamples;
+    private final long pessimisticMs;
+    private final long idleEvictionMs;
+    private final MeterRegistry meterRegistry;
+    private final Counter attempts;
+    private final Counter conflicts;
+    private final Counter locked;
+    private final Map<UUID, SkuContention> skus = new ConcurrentHashMap<>();
+
+    public ReservationContentionMonitor(@Value("${inventory.reservation.optimistic.conflict-threshold:0.2}") double conflictThreshold,
+                                        @Value("${inventory.reservation.optimistic.min-samples:10}") int minSamples,
+                                        @Value("${inventory.reservation.optimistic.pessimistic-ms:30000}") long pessimisticMs,
+                                        @Value("${inventory.reservation.optimistic.idle-eviction-ms:600000}") long idleEvictionMs,
+                                        MeterRegistry meterRegistry) {
+        this.conflictThreshold = conflictThreshold;
+        this.minSamples = minSamples;
+        this.pessimisticMs = pessimisticMs;
+        this.idleEvictionMs = idleEvictionMs;
+        this.meterRegistry = meterRegistry;
+        this.attempts = Counter.builder("inventory.reservation.optimistic.attempts")
+                .description("Optimistic reservations attempted")
+                .register(meterRegistry);
+        this.conflicts = Counter.builder("inventory.reservation.optimistic.conflicts")
+                .description("Optimistic reservations that lost the version check and were retried")
+                .register(meterRegistry);
+        this.locked = Counter.builder("inventory.reservation.optimistic.locked")
+                .description("Reservations made under a row lock while the SKU was contended")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether the SKU should currently be reserved under a row lock instead of optimistically.
+     */
+    public boolean isPessimistic(UUID productId) {
+        SkuContention contention = skus.get(productId);
+        return contention != null && contention.pessimisticUntil > System.currentTimeMillis();
+    }
+
+    public void recordSuccess(UUID productId) {
+        record(productId, false);
+    }
+
+    public void recordConflict(UUID productId) {
+        record(productId, true);
+    }
+
+    public void recordLocked(UUID productId) {
+        locked.increment();
+        contention(productId).locked.increment();
+    }
+
+    public int trackedSkus() {
+        return skus.size();
+    }
+
+    private void record(UUID productId, boolean conflict) {
+        SkuContention contention = contention(productId);
+        attempts.increment();
+        contention.attempts.increment();
+        if (conflict) {
+            conflicts.increment();
+            contention.conflicts.increment();
+        }
+        if (contention.sample(conflict)) {
+            log.info("Conflict rate of product {} crossed {}, locking it pessimistically for {} ms",
+                    productId, conflictThreshold, pessimisticMs);
+            contention.registerMeters(productId);
+        }
+    }
+
+    private SkuContention contention(UUID productId) {
+        SkuContention contention = skus.computeIfAbsent(productId, id -> new SkuContention());
+        contention.lastSeen = System.currentTimeMillis();
+        return contention;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reservation.optimistic.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        skus.forEach((productId, contention) -> {
+            if (contention.lastSeen + idleEvictionMs <= now && contention.pessimisticUntil <= now
+                    && skus.remove(productId, contention)) {
+                contention.removeMeters();
+            }
+        });
+    }
+
+    private final class SkuContention {
+        final LongAdder attempts = new LongAdder();
+        final LongAdder conflicts = new LongAdder();
+        final LongAdder locked = new LongAdder();
+        volatile long pessimisticUntil;
+        volatile long lastSeen;
+        private double conflictRate;
+        private int samples;
+        private List<Meter> meters = List.of();
+
+        /**
+         * @return true if this sample switched the SKU to pessimistic locking
+         */
+        synchronized boolean sample(boolean conflict) {
+            conflictRate += RATE_WEIGHT * ((conflict ? 1 : 0) - conflictRate);
+            samples++;
+            if (samples < minSamples || conflictRate <= conflictThreshold) {
+                return false;
+            }
+            // Start from a clean slate when the SKU comes back to optimistic mode
+            pessimisticUntil = System.currentTimeMillis() + pessimisticMs;
+            conflictRate = 0;
+            samples = 0;
+            return true;
+        }
+
+        synchronized void registerMeters(UUID productId) {
+            // Already registered, or evicted concurrently and no longer reachable
+            if (!meters.isEmpty() || skus.get(productId) != this) {
+                return;
+            }
+            String product = productId.toString();
+            meters = List.of(
+                    FunctionCounter.builder("inventory.reservation.optimistic.sku.attempts", this, c -> c.attempts.sum())
+                            .description("Optimistic reservations of a contended SKU attempted")
+                            .tag("product", product)
+                            .register(meterRegistry),
+                    FunctionCounter.builder("inventory.reservation.optimistic.sku.conflicts", this, c -> c.conflicts.sum())
+                            .description("Optimistic reservations of a contended SKU that lost the version check")
+                            .tag("product", product)
+                            .register(meterRegistry),
+                    FunctionCounter.builder("inventory.reservation.optimistic.sku.locked", this, c -> c.locked.sum())
+                            .description("Reservations of a contended SKU made under a row lock")
+                            .tag("product", product)
+                            .register(meterRegistry),
+                    Gauge.builder("inventory.reservation.optimistic.sku.pessimistic", this,
+                                    c -> c.pessimisticUntil > System.currentTimeMillis() ? 1 : 0)
+                            .description("1 while the SKU is reserved pessimistically")
+                            .tag("product", product)
+                            .register(meterRegistry));
+        }
+
+        synchronized void removeMeters() {
+            meters.forEach(meterRegistry::remove);
+            meters = List.of();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.dtos.CompactCart;
+import com.promo.quoter.exception.CustomException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static com.promo.quoter.services.StockReservationStrategy.CANONICAL_ORDER;
+
+/**
+ * Per-SKU serialization lanes in front of the database, enabled by {@code inventory.reservation.lanes.enabled}.
+ * <p>
+ * Each SKU has a lock-free queue drained by a single virtual thread that exists only while the queue is
+ * non-empty. A cart enters the lanes of all its SKUs in canonical order: the consumer of the first lane submits to
+ * the second and waits, and so on, so a cart holds every one of its lanes while its transaction runs and two carts
+ * can never wait on each other in a cycle. Each instance then has at most one transaction per SKU waiting on row
+ * locks; other SKUs proceed in parallel.
+ * <p>
+ * The work itself runs on the calling thread once every lane is held, while the lane threads only park. JDBC
+ * drivers that block inside {@code synchronized}, H2 among them, would pin the carrier of a virtual thread for
+ * the whole transaction; this way transactions stay on the request threads, bounded by their pool, and keep the
+ * caller's thread-bound state.
+ * <p>
+ * Striped products are left out, since their buckets already spread contention, and carts with more than
+ * {@code max-skus} lanes run directly under row locks alone rather than hop through thousands of queues.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "inventory.reservation.lanes.enabled", havingValue = "true")
+public class SkuLanes {
+
+    private final StripedStockAllocator stripedStock;
+    private final int maxSkus;
+    private final int maxQueued;
+    private final Counter rejected;
+    // One lane per SKU seen, kept for the life of the process like other per-SKU state
+    private final Map<UUID, Lane> lanes = new ConcurrentHashMap<>();
+
+    public SkuLanes(StripedStockAllocator stripedStock,
+                    MeterRegistry meterRegistry,
+                    @Value("${inventory.reservation.lanes.max-skus:32}") int maxSkus,
+                    @Value("${inventory.reservation.lanes.max-queued:1000}") int maxQueued) {
+        this.stripedStock = stripedStock;
+        this.maxSkus = maxSkus;
+        this.maxQueued = maxQueued;
+        this.rejected = meterRegistry.counter("inventory.reservation.lanes.rejected");
+        meterRegistry.gauge("inventory.reservation.lanes.queued", lanes,
+                l -> l.values().stream().mapToInt(lane -> lane.pending.get()).sum());
+    }
+
+    /**
+     * Runs {@code work} on the calling thread once this cart holds the lane of each of its SKUs.
+     *
+     * @throws CustomException with {@code TOO_MANY_REQUESTS} when a lane already has {@code max-queued} carts waiting
+     */
+    public <T> T execute(CompactCart cart, Supplier<T> work) {
+        List<UUID> skus = cart.productIds().stream()
+                .filter(productId -> !stripedStock.isStriped(productId))
+                .sorted(CANONICAL_ORDER)
+                .toList();
+        if (skus.isEmpty() || skus.size() > maxSkus) {
+            return work.get();
+        }
+        CompletableFuture<Void> held = new CompletableFuture<>();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        try {
+            enter(skus, 0, held, done);
+            join(held);
+            return work.get();
+        } finally {
+            done.complete(null);
+        }
+    }
+
+    /**
+     * Queues the cart on the lane at {@code index}, whose consumer enters the next lane and then keeps its own
+     * until {@code done}. Completes {@code held} once the last lane is entered, or exceptionally if one is full.
+     */
+    private void enter(List<UUID> skus, int index, CompletableFuture<Void> held, CompletableFuture<Void> done) {
+        if (index == skus.size()) {
+            held.complete(null);
+            return;
+        }
+        UUID productId = skus.get(index);
+        Lane lane = lanes.computeIfAbsent(productId, Lane::new);
+        if (!lane.offer(() -> {
+            try {
+                enter(skus, index + 1, held, done);
+            } catch (Throwable e) {
+                held.completeExceptionally(e);
+            }
+            done.join();
+        })) {
+            rejected.increment();
+            log.debug("Lane of product {} is full, rejecting reservation", productId);
+            throw new CustomException("Too many pending reservations for product " + productId + ", please retry",
+                    HttpStatus.TOO_MANY_REQUESTS);
+        }
+    }
+
+    private static void join(CompletableFuture<Void> held) {
+        try {
+            held.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private final class Lane {
+        private final UUID productId;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        // Tasks added and not yet finished; whoever raises it from zero starts the consumer
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private Lane(UUID productId) {
+            this.productId = productId;
+        }
+
+        boolean offer(Runnable task) {
+            if (pending.get() >= maxQueued) {
+                return false;
+            }
+            tasks.add(task);
+            if (pending.getAndIncrement() == 0) {
+                Thread.ofVirtual().name("sku-lane-" + productId).start(this::drain);
+            }
+            return true;
+        }
+
+        private void drain() {
+            do {
+                tasks.poll().run();
+            } while (pending.decrementAndGet() > 0);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.services.OrderNumberGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.Year;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered order numbers without any database access: 41 bits of milliseconds since 2025, a 10-bit node id
+ * and a 12-bit sequence, printed as 13 base-36 digits so that numbers sort in issue order. There is no default
+ * {@code orders.number.node-id}: every replica must be given its own, so startup fails when it is not set.
+ * <p>
+ * When more than 4096 numbers are needed in one millisecond, or the clock steps back, the generator runs ahead
+ * of the clock, by at most {@code orders.number.max-ahead-ms}; beyond that it waits for the clock. A restarted
+ * generator starts that far ahead of the clock, past anything the previous run can have issued, so numbers are
+ * not repeated across restarts as long as the clock does not step back further while the service is down.
+ */
+@Component
+@ConditionalOnProperty(name = "orders.number.generator", havingValue = "snowflake")
+public class SnowflakeOrderNumberGenerator implements OrderNumberGenerator {
+
+    private static final long EPOCH_MS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long node;
+    private final long maxAheadMs;
+    private final LongSupplier clock;
+    // Last issued (milliseconds << SEQUENCE_BITS | sequence)
+    private final AtomicLong last;
+
+    @Autowired
+    public SnowflakeOrderNumberGenerator(@Value("${orders.number.node-id:-1}") long node,
+                                         @Value("${orders.number.max-ahead-ms:1000}") long maxAheadMs) {
+        this(node, maxAheadMs, System::currentTimeMillis);
+    }
+
+    public SnowflakeOrderNumberGenerator(long node, long maxAheadMs, LongSupplier clock) {
+        if (node == -1) {
+            throw new IllegalStateException("orders.number.node-id must be set to an id no other replica uses");
+        }
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("orders.number.node-id must be between 0 and " + MAX_NODE);
+        }
+        this.node = node;
+        this.maxAheadMs = maxAheadMs;
+        this.clock = clock;
+        // The previous run issued at most maxAheadMs past a clock reading taken before this one
+        this.last = new AtomicLong(((clock.getAsLong() - EPOCH_MS + maxAheadMs) << SEQUENCE_BITS) - 1);
+    }
+
+    @Override
+    public String next() {
+        long id = nextId();
+        long issuedAtMs = (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MS;
+        int year = Year.from(Instant.ofEpochMilli(issuedAtMs).atOffset(ZoneOffset.UTC)).getValue();
+        String digits = Long.toString(id, 36).toUpperCase();
+        return "ORD-" + year + "-" + "0".repeat(13 - digits.length()) + digits;
+    }
+
+    private long nextId() {
+        while (true) {
+            long nowMs = clock.getAsLong() - EPOCH_MS;
+            long previous = last.get();
+            // A full sequence carries into the millisecond field
+            long issued = Math.max(nowMs << SEQUENCE_BITS, previous + 1);
+            long millis = issued >>> SEQUENCE_BITS;
+            if (millis - nowMs > maxAheadMs) {
+                // Never further ahead than a restart skips
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            } else if (last.compareAndSet(previous, issued)) {
+                return millis << (NODE_BITS + SEQUENCE_BITS) | node << SEQUENCE_BITS | (issued & SEQUENCE_MASK);
+            }
+        }
+    }
+}
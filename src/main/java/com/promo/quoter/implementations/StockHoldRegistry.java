@@ -0,0 +1,143 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.entities.StockHold;
+import com.promo.quoter.repos.StockHoldRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live stock holds: persisted in {@code stock_holds} and tracked in memory on a {@link HierarchicalTimingWheel},
+ * so finding the holds that are due costs the same however many are pending. Wheel changes are applied only
+ * after the surrounding transaction commits.
+ */
+@Component
+@Slf4j
+public class StockHoldRegistry {
+
+    private static final int WHEEL_BITS = 8;
+    private static final int WHEEL_LEVELS = 4;
+
+    private final StockHoldRepository stockHoldRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long ttlSeconds;
+    private final HierarchicalTimingWheel<String> wheel;
+    private final Map<String, HierarchicalTimingWheel.Timeout<String>> timeouts = new ConcurrentHashMap<>();
+
+    public StockHoldRegistry(StockHoldRepository stockHoldRepository,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${inventory.holds.ttl-seconds:900}") long ttlSeconds,
+                             @Value("${inventory.holds.tick-ms:1000}") long tickMs) {
+        this.stockHoldRepository = stockHoldRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.ttlSeconds = ttlSeconds;
+        this.wheel = new HierarchicalTimingWheel<>(tickMs, WHEEL_BITS, WHEEL_LEVELS, System.currentTimeMillis());
+    }
+
+    @PostConstruct
+    public void load() {
+        // Read-write, so the holds come from the primary even when reads are routed to a replica
+        List<StockHold> holds = transactionTemplate.execute(tx -> stockHoldRepository.findAll());
+        holds.forEach(hold -> schedule(hold.getOrderId(), hold.getExpiresAt()));
+        if (!holds.isEmpty()) {
+            log.info("Restored {} stock holds", holds.size());
+        }
+    }
+
+    /**
+     * Records a hold for the order inside the caller's transaction.
+     *
+     * @return when the hold expires
+     */
+    public LocalDateTime hold(String orderId) {
+        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(ttlSeconds);
+        stockHoldRepository.save(StockHold.builder().orderId(orderId).expiresAt(expiresAt).build());
+        afterCommit(() -> schedule(orderId, expiresAt));
+        return expiresAt;
+    }
+
+    public Optional<StockHold> find(String orderId) {
+        return stockHoldRepository.findByOrderId(orderId);
+    }
+
+    /**
+     * Removes the hold inside the caller's transaction.
+     */
+    public void remove(StockHold hold) {
+        stockHoldRepository.delete(hold);
+        afterCommit(() -> cancel(hold.getOrderId()));
+    }
+
+    /**
+     * Removes the holds of the given orders inside the caller's transaction, with one delete per chunk of ids.
+     */
+    public void removeAll(Collection<String> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        List<String> removed = List.copyOf(orderIds);
+        for (List<String> chunk : OrderServiceImpl.chunks(removed)) {
+            stockHoldRepository.deleteByOrderIds(chunk);
+        }
+        afterCommit(() -> removed.forEach(this::cancel));
+    }
+
+    /**
+     * Advances the wheel to now and returns the order ids whose hold is due.
+     */
+    public List<String> due() {
+        List<String> due;
+        synchronized (wheel) {
+            due = wheel.advance(System.currentTimeMillis());
+        }
+        due.forEach(timeouts::remove);
+        return due;
+    }
+
+    public int size() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    private void schedule(String orderId, LocalDateTime expiresAt) {
+        long deadline = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        synchronized (wheel) {
+            timeouts.put(orderId, wheel.schedule(orderId, deadline));
+        }
+    }
+
+    private void cancel(String orderId) {
+        HierarchicalTimingWheel.Timeout<String> timeout = timeouts.remove(orderId);
+        if (timeout != null) {
+            synchronized (wheel) {
+                wheel.cancel(timeout);
+            }
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
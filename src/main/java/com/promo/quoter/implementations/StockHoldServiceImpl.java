@@ -0,0 +1,127 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.dtos.CartConfirmResponse;
+import com.promo.quoter.entities.Order;
+import com.promo.quoter.entities.OrderItem;
+import com.promo.quoter.entities.StockHold;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.repos.OrderRepository;
+import com.promo.quoter.services.StockHoldService;
+import com.promo.quoter.services.StockReservationStrategy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockHoldServiceImpl implements StockHoldService {
+
+    private final OrderRepository orderRepository;
+    private final StockHoldRegistry stockHoldRegistry;
+    private final StockReservationStrategy stockReservationStrategy;
+    private final OrderResponseMapper orderResponseMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    @Transactional
+    public CartConfirmResponse commit(String orderId) {
+        Order order = lockOrder(orderId);
+        switch (order.getStatus()) {
+            case CONFIRMED:
+                return orderResponseMapper.toConfirmResponse(order);
+            case PENDING:
+                StockHold hold = stockHoldRegistry.find(orderId)
+                        .orElseThrow(() -> new CustomException("Hold is no longer active for order " + orderId,
+                                HttpStatus.CONFLICT));
+                if (hold.getExpiresAt().isBefore(LocalDateTime.now())) {
+                    // The sweeper hands the stock back
+                    throw new CustomException("Hold has expired for order " + orderId, HttpStatus.CONFLICT);
+                }
+                order.setStatus(Order.OrderStatus.CONFIRMED);
+                stockHoldRegistry.remove(hold);
+                log.info("Hold committed: orderId={}", orderId);
+                return orderResponseMapper.toConfirmResponse(order);
+            default:
+                throw new CustomException("Hold is no longer active for order " + orderId, HttpStatus.CONFLICT);
+        }
+    }
+
+    @Override
+    @Transactional
+    public CartConfirmResponse release(String orderId) {
+        Order order = lockOrder(orderId);
+        switch (order.getStatus()) {
+            case CANCELLED:
+                return orderResponseMapper.toConfirmResponse(order);
+            case PENDING:
+                CartConfirmResponse response = releaseHold(order, stockHoldRegistry.find(orderId));
+                log.info("Hold released: orderId={}", orderId);
+                return response;
+            default:
+                throw new CustomException("Order " + orderId + " is not on hold", HttpStatus.CONFLICT);
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${inventory.holds.tick-ms:1000}")
+    public int expireDueHolds() {
+        int expired = 0;
+        for (String orderId : stockHoldRegistry.due()) {
+            try {
+                Boolean released = transactionTemplate.execute(status -> expire(orderId));
+                if (Boolean.TRUE.equals(released)) {
+                    expired++;
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to expire hold for order {}: {}", orderId, e.getMessage(), e);
+            }
+        }
+        if (expired > 0) {
+            log.info("Expired {} stock holds", expired);
+        }
+        return expired;
+    }
+
+    private boolean expire(String orderId) {
+        Optional<Order> order = orderRepository.findByOrderIdWithLock(orderId);
+        Optional<StockHold> hold = stockHoldRegistry.find(orderId);
+        // Committed or released while the timeout was pending
+        if (order.isEmpty() || order.get().getStatus() != Order.OrderStatus.PENDING || hold.isEmpty()) {
+            return false;
+        }
+        releaseHold(order.get(), hold);
+        return true;
+    }
+
+    /**
+     * Cancels the held order and hands its stock back. The stock updates flush and then detach the order, so
+     * it is answered from the returned response rather than read again.
+     */
+    private CartConfirmResponse releaseHold(Order order, Optional<StockHold> hold) {
+        Map<UUID, Integer> lines = new HashMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            lines.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        order.setStatus(Order.OrderStatus.CANCELLED);
+        hold.ifPresent(stockHoldRegistry::remove);
+        CartConfirmResponse response = orderResponseMapper.toConfirmResponse(order);
+        stockReservationStrategy.release(lines);
+        return response;
+    }
+
+    private Order lockOrder(String orderId) {
+        return orderRepository.findByOrderIdWithLock(orderId)
+                .orElseThrow(() -> new CustomException("Order not found: " + orderId, HttpStatus.NOT_FOUND));
+    }
+}
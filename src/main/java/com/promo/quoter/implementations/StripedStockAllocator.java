@@ -0,0 +1,318 @@
+package com.promo.quoter.implementations;
+
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.entities.ProductStockBucket;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.exception.InsufficientStockException;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.repos.ProductStockBucketRepository;
+import com.promo.quoter.services.StockReservationStrategy;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stock of hot products split across {@code product_stock_buckets} rows, so that concurrent confirmations of
+ * the same SKU update different rows instead of queueing on the product row.
+ * <p>
+ * A line is taken from one bucket picked at random for each reservation, or from the next bucket round the ring
+ * that can cover it. The start is per call rather than per thread, because group commit, SKU lanes and the
+ * confirm waiting room place many carts from one thread. Only when no single bucket can cover the line are all
+ * buckets of the product locked in bucket order and drained together. A scheduled rebalancer evens the buckets
+ * out again.
+ * <p>
+ * Within a transaction, bucket rows are only ever locked in ascending order, products in canonical order and
+ * each product's buckets in bucket order, which is what keeps the paths free of deadlocks. A conditional update
+ * that finds too little stock may still hold its row lock, so every bucket a transaction has tried is remembered
+ * until it ends, across all the carts a group commit places in it. Later reservations reuse a bucket already
+ * held or move on to higher ones; when only a lower bucket or a canonically earlier product could serve them,
+ * the transaction is restarted instead.
+ */
+@Component
+@Slf4j
+public class StripedStockAllocator {
+
+    private final ProductStockBucketRepository bucketRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String reservationStrategy;
+
+    // Bucket count per striped product; striping is never turned off, so entries only ever appear
+    private final Map<UUID, Integer> stripes = new ConcurrentHashMap<>();
+
+    // Transaction resource key for the buckets the current transaction may hold locks on
+    private final Object heldBucketsKey = new Object();
+
+    public StripedStockAllocator(ProductStockBucketRepository bucketRepository,
+                                 ProductRepository productRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${inventory.reservation.strategy:pessimistic}") String reservationStrategy) {
+        this.bucketRepository = bucketRepository;
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.reservationStrategy = reservationStrategy;
+    }
+
+    @PostConstruct
+    public void load() {
+        // From the primary, like every stock read
+        for (Object[] row : transactionTemplate.execute(tx -> bucketRepository.countBucketsByProduct())) {
+            stripes.put((UUID) row[0], ((Number) row[1]).intValue());
+        }
+        if (!stripes.isEmpty()) {
+            log.info("Loaded {} striped products", stripes.size());
+        }
+    }
+
+    /**
+     * Whether the product is known to be striped. Products striped by another instance are picked up by the
+     * next rebalance, or as soon as a reservation finds the flag on the product row.
+     */
+    public boolean isStriped(UUID productId) {
+        return stripes.containsKey(productId);
+    }
+
+    /**
+     * Splits the product's stock evenly across {@code buckets} rows.
+     *
+     * @return the product, showing its total stock
+     */
+    public Product enable(UUID productId, int buckets) {
+        if ("ledger".equals(reservationStrategy)) {
+            throw new CustomException("Stock striping is not supported by the ledger reservation strategy",
+                    HttpStatus.CONFLICT);
+        }
+        return transactionTemplate.execute(tx -> {
+            Product product = productRepository.findByIdWithLock(productId)
+                    .orElseThrow(() -> new CustomException("Product not found: " + productId, HttpStatus.NOT_FOUND));
+            if (product.isStriped()) {
+                throw new CustomException("Product is already striped: " + productId, HttpStatus.CONFLICT);
+            }
+
+            int total = product.getStock();
+            List<ProductStockBucket> rows = new ArrayList<>(buckets);
+            for (int i = 0; i < buckets; i++) {
+                rows.add(ProductStockBucket.builder()
+                        .productId(productId)
+                        .bucketIndex(i)
+                        .stock(share(total, buckets, i))
+                        .build());
+            }
+            bucketRepository.saveAll(rows);
+            product.setStock(0);
+            product.setStriped(true);
+            afterCommit(() -> stripes.put(productId, buckets));
+
+            log.info("Striped stock of product {} across {} buckets", product.getName(), buckets);
+            return copyWithStock(product, total);
+        });
+    }
+
+    /**
+     * Takes the quantity from the product's buckets inside the caller's transaction. When it throws, the
+     * buckets are left as they were.
+     *
+     * @throws InsufficientStockException if all buckets together cannot cover the quantity
+     */
+    public void reserve(UUID productId, int quantity) {
+        int buckets = bucketCount(productId);
+        List<Integer> levels = bucketRepository.findStockLevels(productId);
+        NavigableMap<UUID, Integer> held = heldBuckets();
+        Integer heldBucket = held.get(productId);
+        // New locks must come after every one already held: above this product's highest bucket, and none at all
+        // once a canonically later product has been locked
+        int lockableFrom = held.higherKey(productId) != null ? buckets : heldBucket != null ? heldBucket : 0;
+        int start = heldBucket != null ? heldBucket : ThreadLocalRandom.current().nextInt(buckets);
+        for (int step = 0; step < buckets; step++) {
+            int bucket = (start + step) % buckets;
+            boolean allowed = bucket >= lockableFrom || (heldBucket != null && bucket == heldBucket);
+            if (!allowed || levels.get(bucket) < quantity) {
+                continue;
+            }
+            // The levels read may already be stale; the conditional update decides
+            int updated = bucketRepository.decrementIfAvailable(productId, bucket, quantity);
+            held.merge(productId, bucket, Math::max);
+            if (updated == 1) {
+                return;
+            }
+            heldBucket = held.get(productId);
+            lockableFrom = Math.max(lockableFrom, heldBucket);
+        }
+        if (lockableFrom > 0) {
+            // Locking from bucket 0 up while holding a higher bucket, or a later product, could deadlock with
+            // another transaction doing just that
+            throw new CannotAcquireLockException("Stock buckets of product " + productId
+                    + " cannot be locked in order in this transaction");
+        }
+
+        // No single bucket covers the line: lock them all and take from several
+        levels = lockStockLevels(productId, buckets);
+        held.put(productId, buckets - 1);
+        int available = levels.stream().mapToInt(Integer::intValue).sum();
+        if (available < quantity) {
+            String name = productRepository.findById(productId).map(Product::getName).orElse(productId.toString());
+            throw new InsufficientStockException(String.format(
+                    "Insufficient stock for items: %s (requested: %d, available: %d)", name, quantity, available));
+        }
+        int remaining = quantity;
+        for (int step = 0; step < buckets && remaining > 0; step++) {
+            int bucket = (start + step) % buckets;
+            int take = Math.min(levels.get(bucket), remaining);
+            if (take > 0) {
+                bucketRepository.decrementIfAvailable(productId, bucket, take);
+                remaining -= take;
+            }
+        }
+    }
+
+    /**
+     * Returns stock to the product's buckets inside the caller's transaction. A bucket the transaction already
+     * holds is preferred, so undoing part of a reservation takes no new lock.
+     */
+    public void release(UUID productId, int quantity) {
+        int buckets = bucketCount(productId);
+        if (buckets == 0) {
+            log.warn("Cannot return {} units to product {}: not found", quantity, productId);
+            return;
+        }
+        NavigableMap<UUID, Integer> held = heldBuckets();
+        int bucket = held.getOrDefault(productId, ThreadLocalRandom.current().nextInt(buckets));
+        bucketRepository.increment(productId, bucket, quantity);
+        held.merge(productId, bucket, Math::max);
+    }
+
+    /**
+     * @return total stock of every striped product among the given ones; empty without a query when none is striped
+     */
+    public Map<UUID, Integer> totals(Collection<Product> products) {
+        List<UUID> stripedIds = products.stream().filter(Product::isStriped).map(Product::getId).toList();
+        if (stripedIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, Integer> totals = new HashMap<>();
+        for (Object[] row : bucketRepository.sumStockByProductIds(stripedIds)) {
+            totals.put((UUID) row[0], ((Number) row[1]).intValue());
+        }
+        return totals;
+    }
+
+    /**
+     * @return a detached copy of the product showing the given stock, so a managed entity is never changed for display
+     */
+    private Product copyWithStock(Product product, int stock) {
+        return Product.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .category(product.getCategory())
+                .price(product.getPrice())
+                .stock(stock)
+                .striped(product.isStriped())
+                .build();
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.striping.rebalance-interval-ms:1000}")
+    public void rebalance() {
+        // Also picks up products striped by other instances
+        load();
+        for (UUID productId : stripes.keySet()) {
+            try {
+                transactionTemplate.executeWithoutResult(tx -> level(productId));
+            } catch (RuntimeException e) {
+                log.warn("Could not rebalance stock buckets of product {}: {}", productId, e.getMessage());
+            }
+        }
+    }
+
+    private void level(UUID productId) {
+        // Cheap unlocked check first; most runs find nothing to do
+        List<Integer> levels = bucketRepository.findStockLevels(productId);
+        int total = levels.stream().mapToInt(Integer::intValue).sum();
+        int lowest = levels.stream().mapToInt(Integer::intValue).min().orElse(0);
+        if (levels.isEmpty() || lowest * 2 >= total / levels.size()) {
+            return;
+        }
+
+        List<Integer> locked = lockStockLevels(productId, levels.size());
+        total = locked.stream().mapToInt(Integer::intValue).sum();
+        for (int bucket = 0; bucket < locked.size(); bucket++) {
+            int share = share(total, locked.size(), bucket);
+            if (share != locked.get(bucket)) {
+                bucketRepository.updateStock(productId, bucket, share);
+            }
+        }
+        log.debug("Rebalanced {} units of product {} across {} buckets", total, productId, locked.size());
+    }
+
+    private List<Integer> lockStockLevels(UUID productId, int buckets) {
+        // One row at a time in bucket order, because a multi-row FOR UPDATE is not guaranteed to lock in ORDER BY order
+        List<Integer> levels = new ArrayList<>(buckets);
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            levels.add(bucketRepository.lockStockLevel(productId, bucket));
+        }
+        return levels;
+    }
+
+    private int bucketCount(UUID productId) {
+        Integer buckets = stripes.get(productId);
+        if (buckets != null) {
+            return buckets;
+        }
+        int counted = (int) bucketRepository.countByProductId(productId);
+        if (counted > 0) {
+            stripes.put(productId, counted);
+        }
+        return counted;
+    }
+
+    /**
+     * @return the highest bucket per striped product the current transaction has locked or tried to, in
+     * canonical product order; outside a transaction a map for this call alone
+     */
+    @SuppressWarnings("unchecked")
+    private NavigableMap<UUID, Integer> heldBuckets() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new TreeMap<>(StockReservationStrategy.CANONICAL_ORDER);
+        }
+        NavigableMap<UUID, Integer> held = (NavigableMap<UUID, Integer>) TransactionSynchronizationManager.getResource(heldBucketsKey);
+        if (held == null) {
+            NavigableMap<UUID, Integer> bound = new TreeMap<>(StockReservationStrategy.CANONICAL_ORDER);
+            TransactionSynchronizationManager.bindResource(heldBucketsKey, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(heldBucketsKey);
+                }
+            });
+            held = bound;
+        }
+        return held;
+    }
+
+    private static int share(int total, int buckets, int index) {
+        return total / buckets + (index < total % buckets ? 1 : 0);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,15 @@
+package com.promo.quoter.repos;
+
+import com.promo.quoter.entities.CatalogProduct;
+import org.springframework.data.repository.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface CatalogProductRepository extends Repository<CatalogProduct, UUID> {
+
+    /**
+     * Served from the second-level cache once the product has been read on this instance.
+     */
+    Optional<CatalogProduct> findById(UUID id);
+}
@@ -0,0 +1,28 @@
+package com.promo.quoter.repos;
+
+import com.promo.quoter.entities.IdempotencyClaim;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyClaimRepository extends JpaRepository<IdempotencyClaim, String> {
+
+    /**
+     * Plain insert rather than {@code save}, which would merge into an existing claim instead of failing.
+     *
+     * The table is named as the query space, or Hibernate would invalidate every second-level cache region.
+     *
+     * @throws org.springframework.dao.DataIntegrityViolationException if the key is already claimed
+     */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_claims (idempotency_key, claimed_at) VALUES (:key, :claimedAt)",
+            nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_claims"))
+    void claim(@Param("key") String idempotencyKey, @Param("claimedAt") LocalDateTime claimedAt);
+}
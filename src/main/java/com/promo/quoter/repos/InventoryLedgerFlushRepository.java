@@ -0,0 +1,9 @@
+package com.promo.quoter.repos;
+
+import com.promo.quoter.entities.InventoryLedgerFlush;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.UUID;
+
+public interface InventoryLedgerFlushRepository extends JpaRepository<InventoryLedgerFlush, UUID> {
+}
@@ -0,0 +1,29 @@
+package com.promo.quoter.repos;
+
+import com.promo.quoter.entities.JournaledOrderMarker;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface JournaledOrderMarkerRepository extends JpaRepository<JournaledOrderMarker, String> {
+
+    /**
+     * Plain insert rather than {@code save}, which would read the row first.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO journaled_order_markers (order_id, journaled_at) VALUES (:orderId, :journaledAt)",
+            nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "journaled_order_markers"))
+    void mark(@Param("orderId") String orderId, @Param("journaledAt") LocalDateTime journaledAt);
+
+    @Query("SELECT m.orderId FROM JournaledOrderMarker m WHERE m.orderId IN :orderIds")
+    List<String> findExistingOrderIds(@Param("orderIds") Collection<String> orderIds);
+}
@@ -0,0 +1,32 @@
+package com.promo.quoter.repos;
+
+import com.promo.quoter.dtos.OrderHistoryDto;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Order reads as DTO projections, so no order entity or lazy collection is ever loaded.
+ */
+public interface OrderHistoryRepository {
+
+    Optional<OrderHistoryDto.OrderSummary> findSummary(String orderId);
+
+    /**
+     * Newest orders first, ordered by {@code createdAt} and then id, both descending. Paging continues strictly
+     * after the given position, so every page costs the same index range scan however deep it is.
+     *
+     * @param afterCreatedAt creation time of the last order on the previous page, or {@code null} for the first page
+     * @param afterId        id of that order
+     */
+    List<OrderHistoryDto.OrderSummary> findSummaries(OrderHistoryDto.Filter filter,
+                                                     LocalDateTime afterCreatedAt, UUID afterId, int limit);
+
+    Map<UUID, List<OrderHistoryDto.Line>> findLines(Collection<UUID> orderIds);
+
+    Map<UUID, List<OrderHistoryDto.AppliedPromotion>> findPromotions(Collection<UUID> orderIds);
+}
@@ -0,0 +1,126 @@
+package com.promo.quoter.repos;
+
+import com.promo.quoter.dtos.OrderHistoryDto;
+import com.promo.quoter.entities.Order;
+import com.promo.quoter.enums.CustomerSegment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+public class OrderHistoryRepositoryImpl implements OrderHistoryRepository {
+
+    private static final String SUMMARY_SELECT = "SELECT o.id AS id, o.orderId AS orderId, o.status AS status, " +
+            "o.customerSegment AS customerSegment, o.subtotal AS subtotal, o.totalDiscount AS totalDiscount, " +
+            "o.finalTotal AS finalTotal, o.createdAt AS createdAt, o.updatedAt AS updatedAt FROM Order o";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<OrderHistoryDto.OrderSummary> findSummary(String orderId) {
+        return entityManager.createQuery(SUMMARY_SELECT + " WHERE o.orderId = :orderId", Tuple.class)
+                .setParameter("orderId", orderId)
+                .getResultStream()
+                .findFirst()
+                .map(OrderHistoryRepositoryImpl::toSummary);
+    }
+
+    @Override
+    public List<OrderHistoryDto.OrderSummary> findSummaries(OrderHistoryDto.Filter filter,
+                                                            LocalDateTime afterCreatedAt, UUID afterId, int limit) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>();
+        if (filter.getStatus() != null) {
+            conditions.add("o.status = :status");
+            parameters.put("status", filter.getStatus());
+        }
+        if (filter.getSegment() != null) {
+            conditions.add("o.customerSegment = :segment");
+            parameters.put("segment", filter.getSegment());
+        }
+        if (filter.getFrom() != null) {
+            conditions.add("o.createdAt >= :from");
+            parameters.put("from", filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            conditions.add("o.createdAt < :to");
+            parameters.put("to", filter.getTo());
+        }
+        if (afterCreatedAt != null) {
+            // The plain bound gives the optimizer an index range; the OR breaks ties on the same timestamp
+            conditions.add("o.createdAt <= :afterCreatedAt");
+            conditions.add("(o.createdAt < :afterCreatedAt OR o.id < :afterId)");
+            parameters.put("afterCreatedAt", afterCreatedAt);
+            parameters.put("afterId", afterId);
+        }
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+
+        TypedQuery<Tuple> query = entityManager.createQuery(
+                SUMMARY_SELECT + where + " ORDER BY o.createdAt DESC, o.id DESC", Tuple.class);
+        parameters.forEach(query::setParameter);
+        return query.setMaxResults(limit)
+                .getResultStream()
+                .map(OrderHistoryRepositoryImpl::toSummary)
+                .toList();
+    }
+
+    @Override
+    public Map<UUID, List<OrderHistoryDto.Line>> findLines(Collection<UUID> orderIds) {
+        Map<UUID, List<OrderHistoryDto.Line>> lines = new HashMap<>();
+        entityManager.createQuery("SELECT i.order.id AS orderId, i.product.id AS productId, i.quantity AS quantity, " +
+                        "i.unitPrice AS unitPrice, i.lineTotal AS lineTotal, i.discountAmount AS discountAmount, " +
+                        "i.finalLineTotal AS finalLineTotal, i.reservedAt AS reservedAt " +
+                        "FROM OrderItem i WHERE i.order.id IN :orderIds ORDER BY i.id", Tuple.class)
+                .setParameter("orderIds", orderIds)
+                .getResultStream()
+                .forEach(row -> lines.computeIfAbsent(row.get("orderId", UUID.class), id -> new ArrayList<>())
+                        .add(OrderHistoryDto.Line.builder()
+                                .productId(Objects.toString(row.get("productId", UUID.class), null))
+                                .quantity(row.get("quantity", Integer.class))
+                                .unitPrice(row.get("unitPrice", BigDecimal.class))
+                                .lineTotal(row.get("lineTotal", BigDecimal.class))
+                                .discountAmount(row.get("discountAmount", BigDecimal.class))
+                                .finalLineTotal(row.get("finalLineTotal", BigDecimal.class))
+                                .reservedAt(row.get("reservedAt", LocalDateTime.class))
+                                .build()));
+        return lines;
+    }
+
+    @Override
+    public Map<UUID, List<OrderHistoryDto.AppliedPromotion>> findPromotions(Collection<UUID> orderIds) {
+        Map<UUID, List<OrderHistoryDto.AppliedPromotion>> promotions = new HashMap<>();
+        entityManager.createQuery("SELECT p.order.id AS orderId, p.promotion.id AS promotionId, " +
+                        "p.promotionType AS promotionType, p.description AS description, " +
+                        "p.discountAmount AS discountAmount " +
+                        "FROM OrderPromotion p WHERE p.order.id IN :orderIds ORDER BY p.id", Tuple.class)
+                .setParameter("orderIds", orderIds)
+                .getResultStream()
+                .forEach(row -> promotions.computeIfAbsent(row.get("orderId", UUID.class), id -> new ArrayList<>())
+                        .add(OrderHistoryDto.AppliedPromotion.builder()
+                                .promotionId(Objects.toString(row.get("promotionId", UUID.class), null))
+                                .promotionType(row.get("promotionType", String.class))
+                                .description(row.get("description", String.class))
+                                .discountAmount(row.get("discountAmount", BigDecimal.class))
+                                .build()));
+        return promotions;
+    }
+
+    private static OrderHistoryDto.OrderSummary toSummary(Tuple row) {
+        return OrderHistoryDto.OrderSummary.builder()
+                .id(row.get("id", UUID.class))
+                .orderId(row.get("orderId", String.class))
+                .status(row.get("status", Order.OrderStatus.class))
+                .customerSegment(row.get("customerSegment", CustomerSegment.class))
+                .subtotal(row.get("subtotal", BigDecimal.class))
+                .totalDiscount(row.get("totalDiscount", BigDecimal.class))
+                .finalTotal(row.get("finalTotal", BigDecimal.class))
+                .createdAt(row.get("createdAt", LocalDateTime.class))
+                .updatedAt(row.get("updatedAt", LocalDateTime.class))
+                .build();
+    }
+}
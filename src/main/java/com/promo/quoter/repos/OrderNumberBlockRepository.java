@@ -0,0 +1,29 @@
+package com.promo.quoter.repos;
+
+import com.promo.quoter.entities.OrderNumberBlock;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface OrderNumberBlockRepository extends JpaRepository<OrderNumberBlock, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM OrderNumberBlock b WHERE b.name = :name")
+    Optional<OrderNumberBlock> findByNameWithLock(@Param("name") String name);
+
+    /**
+     * Creates the sequence row; fails with a duplicate key if another replica created it first.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO order_number_blocks (name, next_block) VALUES (:name, 0)", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "order_number_blocks"))
+    void create(@Param("name") String name);
+}
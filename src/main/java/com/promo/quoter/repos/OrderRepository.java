@@ -1,12 +1,62 @@
 package com.promo.quoter.repos;
 
 import com.promo.quoter.entities.Order;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import javax.swing.text.html.Option;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
-public interface OrderRepository extends JpaRepository<Order, UUID> {
+public interface OrderRepository extends JpaRepository<Order, UUID>, OrderHistoryRepository {
     Optional<Order> findByIdempotencyKey(String idempotencyKey);
+
+    @Query("SELECT o.responseSnapshot AS responseSnapshot FROM Order o WHERE o.idempotencyKey = :key")
+    Optional<ResponseSnapshot> findResponseSnapshotByIdempotencyKey(@Param("key") String idempotencyKey);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.orderId = :orderId")
+    Optional<Order> findByOrderIdWithLock(@Param("orderId") String orderId);
+
+    @Query("SELECT o.orderId FROM Order o WHERE o.orderId IN :orderIds")
+    List<String> findExistingOrderIds(@Param("orderIds") Collection<String> orderIds);
+
+    /**
+     * Locks the orders without loading them as entities, so that large batches add nothing to flush.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.id AS id, o.orderId AS orderId, o.status AS status FROM Order o " +
+            "WHERE o.orderId IN :orderIds ORDER BY o.orderId")
+    List<OrderStatusRow> lockStatuses(@Param("orderIds") Collection<String> orderIds);
+
+    /**
+     * @return rows of {@code [productId, total quantity]} across the given orders
+     */
+    @Query("SELECT i.product.id, SUM(i.quantity) FROM OrderItem i WHERE i.order.id IN :ids GROUP BY i.product.id")
+    List<Object[]> sumQuantitiesByProduct(@Param("ids") Collection<UUID> ids);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :updatedAt WHERE o.id IN :ids")
+    int updateStatus(@Param("ids") Collection<UUID> ids,
+                     @Param("status") Order.OrderStatus status,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+
+    interface OrderStatusRow {
+        UUID getId();
+
+        String getOrderId();
+
+        Order.OrderStatus getStatus();
+    }
+
+    interface ResponseSnapshot {
+        byte[] getResponseSnapshot();
+    }
 }
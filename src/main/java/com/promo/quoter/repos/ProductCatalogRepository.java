@@ -0,0 +1,30 @@
+package com.promo.quoter.repos;
+
+import com.promo.quoter.dtos.ProductDto;
+import com.promo.quoter.enums.ProductCategory;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Catalog reads that select only the requested columns into {@link ProductDto.CatalogItem}s, so no product entity
+ * is loaded or cached. Striped products report the sum of their buckets, computed in the same statement.
+ */
+public interface ProductCatalogRepository {
+
+    /**
+     * Products in id order, strictly after {@code afterId}, optionally in one category.
+     *
+     * @param afterId last id of the previous page, or {@code null} for the first page
+     */
+    List<ProductDto.CatalogItem> findCatalogPage(ProductCategory category, Set<ProductDto.Field> fields,
+                                                 UUID afterId, int limit);
+
+    /**
+     * Every product in id order over a forward-only result set, read {@code fetchSize} rows at a time. Must be
+     * consumed and closed inside a transaction.
+     */
+    Stream<ProductDto.CatalogItem> streamCatalog(ProductCategory category, Set<ProductDto.Field> fields, int fetchSize);
+}
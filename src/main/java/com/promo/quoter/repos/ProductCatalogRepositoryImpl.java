@@ -0,0 +1,104 @@
+package com.promo.quoter.repos;
+
+import com.promo.quoter.dtos.ProductDto;
+import com.promo.quoter.enums.ProductCategory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public class ProductCatalogRepositoryImpl implements ProductCatalogRepository {
+
+    private static final String STRIPED_STOCK = "CASE WHEN p.striped = true " +
+            "THEN (SELECT COALESCE(SUM(b.stock), 0) FROM ProductStockBucket b WHERE b.productId = p.id) " +
+            "ELSE p.stock END";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductDto.CatalogItem> findCatalogPage(ProductCategory category, Set<ProductDto.Field> fields,
+                                                        UUID afterId, int limit) {
+        return query(category, fields, afterId)
+                .setMaxResults(limit)
+                .getResultStream()
+                .map(row -> toItem(row, fields))
+                .toList();
+    }
+
+    @Override
+    public Stream<ProductDto.CatalogItem> streamCatalog(ProductCategory category, Set<ProductDto.Field> fields,
+                                                        int fetchSize) {
+        // Hibernate streams over a forward-only scroll; the fetch size bounds the rows the driver buffers
+        return query(category, fields, null)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .map(row -> toItem(row, fields));
+    }
+
+    private TypedQuery<Tuple> query(ProductCategory category, Set<ProductDto.Field> fields, UUID afterId) {
+        StringBuilder jpql = new StringBuilder("SELECT p.id AS id");
+        if (fields.contains(ProductDto.Field.NAME)) {
+            jpql.append(", p.name AS name");
+        }
+        if (fields.contains(ProductDto.Field.CATEGORY)) {
+            jpql.append(", p.category AS category");
+        }
+        if (fields.contains(ProductDto.Field.PRICE)) {
+            jpql.append(", p.price AS price");
+        }
+        if (fields.contains(ProductDto.Field.STOCK)) {
+            jpql.append(", ").append(STRIPED_STOCK).append(" AS stock");
+        }
+        jpql.append(" FROM Product p");
+
+        List<String> conditions = new ArrayList<>();
+        if (category != null) {
+            conditions.add("p.category = :category");
+        }
+        if (afterId != null) {
+            conditions.add("p.id > :afterId");
+        }
+        if (!conditions.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        jpql.append(" ORDER BY p.id");
+
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql.toString(), Tuple.class);
+        if (category != null) {
+            query.setParameter("category", category);
+        }
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+        }
+        return query;
+    }
+
+    private static ProductDto.CatalogItem toItem(Tuple row, Set<ProductDto.Field> fields) {
+        ProductDto.CatalogItem item = ProductDto.CatalogItem.builder()
+                .id(row.get("id", UUID.class))
+                .build();
+        if (fields.contains(ProductDto.Field.NAME)) {
+            item.setName(row.get("name", String.class));
+        }
+        if (fields.contains(ProductDto.Field.CATEGORY)) {
+            item.setCategory(row.get("category", ProductCategory.class));
+        }
+        if (fields.contains(ProductDto.Field.PRICE)) {
+            item.setPrice(row.get("price", BigDecimal.class));
+        }
+        if (fields.contains(ProductDto.Field.STOCK)) {
+            item.setStock(((Number) row.get("stock")).intValue());
+        }
+        return item;
+    }
+}
@@ -0,0 +1,20 @@
+package com.promo.quoter.repos;
+
+import com.promo.quoter.entities.Product;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface ProductLockingRepository {
+
+    /**
+     * Locks the given products with {@code PESSIMISTIC_WRITE} in a single statement, in primary key order.
+     *
+     * @param ids           product ids, already sorted in canonical order
+     * @param lockTimeoutMs lock wait timeout in milliseconds; {@code 0} means {@code NOWAIT}, {@code -1} waits forever.
+     *                      On MySQL it is rounded up to whole seconds, and {@code -1} waits for the server's
+     *                      {@code innodb_lock_wait_timeout}
+     * @return the locked products, in primary key order
+     */
+    List<Product> lockAllInCanonicalOrder(List<UUID> ids, int lockTimeoutMs);
+}
@@ -0,0 +1,70 @@
+package com.promo.quoter.repos;
+
+import com.promo.quoter.entities.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+public class ProductLockingRepositoryImpl implements ProductLockingRepository {
+
+    private static final String LOCK_TIMEOUT_HINT = "jakarta.persistence.lock.timeout";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Product> lockAllInCanonicalOrder(List<UUID> ids, int lockTimeoutMs) {
+        // MySQL ignores the hint for anything but NOWAIT, so InnoDB's own wait timeout is set for the statement
+        if (lockTimeoutMs > 0 && isMySql()) {
+            int seconds = Math.max(1, (lockTimeoutMs + 999) / 1000);
+            int previous = swapInnoDbLockWaitTimeout(seconds);
+            try {
+                return lockAll(ids, lockTimeoutMs);
+            } finally {
+                swapInnoDbLockWaitTimeout(previous);
+            }
+        }
+        return lockAll(ids, lockTimeoutMs);
+    }
+
+    private List<Product> lockAll(List<UUID> ids, int lockTimeoutMs) {
+        return entityManager.createQuery("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id", Product.class)
+                .setParameter("ids", ids)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint(LOCK_TIMEOUT_HINT, lockTimeoutMs)
+                .getResultList();
+    }
+
+    private boolean isMySql() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof MySQLDialect;
+    }
+
+    /**
+     * Sets the session's {@code innodb_lock_wait_timeout} on the transaction's connection; plain JDBC, so no
+     * cache region is invalidated as it would be by a native query.
+     *
+     * @return the previous value
+     */
+    private int swapInnoDbLockWaitTimeout(int seconds) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                int previous;
+                try (ResultSet result = statement.executeQuery("SELECT @@SESSION.innodb_lock_wait_timeout")) {
+                    result.next();
+                    previous = result.getInt(1);
+                }
+                statement.execute("SET SESSION innodb_lock_wait_timeout = " + seconds);
+                return previous;
+            }
+        });
+    }
+}
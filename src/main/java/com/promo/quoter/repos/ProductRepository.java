@@ -3,20 +3,84 @@ package com.promo.quoter.repos;
 import com.promo.quoter.entities.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, UUID> {
+public interface ProductRepository extends JpaRepository<Product, UUID>, ProductLockingRepository,
+        ProductCatalogRepository {
 
     boolean existsByName(String name);
 
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT p FROM Product p WHERE p.id = :id")
     Optional<Product> findByIdWithLock(@Param("id") UUID id);
+
+    /**
+     * Reads stock and version without loading the entity, so the values are never served from the persistence context.
+     */
+    @Query("SELECT p.stock AS stock, p.version AS version, p.striped AS striped FROM Product p WHERE p.id = :id")
+    Optional<StockSnapshot> findStockSnapshot(@Param("id") UUID id);
+
+    /**
+     * Reads the fields of the given products that change after creation, to go with the cached {@code CatalogProduct}s.
+     */
+    @Query("SELECT p.id AS id, p.stock AS stock, p.striped AS striped FROM Product p WHERE p.id IN :ids")
+    List<StockLevel> findStockLevels(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Decrements stock if the product is still at the given version (compare-and-set).
+     *
+     * @return 1 if the stock was reserved, 0 if another transaction changed the product first
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stock = p.stock - :quantity, p.version = p.version + 1 " +
+            "WHERE p.id = :id AND p.version = :version AND p.striped = false")
+    int decrementStockIfVersion(@Param("id") UUID id, @Param("version") long version, @Param("quantity") int quantity);
+
+    /**
+     * Decrements stock only if enough is available, in a single statement.
+     *
+     * @return 1 if the stock was reserved, 0 if the product is missing or short
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stock = p.stock - :quantity, p.version = p.version + 1 WHERE p.id = :id AND p.stock >= :quantity")
+    int decrementStockIfAvailable(@Param("id") UUID id, @Param("quantity") int quantity);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stock = p.stock - :quantity, p.version = p.version + 1 WHERE p.id = :id")
+    int decrementStock(@Param("id") UUID id, @Param("quantity") int quantity);
+
+    /**
+     * Returns stock to an unstriped product.
+     *
+     * @return 0 if the product is missing or striped
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stock = p.stock + :quantity, p.version = p.version + 1 WHERE p.id = :id AND p.striped = false")
+    int incrementStock(@Param("id") UUID id, @Param("quantity") int quantity);
+
+    interface StockLevel {
+        UUID getId();
+
+        int getStock();
+
+        boolean isStriped();
+    }
+
+    interface StockSnapshot {
+        int getStock();
+
+        long getVersion();
+
+        boolean isStriped();
+    }
 }
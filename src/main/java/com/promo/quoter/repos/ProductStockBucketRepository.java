@@ -0,0 +1,59 @@
+package com.promo.quoter.repos;
+
+import com.promo.quoter.entities.ProductStockBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ProductStockBucketRepository extends JpaRepository<ProductStockBucket, UUID> {
+
+    long countByProductId(UUID productId);
+
+    @Query("SELECT b.productId, COUNT(b) FROM ProductStockBucket b GROUP BY b.productId")
+    List<Object[]> countBucketsByProduct();
+
+    /**
+     * @return stock of every bucket of the product, indexed by bucket number
+     */
+    @Query("SELECT b.stock FROM ProductStockBucket b WHERE b.productId = :productId ORDER BY b.bucketIndex")
+    List<Integer> findStockLevels(@Param("productId") UUID productId);
+
+    /**
+     * Locks one bucket and returns its current stock. A native scalar query, so the level is read from the locked
+     * row rather than from an entity already in the persistence context.
+     */
+    @Query(value = "SELECT stock FROM product_stock_buckets WHERE product_id = :productId AND bucket_index = :bucketIndex FOR UPDATE",
+            nativeQuery = true)
+    Integer lockStockLevel(@Param("productId") UUID productId, @Param("bucketIndex") int bucketIndex);
+
+    @Query("SELECT b.productId, SUM(b.stock) FROM ProductStockBucket b WHERE b.productId IN :productIds GROUP BY b.productId")
+    List<Object[]> sumStockByProductIds(@Param("productIds") Collection<UUID> productIds);
+
+    /**
+     * @return 1 if the bucket covered the quantity, 0 if it is short
+     */
+    @Modifying
+    @Query("UPDATE ProductStockBucket b SET b.stock = b.stock - :quantity " +
+            "WHERE b.productId = :productId AND b.bucketIndex = :bucketIndex AND b.stock >= :quantity")
+    int decrementIfAvailable(@Param("productId") UUID productId,
+                             @Param("bucketIndex") int bucketIndex,
+                             @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE ProductStockBucket b SET b.stock = b.stock + :quantity " +
+            "WHERE b.productId = :productId AND b.bucketIndex = :bucketIndex")
+    int increment(@Param("productId") UUID productId,
+                  @Param("bucketIndex") int bucketIndex,
+                  @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE ProductStockBucket b SET b.stock = :stock WHERE b.productId = :productId AND b.bucketIndex = :bucketIndex")
+    int updateStock(@Param("productId") UUID productId,
+                    @Param("bucketIndex") int bucketIndex,
+                    @Param("stock") int stock);
+}
@@ -1,9 +1,20 @@
 package com.promo.quoter.repos;
 
 import com.promo.quoter.entities.Promotion;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface PromotionRepository extends JpaRepository<Promotion, UUID> {
+
+    /**
+     * Read on every quote and confirmation; served from the query cache until a promotion changes.
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Promotion> findAll();
 }
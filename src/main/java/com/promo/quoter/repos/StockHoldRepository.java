@@ -0,0 +1,19 @@
+package com.promo.quoter.repos;
+
+import com.promo.quoter.entities.StockHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface StockHoldRepository extends JpaRepository<StockHold, UUID> {
+    Optional<StockHold> findByOrderId(String orderId);
+
+    @Modifying
+    @Query("DELETE FROM StockHold h WHERE h.orderId IN :orderIds")
+    int deleteByOrderIds(@Param("orderIds") Collection<String> orderIds);
+}
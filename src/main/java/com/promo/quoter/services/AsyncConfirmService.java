@@ -0,0 +1,12 @@
+package com.promo.quoter.services;
+
+import com.promo.quoter.dtos.CartQuoteRequest;
+import com.promo.quoter.dtos.ConfirmTicket;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncConfirmService {
+    ConfirmTicket submit(CartQuoteRequest request, String idempotencyKey);
+    ConfirmTicket find(String ticketId);
+    CompletableFuture<ConfirmTicket> completion(String ticketId);
+}
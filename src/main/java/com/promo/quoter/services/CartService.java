@@ -7,4 +7,5 @@ import com.promo.quoter.dtos.CartQuoteResponse;
 public interface CartService {
     CartQuoteResponse calculateQuote(CartQuoteRequest request);
     CartConfirmResponse confirmCart(CartQuoteRequest request, String idempotencyKey);
+    CartConfirmResponse holdCart(CartQuoteRequest request, String idempotencyKey);
 }
\ No newline at end of file
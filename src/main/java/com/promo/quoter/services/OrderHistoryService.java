@@ -0,0 +1,11 @@
+package com.promo.quoter.services;
+
+import com.promo.quoter.dtos.OrderHistoryDto;
+
+import java.util.Set;
+
+public interface OrderHistoryService {
+    OrderHistoryDto.OrderSummary getOrder(String orderId, Set<OrderHistoryDto.Include> include);
+    OrderHistoryDto.Page listOrders(OrderHistoryDto.Filter filter, String cursor, int limit,
+                                    Set<OrderHistoryDto.Include> include);
+}
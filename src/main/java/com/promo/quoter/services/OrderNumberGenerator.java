@@ -0,0 +1,15 @@
+package com.promo.quoter.services;
+
+/**
+ * Issues the public {@code ORD-<year>-...} order numbers. Implementations must never hand out the same number
+ * twice, across threads and across replicas, without a database round trip per order.
+ * <p>
+ * Two implementations are selected by {@code orders.number.generator}. The block generator keeps the existing
+ * short number format and needs no per-replica configuration, at the cost of a database round trip per block and
+ * numbers that interleave by block across replicas. The snowflake generator needs no database at all and its
+ * numbers sort by issue time across replicas, but every replica must be given its own node id.
+ */
+public interface OrderNumberGenerator {
+
+    String next();
+}
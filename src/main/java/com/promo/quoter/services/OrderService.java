@@ -0,0 +1,11 @@
+package com.promo.quoter.services;
+
+import com.promo.quoter.dtos.CartConfirmResponse;
+import com.promo.quoter.dtos.OrderCancelDto;
+
+import java.util.List;
+
+public interface OrderService {
+    CartConfirmResponse cancel(String orderId);
+    OrderCancelDto.BulkCancelResponse cancelAll(List<String> orderIds);
+}
@@ -0,0 +1,13 @@
+package com.promo.quoter.services;
+
+import com.promo.quoter.dtos.ProductDto;
+import com.promo.quoter.enums.ProductCategory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Set;
+
+public interface ProductCatalogService {
+    ProductDto.CatalogPage listProducts(ProductCategory category, Set<ProductDto.Field> fields, String cursor, int limit);
+    void streamProducts(ProductCategory category, Set<ProductDto.Field> fields, OutputStream out) throws IOException;
+}
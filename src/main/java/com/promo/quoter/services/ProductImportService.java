@@ -0,0 +1,10 @@
+package com.promo.quoter.services;
+
+import com.promo.quoter.dtos.ProductDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ProductImportService {
+    ProductDto.ImportReport importProducts(InputStream in, ProductDto.ImportFormat format) throws IOException;
+}
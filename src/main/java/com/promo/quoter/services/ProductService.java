@@ -5,10 +5,10 @@ import com.promo.quoter.entities.Product;
 import jakarta.transaction.Transactional;
 import org.springframework.http.ResponseEntity;
 
-import java.util.List;
+import java.util.UUID;
 
 public interface ProductService {
     @Transactional
     ResponseEntity<?> create(ProductDto.CreateProductDto createProductDto);
-    List<Product> findAll();
+    Product enableStriping(UUID productId, int buckets);
 }
@@ -0,0 +1,9 @@
+package com.promo.quoter.services;
+
+import com.promo.quoter.dtos.CartConfirmResponse;
+
+public interface StockHoldService {
+    CartConfirmResponse commit(String orderId);
+    CartConfirmResponse release(String orderId);
+    int expireDueHolds();
+}
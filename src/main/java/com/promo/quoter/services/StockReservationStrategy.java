@@ -0,0 +1,43 @@
+package com.promo.quoter.services;
+
+import com.promo.quoter.dtos.CompactCart;
+import com.promo.quoter.entities.Product;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+
+public interface StockReservationStrategy {
+
+    /**
+     * Order in which every reservation path touches products: unsigned byte order of the UUID,
+     * which is also the primary key index order, so concurrent reservations never wait on each other in a cycle.
+     */
+    Comparator<UUID> CANONICAL_ORDER = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    /**
+     * Reserves stock for every cart line inside the caller's transaction. When it throws, stock is left as it
+     * was, so the transaction can go on to reserve other carts.
+     *
+     * @return the reserved products keyed by id
+     * @throws com.promo.quoter.exception.InsufficientStockException if any line cannot be covered
+     * @throws com.promo.quoter.exception.CustomException            with {@code NOT_FOUND} for unknown products
+     */
+    Map<UUID, Product> reserve(CompactCart cart);
+
+    /**
+     * Returns previously reserved stock inside the caller's transaction.
+     *
+     * @param lines quantities keyed by product id
+     */
+    void release(Map<UUID, Integer> lines);
+
+    /**
+     * Called once before several carts are reserved in the same transaction, with every product they touch.
+     */
+    default void prepareBatch(Collection<UUID> productIds) {
+    }
+}
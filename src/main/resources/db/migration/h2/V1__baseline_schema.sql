@@ -0,0 +1,91 @@
+-- Baseline schema, as Hibernate generated it from the entity mappings while ddl-auto was in use and before any
+-- of the later versions. Existing databases from that time are baselined at this version rather than running it,
+-- and get every later version.
+
+create table order_items (
+    discount_amount numeric(38,2),
+    final_line_total numeric(38,2),
+    line_total numeric(38,2),
+    quantity integer,
+    unit_price numeric(38,2),
+    reserved_at timestamp(6),
+    id uuid not null,
+    order_id uuid,
+    product_id uuid,
+    primary key (id)
+);
+
+create table order_promotions (
+    discount_amount numeric(38,2),
+    id uuid not null,
+    order_id uuid,
+    promotion_id uuid,
+    description varchar(255),
+    promotion_type varchar(255),
+    primary key (id)
+);
+
+create table orders (
+    final_total numeric(38,2),
+    subtotal numeric(38,2),
+    total_discount numeric(38,2),
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    id uuid not null,
+    idempotency_key varchar(255) unique,
+    order_id varchar(255) not null unique,
+    customer_segment enum ('PREMIUM','REGULAR','VIP'),
+    status enum ('CANCELLED','CONFIRMED','FAILED','PENDING'),
+    primary key (id)
+);
+
+create table product (
+    price numeric(38,2),
+    stock integer not null,
+    id uuid not null,
+    name varchar(255),
+    category enum ('BOOKS','CLOTHING','ELECTRONICS','FOOD','OTHER'),
+    primary key (id)
+);
+
+create table promotion (
+    buyx integer,
+    gety integer,
+    percent_off numeric(38,2),
+    id uuid not null,
+    product_id uuid,
+    promo_type varchar(31) not null,
+    description varchar(255) not null,
+    category enum ('BOOKS','CLOTHING','ELECTRONICS','FOOD','OTHER'),
+    promotion_type enum ('BUY_X_GET_Y','PERCENT_OFF_CATEGORY'),
+    primary key (id)
+);
+
+create table users (
+    active boolean not null,
+    id bigint generated by default as identity,
+    role varchar(40) not null,
+    username varchar(40) not null unique,
+    password varchar(255) not null,
+    primary key (id)
+);
+
+alter table order_items
+    add constraint FKbioxgbv59vetrxe0ejfubep1w
+    foreign key (order_id)
+    references orders;
+
+alter table order_items
+    add constraint FKlf6f9q956mt144wiv6p1yko16
+    foreign key (product_id)
+    references product;
+
+alter table order_promotions
+    add constraint FKgrsuq7n4l6dxc8r7hsxv2k6qi
+    foreign key (order_id)
+    references orders;
+
+alter table order_promotions
+    add constraint FKrb9g803q3ds3jb8ddium71dvb
+    foreign key (promotion_id)
+    references promotion;
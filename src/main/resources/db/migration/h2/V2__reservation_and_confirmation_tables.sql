@@ -0,0 +1,50 @@
+-- Tables and columns for idempotent and journaled confirmation, stock holds, striped and ledger stock, optimistic
+-- stock versions, block-allocated order numbers and replica lag checks.
+
+alter table orders add column response_snapshot blob;
+
+alter table product add column striped boolean default false not null;
+
+alter table product add column version bigint default 0 not null;
+
+create table idempotency_claims (
+    claimed_at timestamp(6),
+    idempotency_key varchar(255) not null,
+    primary key (idempotency_key)
+);
+
+create table inventory_ledger_flushes (
+    reservations integer not null,
+    flushed_at timestamp(6),
+    batch_id uuid not null,
+    primary key (batch_id)
+);
+
+create table order_number_blocks (
+    next_block bigint not null,
+    name varchar(255) not null,
+    primary key (name)
+);
+
+create table product_stock_buckets (
+    bucket_index integer not null,
+    stock integer not null,
+    id uuid not null,
+    product_id uuid not null,
+    primary key (id),
+    unique (product_id, bucket_index)
+);
+
+create table replica_heartbeat (
+    id integer not null,
+    beat_millis bigint not null,
+    primary key (id)
+);
+
+create table stock_holds (
+    created_at timestamp(6),
+    expires_at timestamp(6) not null,
+    id uuid not null,
+    order_id varchar(255) not null unique,
+    primary key (id)
+);
@@ -0,0 +1,25 @@
+-- Indexes behind the repository queries that filter on columns other than a primary or unique key.
+
+-- existsByCategory and existsByProductId on the promotion subtypes also filter on the discriminator
+create index idx_promotion_category on promotion (category, promo_type);
+create index idx_promotion_product on promotion (product_id, promo_type);
+
+-- Summing reserved quantities per product when cancelling orders reads only the index
+create index idx_order_items_order_product on order_items (order_id, product_id, quantity);
+create index idx_order_promotions_order on order_promotions (order_id);
+
+-- H2 added an index per foreign key; re-created, the constraints use the two above instead
+alter table order_items drop constraint FKbioxgbv59vetrxe0ejfubep1w;
+alter table order_items
+    add constraint FKbioxgbv59vetrxe0ejfubep1w
+    foreign key (order_id)
+    references orders;
+
+alter table order_promotions drop constraint FKgrsuq7n4l6dxc8r7hsxv2k6qi;
+alter table order_promotions
+    add constraint FKgrsuq7n4l6dxc8r7hsxv2k6qi
+    foreign key (order_id)
+    references orders;
+
+-- Date-range order lookups, ordered by creation time with the id as tie-breaker
+create index idx_orders_created_at on orders (created_at, id);
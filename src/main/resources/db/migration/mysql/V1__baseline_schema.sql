@@ -0,0 +1,100 @@
+-- Baseline schema, as Hibernate generated it from the entity mappings while ddl-auto was in use and before any
+-- of the later versions. Existing databases from that time are baselined at this version rather than running it,
+-- and get every later version.
+
+create table order_items (
+    discount_amount decimal(38,2),
+    final_line_total decimal(38,2),
+    line_total decimal(38,2),
+    quantity integer,
+    unit_price decimal(38,2),
+    reserved_at datetime(6),
+    id binary(16) not null,
+    order_id binary(16),
+    product_id binary(16),
+    primary key (id)
+) engine=InnoDB;
+
+create table order_promotions (
+    discount_amount decimal(38,2),
+    id binary(16) not null,
+    order_id binary(16),
+    promotion_id binary(16),
+    description varchar(255),
+    promotion_type varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table orders (
+    final_total decimal(38,2),
+    subtotal decimal(38,2),
+    total_discount decimal(38,2),
+    created_at datetime(6),
+    updated_at datetime(6),
+    id binary(16) not null,
+    idempotency_key varchar(255),
+    order_id varchar(255) not null,
+    customer_segment enum ('PREMIUM','REGULAR','VIP'),
+    status enum ('CANCELLED','CONFIRMED','FAILED','PENDING'),
+    primary key (id)
+) engine=InnoDB;
+
+create table product (
+    price decimal(38,2),
+    stock integer not null,
+    id binary(16) not null,
+    name varchar(255),
+    category enum ('BOOKS','CLOTHING','ELECTRONICS','FOOD','OTHER'),
+    primary key (id)
+) engine=InnoDB;
+
+create table promotion (
+    buyx integer,
+    gety integer,
+    percent_off decimal(38,2),
+    id binary(16) not null,
+    product_id binary(16),
+    promo_type varchar(31) not null,
+    description varchar(255) not null,
+    category enum ('BOOKS','CLOTHING','ELECTRONICS','FOOD','OTHER'),
+    promotion_type enum ('BUY_X_GET_Y','PERCENT_OFF_CATEGORY'),
+    primary key (id)
+) engine=InnoDB;
+
+create table users (
+    active bit not null,
+    id bigint not null auto_increment,
+    role varchar(40) not null,
+    username varchar(40) not null,
+    password varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table orders
+    add constraint UKd1kkvl4hi9hp3peub1umk2xeo unique (idempotency_key);
+
+alter table orders
+    add constraint UKhmsk25beh6atojvle1xuymjj0 unique (order_id);
+
+alter table users
+    add constraint UKr43af9ap4edm43mmtq01oddj6 unique (username);
+
+alter table order_items
+    add constraint FKbioxgbv59vetrxe0ejfubep1w
+    foreign key (order_id)
+    references orders (id);
+
+alter table order_items
+    add constraint FKlf6f9q956mt144wiv6p1yko16
+    foreign key (product_id)
+    references product (id);
+
+alter table order_promotions
+    add constraint FKgrsuq7n4l6dxc8r7hsxv2k6qi
+    foreign key (order_id)
+    references orders (id);
+
+alter table order_promotions
+    add constraint FKrb9g803q3ds3jb8ddium71dvb
+    foreign key (promotion_id)
+    references promotion (id);
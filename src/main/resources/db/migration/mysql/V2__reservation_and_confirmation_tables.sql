@@ -0,0 +1,55 @@
+-- Tables and columns for idempotent and journaled confirmation, stock holds, striped and ledger stock, optimistic
+-- stock versions, block-allocated order numbers and replica lag checks.
+
+alter table orders add column response_snapshot longblob;
+
+alter table product
+    add column striped bit default false not null,
+    add column version bigint default 0 not null;
+
+create table idempotency_claims (
+    claimed_at datetime(6),
+    idempotency_key varchar(255) not null,
+    primary key (idempotency_key)
+) engine=InnoDB;
+
+create table inventory_ledger_flushes (
+    reservations integer not null,
+    flushed_at datetime(6),
+    batch_id binary(16) not null,
+    primary key (batch_id)
+) engine=InnoDB;
+
+create table order_number_blocks (
+    next_block bigint not null,
+    name varchar(255) not null,
+    primary key (name)
+) engine=InnoDB;
+
+create table product_stock_buckets (
+    bucket_index integer not null,
+    stock integer not null,
+    id binary(16) not null,
+    product_id binary(16) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table replica_heartbeat (
+    id integer not null,
+    beat_millis bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table stock_holds (
+    created_at datetime(6),
+    expires_at datetime(6) not null,
+    id binary(16) not null,
+    order_id varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table product_stock_buckets
+    add constraint UKhelbb30x2ypkdgnltth051vjy unique (product_id, bucket_index);
+
+alter table stock_holds
+    add constraint UK8iebyknbl3yv2q6qiqga8oobc unique (order_id);
@@ -0,0 +1,16 @@
+-- Indexes behind the repository queries that filter on columns other than a primary or unique key.
+
+-- existsByCategory and existsByProductId on the promotion subtypes also filter on the discriminator
+create index idx_promotion_category on promotion (category, promo_type);
+create index idx_promotion_product on promotion (product_id, promo_type);
+
+-- Summing reserved quantities per product when cancelling orders reads only the index
+create index idx_order_items_order_product on order_items (order_id, product_id, quantity);
+create index idx_order_promotions_order on order_promotions (order_id);
+
+-- InnoDB added an index per foreign key; the two above now lead with the same column and serve the constraints
+drop index FKbioxgbv59vetrxe0ejfubep1w on order_items;
+drop index FKgrsuq7n4l6dxc8r7hsxv2k6qi on order_promotions;
+
+-- Date-range order lookups, ordered by creation time with the id as tie-breaker
+create index idx_orders_created_at on orders (created_at, id);
@@ -0,0 +1,2 @@
+-- Catalog listings by category, paged in id order
+create index idx_product_category on product (category, id);
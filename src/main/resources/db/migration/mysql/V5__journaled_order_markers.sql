@@ -0,0 +1,6 @@
+-- Journaled orders whose stock reservation is committed but whose rows are not written yet
+create table journaled_order_markers (
+    journaled_at datetime(6),
+    order_id varchar(255) not null,
+    primary key (order_id)
+) engine=InnoDB;
@@ -0,0 +1,47 @@
+-- One-off, optional: re-key orders created before ids became UUIDv7.
+--
+-- Old random (v4) keys keep working next to the new time-ordered ones, so this is only needed to get the
+-- existing rows into insertion order as well. Each order gets a v7 key built from its created_at, and its
+-- items and promotions get keys from the same timestamp. Product ids are left alone, since clients hold them.
+--
+-- Run during a maintenance window with the application stopped: it rewrites every primary key of the three
+-- tables. Back up first.
+
+SET FOREIGN_KEY_CHECKS = 0;
+
+CREATE TEMPORARY TABLE order_rekey (
+    old_id BINARY(16) PRIMARY KEY,
+    new_id BINARY(16) NOT NULL
+);
+
+START TRANSACTION;
+
+-- 48-bit milliseconds | version 7 | 12 random bits | variant 10 | 62 random bits
+INSERT INTO order_rekey (old_id, new_id)
+SELECT id,
+       UNHEX(CONCAT(LPAD(HEX(FLOOR(UNIX_TIMESTAMP(created_at) * 1000)), 12, '0'),
+                    '7', SUBSTR(HEX(RANDOM_BYTES(2)), 2),
+                    HEX(ASCII(RANDOM_BYTES(1)) & 0x3F | 0x80), HEX(RANDOM_BYTES(7))))
+FROM orders;
+
+UPDATE order_items i JOIN order_rekey r ON i.order_id = r.old_id SET i.order_id = r.new_id;
+UPDATE order_promotions p JOIN order_rekey r ON p.order_id = r.old_id SET p.order_id = r.new_id;
+UPDATE orders o JOIN order_rekey r ON o.id = r.old_id SET o.id = r.new_id;
+
+UPDATE order_items i JOIN orders o ON i.order_id = o.id
+SET i.id = UNHEX(CONCAT(LPAD(HEX(FLOOR(UNIX_TIMESTAMP(o.created_at) * 1000)), 12, '0'),
+                        '7', SUBSTR(HEX(RANDOM_BYTES(2)), 2),
+                        HEX(ASCII(RANDOM_BYTES(1)) & 0x3F | 0x80), HEX(RANDOM_BYTES(7))));
+
+UPDATE order_promotions p JOIN orders o ON p.order_id = o.id
+SET p.id = UNHEX(CONCAT(LPAD(HEX(FLOOR(UNIX_TIMESTAMP(o.created_at) * 1000)), 12, '0'),
+                        '7', SUBSTR(HEX(RANDOM_BYTES(2)), 2),
+                        HEX(ASCII(RANDOM_BYTES(1)) & 0x3F | 0x80), HEX(RANDOM_BYTES(7))));
+
+COMMIT;
+
+DROP TEMPORARY TABLE order_rekey;
+SET FOREIGN_KEY_CHECKS = 1;
+
+-- Rebuild the clustered indexes so the pages are filled in key order
+OPTIMIZE TABLE orders, order_items, order_promotions;
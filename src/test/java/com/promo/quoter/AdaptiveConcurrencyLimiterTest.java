@@ -0,0 +1,98 @@
+package com.promo.quoter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.promo.quoter.implementations.AdaptiveConcurrencyLimiter;
+import com.promo.quoter.implementations.ConcurrencyLimitInterceptor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdaptiveConcurrencyLimiter limiter =
+            new AdaptiveConcurrencyLimiter("confirm", 4, 2, 8, 100, 0.5, meterRegistry, clock::get);
+
+    @Test
+    void tryAcquire_AtLimit_RefusesUntilAPermitIsReleased() {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = acquire(4);
+
+        assertTrue(limiter.tryAcquire().isEmpty());
+        permits.get(0).release(false);
+        assertTrue(limiter.tryAcquire().isPresent());
+        assertEquals(1.0, meterRegistry.get("http.concurrency.rejected").tag("endpoint", "confirm").counter().count());
+    }
+
+    @Test
+    void release_FastWhileBusy_GrowsLimitUpToMax() {
+        for (int round = 0; round < 100; round++) {
+            acquire(limiter.limit()).forEach(permit -> permit.release(false));
+        }
+
+        assertEquals(8, limiter.limit());
+        assertEquals(8.0, meterRegistry.get("http.concurrency.limit").tag("endpoint", "confirm").gauge().value());
+    }
+
+    @Test
+    void release_FastWhileIdle_KeepsLimit() {
+        for (int round = 0; round < 100; round++) {
+            acquire(1).forEach(permit -> permit.release(false));
+        }
+
+        assertEquals(4, limiter.limit());
+    }
+
+    @Test
+    void release_SlowResponses_BackOffOncePerThresholdDownToMin() {
+        // Four slow responses finishing together count as one signal
+        List<AdaptiveConcurrencyLimiter.Permit> permits = acquire(4);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(150));
+        permits.forEach(permit -> permit.release(false));
+        assertEquals(2, limiter.limit());
+
+        // Failures back off as well, but never below the minimum
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(150));
+        acquire(1).get(0).release(true);
+        assertEquals(2, limiter.limit());
+    }
+
+    @Test
+    void interceptor_Saturated_AnswersTooManyRequestsWithRetryAfter() throws Exception {
+        ConcurrencyLimitInterceptor interceptor = new ConcurrencyLimitInterceptor(limiter, 3, new ObjectMapper());
+        List<MockHttpServletRequest> admitted = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/cart/confirm");
+            assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), null));
+            admitted.add(request);
+        }
+
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(new MockHttpServletRequest("POST", "/cart/confirm"), shed, null));
+        assertEquals(429, shed.getStatus());
+        assertEquals("3", shed.getHeader("Retry-After"));
+        assertTrue(shed.getContentAsString().contains("Too many concurrent requests"));
+
+        // A redispatched request keeps its permit; completion hands it back once
+        assertTrue(interceptor.preHandle(admitted.get(0), new MockHttpServletResponse(), null));
+        interceptor.afterCompletion(admitted.get(0), new MockHttpServletResponse(), null, null);
+        interceptor.afterCompletion(admitted.get(0), new MockHttpServletResponse(), null, null);
+        assertEquals(3, limiter.inFlight());
+    }
+
+    private List<AdaptiveConcurrencyLimiter.Permit> acquire(int count) {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            permits.add(limiter.tryAcquire().orElseThrow());
+        }
+        return permits;
+    }
+}
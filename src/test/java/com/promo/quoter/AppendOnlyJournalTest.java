@@ -0,0 +1,99 @@
+package com.promo.quoter;
+
+import com.promo.quoter.implementations.AppendOnlyJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AppendOnlyJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reopen_TornOrCorruptTail_KeepsOnlyCompleteRecords() throws IOException {
+        Path path = tempDir.resolve("journal");
+        AppendOnlyJournal journal = new AppendOnlyJournal(path);
+        journal.append(payload("first"));
+        long secondEnd = journal.append(payload("second"));
+        journal.sync(secondEnd);
+        journal.close();
+
+        // Simulate a crash in the middle of a third record and a flipped byte in the second
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(file.length());
+            file.writeInt(100);
+            file.writeInt(0);
+            file.write(new byte[10]);
+        }
+        AppendOnlyJournal reopened = new AppendOnlyJournal(path);
+        assertEquals(List.of("first", "second"), text(reopened.readAll()));
+        assertEquals(secondEnd, reopened.size());
+        reopened.close();
+
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            file.write('X');
+        }
+        AppendOnlyJournal corrupted = new AppendOnlyJournal(path);
+        assertEquals(List.of("first"), text(corrupted.readAll()));
+
+        // Appends continue after the last good record
+        corrupted.append(payload("third"));
+        assertEquals(List.of("first", "third"), text(corrupted.readAll()));
+        corrupted.close();
+    }
+
+    @Test
+    void truncate_PositionsKeepIncreasingAndSyncStillForces() {
+        AppendOnlyJournal journal = new AppendOnlyJournal(tempDir.resolve("journal"));
+        long before = journal.append(payload("before"));
+        journal.sync(before);
+
+        assertTrue(journal.truncateIf(() -> true));
+        assertFalse(journal.truncateIf(() -> false));
+        assertEquals(0, journal.size());
+        assertTrue(journal.readAll().isEmpty());
+
+        long after = journal.append(payload("after"));
+        assertTrue(after > before);
+        journal.sync(after);
+        assertEquals(List.of("after"), text(journal.readAll()));
+        journal.close();
+    }
+
+    @Test
+    void concurrentAppendsAndSyncs_AllRecordsReadBack() throws Exception {
+        AppendOnlyJournal journal = new AppendOnlyJournal(tempDir.resolve("journal"));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            String text = "record-" + i;
+            futures.add(executor.submit(() -> journal.sync(journal.append(payload(text)))));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(400, journal.readAll().size());
+        journal.close();
+    }
+
+    private ByteBuffer payload(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<String> text(List<ByteBuffer> records) {
+        return records.stream().map(record -> StandardCharsets.UTF_8.decode(record).toString()).toList();
+    }
+}
@@ -0,0 +1,102 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CartQuoteRequest;
+import com.promo.quoter.dtos.CompactCart;
+import com.promo.quoter.enums.CustomerSegment;
+import com.promo.quoter.exception.InvalidCartException;
+import com.promo.quoter.implementations.CartIngestor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("CartIngestor Tests")
+class CartIngestorTest {
+
+    private final CartIngestor cartIngestor = new CartIngestor();
+
+    @Test
+    @DisplayName("Should fold duplicate products into one line in first-seen order")
+    void ingest_ShouldFoldDuplicateProducts() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        CompactCart cart = cartIngestor.ingest(request(
+                item(first.toString(), 2),
+                item(second.toString(), 1),
+                item(first.toString(), 3),
+                item(second.toString(), 4)));
+
+        assertThat(cart.size()).isEqualTo(2);
+        assertThat(cart.productId(0)).isEqualTo(first);
+        assertThat(cart.quantity(0)).isEqualTo(5);
+        assertThat(cart.productId(1)).isEqualTo(second);
+        assertThat(cart.quantity(1)).isEqualTo(5);
+        assertThat(cart.getCustomerSegment()).isEqualTo(CustomerSegment.REGULAR);
+    }
+
+    @Test
+    @DisplayName("Should keep every distinct line of a large cart with many duplicates")
+    void ingest_ShouldHandleLargeCarts() {
+        List<UUID> productIds = new ArrayList<>();
+        List<CartQuoteRequest.CartItem> items = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            UUID productId = UUID.randomUUID();
+            productIds.add(productId);
+            items.add(item(productId.toString(), 1));
+        }
+        for (UUID productId : productIds) {
+            items.add(item(productId.toString(), 2));
+        }
+
+        CompactCart cart = cartIngestor.ingest(new CartQuoteRequest(items, CustomerSegment.VIP));
+
+        assertThat(cart.size()).isEqualTo(3000);
+        assertThat(cart.productIds()).containsExactlyElementsOf(productIds);
+        for (int i = 0; i < cart.size(); i++) {
+            assertThat(cart.quantity(i)).isEqualTo(3);
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject malformed product ids")
+    void ingest_ShouldRejectInvalidProductIds() {
+        assertThatThrownBy(() -> cartIngestor.ingest(request(item("invalid-product-id", 1))))
+                .isInstanceOf(InvalidCartException.class)
+                .hasMessageContaining("Invalid product ID");
+        assertThatThrownBy(() -> cartIngestor.ingest(request(item("1-2-3-4-5", 1))))
+                .isInstanceOf(InvalidCartException.class);
+        assertThatThrownBy(() -> cartIngestor.ingest(request(item(null, 1))))
+                .isInstanceOf(InvalidCartException.class);
+    }
+
+    @Test
+    @DisplayName("Should reject missing, zero, negative and overflowing quantities")
+    void ingest_ShouldRejectInvalidQuantities() {
+        String productId = UUID.randomUUID().toString();
+
+        assertThatThrownBy(() -> cartIngestor.ingest(request(item(productId, 0))))
+                .isInstanceOf(InvalidCartException.class);
+        assertThatThrownBy(() -> cartIngestor.ingest(request(item(productId, -3))))
+                .isInstanceOf(InvalidCartException.class);
+        assertThatThrownBy(() -> cartIngestor.ingest(request(item(productId, null))))
+                .isInstanceOf(InvalidCartException.class);
+        assertThatThrownBy(() -> cartIngestor.ingest(request(
+                item(productId, Integer.MAX_VALUE), item(productId, 1))))
+                .isInstanceOf(InvalidCartException.class)
+                .hasMessageContaining("too large");
+    }
+
+    private CartQuoteRequest request(CartQuoteRequest.CartItem... items) {
+        return new CartQuoteRequest(List.of(items), CustomerSegment.REGULAR);
+    }
+
+    private CartQuoteRequest.CartItem item(String productId, Integer qty) {
+        return new CartQuoteRequest.CartItem(productId, qty);
+    }
+}
@@ -0,0 +1,129 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CartQuoteResponse;
+import com.promo.quoter.dtos.CompactCart;
+import com.promo.quoter.entities.BuyXGetYPromotion;
+import com.promo.quoter.entities.PercentOffCategoryPromotion;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.entities.Promotion;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.implementations.CartPricingEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CartPricingEngine Tests")
+class CartPricingEngineTest {
+
+    private static final int LINE_COUNT = 5000;
+
+    private CartPricingEngine sequentialEngine;
+    private CartPricingEngine parallelEngine;
+
+    private CompactCart cart;
+    private Map<UUID, Product> productMap;
+    private List<Promotion> promotions;
+
+    @BeforeEach
+    void setUp() {
+        sequentialEngine = new CartPricingEngine(Integer.MAX_VALUE, 4);
+        parallelEngine = new CartPricingEngine(1, 4);
+
+        Random random = new Random(42);
+        ProductCategory[] categories = ProductCategory.values();
+        CompactCart.Builder builder = CompactCart.builder(LINE_COUNT);
+        productMap = new HashMap<>();
+        for (int i = 0; i < LINE_COUNT; i++) {
+            Product product = Product.builder()
+                    .id(UUID.randomUUID())
+                    .name("Product " + i)
+                    .category(categories[i % categories.length])
+                    .price(BigDecimal.valueOf(100 + random.nextInt(100_000), 2))
+                    .stock(1000)
+                    .build();
+            productMap.put(product.getId(), product);
+            builder.add(product.getId(), 1 + random.nextInt(20));
+        }
+        cart = builder.build();
+
+        promotions = List.of(
+                PercentOffCategoryPromotion.builder()
+                        .id(UUID.randomUUID())
+                        .description("15% off Electronics")
+                        .category(ProductCategory.ELECTRONICS)
+                        .percentOff(new BigDecimal("15"))
+                        .build(),
+                BuyXGetYPromotion.builder()
+                        .id(UUID.randomUUID())
+                        .description("Buy 2 Get 1 Free")
+                        .productId(cart.productId(0))
+                        .buyX(2)
+                        .getY(1)
+                        .build(),
+                PercentOffCategoryPromotion.builder()
+                        .id(UUID.randomUUID())
+                        .description("7.5% off Books")
+                        .category(ProductCategory.BOOKS)
+                        .percentOff(new BigDecimal("7.5"))
+                        .build(),
+                PercentOffCategoryPromotion.builder()
+                        .id(UUID.randomUUID())
+                        .description("Extra 5% off Electronics")
+                        .category(ProductCategory.ELECTRONICS)
+                        .percentOff(new BigDecimal("5"))
+                        .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        sequentialEngine.shutdown();
+        parallelEngine.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should produce identical quotes on the parallel and sequential paths")
+    void price_ShouldMatchSequentialResult_WhenCartIsAboveThreshold() {
+        CartQuoteResponse sequential = sequentialEngine.price(cart, productMap, promotions);
+        CartQuoteResponse parallel = parallelEngine.price(cart, productMap, promotions);
+
+        assertEquals(sequential, parallel);
+        assertEquals(4, parallel.getAppliedPromotions().size());
+        assertEquals(promotions.get(0).getId().toString(), parallel.getAppliedPromotions().get(0).getPromotionId());
+        assertEquals(promotions.get(2).getId().toString(), parallel.getAppliedPromotions().get(1).getPromotionId());
+        assertEquals(promotions.get(3).getId().toString(), parallel.getAppliedPromotions().get(2).getPromotionId());
+        assertEquals(promotions.get(1).getId().toString(), parallel.getAppliedPromotions().get(3).getPromotionId());
+    }
+
+    @Test
+    @DisplayName("Should keep line order and totals stable across repeated parallel runs")
+    void price_ShouldBeDeterministic_WhenRunRepeatedly() {
+        CartQuoteResponse first = parallelEngine.price(cart, productMap, promotions);
+        for (int run = 0; run < 5; run++) {
+            CartQuoteResponse next = parallelEngine.price(cart, productMap, promotions);
+            assertEquals(first, next);
+        }
+
+        for (int i = 0; i < LINE_COUNT; i++) {
+            assertEquals(cart.productId(i).toString(), first.getLineItems().get(i).getProductId());
+        }
+        assertEquals(first.getSubtotal().subtract(first.getTotalDiscount()), first.getFinalTotal());
+    }
+
+    @Test
+    @DisplayName("Should only switch to parallel pricing at the configured threshold")
+    void isParallel_ShouldRespectThreshold() {
+        CartPricingEngine engine = new CartPricingEngine(100, 2);
+        try {
+            assertFalse(engine.isParallel(99));
+            assertTrue(engine.isParallel(100));
+        } finally {
+            engine.shutdown();
+        }
+    }
+}
@@ -7,16 +7,35 @@ import com.promo.quoter.entities.*;
 import com.promo.quoter.enums.CustomerSegment;
 import com.promo.quoter.enums.ProductCategory;
 import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.exception.InvalidCartException;
+import com.promo.quoter.implementations.CartIngestor;
+import com.promo.quoter.implementations.CartPricingEngine;
 import com.promo.quoter.implementations.CartServiceImpl;
+import com.promo.quoter.implementations.ConfirmResponseSnapshots;
+import com.promo.quoter.implementations.LockRetryPolicy;
+import com.promo.quoter.implementations.OrderResponseMapper;
+import com.promo.quoter.implementations.PessimisticStockReservation;
+import com.promo.quoter.implementations.SnowflakeOrderNumberGenerator;
+import com.promo.quoter.implementations.StockHoldRegistry;
+import com.promo.quoter.implementations.StripedStockAllocator;
+import com.promo.quoter.repos.CatalogProductRepository;
+import com.promo.quoter.repos.IdempotencyClaimRepository;
 import com.promo.quoter.repos.OrderRepository;
 import com.promo.quoter.repos.ProductRepository;
 import com.promo.quoter.repos.PromotionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -24,6 +43,9 @@ import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,13 +54,38 @@ class CartServiceImplTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private CatalogProductRepository catalogProductRepository;
+
     @Mock
     private PromotionRepository promotionRepository;
 
     @Mock
     private OrderRepository orderRepository;
 
-    @InjectMocks
+    @Spy
+    private CartIngestor cartIngestor = new CartIngestor();
+
+    @Spy
+    private CartPricingEngine cartPricingEngine = new CartPricingEngine(1000, 2);
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private LockRetryPolicy lockRetryPolicy = new LockRetryPolicy(3, 0, new SimpleMeterRegistry());
+
+    @Mock
+    private StockHoldRegistry stockHoldRegistry;
+
+    @Mock
+    private StripedStockAllocator stripedStock;
+
+    @Mock
+    private IdempotencyClaimRepository idempotencyClaimRepository;
+
+    private final ConfirmResponseSnapshots responseSnapshots = new ConfirmResponseSnapshots(100);
+
     private CartServiceImpl cartService;
 
     private UUID productId1;
@@ -50,6 +97,11 @@ class CartServiceImplTest {
 
     @BeforeEach
     void setUp() {
+        cartService = new CartServiceImpl(productRepository, catalogProductRepository, promotionRepository, orderRepository,
+                cartIngestor, cartPricingEngine, new PessimisticStockReservation(productRepository, stripedStock, 3000),
+                lockRetryPolicy, new TransactionTemplate(transactionManager), new OrderResponseMapper(), stockHoldRegistry,
+                stripedStock, idempotencyClaimRepository, new SnowflakeOrderNumberGenerator(0, 1000), responseSnapshots);
+
         productId1 = UUID.randomUUID();
         productId2 = UUID.randomUUID();
         promotionId1 = UUID.randomUUID();
@@ -86,8 +138,7 @@ class CartServiceImplTest {
     @Test
     void calculateQuote_BasicCalculation_Success() {
         // Arrange
-        when(productRepository.findById(productId1)).thenReturn(Optional.of(product1));
-        when(productRepository.findById(productId2)).thenReturn(Optional.of(product2));
+        stubCatalog(product1, product2);
         when(promotionRepository.findAll()).thenReturn(Collections.emptyList());
 
         // Act
@@ -137,7 +188,7 @@ class CartServiceImplTest {
         promoRequest.setItems(List.of(item));
         promoRequest.setCustomerSegment(CustomerSegment.REGULAR);
 
-        when(productRepository.findById(productId1)).thenReturn(Optional.of(product1));
+        stubCatalog(product1);
         when(promotionRepository.findAll()).thenReturn(List.of(categoryPromo, buyGetPromo));
 
         // Act
@@ -153,7 +204,7 @@ class CartServiceImplTest {
     @Test
     void calculateQuote_ErrorHandling_ThrowsExceptions() {
         // Arrange - Test product not found
-        when(productRepository.findById(productId1)).thenReturn(Optional.empty());
+        stubCatalog();
 
         // Act & Assert - Product not found
         RuntimeException exception = assertThrows(RuntimeException.class,
@@ -178,61 +229,61 @@ class CartServiceImplTest {
     void confirmCart_Success_CreatesOrderAndUpdatesStock() {
         // Arrange
         String idempotencyKey = "test-key-123";
-        String expectedOrderId = "ORD-2024-123456";
 
-        when(orderRepository.findByIdempotencyKey(idempotencyKey)).thenReturn(Optional.empty());
-        when(productRepository.findById(productId1)).thenReturn(Optional.of(product1));
-        when(productRepository.findById(productId2)).thenReturn(Optional.of(product2));
-        when(productRepository.findByIdWithLock(productId1)).thenReturn(Optional.of(product1));
-        when(productRepository.findByIdWithLock(productId2)).thenReturn(Optional.of(product2));
+        when(orderRepository.findResponseSnapshotByIdempotencyKey(idempotencyKey)).thenReturn(Optional.empty());
+        when(productRepository.lockAllInCanonicalOrder(anyList(), anyInt())).thenReturn(List.of(product1, product2));
         when(promotionRepository.findAll()).thenReturn(Collections.emptyList());
 
-        Order savedOrder = Order.builder()
-                .orderId(expectedOrderId)
-                .finalTotal(new BigDecimal("40.00"))
-                .status(Order.OrderStatus.CONFIRMED)
-                .createdAt(LocalDateTime.now())
-                .orderItems(new ArrayList<>())
-                .appliedPromotions(new ArrayList<>())
-                .build();
-
-        when(orderRepository.save(any(Order.class))).thenReturn(savedOrder);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         CartConfirmResponse response = cartService.confirmCart(cartRequest, idempotencyKey);
 
         // Assert
         assertNotNull(response);
-        assertEquals(expectedOrderId, response.getOrderId());
         assertEquals(new BigDecimal("40.00"), response.getFinalTotal());
         assertEquals(CartConfirmResponse.OrderStatus.CONFIRMED, response.getStatus());
 
-        verify(productRepository, times(2)).save(any(Product.class)); // Stock updates
-        verify(orderRepository).save(any(Order.class));
+        assertEquals(98, product1.getStock()); // Stock updates
+        assertEquals(49, product2.getStock());
+        verify(productRepository, times(1)).lockAllInCanonicalOrder(anyList(), anyInt());
+
+        // The order is saved with the response it was answered with
+        ArgumentCaptor<Order> saved = ArgumentCaptor.forClass(Order.class);
+        verify(orderRepository).save(saved.capture());
+        assertEquals(response.getOrderId(), saved.getValue().getOrderId());
+        assertEquals(response, responseSnapshots.decode(saved.getValue().getResponseSnapshot()));
+
+        // A retry right after is answered from memory
+        assertEquals(response, cartService.confirmCart(cartRequest, idempotencyKey));
+        verify(orderRepository, times(1)).findResponseSnapshotByIdempotencyKey(idempotencyKey);
+        verify(productRepository, times(1)).lockAllInCanonicalOrder(anyList(), anyInt());
     }
 
     @Test
     void confirmCart_IdempotencyAndErrorHandling_HandlesCorrectly() {
         // Test duplicate idempotency key
         String duplicateKey = "duplicate-key";
-        Order existingOrder = Order.builder()
+        CartConfirmResponse existingResponse = CartConfirmResponse.builder()
                 .orderId("EXISTING-ORDER")
                 .finalTotal(new BigDecimal("100.00"))
-                .status(Order.OrderStatus.CONFIRMED)
+                .status(CartConfirmResponse.OrderStatus.CONFIRMED)
                 .createdAt(LocalDateTime.now())
-                .orderItems(new ArrayList<>())
+                .reservedItems(new ArrayList<>())
                 .appliedPromotions(new ArrayList<>())
                 .build();
 
-        when(orderRepository.findByIdempotencyKey(duplicateKey)).thenReturn(Optional.of(existingOrder));
+        when(orderRepository.findResponseSnapshotByIdempotencyKey(duplicateKey))
+                .thenReturn(Optional.of(() -> responseSnapshots.encode(existingResponse)));
 
         // Act - Test idempotency
         CartConfirmResponse response = cartService.confirmCart(cartRequest, duplicateKey);
 
-        // Assert - Returns existing order
+        // Assert - Returns existing order, without loading it
         assertEquals("EXISTING-ORDER", response.getOrderId());
+        verify(orderRepository, never()).findByIdempotencyKey(duplicateKey);
         assertEquals(new BigDecimal("100.00"), response.getFinalTotal());
-        verify(productRepository, never()).findByIdWithLock(any());
+        verify(productRepository, never()).lockAllInCanonicalOrder(anyList(), anyInt());
         verify(productRepository, never()).save(any(Product.class));
 
         // Test insufficient stock
@@ -244,14 +295,15 @@ class CartServiceImplTest {
                 .category(ProductCategory.ELECTRONICS)
                 .build();
 
-        when(orderRepository.findByIdempotencyKey("stock-test")).thenReturn(Optional.empty());
-        when(productRepository.findById(productId1)).thenReturn(Optional.of(lowStockProduct));
-        when(productRepository.findById(productId2)).thenReturn(Optional.of(product2));
+        when(orderRepository.findResponseSnapshotByIdempotencyKey("stock-test")).thenReturn(Optional.empty());
+        when(productRepository.lockAllInCanonicalOrder(anyList(), anyInt()))
+                .thenReturn(List.of(lowStockProduct, product2));
 
         // Act & Assert - Insufficient stock
         CustomException stockException = assertThrows(CustomException.class,
                 () -> cartService.confirmCart(cartRequest, "stock-test"));
         assertTrue(stockException.getMessage().contains("Insufficient stock"));
+        assertEquals(50, product2.getStock()); // Nothing reserved when any line is short
     }
 
     @Test
@@ -267,7 +319,7 @@ class CartServiceImplTest {
         assertEquals(BigDecimal.ZERO, emptyResponse.getSubtotal());
         assertEquals(BigDecimal.ZERO, emptyResponse.getFinalTotal());
 
-        // Test zero quantity items (should handle gracefully)
+        // Test zero quantity items (rejected before any product lookup)
         CartQuoteRequest.CartItem zeroQtyItem = new CartQuoteRequest.CartItem();
         zeroQtyItem.setProductId(productId1.toString());
         zeroQtyItem.setQty(0);
@@ -276,19 +328,172 @@ class CartServiceImplTest {
         zeroQtyRequest.setItems(List.of(zeroQtyItem));
         zeroQtyRequest.setCustomerSegment(CustomerSegment.REGULAR);
 
-        when(productRepository.findById(productId1)).thenReturn(Optional.of(product1));
-
-        CartQuoteResponse zeroResponse = cartService.calculateQuote(zeroQtyRequest);
-        assertNotNull(zeroResponse);
+        assertThrows(InvalidCartException.class, () -> cartService.calculateQuote(zeroQtyRequest));
+        verify(productRepository, never()).findStockLevels(any());
 
         // Test null customer segment
         cartRequest.setCustomerSegment(null);
-        when(productRepository.findById(productId1)).thenReturn(Optional.of(product1));
-        when(productRepository.findById(productId2)).thenReturn(Optional.of(product2));
+        stubCatalog(product1, product2);
         when(promotionRepository.findAll()).thenReturn(Collections.emptyList());
 
         CartQuoteResponse nullSegmentResponse = cartService.calculateQuote(cartRequest);
         assertNotNull(nullSegmentResponse);
         assertEquals(new BigDecimal("40.00"), nullSegmentResponse.getSubtotal());
     }
-}
\ No newline at end of file
+
+    @Test
+    void confirmCart_DuplicateProductLines_AreFoldedIntoOneLine() {
+        // Arrange - the same product twice, in separate lines
+        CartQuoteRequest.CartItem first = new CartQuoteRequest.CartItem(productId1.toString(), 2);
+        CartQuoteRequest.CartItem second = new CartQuoteRequest.CartItem(productId1.toString(), 3);
+        CartQuoteRequest duplicateRequest = new CartQuoteRequest(List.of(first, second), CustomerSegment.REGULAR);
+
+        when(orderRepository.findResponseSnapshotByIdempotencyKey("dup-key")).thenReturn(Optional.empty());
+        when(productRepository.lockAllInCanonicalOrder(anyList(), anyInt())).thenReturn(List.of(product1));
+        when(promotionRepository.findAll()).thenReturn(Collections.emptyList());
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        CartConfirmResponse response = cartService.confirmCart(duplicateRequest, "dup-key");
+
+        // Assert - one reserved line with the summed quantity
+        assertEquals(1, response.getReservedItems().size());
+        assertEquals(5, response.getReservedItems().get(0).getQuantity());
+        assertEquals(new BigDecimal("50.00"), response.getFinalTotal());
+        assertEquals(95, product1.getStock());
+        verify(productRepository, times(1)).lockAllInCanonicalOrder(List.of(productId1), 3000);
+    }
+
+    @Test
+    void confirmCart_IdempotencyClaimLostToConcurrentRequest_ReturnsTheOrderThatWon() {
+        // Arrange - nothing committed yet when this request starts; the other request commits while we wait on the claim
+        CartConfirmResponse winner = CartConfirmResponse.builder()
+                .orderId("ORD-WINNER")
+                .finalTotal(new BigDecimal("40.00"))
+                .status(CartConfirmResponse.OrderStatus.CONFIRMED)
+                .reservedItems(new ArrayList<>())
+                .appliedPromotions(new ArrayList<>())
+                .build();
+        when(orderRepository.findResponseSnapshotByIdempotencyKey("race-key"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(() -> responseSnapshots.encode(winner)));
+        doThrow(new DataIntegrityViolationException("duplicate key"))
+                .when(idempotencyClaimRepository).claim(eq("race-key"), any());
+
+        // Act
+        CartConfirmResponse response = cartService.confirmCart(cartRequest, "race-key");
+
+        // Assert - no stock reserved and no second order
+        assertEquals("ORD-WINNER", response.getOrderId());
+        verify(productRepository, never()).lockAllInCanonicalOrder(anyList(), anyInt());
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    void confirmCart_DuplicateOfOrderWithoutSnapshot_MapsTheStoredOrder() {
+        // Arrange - placed before response snapshots were stored
+        Order legacyOrder = Order.builder()
+                .orderId("ORD-LEGACY")
+                .finalTotal(new BigDecimal("25.00"))
+                .status(Order.OrderStatus.CONFIRMED)
+                .createdAt(LocalDateTime.now())
+                .orderItems(new ArrayList<>())
+                .appliedPromotions(new ArrayList<>())
+                .build();
+        when(orderRepository.findResponseSnapshotByIdempotencyKey("legacy-key")).thenReturn(Optional.of(() -> null));
+        when(orderRepository.findByIdempotencyKey("legacy-key")).thenReturn(Optional.of(legacyOrder));
+
+        // Act
+        CartConfirmResponse response = cartService.confirmCart(cartRequest, "legacy-key");
+
+        // Assert
+        assertEquals("ORD-LEGACY", response.getOrderId());
+        assertEquals(new BigDecimal("25.00"), response.getFinalTotal());
+        verify(productRepository, never()).lockAllInCanonicalOrder(anyList(), anyInt());
+    }
+
+    @Test
+    void confirmCart_LockTimeout_RetriesInFreshTransactionThenGivesUp() {
+        // Arrange - the first attempt times out waiting for the row locks, the second succeeds
+        when(orderRepository.findResponseSnapshotByIdempotencyKey("retry-key")).thenReturn(Optional.empty());
+        when(productRepository.lockAllInCanonicalOrder(anyList(), anyInt()))
+                .thenThrow(new CannotAcquireLockException("lock wait timeout"))
+                .thenReturn(List.of(product1, product2));
+        when(promotionRepository.findAll()).thenReturn(Collections.emptyList());
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        CartConfirmResponse response = cartService.confirmCart(cartRequest, "retry-key");
+
+        // Assert - the failed attempt was rolled back and the order went through on the retry
+        assertEquals(new BigDecimal("40.00"), response.getFinalTotal());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+
+        // Every attempt times out - the caller gets a retryable conflict instead of a server error
+        when(orderRepository.findResponseSnapshotByIdempotencyKey("busy-key")).thenReturn(Optional.empty());
+        when(productRepository.lockAllInCanonicalOrder(anyList(), anyInt()))
+                .thenThrow(new CannotAcquireLockException("lock wait timeout"));
+
+        CustomException busyException = assertThrows(CustomException.class,
+                () -> cartService.confirmCart(cartRequest, "busy-key"));
+        assertEquals(HttpStatus.CONFLICT, busyException.getStatus());
+        verify(transactionManager, times(4)).rollback(any());
+    }
+
+    @Test
+    void holdCart_ReservesStockAndCreatesPendingOrderWithExpiry() {
+        // Arrange
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(15);
+        when(orderRepository.findResponseSnapshotByIdempotencyKey("hold-key")).thenReturn(Optional.empty());
+        when(productRepository.lockAllInCanonicalOrder(anyList(), anyInt())).thenReturn(List.of(product1, product2));
+        when(promotionRepository.findAll()).thenReturn(Collections.emptyList());
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(stockHoldRegistry.hold(anyString())).thenReturn(expiresAt);
+
+        // Act
+        CartConfirmResponse response = cartService.holdCart(cartRequest, "hold-key");
+
+        // Assert - stock is taken now, the order waits for commit
+        assertEquals(CartConfirmResponse.OrderStatus.PENDING, response.getStatus());
+        assertEquals(expiresAt, response.getHoldExpiresAt());
+        assertEquals(98, product1.getStock());
+        assertEquals(49, product2.getStock());
+        verify(stockHoldRegistry).hold(response.getOrderId());
+    }
+
+    /**
+     * Serves the given products to quotes, which read catalog fields and stock separately.
+     */
+    private void stubCatalog(Product... products) {
+        List<ProductRepository.StockLevel> levels = new ArrayList<>();
+        for (Product product : products) {
+            levels.add(new StockLevel(product.getId(), product.getStock(), product.isStriped()));
+            when(catalogProductRepository.findById(product.getId())).thenReturn(Optional.of(CatalogProduct.builder()
+                    .id(product.getId())
+                    .name(product.getName())
+                    .category(product.getCategory())
+                    .price(product.getPrice())
+                    .build()));
+        }
+        when(productRepository.findStockLevels(any())).thenReturn(levels);
+    }
+
+    private record StockLevel(UUID id, int stock, boolean striped) implements ProductRepository.StockLevel {
+        @Override
+        public UUID getId() {
+            return id;
+        }
+
+        @Override
+        public int getStock() {
+            return stock;
+        }
+
+        @Override
+        public boolean isStriped() {
+            return striped;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.promo.quoter;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the contention scenario against the conditional update reservation strategy.
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:conditional-update-stress;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "inventory.reservation.strategy=conditional-update"
+})
+class ConditionalUpdateConcurrencyTest extends StockReservationConcurrencyTest {
+}
@@ -0,0 +1,51 @@
+package com.promo.quoter;
+
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.repos.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the group commit scenarios against the conditional update reservation strategy, where every order of a batch
+ * updates stock with statements inside the same transaction.
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:conditional-update-group-commit;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "inventory.reservation.strategy=conditional-update"
+})
+class ConditionalUpdateGroupCommitTest extends GroupCommitConfirmTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void decrementStockIfAvailable_ProductAlreadyLoaded_ReadBackWithTheNewStock() {
+        // Arrange
+        Product product = productRepository.save(Product.builder()
+                .name("Loaded")
+                .category(ProductCategory.ELECTRONICS)
+                .price(new BigDecimal("3.00"))
+                .stock(10)
+                .build());
+
+        // Act - as a later order of a batch would, after an earlier one loaded the product
+        int stock = transactionTemplate.execute(tx -> {
+            productRepository.findById(product.getId()).orElseThrow();
+            productRepository.decrementStockIfAvailable(product.getId(), 4);
+            return productRepository.findById(product.getId()).orElseThrow().getStock();
+        });
+
+        // Assert
+        assertEquals(6, stock);
+    }
+}
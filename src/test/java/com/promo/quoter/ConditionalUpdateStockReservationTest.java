@@ -0,0 +1,111 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CompactCart;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.exception.InsufficientStockException;
+import com.promo.quoter.implementations.ConditionalUpdateStockReservation;
+import com.promo.quoter.implementations.StripedStockAllocator;
+import com.promo.quoter.repos.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConditionalUpdateStockReservationTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private StripedStockAllocator stripedStock;
+
+    @InjectMocks
+    private ConditionalUpdateStockReservation reservation;
+
+    @Test
+    void reserve_DecrementsEachSkuInCanonicalOrderWithoutLoadingUnderLock() {
+        // Arrange
+        UUID low = new UUID(0x0000000000000001L, 0L);
+        UUID high = new UUID(0x8000000000000000L, 0L);
+        CompactCart cart = CompactCart.builder(2).add(high, 3).add(low, 4).build();
+
+        when(productRepository.decrementStockIfAvailable(any(UUID.class), anyInt())).thenReturn(1);
+        when(productRepository.findAllById(any())).thenReturn(List.of(product(low, 6), product(high, 7)));
+
+        // Act
+        Map<UUID, Product> reserved = reservation.reserve(cart);
+
+        // Assert
+        InOrder inOrder = inOrder(productRepository);
+        inOrder.verify(productRepository).decrementStockIfAvailable(low, 4);
+        inOrder.verify(productRepository).decrementStockIfAvailable(high, 3);
+        inOrder.verify(productRepository).findAllById(any());
+        verify(productRepository, never()).findByIdWithLock(any());
+        assertEquals(2, reserved.size());
+        assertEquals(7, reserved.get(high).getStock());
+    }
+
+    @Test
+    void reserve_NoRowUpdated_StopsAndReportsShortOrMissingProduct() {
+        // Arrange - the first SKU is short, so the second is never touched
+        UUID low = new UUID(0x0000000000000001L, 0L);
+        UUID high = new UUID(0x8000000000000000L, 0L);
+        CompactCart cart = CompactCart.builder(2).add(high, 1).add(low, 5).build();
+
+        when(productRepository.decrementStockIfAvailable(low, 5)).thenReturn(0);
+        when(productRepository.findById(low)).thenReturn(Optional.of(product(low, 2)));
+
+        // Act & Assert - insufficient stock
+        InsufficientStockException shortException = assertThrows(InsufficientStockException.class,
+                () -> reservation.reserve(cart));
+        assertTrue(shortException.getMessage().contains("requested: 5, available: 2"));
+        verify(productRepository, never()).decrementStockIfAvailable(high, 1);
+
+        // Missing product
+        when(productRepository.findById(low)).thenReturn(Optional.empty());
+        CustomException missingException = assertThrows(CustomException.class, () -> reservation.reserve(cart));
+        assertEquals(HttpStatus.NOT_FOUND, missingException.getStatus());
+    }
+
+    @Test
+    void reserve_LaterLineShort_GivesBackEarlierLines() {
+        UUID low = new UUID(0x0000000000000001L, 0L);
+        UUID high = new UUID(0x8000000000000000L, 0L);
+        CompactCart cart = CompactCart.builder(2).add(high, 9).add(low, 2).build();
+
+        when(productRepository.decrementStockIfAvailable(low, 2)).thenReturn(1);
+        when(productRepository.decrementStockIfAvailable(high, 9)).thenReturn(0);
+        when(productRepository.findById(high)).thenReturn(Optional.of(product(high, 1)));
+
+        assertThrows(InsufficientStockException.class, () -> reservation.reserve(cart));
+
+        InOrder inOrder = inOrder(productRepository);
+        inOrder.verify(productRepository).decrementStockIfAvailable(low, 2);
+        inOrder.verify(productRepository).decrementStockIfAvailable(high, 9);
+        inOrder.verify(productRepository).incrementStock(low, 2);
+    }
+
+    private Product product(UUID id, int stock) {
+        return Product.builder()
+                .id(id)
+                .name("Product " + id)
+                .price(new BigDecimal("10.00"))
+                .stock(stock)
+                .category(ProductCategory.ELECTRONICS)
+                .build();
+    }
+}
@@ -0,0 +1,77 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CartConfirmResponse;
+import com.promo.quoter.implementations.ConfirmResponseSnapshots;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfirmResponseSnapshotsTest {
+
+    private final ConfirmResponseSnapshots snapshots = new ConfirmResponseSnapshots(2);
+
+    @Test
+    void decode_EncodedResponse_IsEqual() {
+        // Arrange - a hold with a promotion that no longer exists and a negative-scale amount
+        LocalDateTime createdAt = LocalDateTime.of(2025, 3, 1, 12, 30, 5, 123_456_000);
+        CartConfirmResponse response = CartConfirmResponse.builder()
+                .orderId("ORD-2025-000042")
+                .finalTotal(new BigDecimal("1234567890123.45"))
+                .status(CartConfirmResponse.OrderStatus.PENDING)
+                .createdAt(createdAt)
+                .holdExpiresAt(createdAt.plusMinutes(15))
+                .reservedItems(List.of(
+                        new CartConfirmResponse.ReservedItem(UUID.randomUUID().toString(), "Laptop", 2,
+                                new BigDecimal("999.99"), createdAt),
+                        new CartConfirmResponse.ReservedItem(UUID.randomUUID().toString(), null, 1,
+                                new BigDecimal("-0.5"), null)))
+                .appliedPromotions(List.of(
+                        new CartConfirmResponse.AppliedPromotion(null, "BUY_X_GET_Y", "Buy 2 get 1",
+                                new BigDecimal("1E+2"))))
+                .build();
+
+        // Act
+        byte[] encoded = snapshots.encode(response);
+
+        // Assert - and far smaller than the JSON it stands for
+        assertEquals(response, snapshots.decode(encoded));
+        assertTrue(encoded.length < 256, "Snapshot took " + encoded.length + " bytes");
+    }
+
+    @Test
+    void decode_MinimalResponse_KeepsNulls() {
+        CartConfirmResponse response = CartConfirmResponse.builder()
+                .orderId("ORD-1")
+                .reservedItems(List.of())
+                .appliedPromotions(List.of())
+                .build();
+
+        assertEquals(response, snapshots.decode(snapshots.encode(response)));
+    }
+
+    @Test
+    void decode_UnknownFormat_IsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> snapshots.decode(new byte[]{9}));
+    }
+
+    @Test
+    void cached_BeyondCapacity_EvictsLeastRecentlyUsed() {
+        CartConfirmResponse first = CartConfirmResponse.builder().orderId("ORD-1").build();
+        CartConfirmResponse second = CartConfirmResponse.builder().orderId("ORD-2").build();
+        CartConfirmResponse third = CartConfirmResponse.builder().orderId("ORD-3").build();
+
+        snapshots.remember("key-1", first);
+        snapshots.remember("key-2", second);
+        snapshots.cached("key-1");
+        snapshots.remember("key-3", third);
+
+        assertEquals(first, snapshots.cached("key-1").orElseThrow());
+        assertTrue(snapshots.cached("key-2").isEmpty());
+        assertEquals(third, snapshots.cached("key-3").orElseThrow());
+    }
+}
@@ -0,0 +1,151 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CartQuoteRequest;
+import com.promo.quoter.dtos.ConfirmTicket;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.enums.CustomerSegment;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.services.AsyncConfirmService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:waiting-room;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "cart.confirm.async.enabled=true",
+        "cart.confirm.async.partitions=4",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.promo.quoter=WARN"
+})
+@ActiveProfiles("h2")
+class ConfirmWaitingRoomTest {
+
+    @Autowired
+    private AsyncConfirmService asyncConfirmService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void submit_MoreCartsThanStock_ConfirmsInQueueOrderAndRejectsTheRest() throws Exception {
+        // Arrange - 10 units, 12 queued shoppers wanting one each
+        Product scarce = saveProduct("Drop", 10);
+        CartQuoteRequest wanted = cartFor(scarce, 1);
+
+        // Act
+        List<ConfirmTicket> queued = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            queued.add(asyncConfirmService.submit(wanted, null));
+        }
+        List<ConfirmTicket> decided = new ArrayList<>();
+        for (ConfirmTicket ticket : queued) {
+            decided.add(asyncConfirmService.completion(ticket.getTicketId()).get(30, TimeUnit.SECONDS));
+        }
+
+        // Assert - one partition serves the SKU, so the first ten in line win
+        assertEquals(12, queued.stream().map(ConfirmTicket::getTicketId).distinct().count());
+        for (int i = 0; i < 12; i++) {
+            ConfirmTicket ticket = decided.get(i);
+            if (i < 10) {
+                assertEquals(ConfirmTicket.TicketStatus.CONFIRMED, ticket.getStatus());
+                assertNotNull(ticket.getResponse().getOrderId());
+            } else {
+                assertEquals(ConfirmTicket.TicketStatus.REJECTED, ticket.getStatus());
+                assertEquals(HttpStatus.CONFLICT.value(), ticket.getErrorCode());
+                assertNull(ticket.getResponse());
+            }
+        }
+        assertEquals(0, productRepository.findById(scarce.getId()).orElseThrow().getStock());
+        assertEquals(ConfirmTicket.TicketStatus.CONFIRMED,
+                asyncConfirmService.find(queued.get(0).getTicketId()).getStatus());
+    }
+
+    @Test
+    void submit_CartsSpanningTwoPartitions_AllDecidedWithoutOverselling() throws Exception {
+        // Arrange - two SKUs in different partitions, each with 5 units
+        Product first = saveProduct("Left", 5);
+        Product second = saveProduct("Right", 5);
+        while (Math.floorMod(first.getId().hashCode(), 4) == Math.floorMod(second.getId().hashCode(), 4)) {
+            second = saveProduct("Right", 5);
+        }
+        CartQuoteRequest both = new CartQuoteRequest(List.of(
+                new CartQuoteRequest.CartItem(first.getId().toString(), 1),
+                new CartQuoteRequest.CartItem(second.getId().toString(), 1)), CustomerSegment.REGULAR);
+
+        // Act - carts for both SKUs interleaved with carts for either one
+        List<CartQuoteRequest> submitted = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            submitted.add(both);
+            submitted.add(cartFor(first, 1));
+            submitted.add(cartFor(second, 1));
+        }
+        List<ConfirmTicket> queued = new ArrayList<>();
+        for (CartQuoteRequest request : submitted) {
+            queued.add(asyncConfirmService.submit(request, null));
+        }
+        int firstSold = 0;
+        int secondSold = 0;
+        for (int i = 0; i < queued.size(); i++) {
+            ConfirmTicket decided = asyncConfirmService.completion(queued.get(i).getTicketId()).get(30, TimeUnit.SECONDS);
+            if (decided.getStatus() == ConfirmTicket.TicketStatus.CONFIRMED) {
+                firstSold += submitted.get(i) == both || i % 3 == 1 ? 1 : 0;
+                secondSold += submitted.get(i) == both || i % 3 == 2 ? 1 : 0;
+            } else {
+                assertEquals(HttpStatus.CONFLICT.value(), decided.getErrorCode());
+            }
+        }
+
+        // Assert
+        assertEquals(5, firstSold);
+        assertEquals(5, secondSold);
+        assertEquals(0, productRepository.findById(first.getId()).orElseThrow().getStock());
+        assertEquals(0, productRepository.findById(second.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    void submit_SameIdempotencyKey_ReturnsTheSameTicket() throws Exception {
+        Product product = saveProduct("Keyed", 5);
+        CartQuoteRequest request = cartFor(product, 2);
+
+        ConfirmTicket first = asyncConfirmService.submit(request, "waiting-room-key");
+        ConfirmTicket again = asyncConfirmService.submit(request, "waiting-room-key");
+        ConfirmTicket decided = asyncConfirmService.completion(first.getTicketId()).get(30, TimeUnit.SECONDS);
+
+        assertEquals(first.getTicketId(), again.getTicketId());
+        assertEquals(ConfirmTicket.TicketStatus.CONFIRMED, decided.getStatus());
+        assertEquals(3, productRepository.findById(product.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    void find_UnknownTicket_ThrowsNotFound() {
+        CustomException exception = assertThrows(CustomException.class,
+                () -> asyncConfirmService.find("no-such-ticket"));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+    }
+
+    private Product saveProduct(String name, int stock) {
+        return productRepository.save(Product.builder()
+                .name(name)
+                .category(ProductCategory.ELECTRONICS)
+                .price(new BigDecimal("49.00"))
+                .stock(stock)
+                .build());
+    }
+
+    private static CartQuoteRequest cartFor(Product product, int quantity) {
+        return new CartQuoteRequest(
+                List.of(new CartQuoteRequest.CartItem(product.getId().toString(), quantity)), CustomerSegment.REGULAR);
+    }
+}
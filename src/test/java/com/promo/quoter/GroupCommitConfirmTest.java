@@ -0,0 +1,119 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CartConfirmResponse;
+import com.promo.quoter.dtos.CartQuoteRequest;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.enums.CustomerSegment;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.services.CartService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:group-commit;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "cart.confirm.group-commit.enabled=true",
+        "cart.confirm.group-commit.window-micros=20000",
+        "cart.confirm.group-commit.max-batch=16",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.promo.quoter=WARN"
+})
+@ActiveProfiles("h2")
+class GroupCommitConfirmTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void confirmCart_ConcurrentRequestsSharingBatches_EachGetsItsOwnOutcome() throws Exception {
+        // Arrange - 10 units of a scarce SKU, 24 shoppers wanting one each, plus one cart for a missing product
+        Product scarce = productRepository.save(Product.builder()
+                .name("Scarce")
+                .category(ProductCategory.ELECTRONICS)
+                .price(new BigDecimal("12.00"))
+                .stock(10)
+                .build());
+        CartQuoteRequest wanted = new CartQuoteRequest(
+                List.of(new CartQuoteRequest.CartItem(scarce.getId().toString(), 1)), CustomerSegment.REGULAR);
+        CartQuoteRequest missing = new CartQuoteRequest(
+                List.of(new CartQuoteRequest.CartItem("00000000-0000-0000-0000-000000000001", 1)), CustomerSegment.REGULAR);
+
+        ExecutorService executor = Executors.newFixedThreadPool(25);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger confirmed = new AtomicInteger();
+        AtomicInteger outOfStock = new AtomicInteger();
+        List<Future<HttpStatus>> outcomes = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 25; i++) {
+            CartQuoteRequest request = i == 0 ? missing : wanted;
+            outcomes.add(executor.submit(() -> {
+                start.await();
+                try {
+                    cartService.confirmCart(request, null);
+                    confirmed.incrementAndGet();
+                    return HttpStatus.CREATED;
+                } catch (CustomException e) {
+                    if (e.getStatus() == HttpStatus.CONFLICT) {
+                        outOfStock.incrementAndGet();
+                    }
+                    return e.getStatus();
+                }
+            }));
+        }
+        start.countDown();
+        List<HttpStatus> statuses = new ArrayList<>();
+        for (Future<HttpStatus> outcome : outcomes) {
+            statuses.add(outcome.get(1, TimeUnit.MINUTES));
+        }
+        executor.shutdown();
+
+        // Assert - failures stay with their own request
+        assertEquals(HttpStatus.NOT_FOUND, statuses.get(0));
+        assertEquals(10, confirmed.get());
+        assertEquals(14, outOfStock.get());
+        assertEquals(0, productRepository.findById(scarce.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    void confirmCart_RetryAfterInsufficientStock_RejectedAgainThenPlacedOnceRestocked() {
+        // Arrange - one unit in stock, the cart wants two
+        Product product = productRepository.save(Product.builder()
+                .name("Short")
+                .category(ProductCategory.ELECTRONICS)
+                .price(new BigDecimal("8.00"))
+                .stock(1)
+                .build());
+        CartQuoteRequest request = new CartQuoteRequest(
+                List.of(new CartQuoteRequest.CartItem(product.getId().toString(), 2)), CustomerSegment.REGULAR);
+
+        // Act & Assert - the rejected attempt leaves no claim behind, so retries are judged on stock again
+        CustomException first = assertThrows(CustomException.class, () -> cartService.confirmCart(request, "short-key"));
+        assertEquals(HttpStatus.CONFLICT, first.getStatus());
+        CustomException retry = assertThrows(CustomException.class, () -> cartService.confirmCart(request, "short-key"));
+        assertEquals(HttpStatus.CONFLICT, retry.getStatus());
+
+        product.setStock(5);
+        productRepository.save(product);
+        CartConfirmResponse placed = cartService.confirmCart(request, "short-key");
+
+        assertEquals(CartConfirmResponse.OrderStatus.CONFIRMED, placed.getStatus());
+        assertEquals(placed.getOrderId(), cartService.confirmCart(request, "short-key").getOrderId());
+        assertEquals(3, productRepository.findById(product.getId()).orElseThrow().getStock());
+    }
+}
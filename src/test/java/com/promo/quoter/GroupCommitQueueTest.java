@@ -0,0 +1,48 @@
+package com.promo.quoter;
+
+import com.promo.quoter.implementations.GroupCommitQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupCommitQueueTest {
+
+    @Test
+    void offer_BurstWithinWindow_IsProcessedInBatchesCappedAtMaxBatch() throws Exception {
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        CountDownLatch processed = new CountDownLatch(25);
+        GroupCommitQueue<Integer> queue = new GroupCommitQueue<>("test-group-commit", 200_000, 10, 100, batch -> {
+            batches.add(batch);
+            batch.forEach(item -> processed.countDown());
+        });
+
+        for (int i = 0; i < 25; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertTrue(processed.await(10, TimeUnit.SECONDS));
+        queue.close();
+
+        // 25 items arriving together within the window: two full batches and the remainder
+        assertEquals(List.of(10, 10, 5), batches.stream().map(List::size).toList());
+        assertEquals(25, batches.stream().flatMap(List::stream).distinct().count());
+        assertFalse(queue.offer(99));
+    }
+
+    @Test
+    void offer_SingleItem_IsProcessedWhenTheWindowCloses() throws Exception {
+        CountDownLatch processed = new CountDownLatch(1);
+        GroupCommitQueue<String> queue = new GroupCommitQueue<>("test-group-commit", 1_000, 64, 100,
+                batch -> processed.countDown());
+
+        long start = System.nanoTime();
+        queue.offer("only");
+        assertTrue(processed.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_000);
+        queue.close();
+    }
+}
@@ -0,0 +1,57 @@
+package com.promo.quoter;
+
+import com.promo.quoter.implementations.HierarchicalTimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    void advance_TimeoutsOnEveryLevel_FireOnTheirTickNeverEarly() {
+        // 4 slots per level, 3 levels: level 0 spans 4 ticks, level 1 16, level 2 64, beyond that overflows
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(10, 2, 3, START);
+        Random random = new Random(42);
+        Map<Long, Long> deadlines = new HashMap<>();
+        for (long i = 0; i < 2000; i++) {
+            long deadline = START + random.nextInt(3000);
+            deadlines.put(i, deadline);
+            wheel.schedule(i, deadline);
+        }
+        assertEquals(2000, wheel.size());
+
+        Set<Long> fired = new HashSet<>();
+        for (long now = START; now <= START + 3010; now += 10) {
+            for (Long item : wheel.advance(now)) {
+                long deadline = deadlines.get(item);
+                assertTrue(deadline <= now, () -> "fired early: " + item);
+                assertTrue(now - deadline < 10, () -> "fired late: " + item);
+                assertTrue(fired.add(item));
+            }
+        }
+        assertEquals(2000, fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancel_RemovesTimeoutAndLateAdvanceCatchesUp() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 4, START);
+        HierarchicalTimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", START + 500);
+        wheel.schedule("kept", START + 900_000);
+        wheel.schedule("overdue", START - 5_000);
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+        assertEquals(2, wheel.size());
+
+        assertEquals(List.of("overdue"), wheel.advance(START + 100));
+        assertTrue(wheel.advance(START + 899_900).isEmpty());
+        // A sweeper that fell behind processes every missed tick in one call
+        assertEquals(List.of("kept"), wheel.advance(START + 2_000_000));
+        assertEquals(0, wheel.size());
+    }
+}
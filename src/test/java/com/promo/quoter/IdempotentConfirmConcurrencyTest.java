@@ -0,0 +1,81 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CartConfirmResponse;
+import com.promo.quoter.dtos.CartQuoteRequest;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.enums.CustomerSegment;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.repos.OrderRepository;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.services.CartService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotent-confirm;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.springframework.transaction=WARN",
+        "logging.level.com.promo.quoter=WARN"
+})
+@ActiveProfiles("h2")
+class IdempotentConfirmConcurrencyTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void confirmCart_ConcurrentRetriesWithSameKey_PlaceOneOrderAndReturnItToAll() throws Exception {
+        // Arrange
+        Product product = productRepository.save(Product.builder()
+                .name("Idempotent SKU")
+                .category(ProductCategory.ELECTRONICS)
+                .price(new BigDecimal("8.00"))
+                .stock(50)
+                .build());
+        CartQuoteRequest request = new CartQuoteRequest(
+                List.of(new CartQuoteRequest.CartItem(product.getId().toString(), 3)), CustomerSegment.REGULAR);
+        long ordersBefore = orderRepository.count();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CartConfirmResponse>> responses = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 8; i++) {
+            responses.add(executor.submit(() -> {
+                start.await();
+                return cartService.confirmCart(request, "same-key");
+            }));
+        }
+        start.countDown();
+        List<String> orderIds = new ArrayList<>();
+        for (Future<CartConfirmResponse> response : responses) {
+            orderIds.add(response.get(1, TimeUnit.MINUTES).getOrderId());
+        }
+        executor.shutdown();
+
+        // Assert - stock taken once, one order, the same order id everywhere
+        assertEquals(1, orderIds.stream().distinct().count());
+        assertEquals(ordersBefore + 1, orderRepository.count());
+        assertEquals(47, productRepository.findById(product.getId()).orElseThrow().getStock());
+
+        // A later retry gets the committed order straight away
+        assertEquals(orderIds.get(0), cartService.confirmCart(request, "same-key").getOrderId());
+        assertEquals(47, productRepository.findById(product.getId()).orElseThrow().getStock());
+    }
+}
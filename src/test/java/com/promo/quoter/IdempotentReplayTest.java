@@ -0,0 +1,95 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CartConfirmResponse;
+import com.promo.quoter.dtos.CartQuoteRequest;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.enums.CustomerSegment;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.services.CartService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The replay cache is off, so every replay goes to the stored snapshot
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotent-replay;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "cart.confirm.replay-cache-size=0",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+        "logging.level.org.springframework.transaction=WARN",
+        "logging.level.com.promo.quoter=WARN"
+})
+@ActiveProfiles("h2")
+class IdempotentReplayTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void confirmCart_Replayed_AnsweredWithOneKeyedRead() {
+        // Arrange - a cart of 20 lines, confirmed once
+        List<CartQuoteRequest.CartItem> items = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Product product = productRepository.save(Product.builder()
+                    .name("Replay SKU " + i)
+                    .category(ProductCategory.CLOTHING)
+                    .price(new BigDecimal("12.50"))
+                    .stock(5)
+                    .build());
+            items.add(new CartQuoteRequest.CartItem(product.getId().toString(), 1));
+        }
+        CartQuoteRequest request = new CartQuoteRequest(items, CustomerSegment.REGULAR);
+        CartConfirmResponse confirmed = cartService.confirmCart(request, "replay-key");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act
+        CartConfirmResponse replayed = cartService.confirmCart(request, "replay-key");
+
+        // Assert - the same response, without loading the order, its items or its products
+        assertEquals(confirmed, replayed);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(4, productRepository.findAll().stream()
+                .filter(product -> product.getName().startsWith("Replay SKU"))
+                .mapToInt(Product::getStock)
+                .min().orElseThrow());
+    }
+
+    @Test
+    void holdCart_Replayed_ReturnsTheHoldAsFirstAnswered() {
+        Product product = productRepository.save(Product.builder()
+                .name("Held SKU")
+                .category(ProductCategory.ELECTRONICS)
+                .price(new BigDecimal("80.00"))
+                .stock(3)
+                .build());
+        CartQuoteRequest request = new CartQuoteRequest(
+                List.of(new CartQuoteRequest.CartItem(product.getId().toString(), 1)), CustomerSegment.PREMIUM);
+
+        CartConfirmResponse held = cartService.holdCart(request, "replay-hold-key");
+        CartConfirmResponse replayed = cartService.holdCart(request, "replay-hold-key");
+
+        assertEquals(held, replayed);
+        assertNotNull(replayed.getHoldExpiresAt());
+        assertEquals(2, productRepository.findById(product.getId()).orElseThrow().getStock());
+    }
+}
@@ -0,0 +1,188 @@
+package com.promo.quoter;
+
+import com.promo.quoter.entities.InventoryLedgerFlush;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.exception.InsufficientStockException;
+import com.promo.quoter.implementations.InventoryLedger;
+import com.promo.quoter.repos.InventoryLedgerFlushRepository;
+import com.promo.quoter.repos.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryLedgerTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private InventoryLedgerFlushRepository flushRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path tempDir;
+
+    private Product hot;
+    private Product cold;
+    private InventoryLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        hot = product("Hot", 100);
+        cold = product("Cold", 5);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (ledger != null) {
+            ledger.shutdown();
+        }
+    }
+
+    @Test
+    void reserve_ConcurrentDemandOnHotSku_NeverOversells() throws Exception {
+        ledger = start(hot, cold);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        AtomicInteger accepted = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 500; i++) {
+            futures.add(executor.submit(() -> {
+                try {
+                    ledger.reserve(Map.of(hot.getId(), 1), Map.of(hot.getId(), hot));
+                    accepted.incrementAndGet();
+                } catch (InsufficientStockException ignored) {
+                    // Sold out
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(100, accepted.get());
+        assertEquals(0, ledger.available(hot.getId()));
+        verify(productRepository, never()).findByIdWithLock(any());
+    }
+
+    @Test
+    void reserve_ShortLine_ReleasesTheLinesAlreadyTaken() {
+        ledger = start(hot, cold);
+        Map<UUID, Product> products = Map.of(hot.getId(), hot, cold.getId(), cold);
+
+        InsufficientStockException exception = assertThrows(InsufficientStockException.class,
+                () -> ledger.reserve(Map.of(hot.getId(), 10, cold.getId(), 6), products));
+        assertTrue(exception.getMessage().contains("Cold (requested: 6, available: 5)"));
+
+        assertEquals(100, ledger.available(hot.getId()));
+        assertEquals(5, ledger.available(cold.getId()));
+    }
+
+    @Test
+    void flush_CommittedReservationsAreCoalescedPerSkuAndRolledBackOnesAreNot() {
+        ledger = start(hot, cold);
+        Map<UUID, Product> products = Map.of(hot.getId(), hot, cold.getId(), cold);
+
+        InventoryLedger.Reservation first = ledger.reserve(Map.of(hot.getId(), 2, cold.getId(), 1), products);
+        InventoryLedger.Reservation second = ledger.reserve(Map.of(hot.getId(), 3), products);
+        InventoryLedger.Reservation rolledBack = ledger.reserve(Map.of(hot.getId(), 50), products);
+        for (InventoryLedger.Reservation reservation : List.of(first, second, rolledBack)) {
+            ledger.journal(reservation);
+        }
+        ledger.commit(first);
+        ledger.commit(second);
+        ledger.release(rolledBack);
+
+        ledger.flush();
+
+        // One statement per SKU with the summed quantity, plus the batch marker, in one transaction
+        verify(productRepository).decrementStock(hot.getId(), 5);
+        verify(productRepository).decrementStock(cold.getId(), 1);
+        ArgumentCaptor<InventoryLedgerFlush> batch = ArgumentCaptor.forClass(InventoryLedgerFlush.class);
+        verify(flushRepository).save(batch.capture());
+        assertEquals(2, batch.getValue().getReservations());
+        verify(transactionManager, times(1)).commit(any());
+        assertEquals(95, ledger.available(hot.getId()));
+    }
+
+    @Test
+    void restart_ReplaysOnlyReservationsThatWereNeitherVoidedNorFlushed() throws InterruptedException {
+        ledger = start(hot, cold);
+        Map<UUID, Product> products = Map.of(hot.getId(), hot, cold.getId(), cold);
+
+        // Flushed before the crash
+        InventoryLedger.Reservation flushed = ledger.reserve(Map.of(hot.getId(), 1), products);
+        ledger.journal(flushed);
+        ledger.commit(flushed);
+        ledger.flush();
+        ArgumentCaptor<InventoryLedgerFlush> batch = ArgumentCaptor.forClass(InventoryLedgerFlush.class);
+        verify(flushRepository).save(batch.capture());
+
+        // Committed but never flushed, and rolled back after journaling
+        InventoryLedger.Reservation pending = ledger.reserve(Map.of(hot.getId(), 4, cold.getId(), 2), products);
+        ledger.journal(pending);
+        ledger.commit(pending);
+        InventoryLedger.Reservation voided = ledger.reserve(Map.of(cold.getId(), 3), products);
+        ledger.journal(voided);
+        ledger.release(voided);
+
+        // Crash: the flusher never runs again and shutdown is skipped
+        clearInvocations(productRepository, flushRepository);
+        when(flushRepository.findAllById(any())).thenReturn(List.of(batch.getValue()));
+        when(productRepository.findAll()).thenReturn(List.of(hot, cold));
+
+        InventoryLedger restarted = new InventoryLedger(productRepository, flushRepository,
+                new TransactionTemplate(transactionManager), 4, 1000, 60_000,
+                tempDir.resolve("ledger.journal").toString(), true, 1 << 20);
+        restarted.afterSingletonsInstantiated();
+
+        verify(productRepository).decrementStock(hot.getId(), 4);
+        verify(productRepository).decrementStock(cold.getId(), 2);
+        verify(productRepository, times(2)).decrementStock(any(), anyInt());
+        restarted.shutdown();
+    }
+
+    private InventoryLedger start(Product... products) {
+        when(productRepository.findAll()).thenReturn(List.of(products));
+        InventoryLedger started = new InventoryLedger(productRepository, flushRepository,
+                new TransactionTemplate(transactionManager), 4, 1000, 60_000,
+                tempDir.resolve("ledger.journal").toString(), true, 1 << 20);
+        started.afterSingletonsInstantiated();
+        // Startup reads run in transactions of their own
+        clearInvocations(transactionManager);
+        return started;
+    }
+
+    private Product product(String name, int stock) {
+        return Product.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .price(new BigDecimal("10.00"))
+                .stock(stock)
+                .category(ProductCategory.ELECTRONICS)
+                .build();
+    }
+}
@@ -0,0 +1,24 @@
+package com.promo.quoter;
+
+import com.promo.quoter.implementations.InventoryLedger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the contention scenario against the in-memory ledger; stock reaches the table on the next flush.
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ledger-stress;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "inventory.reservation.strategy=ledger",
+        "inventory.ledger.journal-path=target/ledger-stress/inventory-ledger.journal"
+})
+class LedgerConcurrencyTest extends StockReservationConcurrencyTest {
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    @Override
+    protected void awaitStockPersisted() {
+        inventoryLedger.flush();
+    }
+}
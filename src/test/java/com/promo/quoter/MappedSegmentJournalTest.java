@@ -0,0 +1,103 @@
+package com.promo.quoter;
+
+import com.promo.quoter.implementations.MappedSegmentJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedSegmentJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void append_RecordsSpanningSegments_ReadBackInOrder() {
+        // Each record takes 8 + 20 bytes, so four fit in a 128-byte segment
+        MappedSegmentJournal journal = new MappedSegmentJournal(tempDir, 128);
+        long previous = 0;
+        for (int i = 0; i < 10; i++) {
+            long position = journal.append(payload(String.format("record-%013d", i)));
+            assertTrue(position > previous);
+            previous = position;
+        }
+        journal.sync(previous);
+
+        List<MappedSegmentJournal.Record> records = journal.readFrom(0);
+        assertEquals(10, records.size());
+        assertEquals("record-0000000000009", text(records.get(9)));
+        assertEquals(3, segmentCount());
+
+        // Reading from a position skips everything up to and including the record ending there
+        assertEquals("record-0000000000005", text(journal.readFrom(records.get(4).position()).get(0)));
+    }
+
+    @Test
+    void reopen_TornTail_DroppedAndAppendsContinue() throws IOException {
+        MappedSegmentJournal journal = new MappedSegmentJournal(tempDir, 4096);
+        journal.append(payload("first"));
+        long secondEnd = journal.append(payload("second"));
+        journal.close();
+
+        // A crash in the middle of a third record: header written, payload garbage
+        Path segment;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(secondEnd);
+            file.writeInt(40);
+            file.writeInt(12345);
+            file.write(new byte[]{1, 2, 3});
+        }
+
+        MappedSegmentJournal reopened = new MappedSegmentJournal(tempDir, 4096);
+        assertEquals(List.of("first", "second"), reopened.readFrom(0).stream().map(this::text).toList());
+        long thirdEnd = reopened.append(payload("third"));
+        assertEquals(secondEnd + 8 + 5, thirdEnd);
+        assertEquals(List.of("first", "second", "third"), reopened.readFrom(0).stream().map(this::text).toList());
+    }
+
+    @Test
+    void deleteBefore_DropsOnlyFullyPassedSegments() {
+        MappedSegmentJournal journal = new MappedSegmentJournal(tempDir, 128);
+        long[] positions = new long[10];
+        for (int i = 0; i < 10; i++) {
+            positions[i] = journal.append(payload(String.format("record-%013d", i)));
+        }
+
+        // Record 5 ends inside the second segment, so only the first one can go
+        assertEquals(1, journal.deleteBefore(positions[5]));
+        assertEquals(2, segmentCount());
+        assertEquals(4, journal.readFrom(positions[5]).size());
+
+        // The current segment is kept even when everything is passed
+        journal.deleteBefore(Long.MAX_VALUE);
+        assertEquals(1, segmentCount());
+    }
+
+    private long segmentCount() {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.count();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private ByteBuffer payload(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String text(MappedSegmentJournal.Record record) {
+        return StandardCharsets.UTF_8.decode(record.payload().duplicate()).toString();
+    }
+}
@@ -0,0 +1,16 @@
+package com.promo.quoter;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the contention scenario against the optimistic reservation strategy. Version conflicts are retried, and the
+ * shared SKUs are expected to switch to pessimistic locking part way through.
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:optimistic-stress;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "inventory.reservation.strategy=optimistic",
+        "inventory.reservation.lock-attempts=20",
+        "inventory.reservation.lock-retry-backoff-ms=1"
+})
+class OptimisticConcurrencyTest extends StockReservationConcurrencyTest {
+}
@@ -0,0 +1,150 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CompactCart;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.exception.InsufficientStockException;
+import com.promo.quoter.implementations.OptimisticStockReservation;
+import com.promo.quoter.implementations.ReservationContentionMonitor;
+import com.promo.quoter.implementations.StripedStockAllocator;
+import com.promo.quoter.repos.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OptimisticStockReservationTest {
+
+    private static final UUID LOW = new UUID(0x0000000000000001L, 0L);
+    private static final UUID HIGH = new UUID(0x8000000000000000L, 0L);
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private StripedStockAllocator stripedStock;
+
+    @Mock
+    private ReservationContentionMonitor contentionMonitor;
+
+    private OptimisticStockReservation reservation;
+
+    @BeforeEach
+    void setUp() {
+        reservation = new OptimisticStockReservation(productRepository, stripedStock, contentionMonitor, 0);
+    }
+
+    @Test
+    void reserve_VersionsUnchanged_WritesEachSkuWithCompareAndSetWithoutLocking() {
+        // Arrange
+        CompactCart cart = CompactCart.builder(2).add(HIGH, 3).add(LOW, 4).build();
+        when(productRepository.findStockSnapshot(LOW)).thenReturn(Optional.of(snapshot(10, 7)));
+        when(productRepository.findStockSnapshot(HIGH)).thenReturn(Optional.of(snapshot(10, 2)));
+        when(productRepository.decrementStockIfVersion(any(UUID.class), anyLong(), anyInt())).thenReturn(1);
+        when(productRepository.findAllById(any())).thenReturn(List.of(product(LOW, 6), product(HIGH, 7)));
+
+        // Act
+        Map<UUID, Product> reserved = reservation.reserve(cart);
+
+        // Assert
+        InOrder inOrder = inOrder(productRepository);
+        inOrder.verify(productRepository).decrementStockIfVersion(LOW, 7, 4);
+        inOrder.verify(productRepository).decrementStockIfVersion(HIGH, 2, 3);
+        verify(productRepository, never()).lockAllInCanonicalOrder(anyList(), anyInt());
+        verify(contentionMonitor).recordSuccess(LOW);
+        verify(contentionMonitor).recordSuccess(HIGH);
+        assertEquals(2, reserved.size());
+    }
+
+    @Test
+    void reserve_VersionChanged_RecordsConflictGivesBackEarlierLinesAndAsksForRetry() {
+        // Arrange
+        CompactCart cart = CompactCart.builder(2).add(HIGH, 3).add(LOW, 4).build();
+        when(productRepository.findStockSnapshot(LOW)).thenReturn(Optional.of(snapshot(10, 7)));
+        when(productRepository.findStockSnapshot(HIGH)).thenReturn(Optional.of(snapshot(10, 2)));
+        when(productRepository.decrementStockIfVersion(LOW, 7, 4)).thenReturn(1);
+        when(productRepository.decrementStockIfVersion(HIGH, 2, 3)).thenReturn(0);
+        when(productRepository.incrementStock(LOW, 4)).thenReturn(1);
+
+        // Act & Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> reservation.reserve(cart));
+        verify(contentionMonitor).recordConflict(HIGH);
+        verify(productRepository).incrementStock(LOW, 4);
+    }
+
+    @Test
+    void reserve_ContendedSku_IsLockedThenDecrementedAndReloaded() {
+        // Arrange
+        CompactCart cart = CompactCart.builder(1).add(HIGH, 3).build();
+        when(contentionMonitor.isPessimistic(HIGH)).thenReturn(true);
+        when(productRepository.lockAllInCanonicalOrder(List.of(HIGH), 0)).thenReturn(List.of(product(HIGH, 10)));
+        when(productRepository.findAllById(Set.of(HIGH))).thenReturn(List.of(product(HIGH, 7)));
+
+        // Act
+        Map<UUID, Product> reserved = reservation.reserve(cart);
+
+        // Assert
+        InOrder inOrder = inOrder(productRepository);
+        inOrder.verify(productRepository).lockAllInCanonicalOrder(List.of(HIGH), 0);
+        inOrder.verify(productRepository).decrementStock(HIGH, 3);
+        inOrder.verify(productRepository).findAllById(Set.of(HIGH));
+        assertEquals(7, reserved.get(HIGH).getStock());
+        verify(productRepository, never()).decrementStockIfVersion(any(UUID.class), anyLong(), anyInt());
+        verify(contentionMonitor).recordLocked(HIGH);
+    }
+
+    @Test
+    void reserve_SnapshotShowsShortStock_DecidesOnTheLockedRow() {
+        // Arrange - the snapshot says 1, the locked row says 2
+        CompactCart cart = CompactCart.builder(1).add(LOW, 5).build();
+        when(productRepository.findStockSnapshot(LOW)).thenReturn(Optional.of(snapshot(1, 3)));
+        when(productRepository.lockAllInCanonicalOrder(List.of(LOW), 0)).thenReturn(List.of(product(LOW, 2)));
+
+        // Act & Assert
+        InsufficientStockException exception = assertThrows(InsufficientStockException.class, () -> reservation.reserve(cart));
+        assertTrue(exception.getMessage().contains("available: 2"));
+        verify(productRepository, never()).incrementStock(any(UUID.class), anyInt());
+    }
+
+    private ProductRepository.StockSnapshot snapshot(int stock, long version) {
+        return new ProductRepository.StockSnapshot() {
+            @Override
+            public int getStock() {
+                return stock;
+            }
+
+            @Override
+            public long getVersion() {
+                return version;
+            }
+
+            @Override
+            public boolean isStriped() {
+                return false;
+            }
+        };
+    }
+
+    private Product product(UUID id, int stock) {
+        return Product.builder()
+                .id(id)
+                .name("Product " + id)
+                .category(ProductCategory.ELECTRONICS)
+                .price(BigDecimal.TEN)
+                .stock(stock)
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CartConfirmResponse;
+import com.promo.quoter.dtos.CartQuoteRequest;
+import com.promo.quoter.entities.PercentOffCategoryPromotion;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.enums.CustomerSegment;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.enums.PromotionType;
+import com.promo.quoter.repos.OrderRepository;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.repos.PromotionRepository;
+import com.promo.quoter.services.CartService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-batch-write;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+        "logging.level.org.springframework.transaction=WARN",
+        "logging.level.com.promo.quoter=WARN"
+})
+@ActiveProfiles("h2")
+class OrderBatchWriteTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void confirmCart_HundredLines_WrittenInAHandfulOfStatements() {
+        // Arrange
+        List<CartQuoteRequest.CartItem> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Product product = productRepository.save(Product.builder()
+                    .name("Batch SKU " + i)
+                    .category(ProductCategory.BOOKS)
+                    .price(new BigDecimal("3.00"))
+                    .stock(10)
+                    .build());
+            items.add(new CartQuoteRequest.CartItem(product.getId().toString(), 2));
+        }
+        promotionRepository.save(PercentOffCategoryPromotion.builder()
+                .promotionType(PromotionType.PERCENT_OFF_CATEGORY)
+                .category(ProductCategory.BOOKS)
+                .percentOff(new BigDecimal("10"))
+                .description("Books 10% off")
+                .build());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act
+        CartConfirmResponse response = cartService.confirmCart(
+                new CartQuoteRequest(items, CustomerSegment.REGULAR), "batch-write");
+
+        // Assert - 100 stock updates, 1 order, 100 items and 1 promotion in batches, not ~200 single statements
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= 15, "Placing the order prepared " + statements + " statements");
+        transactionTemplate.executeWithoutResult(tx -> {
+            var order = orderRepository.findByIdempotencyKey("batch-write").orElseThrow();
+            assertEquals(response.getOrderId(), order.getOrderId());
+            assertEquals(100, order.getOrderItems().size());
+            assertEquals(1, order.getAppliedPromotions().size());
+            assertNotNull(order.getAppliedPromotions().get(0).getPromotion());
+        });
+    }
+}
@@ -0,0 +1,158 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CartConfirmResponse;
+import com.promo.quoter.dtos.CartQuoteRequest;
+import com.promo.quoter.dtos.OrderCancelDto;
+import com.promo.quoter.entities.Order;
+import com.promo.quoter.entities.OrderItem;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.enums.CustomerSegment;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.repos.OrderRepository;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.repos.StockHoldRepository;
+import com.promo.quoter.services.CartService;
+import com.promo.quoter.services.OrderService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-cancellation;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "inventory.striping.rebalance-interval-ms=3600000",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+        "logging.level.org.springframework.transaction=WARN",
+        "logging.level.com.promo.quoter=WARN"
+})
+@ActiveProfiles("h2")
+class OrderCancellationTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockHoldRepository stockHoldRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void cancel_ConfirmedAndHeldOrders_RestoreStockOnce() {
+        Product product = product("Cancellable SKU", 10);
+        CartQuoteRequest request = new CartQuoteRequest(
+                List.of(new CartQuoteRequest.CartItem(product.getId().toString(), 3)), CustomerSegment.REGULAR);
+        CartConfirmResponse confirmed = cartService.confirmCart(request, null);
+        CartConfirmResponse held = cartService.holdCart(request, null);
+        assertEquals(4, stock(product));
+
+        assertEquals(CartConfirmResponse.OrderStatus.CANCELLED, orderService.cancel(confirmed.getOrderId()).getStatus());
+        assertEquals(CartConfirmResponse.OrderStatus.CANCELLED, orderService.cancel(held.getOrderId()).getStatus());
+        assertEquals(10, stock(product));
+        assertTrue(stockHoldRepository.findByOrderId(held.getOrderId()).isEmpty());
+
+        // Cancelling again changes nothing
+        assertEquals(CartConfirmResponse.OrderStatus.CANCELLED, orderService.cancel(confirmed.getOrderId()).getStatus());
+        assertEquals(10, stock(product));
+
+        CustomException missing = assertThrows(CustomException.class, () -> orderService.cancel("ORD-MISSING"));
+        assertEquals(HttpStatus.NOT_FOUND, missing.getStatus());
+
+        // Holds cancelled in bulk lose their hold too
+        CartConfirmResponse bulkHeld = cartService.holdCart(request, null);
+        assertEquals(1, orderService.cancelAll(List.of(bulkHeld.getOrderId())).getCancelled());
+        assertEquals(10, stock(product));
+        assertTrue(stockHoldRepository.findByOrderId(bulkHeld.getOrderId()).isEmpty());
+    }
+
+    @Test
+    void cancelAll_TenThousandOrders_RestoresStockWithOneUpdatePerSku() {
+        // Arrange - 10k confirmed orders of two lines each, spread over 20 SKUs whose stock is already taken
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            products.add(product("Bulk SKU " + i, 0));
+        }
+        List<Order> orders = new ArrayList<>();
+        List<String> orderIds = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Order order = Order.builder()
+                    .orderId("ORD-BULK-" + i)
+                    .status(i == 0 ? Order.OrderStatus.CANCELLED : Order.OrderStatus.CONFIRMED)
+                    .finalTotal(new BigDecimal("20.00"))
+                    .build();
+            order.setOrderItems(List.of(item(order, products.get(i % 20), 1), item(order, products.get((i + 1) % 20), 2)));
+            order.setAppliedPromotions(List.of());
+            orders.add(order);
+            orderIds.add(order.getOrderId());
+        }
+        orderRepository.saveAll(orders);
+        orderIds.add("ORD-BULK-MISSING");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act
+        long started = System.nanoTime();
+        OrderCancelDto.BulkCancelResponse response = orderService.cancelAll(orderIds);
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        long statements = statistics.getPrepareStatementCount();
+
+        // Assert - 9999 orders x 3 units over 20 SKUs, restored by 20 updates rather than ~20k
+        assertEquals(9_999, response.getCancelled());
+        assertEquals(1, response.getAlreadyCancelled());
+        assertEquals(List.of("ORD-BULK-MISSING"), response.getNotFound());
+        assertTrue(response.getNotCancellable().isEmpty());
+        int restored = products.stream().mapToInt(this::stock).sum();
+        assertEquals(9_999 * 3, restored);
+        assertTrue(statements <= 60, "Bulk cancel prepared " + statements + " statements in " + elapsedMs + " ms");
+
+        // Repeating the request cancels nothing more
+        OrderCancelDto.BulkCancelResponse repeated = orderService.cancelAll(orderIds);
+        assertEquals(0, repeated.getCancelled());
+        assertEquals(10_000, repeated.getAlreadyCancelled());
+        assertEquals(restored, products.stream().mapToInt(this::stock).sum());
+    }
+
+    private Product product(String name, int stock) {
+        return productRepository.save(Product.builder()
+                .name(name)
+                .category(ProductCategory.FOOD)
+                .price(new BigDecimal("5.00"))
+                .stock(stock)
+                .build());
+    }
+
+    private static OrderItem item(Order order, Product product, int quantity) {
+        return OrderItem.builder()
+                .order(order)
+                .product(product)
+                .quantity(quantity)
+                .unitPrice(product.getPrice())
+                .build();
+    }
+
+    private int stock(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getStock();
+    }
+}
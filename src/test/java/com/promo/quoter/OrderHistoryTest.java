@@ -0,0 +1,194 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.OrderHistoryDto;
+import com.promo.quoter.entities.Order;
+import com.promo.quoter.entities.OrderItem;
+import com.promo.quoter.entities.OrderPromotion;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.enums.CustomerSegment;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.repos.OrderRepository;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.services.OrderHistoryService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-history;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "inventory.striping.rebalance-interval-ms=3600000",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.springframework.transaction=WARN",
+        "logging.level.com.promo.quoter=WARN"
+})
+@ActiveProfiles("h2")
+class OrderHistoryTest {
+
+    @Autowired
+    private OrderHistoryService orderHistoryService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void listOrders_PagesThroughEveryMatchingOrderOnce_NewestFirst() {
+        // Arrange - 25 orders per segment, five of each sharing a creation time so ids break the ties
+        LocalDateTime base = LocalDateTime.of(2031, 3, 1, 12, 0);
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            orders.add(order("ORD-PAGE-" + i, i % 2 == 0 ? CustomerSegment.VIP : CustomerSegment.REGULAR,
+                    Order.OrderStatus.CONFIRMED, base.plusMinutes(i / 10)));
+        }
+        orderRepository.saveAll(orders);
+        OrderHistoryDto.Filter vip = OrderHistoryDto.Filter.builder()
+                .segment(CustomerSegment.VIP)
+                .from(base)
+                .to(base.plusDays(1))
+                .build();
+
+        // Act
+        List<OrderHistoryDto.OrderSummary> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            OrderHistoryDto.Page page = orderHistoryService.listOrders(vip, cursor, 4, null);
+            seen.addAll(page.getOrders());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // Assert
+        assertEquals(7, pages);
+        assertEquals(25, seen.size());
+        assertEquals(25, seen.stream().map(OrderHistoryDto.OrderSummary::getOrderId).distinct().count());
+        assertTrue(seen.stream().allMatch(order -> order.getCustomerSegment() == CustomerSegment.VIP));
+        for (int i = 1; i < seen.size(); i++) {
+            OrderHistoryDto.OrderSummary previous = seen.get(i - 1);
+            OrderHistoryDto.OrderSummary current = seen.get(i);
+            assertFalse(current.getCreatedAt().isAfter(previous.getCreatedAt()));
+        }
+        assertNull(seen.get(0).getItems());
+    }
+
+    @Test
+    void listOrders_ReadsProjectionsOnly_AndOneStatementPerIncludedPart() {
+        // Arrange
+        Product product = productRepository.save(Product.builder()
+                .name("History SKU")
+                .category(ProductCategory.BOOKS)
+                .price(new BigDecimal("12.00"))
+                .stock(0)
+                .build());
+        LocalDateTime base = LocalDateTime.of(2032, 6, 1, 9, 0);
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Order order = order("ORD-LINES-" + i, CustomerSegment.PREMIUM,
+                    i < 3 ? Order.OrderStatus.CANCELLED : Order.OrderStatus.CONFIRMED, base.plusSeconds(i));
+            order.setOrderItems(List.of(OrderItem.builder()
+                    .order(order)
+                    .product(product)
+                    .quantity(i + 1)
+                    .unitPrice(product.getPrice())
+                    .build()));
+            order.setAppliedPromotions(List.of(OrderPromotion.builder()
+                    .order(order)
+                    .promotionType("PERCENT_OFF_CATEGORY")
+                    .description("10% off books")
+                    .discountAmount(new BigDecimal("1.20"))
+                    .build()));
+            orders.add(order);
+        }
+        orderRepository.saveAll(orders);
+        OrderHistoryDto.Filter confirmed = OrderHistoryDto.Filter.builder()
+                .status(Order.OrderStatus.CONFIRMED)
+                .from(base)
+                .build();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act
+        OrderHistoryDto.Page plain = orderHistoryService.listOrders(confirmed, null, 10, null);
+        long plainStatements = statistics.getPrepareStatementCount();
+        OrderHistoryDto.Page full = orderHistoryService.listOrders(confirmed, null, 10,
+                EnumSet.allOf(OrderHistoryDto.Include.class));
+
+        // Assert
+        assertEquals(7, plain.getOrders().size());
+        assertNull(plain.getNextCursor());
+        assertEquals(1, plainStatements);
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionFetchCount());
+
+        OrderHistoryDto.OrderSummary newest = full.getOrders().get(0);
+        assertEquals("ORD-LINES-9", newest.getOrderId());
+        assertEquals(1, newest.getItems().size());
+        assertEquals(10, newest.getItems().get(0).getQuantity());
+        assertEquals(product.getId().toString(), newest.getItems().get(0).getProductId());
+        assertEquals("10% off books", newest.getAppliedPromotions().get(0).getDescription());
+    }
+
+    @Test
+    void getOrder_ReturnsSummaryAndRequestedParts() {
+        orderRepository.save(order("ORD-LOOKUP-1", CustomerSegment.REGULAR, Order.OrderStatus.FAILED,
+                LocalDateTime.of(2033, 1, 1, 0, 0)));
+
+        OrderHistoryDto.OrderSummary order = orderHistoryService.getOrder("ORD-LOOKUP-1",
+                EnumSet.of(OrderHistoryDto.Include.ITEMS));
+
+        assertEquals(Order.OrderStatus.FAILED, order.getStatus());
+        assertEquals(List.of(), order.getItems());
+        assertNull(order.getAppliedPromotions());
+
+        CustomException missing = assertThrows(CustomException.class,
+                () -> orderHistoryService.getOrder("ORD-LOOKUP-MISSING", null));
+        assertEquals(HttpStatus.NOT_FOUND, missing.getStatus());
+    }
+
+    @Test
+    void listOrders_InvalidCursorOrLimit_BadRequest() {
+        OrderHistoryDto.Filter any = new OrderHistoryDto.Filter();
+
+        CustomException cursor = assertThrows(CustomException.class,
+                () -> orderHistoryService.listOrders(any, "not-a-cursor", 10, null));
+        CustomException limit = assertThrows(CustomException.class,
+                () -> orderHistoryService.listOrders(any, null, 1000, null));
+
+        assertEquals(HttpStatus.BAD_REQUEST, cursor.getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST, limit.getStatus());
+    }
+
+    private static Order order(String orderId, CustomerSegment segment, Order.OrderStatus status,
+                               LocalDateTime createdAt) {
+        Order order = Order.builder()
+                .orderId(orderId)
+                .customerSegment(segment)
+                .status(status)
+                .subtotal(new BigDecimal("12.00"))
+                .totalDiscount(BigDecimal.ZERO)
+                .finalTotal(new BigDecimal("12.00"))
+                .createdAt(createdAt)
+                .build();
+        order.setOrderItems(List.of());
+        order.setAppliedPromotions(List.of());
+        return order;
+    }
+}
@@ -0,0 +1,319 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CartConfirmResponse;
+import com.promo.quoter.dtos.CartQuoteRequest;
+import com.promo.quoter.dtos.OrderCancelDto;
+import com.promo.quoter.dtos.OrderHistoryDto;
+import com.promo.quoter.entities.Order;
+import com.promo.quoter.entities.OrderItem;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.enums.CustomerSegment;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.implementations.ConfirmResponseSnapshots;
+import com.promo.quoter.implementations.OrderJournal;
+import com.promo.quoter.repos.JournaledOrderMarkerRepository;
+import com.promo.quoter.repos.OrderRepository;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.repos.PromotionRepository;
+import com.promo.quoter.services.CartService;
+import com.promo.quoter.services.OrderHistoryService;
+import com.promo.quoter.services.OrderService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-journal;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "cart.confirm.journal.enabled=true",
+        "cart.confirm.journal.segment-bytes=65536",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.springframework.transaction=WARN",
+        "logging.level.com.promo.quoter=WARN"
+})
+@ActiveProfiles("h2")
+class OrderJournalTest {
+
+    @DynamicPropertySource
+    static void journalDirectory(DynamicPropertyRegistry registry) throws IOException {
+        Path directory = Files.createTempDirectory("order-journal");
+        registry.add("cart.confirm.journal.directory", directory::toString);
+    }
+
+    @TempDir
+    Path restartDir;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderJournal orderJournal;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderHistoryService orderHistoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JournaledOrderMarkerRepository markerRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ConfirmResponseSnapshots responseSnapshots;
+
+    @Test
+    void confirmCart_Journaled_AppliedInTheBackgroundAndAnsweredForRetries() {
+        // Arrange
+        Product product = product("Journaled SKU", 20);
+        CartQuoteRequest request = new CartQuoteRequest(
+                List.of(new CartQuoteRequest.CartItem(product.getId().toString(), 3)), CustomerSegment.REGULAR);
+
+        // Act
+        CartConfirmResponse confirmed = cartService.confirmCart(request, "journal-key");
+        CartConfirmResponse retried = cartService.confirmCart(request, "journal-key");
+
+        // Assert - stock is committed at once, the order row follows
+        assertEquals(confirmed.getOrderId(), retried.getOrderId());
+        assertEquals(17, productRepository.findById(product.getId()).orElseThrow().getStock());
+        awaitTrue(() -> orderRepository.findByIdempotencyKey("journal-key").isPresent());
+        transactionTemplate.executeWithoutResult(tx -> {
+            Order order = orderRepository.findByIdempotencyKey("journal-key").orElseThrow();
+            assertEquals(confirmed.getOrderId(), order.getOrderId());
+            assertEquals(confirmed.getCreatedAt(), order.getCreatedAt());
+            assertEquals(3, order.getOrderItems().get(0).getQuantity());
+            assertEquals(confirmed, responseSnapshots.decode(order.getResponseSnapshot()));
+        });
+        assertEquals(confirmed.getOrderId(), cartService.confirmCart(request, "journal-key").getOrderId());
+        assertEquals(17, productRepository.findById(product.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    void restart_UnappliedOrders_ReplayedExactlyOnce() throws Exception {
+        // Arrange - journal two orders on an instance that stops before its applier runs
+        Product product = product("Replayed SKU", 50);
+        OrderJournal crashed = journal(restartDir, 10);
+        append(crashed, order("ORD-REPLAY-1", product));
+        append(crashed, order("ORD-REPLAY-2", product));
+        long ordersBefore = orderRepository.count();
+
+        // Act - a restart replays both
+        OrderJournal restarted = journal(restartDir, 10);
+        restarted.afterSingletonsInstantiated();
+        awaitTrue(() -> restarted.unappliedCount() == 0);
+        restarted.shutdown();
+
+        // A restart that lost its checkpoint replays them again, but inserts nothing twice
+        Files.deleteIfExists(restartDir.resolve("applied.checkpoint"));
+        OrderJournal replayedAgain = journal(restartDir, 10);
+        replayedAgain.afterSingletonsInstantiated();
+        awaitTrue(() -> replayedAgain.unappliedCount() == 0);
+        replayedAgain.shutdown();
+
+        // Assert
+        assertEquals(ordersBefore + 2, orderRepository.count());
+        assertEquals(2, orderRepository.findExistingOrderIds(List.of("ORD-REPLAY-1", "ORD-REPLAY-2")).size());
+    }
+
+    @Test
+    void restart_RecordOfTransactionThatNeverCommitted_Dropped() throws Exception {
+        // Arrange - both records reach the disk, but only the first reservation commits
+        Product product = product("Rolled back SKU", 50);
+        OrderJournal crashed = journal(restartDir, 10);
+        append(crashed, order("ORD-COMMITTED-1", product));
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(tx -> {
+            crashed.append(order("ORD-ROLLED-BACK-1", product));
+            throw new IllegalStateException("reservation failed after journaling");
+        }));
+
+        // Act
+        OrderJournal restarted = journal(restartDir, 10);
+        restarted.afterSingletonsInstantiated();
+        awaitTrue(() -> restarted.unappliedCount() == 0);
+        restarted.shutdown();
+
+        // Assert
+        assertEquals(List.of("ORD-COMMITTED-1"),
+                orderRepository.findExistingOrderIds(List.of("ORD-COMMITTED-1", "ORD-ROLLED-BACK-1")));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM journaled_order_markers " +
+                "WHERE order_id IN ('ORD-COMMITTED-1', 'ORD-ROLLED-BACK-1')", Integer.class));
+    }
+
+    @Test
+    void apply_OrderThatCannotBeInserted_RetriedWithoutHoldingUpTheOthers() throws Exception {
+        // Arrange - the second order references a product that is not in the database yet
+        Product product = product("Blocking SKU", 50);
+        Product missing = Product.builder().id(UUID.randomUUID()).name("Late SKU").build();
+        OrderJournal crashed = journal(restartDir, 100);
+        append(crashed, order("ORD-BLOCK-1", product));
+        append(crashed, order("ORD-BLOCK-2", missing));
+        append(crashed, order("ORD-BLOCK-3", product));
+
+        // Act
+        OrderJournal journal = journal(restartDir, 100);
+        journal.afterSingletonsInstantiated();
+        awaitTrue(() -> orderRepository.findExistingOrderIds(List.of("ORD-BLOCK-1", "ORD-BLOCK-3")).size() == 2);
+        Thread.sleep(300);
+        journal.shutdown();
+
+        // Assert - the failing order is retried on its own and the checkpoint never passes it
+        assertEquals(1, journal.unappliedCount());
+        assertTrue(orderRepository.findExistingOrderIds(List.of("ORD-BLOCK-2")).isEmpty());
+
+        jdbcTemplate.update("INSERT INTO product (id, name, category, price, stock, striped, version) " +
+                "VALUES (?, 'Late SKU', 'ELECTRONICS', 10.00, 5, false, 0)", missing.getId());
+        OrderJournal restarted = journal(restartDir, 100);
+        restarted.afterSingletonsInstantiated();
+        awaitTrue(() -> restarted.unappliedCount() == 0);
+        restarted.shutdown();
+        assertEquals(3, orderRepository.findExistingOrderIds(
+                List.of("ORD-BLOCK-1", "ORD-BLOCK-2", "ORD-BLOCK-3")).size());
+    }
+
+    @Test
+    void apply_OrderRejectedEveryTime_DeadLetteredAndNoLongerReplayed() throws Exception {
+        // Arrange - an order whose product will never exist
+        Product product = product("Dead letter neighbour SKU", 50);
+        Product deleted = Product.builder().id(UUID.randomUUID()).name("Deleted SKU").build();
+        OrderJournal crashed = journal(restartDir, 3);
+        append(crashed, order("ORD-DEAD-1", deleted));
+        append(crashed, order("ORD-DEAD-2", product));
+        double deadLetteredBefore = meterRegistry.counter("orders.journal.dead.lettered").count();
+
+        // Act
+        OrderJournal journal = journal(restartDir, 3);
+        journal.afterSingletonsInstantiated();
+        awaitTrue(() -> journal.unappliedCount() == 0);
+        journal.shutdown();
+
+        // Assert - kept aside for an operator, counted, and not replayed by the next start
+        assertTrue(Files.exists(restartDir.resolve("dead-letter").resolve("ORD-DEAD-1.record")));
+        assertEquals(deadLetteredBefore + 1, meterRegistry.counter("orders.journal.dead.lettered").count());
+        assertEquals(List.of("ORD-DEAD-2"), orderRepository.findExistingOrderIds(List.of("ORD-DEAD-1", "ORD-DEAD-2")));
+        OrderJournal restarted = journal(restartDir, 3);
+        restarted.afterSingletonsInstantiated();
+        assertEquals(0, restarted.unappliedCount());
+        restarted.shutdown();
+    }
+
+    @Test
+    void lookupAndCancel_OrderStillInJournal_AnsweredFromTheJournal() {
+        // Arrange - an acknowledged order that cannot be applied until its product exists
+        Product missing = Product.builder().id(UUID.randomUUID()).name("Pending SKU").build();
+        append(orderJournal, order("ORD-PENDING-1", missing));
+
+        // Act
+        OrderHistoryDto.OrderSummary found = orderHistoryService.getOrder("ORD-PENDING-1",
+                EnumSet.of(OrderHistoryDto.Include.ITEMS));
+        CustomException cancel = assertThrows(CustomException.class, () -> orderService.cancel("ORD-PENDING-1"));
+        OrderCancelDto.BulkCancelResponse bulk = orderService.cancelAll(List.of("ORD-PENDING-1"));
+
+        // Assert
+        assertEquals(Order.OrderStatus.CONFIRMED, found.getStatus());
+        assertEquals(missing.getId().toString(), found.getItems().get(0).getProductId());
+        assertEquals(HttpStatus.CONFLICT, cancel.getStatus());
+        assertEquals(List.of("ORD-PENDING-1"), bulk.getStillRecording());
+        assertTrue(bulk.getNotFound().isEmpty());
+
+        // Once applied, the database answers
+        jdbcTemplate.update("INSERT INTO product (id, name, category, price, stock, striped, version) " +
+                "VALUES (?, 'Pending SKU', 'ELECTRONICS', 10.00, 5, false, 0)", missing.getId());
+        awaitTrue(() -> orderJournal.findUnappliedOrder("ORD-PENDING-1").isEmpty());
+        assertEquals("ORD-PENDING-1", orderHistoryService.getOrder("ORD-PENDING-1", Set.of()).getOrderId());
+        assertEquals(CartConfirmResponse.OrderStatus.CANCELLED, orderService.cancel("ORD-PENDING-1").getStatus());
+    }
+
+    private OrderJournal journal(Path directory, int maxApplyAttempts) {
+        return new OrderJournal(orderRepository, productRepository, promotionRepository, markerRepository,
+                transactionTemplate, responseSnapshots, meterRegistry, directory.toString(), 65536, 0, 100,
+                maxApplyAttempts);
+    }
+
+    private void append(OrderJournal journal, Order order) {
+        transactionTemplate.executeWithoutResult(tx -> journal.append(order));
+    }
+
+    private Order order(String orderId, Product product) {
+        Order order = Order.builder()
+                .orderId(orderId)
+                .customerSegment(CustomerSegment.REGULAR)
+                .subtotal(new BigDecimal("10.00"))
+                .totalDiscount(BigDecimal.ZERO)
+                .finalTotal(new BigDecimal("10.00"))
+                .status(Order.OrderStatus.CONFIRMED)
+                .createdAt(LocalDateTime.now())
+                .appliedPromotions(new ArrayList<>())
+                .build();
+        order.setOrderItems(List.of(OrderItem.builder()
+                .order(order)
+                .product(product)
+                .quantity(1)
+                .unitPrice(new BigDecimal("10.00"))
+                .lineTotal(new BigDecimal("10.00"))
+                .discountAmount(BigDecimal.ZERO)
+                .finalLineTotal(new BigDecimal("10.00"))
+                .build()));
+        return order;
+    }
+
+    private Product product(String name, int stock) {
+        return productRepository.save(Product.builder()
+                .name(name)
+                .category(ProductCategory.ELECTRONICS)
+                .price(new BigDecimal("10.00"))
+                .stock(stock)
+                .build());
+    }
+
+    private void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the order journal");
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
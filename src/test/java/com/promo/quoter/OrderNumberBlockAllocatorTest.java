@@ -0,0 +1,55 @@
+package com.promo.quoter;
+
+import com.promo.quoter.implementations.OrderNumberBlockAllocator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-number-blocks;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.springframework.transaction=WARN",
+        "logging.level.com.promo.quoter=WARN"
+})
+@ActiveProfiles("h2")
+class OrderNumberBlockAllocatorTest {
+
+    @Autowired
+    private OrderNumberBlockAllocator allocator;
+
+    @Test
+    void allocate_Concurrently_EveryBlockHandedOutOnce() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Long>>> results = new ArrayList<>();
+
+        // Act - the first calls also race to create the sequence row
+        for (int t = 0; t < 8; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                List<Long> blocks = new ArrayList<>();
+                for (int i = 0; i < 25; i++) {
+                    blocks.add(allocator.allocate());
+                }
+                return blocks;
+            }));
+        }
+        start.countDown();
+        List<Long> allocated = new ArrayList<>();
+        for (Future<List<Long>> result : results) {
+            allocated.addAll(result.get(1, TimeUnit.MINUTES));
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(200, new HashSet<>(allocated).size());
+        assertEquals(199, Collections.max(allocated) - Collections.min(allocated));
+    }
+}
@@ -0,0 +1,210 @@
+package com.promo.quoter;
+
+import com.promo.quoter.implementations.BlockOrderNumberGenerator;
+import com.promo.quoter.implementations.OrderNumberBlockAllocator;
+import com.promo.quoter.implementations.SnowflakeOrderNumberGenerator;
+import com.promo.quoter.services.OrderNumberGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.Instant;
+import java.time.Year;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OrderNumberGeneratorTest {
+
+    private static final int THREADS = 16;
+    private static final int PER_THREAD = 25_000;
+    private static final long MARCH_2026 = Instant.parse("2026-03-01T12:00:00Z").toEpochMilli();
+
+    @Test
+    void blockGenerator_ConcurrentOrders_NoDuplicatesAndOneAllocationPerBlock() throws Exception {
+        // Arrange
+        OrderNumberBlockAllocator allocator = mock(OrderNumberBlockAllocator.class);
+        AtomicLong blocks = new AtomicLong();
+        when(allocator.allocate()).thenAnswer(invocation -> blocks.getAndIncrement());
+        BlockOrderNumberGenerator generator = new BlockOrderNumberGenerator(allocator, 1000);
+
+        // Act
+        assertUniqueUnderLoad(generator);
+
+        // Assert - 400k numbers take exactly 400 blocks plus the one prefetched, none wasted by racing refills
+        verify(allocator, timeout(1000).times(THREADS * PER_THREAD / 1000 + 1)).allocate();
+    }
+
+    @Test
+    void blockGenerator_HalfOfBlockUsed_NextReservedOffTheOrderThread() {
+        // Arrange
+        OrderNumberBlockAllocator allocator = mock(OrderNumberBlockAllocator.class);
+        AtomicLong blocks = new AtomicLong();
+        Set<Thread> allocatingThreads = ConcurrentHashMap.newKeySet();
+        when(allocator.allocate()).thenAnswer(invocation -> {
+            allocatingThreads.add(Thread.currentThread());
+            return blocks.getAndIncrement();
+        });
+        BlockOrderNumberGenerator generator = new BlockOrderNumberGenerator(allocator, 10);
+        generator.afterSingletonsInstantiated();
+
+        // Act
+        List<String> issued = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            issued.add(generator.next());
+        }
+
+        // Assert - the block reserved at startup, then the next one once the sixth number is taken
+        verify(allocator, timeout(1000).times(2)).allocate();
+        assertFalse(allocatingThreads.contains(Thread.currentThread()));
+        String year = "ORD-" + Year.now().getValue() + "-";
+        assertEquals(List.of(year + "000001", year + "000002", year + "000003",
+                year + "000004", year + "000005", year + "000006"), issued);
+        for (int i = 0; i < 5; i++) {
+            generator.next();
+        }
+        assertEquals(year + "000012", generator.next());
+    }
+
+    @Test
+    void blockGenerator_TwoReplicas_NeverOverlap() {
+        // Arrange - both replicas share one block sequence
+        OrderNumberBlockAllocator allocator = mock(OrderNumberBlockAllocator.class);
+        AtomicLong blocks = new AtomicLong();
+        when(allocator.allocate()).thenAnswer(invocation -> blocks.getAndIncrement());
+        OrderNumberGenerator first = new BlockOrderNumberGenerator(allocator, 10);
+        OrderNumberGenerator second = new BlockOrderNumberGenerator(allocator, 10);
+
+        // Act
+        Set<String> issued = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            issued.add(first.next());
+            issued.add(second.next());
+        }
+
+        // Assert
+        assertEquals(200, issued.size());
+        assertTrue(issued.contains("ORD-" + Year.now().getValue() + "-000001"));
+    }
+
+    @Test
+    void snowflakeGenerator_ConcurrentOrders_NoDuplicates() throws Exception {
+        assertUniqueUnderLoad(new SnowflakeOrderNumberGenerator(7, 1000));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void benchmark_BothGenerators_SustainOneHundredThousandPerSecond() throws Exception {
+        OrderNumberBlockAllocator allocator = mock(OrderNumberBlockAllocator.class);
+        AtomicLong blocks = new AtomicLong();
+        when(allocator.allocate()).thenAnswer(invocation -> blocks.getAndIncrement());
+        OrderNumberGenerator block = new BlockOrderNumberGenerator(allocator, 1000);
+        OrderNumberGenerator snowflake = new SnowflakeOrderNumberGenerator(7, 1000);
+
+        // Warm up, then measure
+        assertUniqueUnderLoad(block);
+        assertUniqueUnderLoad(snowflake);
+        double blockRate = assertUniqueUnderLoad(block);
+        double snowflakeRate = assertUniqueUnderLoad(snowflake);
+
+        System.out.printf("%d order numbers on %d threads: block %.0f/s, snowflake %.0f/s%n",
+                THREADS * PER_THREAD, THREADS, blockRate, snowflakeRate);
+        assertTrue(blockRate >= 100_000, "Block generator issued only " + (long) blockRate + "/s");
+        assertTrue(snowflakeRate >= 100_000, "Snowflake generator issued only " + (long) snowflakeRate + "/s");
+    }
+
+    @Test
+    void snowflakeGenerator_ClockStepsBack_WaitsUntilWithinMaxAheadAndKeepsIncreasing() {
+        // Arrange - once stepped back, every clock read advances it by a second
+        long[] now = {MARCH_2026};
+        boolean[] steppedBack = {false};
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(1, 1000,
+                () -> steppedBack[0] ? now[0] += 1000 : now[0]);
+
+        // Act
+        String beforeStep = generator.next();
+        now[0] -= 60_000;
+        steppedBack[0] = true;
+        String afterStep = generator.next();
+
+        // Assert - the first number was issued at most a second ahead, so the clock had to get that close again
+        assertTrue(afterStep.compareTo(beforeStep) > 0, afterStep + " should sort after " + beforeStep);
+        assertTrue(now[0] >= MARCH_2026, "Issued before the clock caught up");
+        assertTrue(beforeStep.startsWith("ORD-2026-"));
+        assertEquals(22, beforeStep.length());
+    }
+
+    @Test
+    void snowflakeGenerator_RestartedAfterRunningAhead_NeverRepeats() {
+        // Arrange - a fresh generator starts 2 ms ahead and uses up that whole millisecond
+        SnowflakeOrderNumberGenerator beforeRestart = new SnowflakeOrderNumberGenerator(1, 2, () -> MARCH_2026);
+        String lastBeforeRestart = null;
+        for (int i = 0; i < 4096; i++) {
+            lastBeforeRestart = beforeRestart.next();
+        }
+
+        // Act - the restart took a millisecond
+        SnowflakeOrderNumberGenerator afterRestart = new SnowflakeOrderNumberGenerator(1, 2, () -> MARCH_2026 + 1);
+        String firstAfterRestart = afterRestart.next();
+
+        // Assert
+        assertTrue(firstAfterRestart.compareTo(lastBeforeRestart) > 0,
+                firstAfterRestart + " should sort after " + lastBeforeRestart);
+    }
+
+    @Test
+    void snowflakeGenerator_SameMillisecondOnTwoNodes_Differ() {
+        SnowflakeOrderNumberGenerator first = new SnowflakeOrderNumberGenerator(1, 1000, () -> MARCH_2026);
+        SnowflakeOrderNumberGenerator second = new SnowflakeOrderNumberGenerator(2, 1000, () -> MARCH_2026);
+
+        assertNotEquals(first.next(), second.next());
+    }
+
+    @Test
+    void snowflakeGenerator_NodeIdOutOfRange_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeOrderNumberGenerator(1024, 1000));
+    }
+
+    @Test
+    void snowflakeGenerator_NodeIdNotConfigured_FailsToStart() {
+        assertThrows(IllegalStateException.class, () -> new SnowflakeOrderNumberGenerator(-1, 1000));
+    }
+
+    /**
+     * @return order numbers issued per second across all threads
+     */
+    private double assertUniqueUnderLoad(OrderNumberGenerator generator) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String[]>> batches = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            batches.add(executor.submit(() -> {
+                String[] numbers = new String[PER_THREAD];
+                start.await();
+                for (int i = 0; i < PER_THREAD; i++) {
+                    numbers[i] = generator.next();
+                }
+                return numbers;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        Set<String> issued = new HashSet<>(THREADS * PER_THREAD * 2);
+        for (Future<String[]> batch : batches) {
+            Collections.addAll(issued, batch.get(1, TimeUnit.MINUTES));
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        executor.shutdown();
+
+        assertEquals(THREADS * PER_THREAD, issued.size());
+        return THREADS * PER_THREAD / seconds;
+    }
+}
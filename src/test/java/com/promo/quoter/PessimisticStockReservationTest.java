@@ -0,0 +1,129 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CompactCart;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.exception.InsufficientStockException;
+import com.promo.quoter.implementations.PessimisticStockReservation;
+import com.promo.quoter.implementations.StripedStockAllocator;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.services.StockReservationStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PessimisticStockReservationTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private StripedStockAllocator stripedStock;
+
+    private PessimisticStockReservation reservation;
+
+    @BeforeEach
+    void setUp() {
+        reservation = new PessimisticStockReservation(productRepository, stripedStock, 0);
+    }
+
+    @Test
+    void reserve_LocksAllProductsOnceInCanonicalOrder() {
+        // Arrange - ids whose signed and unsigned orders differ, added in reverse order
+        UUID low = new UUID(0x0000000000000001L, 0L);
+        UUID high = new UUID(0x8000000000000000L, 0L);
+        Product lowProduct = product(low, 10);
+        Product highProduct = product(high, 10);
+
+        CompactCart cart = CompactCart.builder(2).add(high, 3).add(low, 4).build();
+        when(productRepository.lockAllInCanonicalOrder(anyList(), anyInt())).thenReturn(List.of(lowProduct, highProduct));
+
+        // Act
+        Map<UUID, Product> reserved = reservation.reserve(cart);
+
+        // Assert - one statement, ids in unsigned byte order, NOWAIT passed through
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<UUID>> ids = ArgumentCaptor.forClass(List.class);
+        verify(productRepository, times(1)).lockAllInCanonicalOrder(ids.capture(), eq(0));
+        assertEquals(List.of(low, high), ids.getValue());
+        assertEquals(6, lowProduct.getStock());
+        assertEquals(7, highProduct.getStock());
+        assertSame(highProduct, reserved.get(high));
+    }
+
+    @Test
+    void reserve_ShortLine_ReportsEveryShortItemAndLeavesStockUntouched() {
+        // Arrange
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        Product firstProduct = product(first, 1);
+        Product secondProduct = product(second, 50);
+        Product thirdProduct = product(third, 0);
+
+        CompactCart cart = CompactCart.builder(3).add(first, 2).add(second, 5).add(third, 1).build();
+        when(productRepository.lockAllInCanonicalOrder(anyList(), anyInt()))
+                .thenReturn(List.of(firstProduct, secondProduct, thirdProduct));
+
+        // Act & Assert
+        InsufficientStockException exception = assertThrows(InsufficientStockException.class,
+                () -> reservation.reserve(cart));
+        assertTrue(exception.getMessage().contains("requested: 2, available: 1"));
+        assertTrue(exception.getMessage().contains("requested: 1, available: 0"));
+        assertEquals(1, firstProduct.getStock());
+        assertEquals(50, secondProduct.getStock());
+        assertEquals(0, thirdProduct.getStock());
+    }
+
+    @Test
+    void reserve_UnknownProduct_ThrowsNotFound() {
+        UUID known = UUID.randomUUID();
+        UUID unknown = UUID.randomUUID();
+        CompactCart cart = CompactCart.builder(2).add(known, 1).add(unknown, 1).build();
+        when(productRepository.lockAllInCanonicalOrder(anyList(), anyInt())).thenReturn(List.of(product(known, 5)));
+
+        CustomException exception = assertThrows(CustomException.class, () -> reservation.reserve(cart));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+        assertTrue(exception.getMessage().contains(unknown.toString()));
+    }
+
+    @Test
+    void canonicalOrder_MatchesStringOrder() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(UUID.randomUUID());
+        }
+
+        List<UUID> canonical = new ArrayList<>(ids);
+        canonical.sort(StockReservationStrategy.CANONICAL_ORDER);
+        List<UUID> byString = new ArrayList<>(ids);
+        byString.sort(Comparator.comparing(UUID::toString));
+
+        assertEquals(byString, canonical);
+    }
+
+    private Product product(UUID id, int stock) {
+        return Product.builder()
+                .id(id)
+                .name("Product " + id)
+                .price(new BigDecimal("10.00"))
+                .stock(stock)
+                .category(ProductCategory.ELECTRONICS)
+                .build();
+    }
+}
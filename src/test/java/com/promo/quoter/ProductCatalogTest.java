@@ -0,0 +1,136 @@
+package com.promo.quoter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.promo.quoter.dtos.ProductDto;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.services.ProductCatalogService;
+import com.promo.quoter.services.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:product-catalog;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "catalog.stream.fetch-size=7",
+        "inventory.striping.rebalance-interval-ms=3600000",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.springframework.transaction=WARN",
+        "logging.level.com.promo.quoter=WARN"
+})
+@ActiveProfiles("h2")
+class ProductCatalogTest {
+
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void listProducts_PagesThroughOneCategoryInIdOrder_WithRequestedFieldsOnly() {
+        // Arrange - 23 products in the category, one striped, and others around them
+        Set<UUID> expected = new HashSet<>();
+        for (int i = 0; i < 23; i++) {
+            expected.add(product("Other " + i, ProductCategory.OTHER, 10).getId());
+            product("Food " + i, ProductCategory.FOOD, 10);
+        }
+        UUID striped = expected.iterator().next();
+        productService.enableStriping(striped, 4);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act
+        List<ProductDto.CatalogItem> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ProductDto.CatalogPage page = productCatalogService.listProducts(ProductCategory.OTHER,
+                    EnumSet.of(ProductDto.Field.NAME, ProductDto.Field.STOCK), cursor, 5);
+            seen.addAll(page.getProducts());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // Assert
+        assertEquals(5, pages);
+        assertEquals(expected, seen.stream().map(ProductDto.CatalogItem::getId).collect(Collectors.toSet()));
+        assertEquals(23, seen.size());
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(seen.get(i - 1).getId().compareTo(seen.get(i).getId()) < 0);
+        }
+        assertTrue(seen.stream().allMatch(item -> item.getName().startsWith("Other ")
+                && item.getPrice() == null && item.getCategory() == null));
+        assertTrue(seen.stream().allMatch(item -> item.getStock() == 10));
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void streamProducts_WritesEveryProductAsOneJsonArray() throws Exception {
+        for (int i = 0; i < 30; i++) {
+            product("Streamed " + i, ProductCategory.CLOTHING, i);
+        }
+        long total = productRepository.count();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        productCatalogService.streamProducts(null, null, out);
+
+        JsonNode products = objectMapper.readTree(out.toByteArray());
+        assertTrue(products.isArray());
+        assertEquals(total, products.size());
+        JsonNode first = products.get(0);
+        assertTrue(first.has("id") && first.has("name") && first.has("category") && first.has("price")
+                && first.has("stock"));
+
+        ByteArrayOutputStream clothing = new ByteArrayOutputStream();
+        productCatalogService.streamProducts(ProductCategory.CLOTHING, EnumSet.of(ProductDto.Field.PRICE), clothing);
+        JsonNode prices = objectMapper.readTree(clothing.toByteArray());
+        assertEquals(30, prices.size());
+        assertFalse(prices.get(0).has("name"));
+        assertTrue(prices.get(0).has("price"));
+    }
+
+    @Test
+    void listProducts_InvalidCursorOrLimit_BadRequest() {
+        CustomException cursor = assertThrows(CustomException.class,
+                () -> productCatalogService.listProducts(null, null, "%%%", 10));
+        CustomException limit = assertThrows(CustomException.class,
+                () -> productCatalogService.listProducts(null, null, null, 0));
+
+        assertEquals(HttpStatus.BAD_REQUEST, cursor.getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST, limit.getStatus());
+    }
+
+    private Product product(String name, ProductCategory category, int stock) {
+        return productRepository.save(Product.builder()
+                .name(name)
+                .category(category)
+                .price(new BigDecimal("9.99"))
+                .stock(stock)
+                .build());
+    }
+}
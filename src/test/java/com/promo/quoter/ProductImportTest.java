@@ -0,0 +1,192 @@
+package com.promo.quoter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.promo.quoter.dtos.ProductDto;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.implementations.ProductImportServiceImpl;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.services.ProductImportService;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:product-import;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "catalog.import.chunk-size=3",
+        "catalog.import.max-reported-errors=3",
+        "inventory.striping.rebalance-interval-ms=3600000",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.springframework.transaction=WARN",
+        "logging.level.com.promo.quoter=WARN"
+})
+@ActiveProfiles("h2")
+class ProductImportTest {
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Test
+    void importProducts_Csv_StoresValidRowsAndReportsTheRest() throws Exception {
+        String csv = """
+                name,category,price,stock
+                Csv Kettle,ELECTRONICS,30.00,5
+                "Csv Socks, pack of 3",clothing,9.99,
+                ,BOOKS,12.00,1
+                Csv Gadget,TOYS,5.00,1
+                Csv Lamp,ELECTRONICS,-1,1
+
+                Csv Bread,FOOD,2.50,40
+                Csv Pen,OTHER,abc,1
+                Csv Mug,OTHER,4.00,3
+                """;
+
+        ProductDto.ImportReport report = productImportService.importProducts(stream(csv), ProductDto.ImportFormat.CSV);
+
+        assertEquals(4, report.getImported());
+        assertEquals(4, report.getFailed());
+        // Only the first three errors are listed
+        assertEquals(List.of(4L, 5L, 6L), report.getErrors().stream().map(ProductDto.RowError::getLine).toList());
+        assertEquals("Product name must not be blank", report.getErrors().get(0).getMessage());
+        assertEquals("Unknown category: TOYS", report.getErrors().get(1).getMessage());
+        assertEquals("Price must be greater than 0", report.getErrors().get(2).getMessage());
+
+        Map<String, Product> stored = productsNamed("Csv ");
+        assertEquals(4, stored.size());
+        Product socks = stored.get("Csv Socks, pack of 3");
+        assertEquals(ProductCategory.CLOTHING, socks.getCategory());
+        assertEquals(0, socks.getStock());
+        assertEquals(0, new BigDecimal("9.99").compareTo(socks.getPrice()));
+        assertEquals(40, stored.get("Csv Bread").getStock());
+        assertFalse(socks.isStriped());
+    }
+
+    @Test
+    void importProducts_Ndjson_StoresValidRowsAndReportsTheRest() throws Exception {
+        String ndjson = """
+                {"name":"Json Kettle","category":"ELECTRONICS","price":30.00,"stock":5}
+                {"name":"Json Broken","category":
+                {"name":"Json Free","category":"FOOD","price":0,"stock":1}
+                {"name":"Json Novel","category":"BOOKS","price":12.50,"stock":7}
+                """;
+
+        ProductDto.ImportReport report = productImportService.importProducts(stream(ndjson),
+                ProductDto.ImportFormat.NDJSON);
+
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertEquals(2L, report.getErrors().get(0).getLine());
+        assertTrue(report.getErrors().get(0).getMessage().startsWith("Invalid JSON"));
+        assertEquals("Price must be greater than 0", report.getErrors().get(1).getMessage());
+        assertEquals(7, productsNamed("Json ").get("Json Novel").getStock());
+    }
+
+    @Test
+    void importProducts_ChunkRejectedByDatabase_RetriesRowsAndReportsOnlyTheBadOne() throws Exception {
+        JdbcTemplate rejecting = mock(JdbcTemplate.class);
+        when(rejecting.batchUpdate(anyString(), anyList())).thenThrow(new DataIntegrityViolationException("chunk"));
+        when(rejecting.update(anyString(), any(Object[].class))).thenAnswer(invocation ->
+                "Rejected".equals(invocation.getArgument(2)) ? failRow() : 1);
+        String csv = """
+                name,category,price
+                Kept,OTHER,1.00
+                Rejected,OTHER,1.00
+                Also kept,OTHER,1.00
+                """;
+
+        ProductDto.ImportReport report = importer(rejecting, 10).importProducts(stream(csv),
+                ProductDto.ImportFormat.CSV);
+
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(3L, report.getErrors().get(0).getLine());
+        assertEquals("Rejected by the database: duplicate", report.getErrors().get(0).getMessage());
+    }
+
+    @Test
+    void importProducts_CsvWithoutRequiredColumns_BadRequest() {
+        CustomException exception = assertThrows(CustomException.class, () ->
+                productImportService.importProducts(stream("name,price\nKettle,3.00\n"), ProductDto.ImportFormat.CSV));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    /**
+     * Imports a 200k row supplier catalog. Run with {@code -Dbenchmarks=true}; on MySQL the batches go out as
+     * multi-row inserts through {@code rewriteBatchedStatements}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void benchmark_TwoHundredThousandRowCsv() throws Exception {
+        int rows = 200_000;
+        StringBuilder csv = new StringBuilder("name,category,price,stock\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("Bench item ").append(i).append(",OTHER,").append(1 + i % 500).append(".99,").append(i % 100)
+                    .append('\n');
+        }
+        long before = productRepository.count();
+
+        long started = System.nanoTime();
+        ProductDto.ImportReport report = importer(jdbcTemplate, 1000).importProducts(stream(csv.toString()),
+                ProductDto.ImportFormat.CSV);
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        System.out.printf("Imported %d products in %.1f s: %.0f rows/s%n", report.getImported(), seconds,
+                report.getImported() / seconds);
+        assertEquals(rows, report.getImported());
+        assertEquals(before + rows, productRepository.count());
+    }
+
+    private ProductImportService importer(JdbcTemplate jdbc, int chunkSize) {
+        return new ProductImportServiceImpl(jdbc, transactionTemplate, objectMapper, validator, chunkSize, 1000);
+    }
+
+    private static int failRow() {
+        throw new DataIntegrityViolationException("duplicate");
+    }
+
+    private Map<String, Product> productsNamed(String prefix) {
+        return productRepository.findAll().stream()
+                .filter(product -> product.getName().startsWith(prefix))
+                .collect(Collectors.toMap(Product::getName, product -> product));
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -16,9 +16,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import java.math.BigDecimal;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -35,6 +32,9 @@ class ProductServiceImplTest {
     @Mock
     private ModelMapper modelMapper;
 
+    @Mock
+    private StripedStockAllocator stripedStock;
+
     @InjectMocks
     private ProductServiceImpl productService;
 
@@ -126,50 +126,4 @@ class ProductServiceImplTest {
         verify(modelMapper, times(1)).map(nullDto, Product.class);
         verify(productRepository, times(1)).save(null);
     }
-
-    @Test
-    @DisplayName("Should return all products when they exist")
-    void findAll_ShouldReturnAllProducts_WhenProductsExist() {
-        // Given
-        Product product1 = Product.builder()
-                .id(UUID.randomUUID())
-                .name("Product 1")
-                .category(ProductCategory.ELECTRONICS)
-                .price(new BigDecimal("199.99"))
-                .stock(20)
-                .build();
-
-        Product product2 = Product.builder()
-                .id(UUID.randomUUID())
-                .name("Product 2")
-                .category(ProductCategory.BOOKS)
-                .price(new BigDecimal("19.99"))
-                .stock(50)
-                .build();
-
-        List<Product> expectedProducts = Arrays.asList(product1, product2);
-        when(productRepository.findAll()).thenReturn(expectedProducts);
-
-        // When
-        List<Product> actualProducts = productService.findAll();
-
-        // Then
-        assertThat(actualProducts).hasSize(2);
-        assertThat(actualProducts).containsExactly(product1, product2);
-        verify(productRepository, times(1)).findAll();
-    }
-
-    @Test
-    @DisplayName("Should return empty list when no products exist")
-    void findAll_ShouldReturnEmptyList_WhenNoProductsExist() {
-        // Given
-        when(productRepository.findAll()).thenReturn(Collections.emptyList());
-
-        // When
-        List<Product> actualProducts = productService.findAll();
-
-        // Then
-        assertThat(actualProducts).isEmpty();
-        verify(productRepository, times(1)).findAll();
-    }
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CartQuoteRequest;
+import com.promo.quoter.dtos.OrderHistoryDto;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.enums.CustomerSegment;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.implementations.ReplicaLagGuard;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.services.CartService;
+import com.promo.quoter.services.OrderHistoryService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two separate in-memory H2 databases stand in for the primary and its replica; "replication" copies the
+ * primary into the replica with SCRIPT / RUNSCRIPT, so anything written afterwards shows up as replica lag.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "spring.datasource.replica.username=sa",
+        "spring.datasource.replica.password=",
+        "spring.datasource.replica.driver-class-name=org.h2.Driver",
+        "spring.datasource.replica.lag-guard.max-lag-ms=60000",
+        "spring.datasource.replica.lag-guard.check-interval-ms=3600000",
+        // Reads have to reach a database to show where they were routed
+        "catalog.cache.enabled=false",
+        "inventory.striping.rebalance-interval-ms=3600000",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.springframework.transaction=WARN",
+        "logging.level.com.promo.quoter=WARN"
+})
+@ActiveProfiles("h2")
+class ReadReplicaRoutingTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReplicaLagGuard lagGuard;
+
+    @Autowired
+    private OrderHistoryService orderHistoryService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primary;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replica;
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void readOnlyTransactions_UseReplicaUntilItLagsBehind() {
+        // Arrange - a product replicated with a fresh heartbeat
+        Product product = productRepository.save(Product.builder()
+                .name("Routed")
+                .category(ProductCategory.ELECTRONICS)
+                .price(new BigDecimal("30.00"))
+                .stock(5)
+                .build());
+        CartQuoteRequest request = new CartQuoteRequest(
+                List.of(new CartQuoteRequest.CartItem(product.getId().toString(), 1)), CustomerSegment.REGULAR);
+        lagGuard.check();
+        replicate();
+        lagGuard.check();
+        assertTrue(lagGuard.isReplicaUsable());
+
+        // Act - the confirmation writes to the primary only
+        cartService.confirmCart(request, null);
+
+        // Assert - quotes read the replica, which has not seen the reservation
+        assertEquals(5, availableStock(request));
+        assertEquals(4, stockIn(primary, product.getId()));
+        assertEquals(5, stockIn(replica, product.getId()));
+
+        // Once the replica falls behind, quotes go back to the primary
+        new JdbcTemplate(replica).update("UPDATE replica_heartbeat SET beat_millis = 0");
+        lagGuard.check();
+        assertFalse(lagGuard.isReplicaUsable());
+        assertEquals(4, availableStock(request));
+        assertEquals(0.0, meterRegistry.get("datasource.replica.usable").gauge().value());
+    }
+
+    @Test
+    void getOrder_JustConfirmedAndNotYetReplicated_FoundOnThePrimary() {
+        // Arrange - the replica is fresh enough to serve reads but has not seen the order
+        Product product = productRepository.save(Product.builder()
+                .name("Tracked")
+                .category(ProductCategory.ELECTRONICS)
+                .price(new BigDecimal("15.00"))
+                .stock(3)
+                .build());
+        lagGuard.check();
+        replicate();
+        lagGuard.check();
+        assertTrue(lagGuard.isReplicaUsable());
+        String orderId = cartService.confirmCart(new CartQuoteRequest(
+                List.of(new CartQuoteRequest.CartItem(product.getId().toString(), 1)), CustomerSegment.REGULAR),
+                null).getOrderId();
+
+        // Act
+        OrderHistoryDto.OrderSummary order = orderHistoryService.getOrder(orderId, null);
+
+        // Assert
+        assertEquals(orderId, order.getOrderId());
+        assertEquals(0, new JdbcTemplate(replica).queryForObject(
+                "SELECT COUNT(*) FROM orders WHERE order_id = ?", Integer.class, orderId));
+    }
+
+    private int availableStock(CartQuoteRequest request) {
+        return cartService.calculateQuote(request).getLineItems().get(0).getAvailableStock();
+    }
+
+    private void replicate() {
+        String script = tempDir.resolve(UUID.randomUUID() + ".sql").toString();
+        new JdbcTemplate(primary).execute("SCRIPT TO '" + script + "'");
+        JdbcTemplate replicaJdbc = new JdbcTemplate(replica);
+        replicaJdbc.execute("DROP ALL OBJECTS");
+        replicaJdbc.execute("RUNSCRIPT FROM '" + script + "'");
+    }
+
+    private static int stockIn(DataSource dataSource, UUID productId) {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT stock FROM product WHERE id = ?", Integer.class, productId);
+    }
+}
@@ -0,0 +1,103 @@
+package com.promo.quoter;
+
+import com.promo.quoter.implementations.ReservationContentionMonitor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationContentionMonitorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void recordConflict_RateAboveThreshold_SwitchesOnlyThatSkuAndGivesOnlyItPerSkuMeters() {
+        ReservationContentionMonitor monitor = new ReservationContentionMonitor(0.2, 10, 60_000, 600_000, meterRegistry);
+        UUID hot = UUID.randomUUID();
+        UUID calm = UUID.randomUUID();
+
+        for (int i = 0; i < 9; i++) {
+            monitor.recordConflict(hot);
+            monitor.recordSuccess(calm);
+        }
+        // Not enough samples yet
+        assertFalse(monitor.isPessimistic(hot));
+
+        monitor.recordConflict(hot);
+        monitor.recordSuccess(calm);
+        monitor.recordLocked(hot);
+
+        assertTrue(monitor.isPessimistic(hot));
+        assertFalse(monitor.isPessimistic(calm));
+        assertEquals(20, meterRegistry.get("inventory.reservation.optimistic.attempts").counter().count());
+        assertEquals(10, meterRegistry.get("inventory.reservation.optimistic.conflicts").counter().count());
+        assertEquals(1, meterRegistry.get("inventory.reservation.optimistic.locked").counter().count());
+        assertEquals(10, counter("inventory.reservation.optimistic.sku.conflicts", hot));
+        assertEquals(1, counter("inventory.reservation.optimistic.sku.locked", hot));
+        assertEquals(1, meterRegistry.get("inventory.reservation.optimistic.sku.pessimistic")
+                .tag("product", hot.toString()).gauge().value());
+        assertNull(meterRegistry.find("inventory.reservation.optimistic.sku.attempts")
+                .tag("product", calm.toString()).functionCounter());
+    }
+
+    @Test
+    void evictIdle_SkusWithoutRecentReservations_ForgottenWithTheirMeters() throws InterruptedException {
+        ReservationContentionMonitor monitor = new ReservationContentionMonitor(0.2, 1, 50, 100, meterRegistry);
+        UUID contended = UUID.randomUUID();
+        for (int i = 0; i < 3; i++) {
+            monitor.recordConflict(contended);
+        }
+        for (int i = 0; i < 1000; i++) {
+            monitor.recordSuccess(UUID.randomUUID());
+        }
+        assertEquals(1001, monitor.trackedSkus());
+
+        // Nothing has been idle long enough yet
+        monitor.evictIdle();
+        assertEquals(1001, monitor.trackedSkus());
+
+        Thread.sleep(150);
+        monitor.evictIdle();
+
+        assertEquals(0, monitor.trackedSkus());
+        assertNull(meterRegistry.find("inventory.reservation.optimistic.sku.conflicts")
+                .tag("product", contended.toString()).functionCounter());
+        assertEquals(1003, meterRegistry.get("inventory.reservation.optimistic.attempts").counter().count());
+    }
+
+    @Test
+    void recordConflict_OccasionalConflicts_StayOptimistic() {
+        ReservationContentionMonitor monitor = new ReservationContentionMonitor(0.2, 10, 60_000, 600_000, meterRegistry);
+        UUID sku = UUID.randomUUID();
+
+        for (int i = 0; i < 200; i++) {
+            if (i % 20 == 0) {
+                monitor.recordConflict(sku);
+            } else {
+                monitor.recordSuccess(sku);
+            }
+        }
+
+        assertFalse(monitor.isPessimistic(sku));
+    }
+
+    @Test
+    void isPessimistic_AfterTheLockingPeriod_ReturnsToOptimistic() throws InterruptedException {
+        ReservationContentionMonitor monitor = new ReservationContentionMonitor(0.2, 1, 50, 600_000, meterRegistry);
+        UUID sku = UUID.randomUUID();
+
+        for (int i = 0; i < 3; i++) {
+            monitor.recordConflict(sku);
+        }
+        assertTrue(monitor.isPessimistic(sku));
+
+        Thread.sleep(100);
+        assertFalse(monitor.isPessimistic(sku));
+    }
+
+    private double counter(String name, UUID productId) {
+        return meterRegistry.get(name).tag("product", productId.toString()).functionCounter().count();
+    }
+}
@@ -0,0 +1,118 @@
+package com.promo.quoter;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The context only starts if Hibernate validates the migrated schema against the entity mappings; the query
+ * plans below are H2's, for the same lookups the repositories run.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:schema-migration;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "inventory.striping.rebalance-interval-ms=3600000",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.springframework.transaction=WARN",
+        "logging.level.com.promo.quoter=WARN"
+})
+@ActiveProfiles("h2")
+class SchemaMigrationTest {
+
+    private static final String UUID_LITERAL = "'0190b1a2-0000-7000-8000-000000000001'";
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migrate_AppliesEveryVersion() {
+        List<String> applied = Arrays.stream(flyway.info().applied())
+                .map(MigrationInfo::getVersion)
+                .map(Object::toString)
+                .toList();
+
+        assertEquals(List.of("1", "2", "3", "4", "5"), applied);
+        assertEquals(0, flyway.info().pending().length);
+    }
+
+    @Test
+    void migrate_DatabaseFromBeforeMigrations_BaselinedAndGivenTheLaterVersions() {
+        // Arrange - the schema ddl-auto created before any migration existed
+        DataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:schema-before-migrations;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/h2/V1__baseline_schema.sql"))
+                .execute(dataSource);
+
+        // Act
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/h2")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+        // Assert
+        JdbcTemplate before = new JdbcTemplate(dataSource);
+        List<String> tables = before.queryForList("SELECT LOWER(table_name) FROM information_schema.tables " +
+                "WHERE table_schema = 'PUBLIC'", String.class);
+        assertTrue(tables.containsAll(List.of("idempotency_claims", "stock_holds", "product_stock_buckets",
+                "inventory_ledger_flushes", "order_number_blocks", "replica_heartbeat", "journaled_order_markers")),
+                tables::toString);
+        assertEquals(1, before.queryForObject("SELECT COUNT(*) FROM information_schema.columns " +
+                "WHERE table_name = 'ORDERS' AND column_name = 'RESPONSE_SNAPSHOT'", Integer.class));
+        assertEquals(2, before.queryForObject("SELECT COUNT(*) FROM information_schema.columns " +
+                "WHERE table_name = 'PRODUCT' AND column_name IN ('STRIPED', 'VERSION')", Integer.class));
+    }
+
+    @Test
+    void promotionExistsLookups_UseIndexes() {
+        assertUsesIndex("IDX_PROMOTION_CATEGORY",
+                "SELECT id FROM promotion WHERE promo_type = 'PERCENT_OFF_CATEGORY' AND category = 'BOOKS'");
+        assertUsesIndex("IDX_PROMOTION_PRODUCT",
+                "SELECT id FROM promotion WHERE promo_type = 'BUY_X_GET_Y' AND product_id = " + UUID_LITERAL);
+    }
+
+    @Test
+    void productCategoryListing_UsesIndex() {
+        assertUsesIndex("IDX_PRODUCT_CATEGORY",
+                "SELECT id, name FROM product WHERE category = 'BOOKS' AND id > " + UUID_LITERAL + " ORDER BY id");
+    }
+
+    @Test
+    void orderLineLookups_UseIndexes() {
+        assertUsesIndex("IDX_ORDER_ITEMS_ORDER_PRODUCT",
+                "SELECT product_id, SUM(quantity) FROM order_items WHERE order_id IN (" + UUID_LITERAL + ") " +
+                        "GROUP BY product_id");
+        assertUsesIndex("IDX_ORDER_PROMOTIONS_ORDER",
+                "SELECT id, promotion_id, discount_amount FROM order_promotions WHERE order_id = " + UUID_LITERAL);
+    }
+
+    @Test
+    void orderDateRange_UsesIndex() {
+        assertUsesIndex("IDX_ORDERS_CREATED_AT",
+                "SELECT id FROM orders WHERE created_at >= TIMESTAMP '2025-01-01 00:00:00' " +
+                        "AND created_at < TIMESTAMP '2025-02-01 00:00:00' ORDER BY created_at, id");
+    }
+
+    private void assertUsesIndex(String index, String sql) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+        assertNotNull(plan);
+        assertTrue(plan.contains("PUBLIC." + index), () -> "Expected " + index + " in plan:\n" + plan);
+    }
+}
@@ -0,0 +1,178 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CartQuoteRequest;
+import com.promo.quoter.dtos.CartQuoteResponse;
+import com.promo.quoter.entities.CatalogProduct;
+import com.promo.quoter.entities.PercentOffCategoryPromotion;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.entities.Promotion;
+import com.promo.quoter.enums.CustomerSegment;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.enums.PromotionType;
+import com.promo.quoter.repos.IdempotencyClaimRepository;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.repos.PromotionRepository;
+import com.promo.quoter.services.CartService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:second-level-cache;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "inventory.striping.rebalance-interval-ms=3600000",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.springframework.transaction=WARN",
+        "logging.level.com.promo.quoter=WARN"
+})
+@ActiveProfiles("h2")
+class SecondLevelCacheTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+
+    @Autowired
+    private IdempotencyClaimRepository idempotencyClaimRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void calculateQuote_StockTakenOnAnotherInstance_ServesCurrentStock() {
+        // Arrange - a second instance on the same database, with a second-level cache of its own
+        Product product = saveProduct("Shared", 5);
+        UUID id = product.getId();
+        try (ConfigurableApplicationContext other = new SpringApplicationBuilder(PromoQuoterApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=h2",
+                        "--spring.datasource.url=jdbc:h2:mem:second-level-cache;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+                        "--inventory.striping.rebalance-interval-ms=3600000",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.springframework.transaction=WARN",
+                        "--logging.level.com.promo.quoter=WARN")) {
+            CartService otherCartService = other.getBean(CartService.class);
+            assertEquals(5, availableStock(cartService, id));
+            assertEquals(5, availableStock(otherCartService, id));
+
+            // Act - the other instance reserves with a locked update and with a JPQL update
+            otherCartService.confirmCart(cartFor(id, 2), null);
+            assertEquals(3, availableStock(cartService, id));
+            other.getBean(TransactionTemplate.class).executeWithoutResult(tx ->
+                    other.getBean(ProductRepository.class).incrementStock(id, 4));
+
+            // Assert - neither instance answers from a stale copy of the stock
+            assertEquals(7, availableStock(cartService, id));
+            assertEquals(7, availableStock(otherCartService, id));
+            assertEquals(7, productRepository.findById(id).orElseThrow().getStock());
+        }
+    }
+
+    @Test
+    void calculateQuote_RepeatedQuotes_ServeCatalogFieldsFromTheCache() {
+        // Arrange
+        Product product = saveProduct("Catalog", 5);
+        CacheRegionStatistics region = statistics.getCacheRegionStatistics(CatalogProduct.CACHE_REGION);
+        cartService.calculateQuote(cartFor(product.getId(), 1));
+
+        // Act
+        long hits = region.getHitCount();
+        long misses = region.getMissCount();
+        CartQuoteResponse quote = cartService.calculateQuote(cartFor(product.getId(), 1));
+
+        // Assert
+        assertEquals(hits + 1, region.getHitCount());
+        assertEquals(misses, region.getMissCount());
+        assertEquals("Catalog", quote.getLineItems().get(0).getProductName());
+        assertEquals(5, quote.getLineItems().get(0).getAvailableStock());
+        assertNotNull(meterRegistry.find("hibernate.second.level.cache.requests")
+                .tag("region", CatalogProduct.CACHE_REGION)
+                .tag("result", "hit")
+                .functionCounter());
+    }
+
+    @Test
+    void findAll_Promotions_CachedUntilThePromotionsTableChanges() {
+        savePromotion("10% off books");
+        promotionRepository.findAll();
+
+        // Unrelated native writes name their table, so they leave the query cache alone
+        transactionTemplate.executeWithoutResult(tx ->
+                idempotencyClaimRepository.claim("cache-test-" + UUID.randomUUID(), LocalDateTime.now()));
+        long queryHits = statistics.getQueryCacheHitCount();
+        int before = promotionRepository.findAll().size();
+        assertEquals(queryHits + 1, statistics.getQueryCacheHitCount());
+
+        savePromotion("20% off books");
+        List<Promotion> after = promotionRepository.findAll();
+
+        assertEquals(before + 1, after.size());
+        assertEquals(queryHits + 1, statistics.getQueryCacheHitCount());
+        assertNotNull(meterRegistry.find("hibernate.second.level.cache.requests")
+                .tag("region", Promotion.CACHE_REGION)
+                .tag("result", "hit")
+                .functionCounter());
+    }
+
+    private Product saveProduct(String name, int stock) {
+        return productRepository.save(Product.builder()
+                .name(name)
+                .category(ProductCategory.BOOKS)
+                .price(new BigDecimal("20.00"))
+                .stock(stock)
+                .build());
+    }
+
+    private void savePromotion(String description) {
+        promotionRepository.save(PercentOffCategoryPromotion.builder()
+                .promotionType(PromotionType.PERCENT_OFF_CATEGORY)
+                .description(description)
+                .percentOff(new BigDecimal("10"))
+                .category(ProductCategory.BOOKS)
+                .build());
+    }
+
+    private static int availableStock(CartService service, UUID productId) {
+        return service.calculateQuote(cartFor(productId, 1)).getLineItems().get(0).getAvailableStock();
+    }
+
+    private static CartQuoteRequest cartFor(UUID productId, int quantity) {
+        return new CartQuoteRequest(
+                List.of(new CartQuoteRequest.CartItem(productId.toString(), quantity)), CustomerSegment.REGULAR);
+    }
+}
@@ -0,0 +1,86 @@
+package com.promo.quoter;
+
+import com.promo.quoter.implementations.SingleFlight;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+
+    @Test
+    void execute_ConcurrentCallsWithSameKey_RunTheWorkOnceAndShareTheResult() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch leaderRunning = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+
+        Future<Integer> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            leaderRunning.countDown();
+            await(release);
+            return runs.incrementAndGet();
+        }));
+        leaderRunning.await();
+        List<Future<Integer>> followers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            followers.add(executor.submit(() -> singleFlight.execute("key", runs::incrementAndGet)));
+        }
+        // Followers must be parked on the leader before it finishes
+        Thread.sleep(100);
+        release.countDown();
+
+        assertEquals(1, leader.get(5, TimeUnit.SECONDS));
+        for (Future<Integer> follower : followers) {
+            assertEquals(1, follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, runs.get());
+        assertEquals(0, singleFlight.size());
+        executor.shutdown();
+    }
+
+    @Test
+    void execute_LeaderFails_FollowersGetTheSameExceptionAndTheKeyIsFreed() throws Exception {
+        CountDownLatch leaderRunning = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        Future<Integer> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            leaderRunning.countDown();
+            await(release);
+            throw new IllegalStateException("out of stock");
+        }));
+        leaderRunning.await();
+        Future<Integer> follower = executor.submit(() -> singleFlight.execute("key", () -> 42));
+        Thread.sleep(100);
+        release.countDown();
+
+        ExecutionException leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException followerFailure = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, leaderFailure.getCause());
+        assertSame(leaderFailure.getCause(), followerFailure.getCause());
+
+        // Later calls run fresh
+        assertEquals(7, singleFlight.execute("key", () -> 7));
+        executor.shutdown();
+    }
+
+    @Test
+    void execute_DifferentKeys_RunIndependently() {
+        assertEquals(1, singleFlight.execute("a", () -> 1));
+        assertEquals(2, singleFlight.execute("b", () -> 2));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
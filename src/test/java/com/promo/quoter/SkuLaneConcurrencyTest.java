@@ -0,0 +1,13 @@
+package com.promo.quoter;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the contention scenario with reservations queued through per-SKU lanes.
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sku-lane-stress;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "inventory.reservation.lanes.enabled=true"
+})
+class SkuLaneConcurrencyTest extends StockReservationConcurrencyTest {
+}
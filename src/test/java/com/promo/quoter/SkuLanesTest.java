@@ -0,0 +1,162 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CompactCart;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.implementations.SkuLanes;
+import com.promo.quoter.implementations.StripedStockAllocator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Timeout(30)
+class SkuLanesTest {
+
+    private final UUID hot = UUID.randomUUID();
+    private final UUID other = UUID.randomUUID();
+    private final StripedStockAllocator stripedStock = mock(StripedStockAllocator.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SkuLanes lanes = new SkuLanes(stripedStock, meterRegistry, 32, 1000);
+
+    @Test
+    void execute_SameSku_RunsOneCartAtATime() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        runConcurrently(32, i -> CompactCart.builder(1).add(hot, 1).build(), () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(2);
+            running.decrementAndGet();
+        });
+
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    void execute_OverlappingCartsInAnyLineOrder_NeverRunTogetherOrDeadlock() throws Exception {
+        AtomicInteger runningOnHot = new AtomicInteger();
+        AtomicInteger maxRunningOnHot = new AtomicInteger();
+
+        // Half the carts list the SKUs the other way round; lanes are still entered in canonical order
+        runConcurrently(64, i -> i % 2 == 0
+                ? CompactCart.builder(2).add(hot, 1).add(other, 1).build()
+                : CompactCart.builder(2).add(other, 1).add(hot, 1).build(), () -> {
+            maxRunningOnHot.accumulateAndGet(runningOnHot.incrementAndGet(), Math::max);
+            runningOnHot.decrementAndGet();
+        });
+
+        assertEquals(1, maxRunningOnHot.get());
+    }
+
+    @Test
+    void execute_DifferentSkus_RunInParallel() throws Exception {
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        Runnable work = () -> {
+            bothRunning.countDown();
+            try {
+                assertTrue(bothRunning.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() ->
+                lanes.execute(CompactCart.builder(1).add(hot, 1).build(), () -> { work.run(); return null; }));
+        lanes.execute(CompactCart.builder(1).add(other, 1).build(), () -> { work.run(); return null; });
+        first.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void execute_WorkFails_PropagatesExceptionAndFreesTheLane() {
+        CompactCart cart = CompactCart.builder(1).add(hot, 1).build();
+
+        CustomException exception = assertThrows(CustomException.class, () -> lanes.execute(cart, () -> {
+            throw new CustomException("Insufficient stock", HttpStatus.CONFLICT);
+        }));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        assertEquals("done", lanes.execute(cart, () -> "done"));
+    }
+
+    @Test
+    void execute_LaneFull_RejectsWithTooManyRequests() throws Exception {
+        SkuLanes narrow = new SkuLanes(stripedStock, meterRegistry, 32, 1);
+        CompactCart cart = CompactCart.builder(1).add(hot, 1).build();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> holder = CompletableFuture.supplyAsync(() -> narrow.execute(cart, () -> {
+            started.countDown();
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        CustomException exception = assertThrows(CustomException.class, () -> narrow.execute(cart, () -> "late"));
+        release.countDown();
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getStatus());
+        assertEquals(true, holder.get(10, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.get("inventory.reservation.lanes.rejected").counter().count());
+    }
+
+    @Test
+    void execute_AnyCart_RunsOnTheCallerThread() {
+        when(stripedStock.isStriped(any())).thenAnswer(invocation -> hot.equals(invocation.getArgument(0)));
+        SkuLanes small = new SkuLanes(stripedStock, meterRegistry, 1, 1000);
+        Thread caller = Thread.currentThread();
+
+        assertSame(caller, small.execute(CompactCart.builder(1).add(hot, 1).build(), Thread::currentThread));
+        assertSame(caller, small.execute(CompactCart.builder(2).add(other, 1).add(UUID.randomUUID(), 1).build(),
+                Thread::currentThread));
+        // Queued through the lane of the one unstriped SKU, but still run by the caller
+        assertSame(caller, small.execute(CompactCart.builder(2).add(hot, 1).add(other, 1).build(),
+                Thread::currentThread));
+    }
+
+    private void runConcurrently(int carts, java.util.function.IntFunction<CompactCart> cartFactory, Runnable work)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < carts; i++) {
+                CompactCart cart = cartFactory.apply(i);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return lanes.execute(cart, () -> {
+                        work.run();
+                        return null;
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(20, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CartConfirmResponse;
+import com.promo.quoter.dtos.CartQuoteRequest;
+import com.promo.quoter.entities.Order;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.enums.CustomerSegment;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.repos.OrderRepository;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.repos.StockHoldRepository;
+import com.promo.quoter.services.CartService;
+import com.promo.quoter.services.StockHoldService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock-holds;DB_CLOSE_DELAY=-1",
+        "inventory.holds.ttl-seconds=1",
+        "inventory.holds.tick-ms=100"
+})
+@ActiveProfiles("h2")
+class StockHoldLifecycleTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private StockHoldService stockHoldService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockHoldRepository stockHoldRepository;
+
+    @Test
+    void holdCommitReleaseAndExpiry_MoveStockAndOrderStatus() throws InterruptedException {
+        Product product = productRepository.save(Product.builder()
+                .name("Limited Edition")
+                .category(ProductCategory.ELECTRONICS)
+                .price(new BigDecimal("99.00"))
+                .stock(10)
+                .build());
+        CartQuoteRequest request = new CartQuoteRequest(
+                List.of(new CartQuoteRequest.CartItem(product.getId().toString(), 3)), CustomerSegment.REGULAR);
+
+        // Hold then commit: stock stays taken
+        CartConfirmResponse committed = cartService.holdCart(request, null);
+        assertEquals(CartConfirmResponse.OrderStatus.PENDING, committed.getStatus());
+        assertNotNull(committed.getHoldExpiresAt());
+        assertEquals(7, stock(product));
+        assertEquals(CartConfirmResponse.OrderStatus.CONFIRMED, stockHoldService.commit(committed.getOrderId()).getStatus());
+
+        // Hold then release: stock comes back
+        CartConfirmResponse released = cartService.holdCart(request, null);
+        assertEquals(4, stock(product));
+        assertEquals(CartConfirmResponse.OrderStatus.CANCELLED, stockHoldService.release(released.getOrderId()).getStatus());
+        assertEquals(7, stock(product));
+
+        // Hold and walk away: the sweeper cancels it after the TTL
+        CartConfirmResponse abandoned = cartService.holdCart(request, null);
+        assertEquals(4, stock(product));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (status(abandoned) == Order.OrderStatus.PENDING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertEquals(Order.OrderStatus.CANCELLED, status(abandoned));
+        assertEquals(7, stock(product));
+        assertTrue(stockHoldRepository.findAll().isEmpty());
+    }
+
+    private int stock(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getStock();
+    }
+
+    private Order.OrderStatus status(CartConfirmResponse response) {
+        return orderRepository.findAll().stream()
+                .filter(order -> order.getOrderId().equals(response.getOrderId()))
+                .findFirst().orElseThrow().getStatus();
+    }
+}
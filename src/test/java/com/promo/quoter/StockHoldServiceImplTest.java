@@ -0,0 +1,153 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CartConfirmResponse;
+import com.promo.quoter.entities.Order;
+import com.promo.quoter.entities.OrderItem;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.entities.StockHold;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.implementations.OrderResponseMapper;
+import com.promo.quoter.implementations.StockHoldRegistry;
+import com.promo.quoter.implementations.StockHoldServiceImpl;
+import com.promo.quoter.repos.OrderRepository;
+import com.promo.quoter.repos.StockHoldRepository;
+import com.promo.quoter.services.StockReservationStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockHoldServiceImplTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private StockHoldRegistry stockHoldRegistry;
+
+    @Mock
+    private StockReservationStrategy stockReservationStrategy;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private StockHoldServiceImpl stockHoldService;
+    private Product product;
+    private Order order;
+    private StockHold hold;
+
+    @BeforeEach
+    void setUp() {
+        stockHoldService = new StockHoldServiceImpl(orderRepository, stockHoldRegistry, stockReservationStrategy,
+                new OrderResponseMapper(), new TransactionTemplate(transactionManager));
+
+        product = Product.builder().id(UUID.randomUUID()).name("Held").price(new BigDecimal("10.00")).stock(7).build();
+        order = Order.builder()
+                .orderId("ORD-2025-000001")
+                .status(Order.OrderStatus.PENDING)
+                .finalTotal(new BigDecimal("30.00"))
+                .appliedPromotions(new ArrayList<>())
+                .build();
+        order.setOrderItems(new ArrayList<>(List.of(
+                OrderItem.builder().order(order).product(product).quantity(3).unitPrice(new BigDecimal("10.00")).build())));
+        hold = StockHold.builder().orderId(order.getOrderId()).expiresAt(LocalDateTime.now().plusMinutes(5)).build();
+    }
+
+    @Test
+    void commit_LiveHold_ConfirmsOrderAndKeepsStock() {
+        when(orderRepository.findByOrderIdWithLock(order.getOrderId())).thenReturn(Optional.of(order));
+        when(stockHoldRegistry.find(order.getOrderId())).thenReturn(Optional.of(hold));
+
+        CartConfirmResponse response = stockHoldService.commit(order.getOrderId());
+
+        assertEquals(CartConfirmResponse.OrderStatus.CONFIRMED, response.getStatus());
+        verify(stockHoldRegistry).remove(hold);
+        verify(stockReservationStrategy, never()).release(any());
+
+        // Committing again is a no-op
+        assertEquals(CartConfirmResponse.OrderStatus.CONFIRMED, stockHoldService.commit(order.getOrderId()).getStatus());
+        verify(stockHoldRegistry, times(1)).remove(hold);
+    }
+
+    @Test
+    void commit_ExpiredOrReleasedHold_Conflicts() {
+        hold.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+        when(orderRepository.findByOrderIdWithLock(order.getOrderId())).thenReturn(Optional.of(order));
+        when(stockHoldRegistry.find(order.getOrderId())).thenReturn(Optional.of(hold));
+
+        CustomException expired = assertThrows(CustomException.class, () -> stockHoldService.commit(order.getOrderId()));
+        assertEquals(HttpStatus.CONFLICT, expired.getStatus());
+        assertEquals(Order.OrderStatus.PENDING, order.getStatus());
+
+        order.setStatus(Order.OrderStatus.CANCELLED);
+        CustomException released = assertThrows(CustomException.class, () -> stockHoldService.commit(order.getOrderId()));
+        assertEquals(HttpStatus.CONFLICT, released.getStatus());
+    }
+
+    @Test
+    void release_PendingHold_ReturnsStockAndCancelsOrder() {
+        when(orderRepository.findByOrderIdWithLock(order.getOrderId())).thenReturn(Optional.of(order));
+        when(stockHoldRegistry.find(order.getOrderId())).thenReturn(Optional.of(hold));
+
+        CartConfirmResponse response = stockHoldService.release(order.getOrderId());
+
+        assertEquals(CartConfirmResponse.OrderStatus.CANCELLED, response.getStatus());
+        verify(stockReservationStrategy).release(Map.of(product.getId(), 3));
+        verify(stockHoldRegistry).remove(hold);
+
+        // Confirmed orders cannot be released through the hold API
+        order.setStatus(Order.OrderStatus.CONFIRMED);
+        CustomException exception = assertThrows(CustomException.class, () -> stockHoldService.release(order.getOrderId()));
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+    }
+
+    @Test
+    void expireDueHolds_ReleasesOnlyHoldsStillPending() {
+        Order committed = Order.builder().orderId("ORD-2025-000002").status(Order.OrderStatus.CONFIRMED).build();
+        when(stockHoldRegistry.due()).thenReturn(List.of(order.getOrderId(), committed.getOrderId(), "ORD-MISSING"));
+        when(orderRepository.findByOrderIdWithLock(order.getOrderId())).thenReturn(Optional.of(order));
+        when(orderRepository.findByOrderIdWithLock(committed.getOrderId())).thenReturn(Optional.of(committed));
+        when(orderRepository.findByOrderIdWithLock("ORD-MISSING")).thenReturn(Optional.empty());
+        when(stockHoldRegistry.find(any())).thenReturn(Optional.of(hold));
+
+        assertEquals(1, stockHoldService.expireDueHolds());
+
+        assertEquals(Order.OrderStatus.CANCELLED, order.getStatus());
+        assertEquals(Order.OrderStatus.CONFIRMED, committed.getStatus());
+        verify(stockReservationStrategy, times(1)).release(Map.of(product.getId(), 3));
+    }
+
+    @Test
+    void removeAll_ManyHolds_DeletedInChunksOfAThousand() {
+        // Arrange
+        StockHoldRepository stockHoldRepository = mock(StockHoldRepository.class);
+        StockHoldRegistry registry = new StockHoldRegistry(stockHoldRepository,
+                new TransactionTemplate(transactionManager), 900, 1000);
+        List<String> orderIds = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            orderIds.add("ORD-2025-" + i);
+        }
+
+        // Act
+        registry.removeAll(orderIds);
+
+        // Assert
+        ArgumentCaptor<Collection<String>> chunks = ArgumentCaptor.captor();
+        verify(stockHoldRepository, times(3)).deleteByOrderIds(chunks.capture());
+        assertEquals(List.of(1000, 1000, 500), chunks.getAllValues().stream().map(Collection::size).toList());
+    }
+}
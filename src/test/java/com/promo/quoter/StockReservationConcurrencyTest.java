@@ -0,0 +1,115 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CartQuoteRequest;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.enums.CustomerSegment;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.repos.OrderRepository;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.services.CartService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Confirms carts that share SKUs listed in opposite orders from many threads at once. Without canonical
+ * lock ordering these transactions deadlock; with it every confirmation must succeed.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reservation-stress;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "inventory.reservation.lock-timeout-ms=10000",
+        "inventory.reservation.lock-attempts=1",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.springframework.transaction=WARN",
+        "logging.level.com.promo.quoter=WARN"
+})
+@ActiveProfiles("h2")
+class StockReservationConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int CONFIRMS_PER_THREAD = 25;
+    private static final int INITIAL_STOCK = 10_000;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void confirmCart_OppositeLockOrdersUnderContention_NoDeadlocksAndConsistentStock() throws Exception {
+        // Arrange - three shared SKUs, half the carts list them forwards and half backwards
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            products.add(productRepository.save(Product.builder()
+                    .name("Contended " + i)
+                    .category(ProductCategory.ELECTRONICS)
+                    .price(new BigDecimal("5.00"))
+                    .stock(INITIAL_STOCK)
+                    .build()));
+        }
+        long ordersBefore = orderRepository.count();
+
+        CartQuoteRequest forward = cart(products.get(0), products.get(1), products.get(2));
+        CartQuoteRequest backward = cart(products.get(2), products.get(1), products.get(0));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        for (int t = 0; t < THREADS; t++) {
+            CartQuoteRequest request = t % 2 == 0 ? forward : backward;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < CONFIRMS_PER_THREAD; i++) {
+                    try {
+                        cartService.confirmCart(request, null);
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        awaitStockPersisted();
+
+        // Assert - every confirmation succeeded and every unit is accounted for
+        assertTrue(failures.isEmpty(), () -> failures.size() + " confirmations failed, first: " + failures.peek());
+        int confirmed = THREADS * CONFIRMS_PER_THREAD;
+        assertEquals(ordersBefore + confirmed, orderRepository.count());
+        for (Product product : products) {
+            assertEquals(INITIAL_STOCK - confirmed, productRepository.findById(product.getId()).orElseThrow().getStock());
+        }
+    }
+
+    // Strategies that write stock behind the order commit override this to drain their backlog
+    protected void awaitStockPersisted() {
+    }
+
+    private CartQuoteRequest cart(Product... products) {
+        List<CartQuoteRequest.CartItem> items = new ArrayList<>();
+        for (Product product : products) {
+            items.add(new CartQuoteRequest.CartItem(product.getId().toString(), 1));
+        }
+        return new CartQuoteRequest(items, CustomerSegment.REGULAR);
+    }
+}
@@ -0,0 +1,270 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CartQuoteRequest;
+import com.promo.quoter.dtos.ProductDto;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.enums.CustomerSegment;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.exception.CustomException;
+import com.promo.quoter.implementations.StripedStockAllocator;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.repos.ProductStockBucketRepository;
+import com.promo.quoter.services.CartService;
+import com.promo.quoter.services.ProductCatalogService;
+import com.promo.quoter.services.ProductService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:striped-stock;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "inventory.reservation.lock-timeout-ms=10000",
+        "inventory.striping.rebalance-interval-ms=3600000",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.springframework.transaction=WARN",
+        "logging.level.com.promo.quoter=WARN"
+})
+@ActiveProfiles("h2")
+class StripedStockTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductStockBucketRepository bucketRepository;
+
+    @Autowired
+    private StripedStockAllocator stripedStock;
+
+    @Test
+    void confirmCart_StripedHotSku_NeverOversellsAndListsBucketTotal() throws Exception {
+        // Arrange - 100 units over 8 buckets, 120 single-unit confirmations
+        Product hot = product("Striped hot SKU", 100);
+        Product striped = productService.enableStriping(hot.getId(), 8);
+        assertEquals(100, striped.getStock());
+        assertEquals(0, productRepository.findById(hot.getId()).orElseThrow().getStock());
+        assertEquals(100, listedStock(hot.getId()));
+
+        // Act
+        AtomicInteger confirmed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        runConcurrently(12, 10, () -> {
+            try {
+                cartService.confirmCart(cart(hot.getId(), 1), null);
+                confirmed.incrementAndGet();
+            } catch (CustomException e) {
+                assertEquals(HttpStatus.CONFLICT, e.getStatus());
+                rejected.incrementAndGet();
+            }
+        });
+
+        // Assert
+        assertEquals(100, confirmed.get());
+        assertEquals(20, rejected.get());
+        assertEquals(0, listedStock(hot.getId()));
+        assertTrue(bucketRepository.findStockLevels(hot.getId()).stream().allMatch(level -> level == 0));
+    }
+
+    @Test
+    void confirmCart_LineLargerThanAnyBucket_DrainsSeveralThenRebalances() {
+        // Arrange - 4 buckets of 10
+        Product hot = product("Striped bulk SKU", 40);
+        productService.enableStriping(hot.getId(), 4);
+
+        // Act
+        var response = cartService.confirmCart(cart(hot.getId(), 25), null);
+        stripedStock.rebalance();
+
+        // Assert
+        assertEquals(1, response.getReservedItems().size());
+        assertEquals(15, listedStock(hot.getId()));
+        assertEquals(15, cartService.calculateQuote(cart(hot.getId(), 1)).getLineItems().get(0).getAvailableStock());
+        List<Integer> levels = bucketRepository.findStockLevels(hot.getId());
+        assertEquals(List.of(4, 4, 4, 3), levels);
+        CustomException shortage = assertThrows(CustomException.class, () -> cartService.confirmCart(cart(hot.getId(), 16), null));
+        assertEquals(HttpStatus.CONFLICT, shortage.getStatus());
+        assertEquals(15, listedStock(hot.getId()));
+    }
+
+    @Test
+    void reserve_CoveringBucketDrainedConcurrently_RestartsInsteadOfLockingLowerBuckets() {
+        // Arrange - only bucket 2 looked like it could cover the line, and its conditional update finds it drained
+        UUID productId = UUID.randomUUID();
+        ProductStockBucketRepository buckets = mock(ProductStockBucketRepository.class);
+        when(buckets.countByProductId(productId)).thenReturn(4L);
+        when(buckets.findStockLevels(productId)).thenReturn(List.of(0, 0, 5, 0));
+        when(buckets.decrementIfAvailable(productId, 2, 5)).thenReturn(0);
+        StripedStockAllocator allocator = new StripedStockAllocator(buckets, productRepository, null, "pessimistic");
+
+        // Act & Assert - bucket 2 may stay locked, so buckets 0 and 1 must not be locked after it
+        assertThrows(CannotAcquireLockException.class, () -> allocator.reserve(productId, 5));
+        verify(buckets, never()).lockStockLevel(any(), anyInt());
+    }
+
+    @Test
+    void reserve_SecondCartInSameTransaction_ReusesHeldBucketAndNeverLocksALowerOne() {
+        // Arrange - one transaction placing several carts, as group commit does
+        UUID productId = UUID.randomUUID();
+        ProductStockBucketRepository buckets = mock(ProductStockBucketRepository.class);
+        when(buckets.countByProductId(productId)).thenReturn(4L);
+        when(buckets.findStockLevels(productId))
+                .thenReturn(List.of(0, 0, 0, 5))
+                .thenReturn(List.of(0, 0, 0, 4))
+                .thenReturn(List.of(9, 0, 0, 0));
+        when(buckets.decrementIfAvailable(eq(productId), anyInt(), anyInt())).thenReturn(1);
+        StripedStockAllocator allocator = new StripedStockAllocator(buckets, productRepository, null, "pessimistic");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act & Assert - bucket 3 is taken first and served the next cart too
+            allocator.reserve(productId, 1);
+            allocator.reserve(productId, 1);
+            verify(buckets, times(2)).decrementIfAvailable(productId, 3, 1);
+
+            // Only bucket 0 could cover this one, but it would be locked after bucket 3
+            assertThrows(CannotAcquireLockException.class, () -> allocator.reserve(productId, 5));
+            verify(buckets, never()).decrementIfAvailable(productId, 0, 5);
+            verify(buckets, never()).lockStockLevel(any(), anyInt());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reserve_ProductBeforeOneAlreadyLockedInTransaction_Restarts() {
+        // Arrange - a later product's bucket is already held when a cart needs an earlier product
+        UUID earlier = new UUID(1, 1);
+        UUID later = new UUID(2, 2);
+        ProductStockBucketRepository buckets = mock(ProductStockBucketRepository.class);
+        when(buckets.countByProductId(any())).thenReturn(2L);
+        when(buckets.findStockLevels(any())).thenReturn(List.of(5, 5));
+        when(buckets.decrementIfAvailable(eq(later), anyInt(), anyInt())).thenReturn(1);
+        StripedStockAllocator allocator = new StripedStockAllocator(buckets, productRepository, null, "pessimistic");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            allocator.reserve(later, 1);
+
+            // Act & Assert
+            assertThrows(CannotAcquireLockException.class, () -> allocator.reserve(earlier, 1));
+            verify(buckets, never()).decrementIfAvailable(eq(earlier), anyInt(), anyInt());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Compares confirmations of one hot SKU through the locked product row against the same load on a striped
+     * SKU. Run with {@code -Dbenchmarks=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void benchmark_HotSkuConfirmations_LockedRowVersusStripes() throws Exception {
+        int threads = 32;
+        int confirmsPerThread = 50;
+        Product locked = product("Benchmark locked SKU", threads * confirmsPerThread);
+        Product striped = product("Benchmark striped SKU", threads * confirmsPerThread);
+        productService.enableStriping(striped.getId(), 16);
+
+        AtomicInteger lockedConfirmed = new AtomicInteger();
+        AtomicInteger stripedConfirmed = new AtomicInteger();
+        long lockedNanos = runConcurrently(threads, confirmsPerThread, () -> confirmCounting(locked, lockedConfirmed));
+        long stripedNanos = runConcurrently(threads, confirmsPerThread, () -> confirmCounting(striped, stripedConfirmed));
+
+        int confirms = threads * confirmsPerThread;
+        System.out.printf("Hot SKU, %d confirmations on %d threads: locked row %.0f/s, 16 stripes %.0f/s%n",
+                confirms, threads,
+                lockedConfirmed.get() / (lockedNanos / 1e9), stripedConfirmed.get() / (stripedNanos / 1e9));
+        assertEquals(confirms - lockedConfirmed.get(), productRepository.findById(locked.getId()).orElseThrow().getStock());
+        assertEquals(confirms - stripedConfirmed.get(), listedStock(striped.getId()));
+    }
+
+    private void confirmCounting(Product product, AtomicInteger confirmed) {
+        try {
+            cartService.confirmCart(cart(product.getId(), 1), null);
+            confirmed.incrementAndGet();
+        } catch (CustomException e) {
+            // A confirmation that runs out of lock attempts is rolled back and not counted
+        }
+    }
+
+    private long runConcurrently(int threads, int iterations, Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < iterations; i++) {
+                    task.run();
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return elapsed;
+    }
+
+    private int listedStock(UUID productId) {
+        String cursor = null;
+        do {
+            ProductDto.CatalogPage page = productCatalogService.listProducts(ProductCategory.ELECTRONICS,
+                    EnumSet.of(ProductDto.Field.STOCK), cursor, 100);
+            for (ProductDto.CatalogItem item : page.getProducts()) {
+                if (item.getId().equals(productId)) {
+                    return item.getStock();
+                }
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        throw new AssertionError("Product not listed: " + productId);
+    }
+
+    private Product product(String name, int stock) {
+        return productRepository.save(Product.builder()
+                .name(name)
+                .category(ProductCategory.ELECTRONICS)
+                .price(new BigDecimal("4.00"))
+                .stock(stock)
+                .build());
+    }
+
+    private CartQuoteRequest cart(UUID productId, int quantity) {
+        return new CartQuoteRequest(
+                List.of(new CartQuoteRequest.CartItem(productId.toString(), quantity)), CustomerSegment.REGULAR);
+    }
+}
@@ -0,0 +1,121 @@
+package com.promo.quoter;
+
+import com.promo.quoter.dtos.CartQuoteRequest;
+import com.promo.quoter.entities.Order;
+import com.promo.quoter.entities.OrderItem;
+import com.promo.quoter.entities.Product;
+import com.promo.quoter.entities.UuidV7Generator;
+import com.promo.quoter.enums.CustomerSegment;
+import com.promo.quoter.enums.ProductCategory;
+import com.promo.quoter.repos.OrderRepository;
+import com.promo.quoter.repos.ProductRepository;
+import com.promo.quoter.services.CartService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:time-ordered-ids;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.springframework.transaction=WARN",
+        "logging.level.com.promo.quoter=WARN"
+})
+@ActiveProfiles("h2")
+class TimeOrderedIdTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void confirmCart_NewRows_GetIncreasingVersion7Keys() {
+        // Arrange
+        Product product = productRepository.save(Product.builder()
+                .name("Time-ordered SKU")
+                .category(ProductCategory.ELECTRONICS)
+                .price(new BigDecimal("4.00"))
+                .stock(10)
+                .build());
+        CartQuoteRequest request = new CartQuoteRequest(
+                List.of(new CartQuoteRequest.CartItem(product.getId().toString(), 1)), CustomerSegment.REGULAR);
+
+        // Act
+        cartService.confirmCart(request, "v7-first");
+        cartService.confirmCart(request, "v7-second");
+
+        // Assert
+        assertEquals(7, product.getId().version());
+        transactionTemplate.executeWithoutResult(tx -> {
+            Order earlier = orderRepository.findByIdempotencyKey("v7-first").orElseThrow();
+            Order later = orderRepository.findByIdempotencyKey("v7-second").orElseThrow();
+            assertEquals(7, earlier.getId().version());
+            assertTrue(later.getId().compareTo(earlier.getId()) > 0);
+            for (OrderItem item : later.getOrderItems()) {
+                assertEquals(7, item.getId().version());
+            }
+        });
+    }
+
+    /**
+     * Appends rows to a table already holding {@code benchmarks.uuid.prefill} rows, once with random keys and
+     * once with time-ordered keys. H2 only shows the trend; the gap grows on InnoDB once the index outgrows the
+     * buffer pool.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void benchmark_InsertsIntoLargeTable_RandomVersusTimeOrderedKeys() {
+        int prefill = Integer.getInteger("benchmarks.uuid.prefill", 1_000_000);
+        int inserts = 200_000;
+
+        double random = insertRate("uuid_bench_v4", UUID::randomUUID, prefill, inserts);
+        double timeOrdered = insertRate("uuid_bench_v7", UuidV7Generator::next, prefill, inserts);
+
+        System.out.printf("%d inserts after %d rows: random v4 keys %.0f/s, v7 keys %.0f/s%n",
+                inserts, prefill, random, timeOrdered);
+        assertEquals(prefill + inserts, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM uuid_bench_v7", Integer.class));
+    }
+
+    private double insertRate(String table, Supplier<UUID> keys, int prefill, int inserts) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+        jdbcTemplate.execute("CREATE TABLE " + table + " (id UUID PRIMARY KEY, payload VARCHAR(64))");
+        insert(table, keys, prefill);
+
+        long started = System.nanoTime();
+        insert(table, keys, inserts);
+        return inserts / ((System.nanoTime() - started) / 1e9);
+    }
+
+    private void insert(String table, Supplier<UUID> keys, int rows) {
+        String sql = "INSERT INTO " + table + " (id, payload) VALUES (?, ?)";
+        for (int done = 0; done < rows; done += 1000) {
+            List<Object[]> batch = new ArrayList<>(1000);
+            for (int i = done; i < Math.min(rows, done + 1000); i++) {
+                batch.add(new Object[]{keys.get(), "order payload " + i});
+            }
+            transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.batchUpdate(sql, batch));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.promo.quoter;
+
+import com.promo.quoter.entities.UuidV7Generator;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7GeneratorTest {
+
+    @Test
+    void next_HasVersion7AndRfcVariant() {
+        UUID id = UuidV7Generator.next();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+    }
+
+    @Test
+    void next_CarriesCurrentUnixMillis() {
+        long before = System.currentTimeMillis();
+        UUID id = UuidV7Generator.next();
+        long after = System.currentTimeMillis();
+
+        long millis = id.getMostSignificantBits() >>> 16;
+        // The counter may have carried the timestamp slightly ahead under load from other tests
+        assertTrue(millis >= before && millis <= after + 1000, "timestamp " + millis);
+    }
+
+    @Test
+    void next_ConcurrentCalls_UniqueAndIncreasingPerThread() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<List<UUID>>> batches = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            batches.add(executor.submit(() -> {
+                List<UUID> ids = new ArrayList<>(50_000);
+                for (int i = 0; i < 50_000; i++) {
+                    ids.add(UuidV7Generator.next());
+                }
+                return ids;
+            }));
+        }
+
+        Set<UUID> all = new HashSet<>();
+        for (Future<List<UUID>> batch : batches) {
+            List<UUID> ids = batch.get(1, TimeUnit.MINUTES);
+            for (int i = 1; i < ids.size(); i++) {
+                // Unsigned comparison of the time-ordered half, as MySQL compares binary(16) keys
+                assertTrue(Long.compareUnsigned(ids.get(i).getMostSignificantBits(),
+                        ids.get(i - 1).getMostSignificantBits()) > 0);
+            }
+            all.addAll(ids);
+        }
+        executor.shutdown();
+
+        assertEquals(400_000, all.size());
+    }
+}